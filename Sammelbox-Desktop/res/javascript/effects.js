@@ -8,6 +8,10 @@
 	function showBigPicture(id) {  
 		var str0="show:///bigPicture="; 
 		var str1=document.getElementById(id).src; 
+		// embedded thumbnails are too long for a location, and only the id is evaluated anyway
+		if (str1.indexOf("data:") == 0) {
+			str1="";
+		}
 		var str2="?"; 
 		var str3=id; 
 
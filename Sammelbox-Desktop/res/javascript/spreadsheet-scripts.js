@@ -26,9 +26,12 @@ var dragging = false;
 
 /* global variables to store the item updates/additions/deletions 
  *  deleteTheseObjects is an array of IDs
- *  updateTheseObjects is an array of arrays. One inner array holds one entire row.
- *  elements in the updateTheseObjects array with an id smaller or equal to -1 are new elements. */
-var updateTheseObjects = [];
+ *  addTheseObjects is an array of arrays. One inner array holds one entire row of a new element.
+ *  new elements have an id smaller or equal to -1.
+ *  changedCells is an array of arrays. One inner array holds the id, the column position and the new
+ *  value of a cell of an existing element. Cells which got their original value back are not contained. */
+var addTheseObjects = [];
+var changedCells = [];
 var deleteTheseObjects = [];
 
 var move = 0;
@@ -183,8 +186,8 @@ function fieldIsOk(cell, id) {
  *  attribute to the row (<tr>) as well as checking if the ID is the ID of the 
  *  empty spare row. In that case, it calls the function to handel the addition of
  *  fields. For cells with a particuar type (such as INTEGER), a check with a regex is
- *  executed. Also, for every modified row, the entire row is pushed to an array
- *  which is send to the updateAndDelete java method. */
+ *  executed. For new rows, the entire row is pushed to an array, whereas only the 
+ *  modified cell is recorded for existing rows. Both are send to the updateAndDelete java method. */
 function markAsDirty(id, columnIndex) {	
 	var row = document.getElementById('row:' + id);	
 	var nextFreeId = document.getElementById('nextFreeId').innerHTML;
@@ -210,22 +213,58 @@ function markAsDirty(id, columnIndex) {
 		}
 	}
 	
-	for(var index = 0; index < updateTheseObjects.length; index++) {
-		if (updateTheseObjects[index][0] == id) {
-			remove(updateTheseObjects, updateTheseObjects[index]);	
+	if (id > 0) {
+		markCellAsChanged(id, columnIndex, field);
+	} else {
+		removeByKey(addTheseObjects, id);
+		addTheseObjects.push(getRowValues(id));
+	}
+}
+
+/*  function that records the new value of a cell of an existing row. If the cell got its
+ *  original value back, it is no longer considered to be changed. */
+function markCellAsChanged(id, columnIndex, field) {
+	var columnPosition = posInArray(tableColId, columnIndex);
+	
+	for(var index = changedCells.length; index--;) {
+		if (changedCells[index][0] == id && changedCells[index][1] == columnPosition) {
+			changedCells.splice(index, 1);
 		}
 	}
 	
-	var changeObject = [];
-	changeObject.push(id);
+	if (field.value != getOriginalValue(field)) {
+		changedCells.push([String(id), columnPosition, field.value]);
+	}
+}
+
+/*  function that returns the value which a field (<input> or <select>) had when the spreadsheet was loaded. */
+function getOriginalValue(field) {
+	if (field.options) {
+		for(var index = 0; index < field.options.length; index++) {
+			if (field.options[index].defaultSelected) {
+				return field.options[index].value;
+			}
+		}
+		
+		/* without a preselected option, the first option is shown */
+		return field.options.length > 0 ? field.options[0].value : '';
+	}
+	
+	return field.defaultValue;
+}
+
+/*  function that packs the entire row into an array. The first element is the id. */
+function getRowValues(id) {
+	var rowValues = [];
+	rowValues.push(id);
 	
 	/* Start from 1 because tableColId[0] = id which has no field in the spreadsheet */
-	for(index = 1; index < tableColId.length; index++) {
-		elem = document.getElementById('input:' + tableColId[index] + ":" + id);
-		changeObject.push(elem.value);
+	for(var index = 1; index < tableColId.length; index++) {
+		var elem = document.getElementById('input:' + tableColId[index] + ":" + id);
+		rowValues.push(elem.value);
 	}
 	
-	updateTheseObjects.push(changeObject);
+	return rowValues;
 }
 
 /*  In case of a wrong regular expression, the following two functions are used to increment 
@@ -307,7 +346,7 @@ function posInArray(arr, item) {
 
 /*  A function that is called by markAsDirty() function. It removes the 'empty' class attribute
  *  and adds the 'new' class attribute. Then, the entire row is packed into an array which is 
- *  added to the updateTheseObjects array.
+ *  added to the addTheseObjects array.
  */
 function newItem(id) {
 	var row = document.getElementById('row:' + id);	
@@ -323,15 +362,7 @@ function newItem(id) {
 		}
 	}
 	
-	var changeObject = [];
-	changeObject.push(id);
-	
-	for(var index = 1; index < tableColId.length; index++) {
-		elem = document.getElementById('input:' + tableColId[index] + ":" + id);
-		changeObject.push(elem.value);
-	}
-	
-	updateTheseObjects.push(changeObject);
+	addTheseObjects.push(getRowValues(id));
 }
 
 /*  Function that is triggered during the modification on the spare(empty) cell.
@@ -388,7 +419,7 @@ function deleteRow(id) {
 
 		if (row == rowToDelete) {
 			table.deleteRow(i);
-			removeByKey(updateTheseObjects, id);
+			removeByKey(addTheseObjects, id);
 			decreaseRowCount();
 			return;
 		}
@@ -418,7 +449,7 @@ function increaseModifyCount() {
 
 function checkAndSend() {	
 	if (updateConfirmationDialogFunction()) {
-		spreadsheetUpdateFunction(tableColName, tableColType, updateTheseObjects, deleteTheseObjects);
+		spreadsheetUpdateFunction(tableColName, tableColType, addTheseObjects, changedCells, deleteTheseObjects);
 	}
 }
 
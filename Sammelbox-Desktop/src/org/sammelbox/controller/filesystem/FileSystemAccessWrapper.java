@@ -64,6 +64,7 @@ public final class FileSystemAccessWrapper {
 		boolean dirsCreatedWithoutError = createDirectoryAndLogError(FileSystemLocations.getActiveHomeDir());
 		dirsCreatedWithoutError &= dirsCreatedWithoutError && createDirectoryAndLogError(FileSystemLocations.getAlbumPicturesDir());
 		dirsCreatedWithoutError &= dirsCreatedWithoutError && createDirectoryAndLogError(FileSystemLocations.getThumbnailsDir());
+		dirsCreatedWithoutError &= dirsCreatedWithoutError && createDirectoryAndLogError(FileSystemLocations.getThumbnailCacheDir());
 		dirsCreatedWithoutError &= dirsCreatedWithoutError && createDirectoryAndLogError(FileSystemLocations.getAppDataDir());
 		dirsCreatedWithoutError &= dirsCreatedWithoutError && createDirectoryAndLogError(FileSystemLocations.getAppDataGraphicsDir());
 		dirsCreatedWithoutError &= dirsCreatedWithoutError && createDirectoryAndLogError(FileSystemLocations.getBackupDir());
@@ -391,7 +392,7 @@ public final class FileSystemAccessWrapper {
 
 	/**
 	 * Convenience method to erase all content from the default application home directory.
-	 * The home directory as well as the database will still exist after calling this method. 
+	 * The home directory as well as the database (including its write-ahead log) will still exist after calling this method. 
 	 */
 	public static void clearHomeDirectory() {	
 		File[] files = new File(FileSystemLocations.getActiveHomeDir()).listFiles();
@@ -400,7 +401,7 @@ public final class FileSystemAccessWrapper {
 			for (File file : files) {
 				if (file.isDirectory()) {
 					deleteDirectoryRecursively(file);
-				} else if (!file.getName().equals(FileSystemLocations.DATABASE_NAME) && !file.delete()) {
+				} else if (!file.getName().startsWith(FileSystemLocations.DATABASE_NAME) && !file.delete()) {
 					LOGGER.error("Could not delete: " + FileSystemLocations.DATABASE_NAME);
 				}
 			}
@@ -417,6 +418,14 @@ public final class FileSystemAccessWrapper {
 			FileSystemAccessWrapper.clearHomeDirectory();
 
 			File databaseFile = new File(FileSystemLocations.getDatabaseFile());
+			
+			// Remove write-ahead log files which might remain if the database was not closed properly
+			for (String walFileName : new String[] { FileSystemLocations.DATABASE_WAL_NAME, FileSystemLocations.DATABASE_SHM_NAME }) {
+				File walFile = new File(FileSystemLocations.getActiveHomeDir() + File.separatorChar + walFileName);
+				if (walFile.exists() && !walFile.delete()) {
+					LOGGER.error("Couldnt delete the write-ahead log file " + walFile.getName());
+				}
+			}
 
 			if (!databaseFile.delete() || !homeDirectory.delete()) {
 				LOGGER.error("Couldnt delete database file and/or the home directory");
@@ -35,7 +35,16 @@ public final class FileSystemLocations {
 	
 	public static final String DATABASE_NAME = "sammelbox.db";
 	public static final String DATABASE_TO_RESTORE_NAME = "sammelbox.restore.db";
+	public static final String DATABASE_WAL_NAME = DATABASE_NAME + "-wal";
+	public static final String DATABASE_SHM_NAME = DATABASE_NAME + "-shm";
 	public static final String THUMBNAILS_DIR_NAME = "thumbnails";
+	public static final String THUMBNAIL_CACHE_DIR_NAME = "thumbnail-cache";
+	/** The extension of the thumbnails within the thumbnail cache, which can be regenerated at any time */
+	public static final String CACHED_THUMBNAIL_EXTENSION = ".tier.png";
+	/** The name of the pack within the thumbnail cache, which holds copies of the thumbnails for the browser views */
+	public static final String THUMBNAIL_PACK_NAME = "thumbnails";
+	public static final String THUMBNAIL_PACK_EXTENSION = ".pack";
+	public static final String THUMBNAIL_PACK_INDEX_EXTENSION = ".idx";
 	public static final String BACKUPS_DIR_NAME = "backups";
 	public static final String APP_DATA_DIR_NAME = "app-data";
 	public static final String CSS_JS_DIR_NAME = "css-js";
@@ -60,6 +69,7 @@ public final class FileSystemLocations {
 	public static String getAppDataDir()              { return activeHomeDir + File.separatorChar + APP_DATA_DIR_NAME; }
 	public static String getAppDataGraphicsDir()      { return activeHomeDir + File.separatorChar + APP_DATA_DIR_NAME + File.separatorChar + "graphics"; }
 	public static String getThumbnailsDir()           { return activeHomeDir + File.separatorChar + THUMBNAILS_DIR_NAME; }
+	public static String getThumbnailCacheDir()       { return activeHomeDir + File.separatorChar + THUMBNAIL_CACHE_DIR_NAME; }
 	public static String getBackupDir()               { return activeHomeDir + File.separatorChar + BACKUPS_DIR_NAME; }
 	public static String getAlbumPicturesDir()        { return activeHomeDir + File.separatorChar + ALBUM_PICTURES_DIR_NAME; }
 	public static String getDatabaseFile()            { return activeHomeDir + File.separatorChar + DATABASE_NAME; }
@@ -13,6 +13,7 @@ import org.sammelbox.controller.filesystem.FileSystemLocations;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.view.browser.BrowserFacade;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,11 @@ public class BackupThread extends Thread {
 	private static final String REGEX_OR = "|";
 	private static final String LOCK_FILE_REGEX = REGEX_BEGIN_OF_LINE + "\\.lock" + REGEX_END_OF_LINE;	
 	private static final String DATABASE_FILE_REGEX = REGEX_BEGIN_OF_LINE + FileSystemLocations.DATABASE_NAME + REGEX_END_OF_LINE;
+	private static final String DATABASE_WAL_FILE_REGEX = REGEX_BEGIN_OF_LINE + FileSystemLocations.DATABASE_WAL_NAME + REGEX_END_OF_LINE
+			+ REGEX_OR + REGEX_BEGIN_OF_LINE + FileSystemLocations.DATABASE_SHM_NAME + REGEX_END_OF_LINE;
+	private static final String CACHED_THUMBNAIL_FILE_REGEX = REGEX_BEGIN_OF_LINE + ".*" + FileSystemLocations.CACHED_THUMBNAIL_EXTENSION.replace(".", "\\.") + REGEX_END_OF_LINE;
+	private static final String THUMBNAIL_PACK_FILE_REGEX = REGEX_BEGIN_OF_LINE + FileSystemLocations.THUMBNAIL_PACK_NAME + "\\.[0-9]+(" 
+			+ FileSystemLocations.THUMBNAIL_PACK_EXTENSION.replace(".", "\\.") + REGEX_OR + FileSystemLocations.THUMBNAIL_PACK_INDEX_EXTENSION.replace(".", "\\.") + ").*" + REGEX_END_OF_LINE;
 	
 	private final String backupLocationPath;
 	private String errorString = "";
@@ -50,7 +56,8 @@ public class BackupThread extends Thread {
 		File tempAppDataDir = new File(tempDir.getPath());
 		File sourceAppDataDir = new File(FileSystemLocations.getActiveHomeDir());
 		try {
-			String excludeRegex = LOCK_FILE_REGEX + REGEX_OR + DATABASE_FILE_REGEX; 
+			String excludeRegex = LOCK_FILE_REGEX + REGEX_OR + DATABASE_FILE_REGEX + REGEX_OR + DATABASE_WAL_FILE_REGEX + REGEX_OR + CACHED_THUMBNAIL_FILE_REGEX
+					+ REGEX_OR + THUMBNAIL_PACK_FILE_REGEX; 
 			FileSystemAccessWrapper.copyDirectory(sourceAppDataDir, tempAppDataDir, excludeRegex);
 		} catch (IOException e) {
 			LOGGER.error("An error occurred while creating the backup", e);
@@ -61,10 +68,10 @@ public class BackupThread extends Thread {
 		final String backupToSQLcommand = String.format(
 				BACKUP_TO + "'%s'", tempDir.getPath() + File.separatorChar + FileSystemLocations.DATABASE_TO_RESTORE_NAME);
 		
-		// backup database to file
-		try (Statement statement = ConnectionManager.getConnection().createStatement()){				
+		// backup database to file. A read connection is used to not block modifications while the backup is running
+		try (Statement statement = ConnectionManager.getReadConnection().createStatement()){				
 			 statement.executeUpdate(backupToSQLcommand);
-		} catch (SQLException e) {
+		} catch (SQLException | DatabaseWrapperOperationException e) {
 			LOGGER.error("An error occurred while creating the backup", e);
 			errorString = Translator.get(DictKeys.ERROR_BACKUP_CREATION_FAILED, e.getMessage());
 			done = true;
@@ -18,10 +18,13 @@
 
 package org.sammelbox.controller.filesystem.importing;
 
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.UnitOfWork;
 import org.sammelbox.model.album.*;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
-import org.sammelbox.view.image.ImageManipulator;
+import org.sammelbox.view.image.ImageIngestionService;
 
 import java.io.*;
 import java.sql.Date;
@@ -43,7 +46,9 @@ public final class CSVImporter {
 	public static void importCSV(String albumName, String csvFilePath, String separationCharacter, 
 			String pictureColumnName, String pictureSeparationCharacter, boolean isSimulation) throws ImportException {
 		
-		try (BufferedReader br = new BufferedReader(new FileReader(new File(csvFilePath)));) {
+		// The album is only created if all of its items could be imported
+		try (BufferedReader br = new BufferedReader(new FileReader(new File(csvFilePath)));
+			 UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
 			int pictureColumnIndex = NO_PICTURE_INDEX;
 			
 			List<MetaItemField> metaItemFields = new ArrayList<>();
@@ -51,11 +56,31 @@ public final class CSVImporter {
 			String line = br.readLine();
 			pictureColumnIndex = handleFirstLine(line, albumName, separationCharacter, metaItemFields, pictureColumnName, pictureSeparationCharacter, isSimulation);
 			
+			List<AlbumItem> albumItems = new ArrayList<>();
+			List<File> pictureFiles = new ArrayList<>();
+			List<Integer> numberOfPicturesPerItem = new ArrayList<>();
 			long lineCounter = 2;
 			while ((line = br.readLine()) != null) {
-				handleData(line, lineCounter, albumName, separationCharacter, metaItemFields, pictureSeparationCharacter, pictureColumnIndex, isSimulation);
+				int numberOfPicturesBefore = pictureFiles.size();
+				albumItems.add(handleData(line, lineCounter, albumName, separationCharacter, metaItemFields, pictureSeparationCharacter, pictureColumnIndex, isSimulation, pictureFiles));
+				numberOfPicturesPerItem.add(pictureFiles.size() - numberOfPicturesBefore);
 				lineCounter++;
 			}
+			
+			if (!isSimulation) {
+				// The pictures of all items are processed together, such that all cores can be used
+				List<AlbumItemPicture> pictures = ingestPictures(pictureFiles, albumName);
+				int pictureIndex = 0;
+				for (int itemIndex = 0; itemIndex < albumItems.size(); itemIndex++) {
+					int numberOfPictures = numberOfPicturesPerItem.get(itemIndex);
+					albumItems.get(itemIndex).setPictures(new ArrayList<>(pictures.subList(pictureIndex, pictureIndex + numberOfPictures)));
+					pictureIndex += numberOfPictures;
+				}
+				
+				DatabaseOperations.addAlbumItems(albumName, albumItems);
+			}
+			
+			unitOfWork.commit();
 						
 		} catch (FileNotFoundException fnfe) {
 			throw new ImportException("An error occurred while handling the file", fnfe);
@@ -113,9 +138,24 @@ public final class CSVImporter {
 		return pictureColumnIndex;
 	}
 	
-	static void handleData(String line, long lineCounter, String albumName, String separationCharacter, List<MetaItemField> metaItemFields, 
+	static AlbumItem handleData(String line, long lineCounter, String albumName, String separationCharacter, List<MetaItemField> metaItemFields, 
 			String pictureSeperationCharacter, int pictureColumnIndex, boolean isSimulation) throws DatabaseWrapperOperationException, ImportException {
 		
+		List<File> pictureFiles = new ArrayList<>();
+		AlbumItem albumItem = handleData(line, lineCounter, albumName, separationCharacter, metaItemFields, 
+				pictureSeperationCharacter, pictureColumnIndex, isSimulation, pictureFiles);
+		
+		if (!isSimulation) {
+			albumItem.setPictures(ingestPictures(pictureFiles, albumName));
+		}
+		
+		return albumItem;
+	}
+	
+	/** Parses a data line into an album item without pictures. The picture files of the line are appended to the given list. */
+	private static AlbumItem handleData(String line, long lineCounter, String albumName, String separationCharacter, List<MetaItemField> metaItemFields, 
+			String pictureSeperationCharacter, int pictureColumnIndex, boolean isSimulation, List<File> pictureFiles) throws ImportException {
+		
 		// Credit for the regex goes to Bart Kiers (http://stackoverflow.com/a/1757107/2898363)
 		String[] fieldValues = line.split(separationCharacter + "(?=([^\"]*\"[^\"]*\")*[^\"]*$)", NO_PICTURE_INDEX);
 
@@ -125,7 +165,6 @@ public final class CSVImporter {
 		}
 		
 		List<ItemField> itemFields = new ArrayList<>();
-		List<AlbumItemPicture> pictures = new ArrayList<>();
 		
 		// parse item fields
 		for (int index=0; index<metaItemFields.size(); index++) {
@@ -145,17 +184,50 @@ public final class CSVImporter {
 							throw new ImportException("A problem has been encountered with the image(s) defined for the current line (" + lineCounter + ")");
 						}
 					} else {
-						pictures.add(ImageManipulator.adaptAndStoreImageForCollector(new File(filePath), albumName));
+						pictureFiles.add(new File(filePath));
 					}
 				}
 			}
 		}
 		
 		AlbumItem albumItem = new AlbumItem(albumName, itemFields);
-		albumItem.setPictures(pictures);
+		albumItem.setPictures(new ArrayList<AlbumItemPicture>());
 		
-		if (!isSimulation) {
-			DatabaseOperations.addAlbumItem(albumItem, true);
+		return albumItem;
+	}
+	
+	/** 
+	 * Copies the given images into the album and creates their thumbnails, in parallel. The copies are removed again
+	 * if the changes of the current unit of work are discarded. 
+	 */
+	private static List<AlbumItemPicture> ingestPictures(List<File> pictureFiles, String albumName) throws ImportException {
+		final List<AlbumItemPicture> pictures = ImageIngestionService.ingestImages(pictureFiles, albumName, null);
+		
+		for (int i = 0; i < pictures.size(); i++) {
+			if (pictures.get(i) == null) {
+				// the import fails as a whole, hence the already copied pictures would not be referenced by any item
+				deletePictures(pictures);
+				throw new ImportException("The image " + pictureFiles.get(i).getPath() + " could not be imported");
+			}
+		}
+		
+		// e.g. if storing the items or committing them fails, the copied pictures would not be referenced by any item
+		DatabaseIntegrityManager.runAfterRollback(new Runnable() {
+			@Override
+			public void run() {
+				deletePictures(pictures);
+			}
+		});
+		
+		return pictures;
+	}
+	
+	private static void deletePictures(List<AlbumItemPicture> pictures) {
+		for (AlbumItemPicture picture : pictures) {
+			if (picture != null) {
+				FileSystemAccessWrapper.deleteFile(picture.getThumbnailPicturePath());
+				FileSystemAccessWrapper.deleteFile(picture.getOriginalPicturePath());
+			}
 		}
 	}
 	
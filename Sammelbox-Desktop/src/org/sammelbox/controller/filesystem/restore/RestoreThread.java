@@ -9,8 +9,10 @@ import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.PreparedStatementCache;
 import org.sammelbox.controller.managers.SavedSearchManager;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.browser.BrowserFacade;
 import org.slf4j.Logger;
@@ -68,6 +70,16 @@ public class RestoreThread extends Thread {
 			done = true;
 		}
 	
+		// The statements have been prepared for the tables of the replaced database
+		PreparedStatementCache.invalidateAll();
+		
+		try {
+			// Backups of older versions do not index their picture tables yet
+			DatabaseOperations.createMissingPictureTableIndexes();
+		} catch (DatabaseWrapperOperationException e) {
+			LOGGER.error("The picture tables of the restored backup could not be indexed", e);
+		}
+		
 		if (!FileSystemAccessWrapper.deleteDatabaseRestoreFile()) {
 			LOGGER.error("An issue occurred while updating the album file structure");
 			errorString = Translator.get(DictKeys.ERROR_RESTORE_CLEANUP_FAILED);
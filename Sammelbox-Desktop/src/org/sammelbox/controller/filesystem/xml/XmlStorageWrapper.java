@@ -27,6 +27,7 @@ import org.sammelbox.model.album.Album;
 import org.sammelbox.model.database.QueryComponent;
 import org.sammelbox.model.database.QueryOperator;
 import org.sammelbox.model.settings.ApplicationSettings;
+import org.sammelbox.model.settings.ThumbnailFormat;
 import org.sammelbox.view.SammelView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +58,10 @@ public final class XmlStorageWrapper {
 		return node.getNodeValue();
 	}
 	
+	private static boolean hasValue(String tag, Element element) {
+		return element.getElementsByTagName(tag).getLength() != 0;
+	}
+	
 	public static void storeSettings(ApplicationSettings applicationSettings) {
 		StringBuilder xmlOutput = new StringBuilder();
 		
@@ -66,6 +71,9 @@ public final class XmlStorageWrapper {
 		xmlOutput.append("\t<defaultView>" + applicationSettings.getDefaultView() + "</defaultView>\n");
 		xmlOutput.append("\t<showDebugMenu>" + applicationSettings.showDebugMenu() + "</showDebugMenu>\n");
 		xmlOutput.append("\t<isFullSynchronizationEnabled>" + applicationSettings.isFullSynchronizationEnabled() + "</isFullSynchronizationEnabled>\n");
+		xmlOutput.append("\t<thumbnailFormat>" + applicationSettings.getThumbnailFormat() + "</thumbnailFormat>\n");
+		xmlOutput.append("\t<thumbnailQuality>" + applicationSettings.getThumbnailQuality() + "</thumbnailQuality>\n");
+		xmlOutput.append("\t<isThumbnailPackEnabled>" + applicationSettings.isThumbnailPackEnabled() + "</isThumbnailPackEnabled>\n");
 		xmlOutput.append("</settings>\n");
 		
 		FileSystemAccessWrapper.writeToFile(xmlOutput.toString(), FileSystemLocations.getSettingsXML());
@@ -167,6 +175,17 @@ public final class XmlStorageWrapper {
 					applicationSettings.setDefaultView(SammelView.valueOf(getValue("defaultView", element)));
 					applicationSettings.setShowDebugMenu(Boolean.valueOf(getValue("showDebugMenu", element)));
 					applicationSettings.setFullSynchronizationEnabled(Boolean.valueOf(getValue("isFullSynchronizationEnabled", element)));
+					
+					// Settings files written by older versions do not contain the thumbnail settings yet
+					if (hasValue("thumbnailFormat", element)) {
+						applicationSettings.setThumbnailFormat(ThumbnailFormat.valueOf(getValue("thumbnailFormat", element)));
+					}
+					if (hasValue("thumbnailQuality", element)) {
+						applicationSettings.setThumbnailQuality(Integer.parseInt(getValue("thumbnailQuality", element)));
+					}
+					if (hasValue("isThumbnailPackEnabled", element)) {
+						applicationSettings.setThumbnailPackEnabled(Boolean.valueOf(getValue("isThumbnailPackEnabled", element)));
+					}
 				} catch (RuntimeException exception) {
 					LOGGER.error("Could not properly load settings file. File will be recreated");
 					SettingsManager.storeToSettingsFile();
@@ -272,6 +272,9 @@ public final class DictKeys {
 	public static final String LABEL_IMG_SEPARATOR = "org.sammelbox.label.caption.IMG_SEPARATOR";
 	public static final String LABEL_SELECT_ALBUM = "org.sammelbox.label.caption.SELECT_ALBUM";
 	public static final String LABEL_FULL_SYNC = "org.sammelbox.label.caption.FULL_SYNC";
+	public static final String LABEL_THUMBNAIL_FORMAT = "org.sammelbox.label.caption.THUMBNAIL_FORMAT";
+	public static final String LABEL_THUMBNAIL_QUALITY = "org.sammelbox.label.caption.THUMBNAIL_QUALITY";
+	public static final String LABEL_THUMBNAIL_PACK = "org.sammelbox.label.caption.THUMBNAIL_PACK";
 	public static final String LABEL_PROCESSING_IMG_X_OF_Y = "org.sammelbox.label.caption.PROCESSING_IMG_X_OF_Y";
 	public static final String LABEL_IMAGES = "org.sammelbox.label.caption.IMAGES";
 	public static final String LABEL_SPREADSHEET_ACTION = "org.sammelbox.label.caption.SPREADSHEET_ACTION";
@@ -20,18 +20,36 @@ package org.sammelbox.controller.listeners;
 
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Text;
-import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
-import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.controller.managers.QuickSearchManager;
+import org.sammelbox.controller.managers.QuickSearchManager.QuickSearchResultHandler;
+import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.browser.BrowserFacade;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 public class QuickSearchModifyListener implements ModifyListener {
-	private static final Logger LOGGER = LoggerFactory.getLogger(QuickSearchModifyListener.class);
+	/** Runs the searches in the background and delivers their results on the UI thread */
+	private static final QuickSearchManager QUICK_SEARCH_MANAGER = new QuickSearchManager(new Executor() {
+		@Override
+		public void execute(Runnable runnable) {
+			Display.getDefault().asyncExec(runnable);
+		}
+	}, QuickSearchManager.DEFAULT_DEBOUNCE_DELAY_IN_MILLI_SECONDS);
+	
+	/** Shows the result of a quick search, unless another album has been selected in the meantime */
+	private static final QuickSearchResultHandler SHOW_RESULT_HANDLER = new QuickSearchResultHandler() {
+		@Override
+		public void handleQuickSearchResult(String albumName, List<AlbumItem> albumItems) {
+			if (albumName.equals(ApplicationUI.getSelectedAlbum())) {
+				BrowserFacade.showAlbumItems(albumItems);
+			}
+		}
+	};
 	
 	@Override
 	/** This method launches a quick-search for the entered keywords if an album has been selected*/
@@ -39,15 +57,13 @@ public class QuickSearchModifyListener implements ModifyListener {
 		if (!ApplicationUI.isAlbumSelectedAndShowMessageIfNot()) {
 			return;
 		}
-		try {
-			if (((Text) e.widget).getText().equals("")) {
-				BrowserFacade.showResultSet(DatabaseOperations.executeQuickSearch(ApplicationUI.getSelectedAlbum(), null));
-			} else {
-				BrowserFacade.showResultSet(DatabaseOperations.executeQuickSearch(ApplicationUI.getSelectedAlbum(), 
-						Arrays.asList(((Text) e.widget).getText().split(" "))));
-			}
-		} catch (DatabaseWrapperOperationException ex) {
-			LOGGER.error("An error occurred while performing a quick search on the following string '" + ((Text) e.widget).getText() + "'", ex);
+		
+		if (((Text) e.widget).getText().equals("")) {
+			// The whole album is loaded in the background as well, such that an outdated search cannot replace it later on
+			QUICK_SEARCH_MANAGER.scheduleQuickSearch(ApplicationUI.getSelectedAlbum(), null, SHOW_RESULT_HANDLER);
+		} else {
+			QUICK_SEARCH_MANAGER.scheduleQuickSearch(ApplicationUI.getSelectedAlbum(), 
+					Arrays.asList(((Text) e.widget).getText().split(" ")), SHOW_RESULT_HANDLER);
 		}
 	}
 }
@@ -55,6 +55,7 @@ public final class AlbumManager {
 					
 					if (!metaItemFields.isEmpty()) {
 						album.setSortByField(metaItemFields.get(0).getName());
+						updateSortIndex(albumName, album.getSortByField());
 					}
 					
 					albums.add(album);
@@ -84,6 +85,11 @@ public final class AlbumManager {
 		mergeDatabaseAndXmlAlbums();
 		
 		XmlStorageWrapper.storeAlbums(albums);
+		
+		// Databases created by older versions or restored from backups may lack the sort indexes
+		for (Album album : albums) {
+			updateSortIndex(album.getAlbumName(), album.getSortByField());
+		}
 	}
 	
 	public static List<Album> getAlbums() {
@@ -166,5 +172,14 @@ public final class AlbumManager {
 		}
 		
 		storeAlbums();
+		updateSortIndex(albumName, sortByField);
+	}
+	
+	private static void updateSortIndex(String albumName, String sortByField) {
+		try {
+			DatabaseOperations.updateSortIndex(albumName, sortByField);
+		} catch (DatabaseWrapperOperationException ex) {
+			LOGGER.error("The album '" + albumName + "' could not be indexed by its sort field '" + sortByField + "'", ex);
+		}
 	}
 }
@@ -24,20 +24,60 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jdbcdslog.ConnectionLoggingProxy;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.model.database.FullTextRankingFunction;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
 
 public final class ConnectionManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionManager.class);
 	private static final String SQLITE_CONNECTION_STRING = "jdbc:sqlite:";
+	/** The number of read-only connections which are shared among the threads performing queries */
+	private static final int READ_CONNECTION_POOL_SIZE = 3;
+	/** The single connection through which all modifications of the database are performed */
 	private static Connection connection = null;
+	/** Read-only connections. Thanks to the write-ahead log, readers do not wait for the writer (and vice versa) */
+	private static final Connection[] READ_CONNECTIONS = new Connection[READ_CONNECTION_POOL_SIZE];
+	/** Read-only connections which are owned by a single caller, see {@link #openExclusiveReadConnection()} */
+	private static final List<Connection> EXCLUSIVE_READ_CONNECTIONS = new ArrayList<Connection>();
+	/** The prepared statement caches of the open connections */
+	private static final Map<Connection, PreparedStatementCache> STATEMENT_CACHES = new IdentityHashMap<Connection, PreparedStatementCache>();
+	/** Used to distribute the threads evenly among the read connections */
+	private static final AtomicInteger NEXT_READ_CONNECTION_SLOT = new AtomicInteger(0);
+	/** The read connection slot assigned to the current thread */
+	private static final ThreadLocal<Integer> READ_CONNECTION_SLOT = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return (NEXT_READ_CONNECTION_SLOT.getAndIncrement() & Integer.MAX_VALUE) % READ_CONNECTION_POOL_SIZE;
+		}
+	};
+	/** The number of savepoints that the current thread holds on the write connection */
+	private static final ThreadLocal<Integer> OPEN_SAVEPOINTS = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return 0;
+		}
+	};
+	/** The number of album item result sets that the current thread has not closed yet */
+	private static final ThreadLocal<Integer> OPEN_RESULT_SETS = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return 0;
+		}
+	};
 
 	private ConnectionManager() {
 		// not needed
@@ -54,11 +94,13 @@ public final class ConnectionManager {
 			if (ConnectionManager.connection == null || connection.isClosed()) {
 				ConnectionManager.connection = DriverManager.getConnection(ConnectionManager.SQLITE_CONNECTION_STRING + 
 						FileSystemLocations.getDatabaseFile());
+				FullTextRankingFunction.register(connection);
 				ConnectionManager.connection = ConnectionLoggingProxy.wrap(connection);
 				ConnectionManager.enableForeignKeySupportForCurrentSession();
+				ConnectionManager.enableWriteAheadLogging();
 				
 				// The AutoCommit state makes little difference here since all relevant public methods roll back on
-				// failures anyway and we have only a single connection so concurrency is not relevant either.		
+				// failures anyway and there is only a single write connection so concurrency is not relevant either.
 				ConnectionManager.connection.setAutoCommit(true);
 
 				LOGGER.debug("Autocommit is on {}", connection.getAutoCommit());				
@@ -66,6 +108,9 @@ public final class ConnectionManager {
 			
 			// Create the album master table if it does not exist 
 			DatabaseOperations.createAlbumMasterTableIfItDoesNotExist();
+			
+			// Databases of older versions do not index their picture tables yet
+			DatabaseOperations.createMissingPictureTableIndexes();
 
 			// Run a fetch  to check if the database connection is up and running
 			if (!ConnectionManager.isConnectionReady()) {
@@ -77,11 +122,16 @@ public final class ConnectionManager {
 	}
 
 	/**
-	 * Tries to close the database connection. If the connection is closed or null calling this method has no effect.
+	 * Tries to close the database connection as well as all read connections. If the connections are closed or null 
+	 * calling this method has no effect.
 	 * @throws DatabaseWrapperOperationException
 	 */
 	public static synchronized void closeConnection() throws DatabaseWrapperOperationException {
+		closeReadConnections();
+		closeStatementCache(connection);
+		
 		try {
+			// The write connection is closed last such that the write-ahead log is checkpointed and removed 
 			if (ConnectionManager.connection != null && !ConnectionManager.connection.isClosed()) {
 				ConnectionManager.connection.close();
 			}
@@ -157,12 +207,166 @@ public final class ConnectionManager {
 	}
 
 	/**
-	 * Gets the connection.
+	 * Gets the connection. This is the only connection which should be used to modify the database.
 	 * @return A valid connection or null if not properly initialized.
 	 */
 	public static synchronized Connection getConnection() {
 		return connection;
 	}
+	
+	/**
+	 * Gets a read-only connection. Each thread is assigned to one of the pooled read connections such that queries are not
+	 * blocked by long running write transactions. If the current thread holds an open savepoint on the write connection,
+	 * the write connection is returned instead, as the uncommitted changes would otherwise not be visible to the caller. 
+	 * The same applies while the current thread keeps a result set open, since an open cursor pins the snapshot of its 
+	 * read connection and later queries would miss changes committed in the meantime.
+	 * @return A valid connection or null if not properly initialized.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static Connection getReadConnection() throws DatabaseWrapperOperationException {
+		if (OPEN_SAVEPOINTS.get() > 0 || OPEN_RESULT_SETS.get() > 0) {
+			return getConnection();
+		}
+		
+		return getReadConnection(READ_CONNECTION_SLOT.get());
+	}
+	
+	private static synchronized Connection getReadConnection(int slot) throws DatabaseWrapperOperationException {
+		if (READ_CONNECTIONS[slot] == null || isClosed(READ_CONNECTIONS[slot])) {
+			READ_CONNECTIONS[slot] = createReadConnection();
+		}
+
+		return READ_CONNECTIONS[slot];
+	}
+	
+	/**
+	 * Opens a read-only connection which is not shared with other threads. Use it for queries which may be cancelled, since
+	 * cancelling a statement interrupts all statements of its connection. The connection is closed together with all other
+	 * connections, hence the caller has to check whether it is still open before each use.
+	 * @return A new read-only connection.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static synchronized Connection openExclusiveReadConnection() throws DatabaseWrapperOperationException {
+		Connection exclusiveReadConnection = createReadConnection();
+		EXCLUSIVE_READ_CONNECTIONS.add(exclusiveReadConnection);
+		
+		return exclusiveReadConnection;
+	}
+	
+	private static Connection createReadConnection() throws DatabaseWrapperOperationException {
+		try {
+			SQLiteConfig readOnlyConfiguration = new SQLiteConfig();
+			readOnlyConfiguration.setReadOnly(true);
+			
+			Connection readConnection = DriverManager.getConnection(
+					ConnectionManager.SQLITE_CONNECTION_STRING + FileSystemLocations.getDatabaseFile(), readOnlyConfiguration.toProperties());
+			FullTextRankingFunction.register(readConnection);
+			
+			return ConnectionLoggingProxy.wrap(readConnection);
+		} catch (SQLException sqlEx) {
+			LOGGER.error("Unable to open a read connection to the database");
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlEx);
+		}
+	}
+	
+	/**
+	 * Gets the prepared statement cache of the given connection. Statements acquired from the cache must only be executed
+	 * using the connection for which the cache has been retrieved.
+	 * @param connection The write connection or a read connection.
+	 * @return The cache of the connection.
+	 */
+	public static synchronized PreparedStatementCache getStatementCache(Connection connection) {
+		PreparedStatementCache statementCache = STATEMENT_CACHES.get(connection);
+		
+		if (statementCache == null) {
+			statementCache = new PreparedStatementCache(connection);
+			STATEMENT_CACHES.put(connection, statementCache);
+		}
+		
+		return statementCache;
+	}
+	
+	private static void closeStatementCache(Connection connection) {
+		PreparedStatementCache statementCache = STATEMENT_CACHES.remove(connection);
+		
+		if (statementCache != null) {
+			statementCache.close();
+		}
+	}
+	
+	private static boolean isClosed(Connection readConnection) throws DatabaseWrapperOperationException {
+		try {
+			return readConnection.isClosed();
+		} catch (SQLException sqlEx) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlEx);
+		}
+	}
+	
+	private static synchronized void closeReadConnections() throws DatabaseWrapperOperationException {
+		List<Connection> readConnections = new ArrayList<Connection>(EXCLUSIVE_READ_CONNECTIONS);
+		readConnections.addAll(Arrays.asList(READ_CONNECTIONS));
+		EXCLUSIVE_READ_CONNECTIONS.clear();
+		Arrays.fill(READ_CONNECTIONS, null);
+		
+		for (Connection readConnection : readConnections) {
+			closeStatementCache(readConnection);
+			
+			try {
+				if (readConnection != null && !readConnection.isClosed()) {
+					readConnection.close();
+				}
+			} catch (SQLException sqlEx) {
+				LOGGER.error("Unable to close a read connection");
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
+			}
+		}
+	}
+	
+	/** Registers that the current thread has created a savepoint on the write connection */
+	static void savepointCreated() {
+		OPEN_SAVEPOINTS.set(OPEN_SAVEPOINTS.get() + 1);
+	}
+	
+	/** Registers that the current thread has released a savepoint on the write connection */
+	static void savepointReleased() {
+		if (OPEN_SAVEPOINTS.get() > 0) {
+			OPEN_SAVEPOINTS.set(OPEN_SAVEPOINTS.get() - 1);
+		}
+	}
+	
+	/** Registers that the current thread has opened an album item result set */
+	public static void resultSetOpened() {
+		OPEN_RESULT_SETS.set(OPEN_RESULT_SETS.get() + 1);
+	}
+	
+	/** Registers that the current thread has closed an album item result set */
+	public static void resultSetClosed() {
+		if (OPEN_RESULT_SETS.get() > 0) {
+			OPEN_RESULT_SETS.set(OPEN_RESULT_SETS.get() - 1);
+		}
+	}
+	
+	/**
+	 * Transfers all committed changes from the write-ahead log into the database file. This should be done before the 
+	 * database file is copied (e.g. autosaves) since the copy would otherwise miss the most recent changes.
+	 * If no connection is open, calling this method has no effect.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static synchronized void checkpointWriteAheadLog() throws DatabaseWrapperOperationException {
+		try {
+			if (connection == null || connection.isClosed()) {
+				return;
+			}
+		} catch (SQLException sqlEx) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlEx);
+		}
+		
+		try (PreparedStatement preparedStatement = connection.prepareStatement("PRAGMA wal_checkpoint(FULL)")) {
+			preparedStatement.execute();
+		} catch (SQLException sqlEx) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlEx);
+		}
+	}
 
 	static void enableForeignKeySupportForCurrentSession() throws DatabaseWrapperOperationException {
 
@@ -172,4 +376,14 @@ public final class ConnectionManager {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
 		} 
 	}
+	
+	/** The write-ahead log allows the read connections to query the database while the write connection modifies it */
+	static void enableWriteAheadLogging() throws DatabaseWrapperOperationException {
+		
+		try (PreparedStatement preparedStatement = connection.prepareStatement("PRAGMA journal_mode = WAL");) {			
+			preparedStatement.execute();
+		} catch (SQLException sqlEx) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
+		} 
+	}
 }
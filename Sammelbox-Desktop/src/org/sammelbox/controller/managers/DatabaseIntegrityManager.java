@@ -32,10 +32,12 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class DatabaseIntegrityManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseIntegrityManager.class);
@@ -51,25 +53,43 @@ public final class DatabaseIntegrityManager {
 	private static long lastChangeTimeStampInMillis = -1;
 	private static final String SAVEPOINT = "SAVEPOINT ";
 	private static final String ROLLBACK_TO = "rollback to ";
+	/** The name returned for savepoints which joined the transaction of the current thread instead of being created */
+	static final String JOINED_SAVEPOINT_NAME = "joinedSavepoint";
+	/** Serializes the transactions of different threads, since all of them share the single write connection */
+	private static final ReentrantLock TRANSACTION_LOCK = new ReentrantLock(true);
+	/** The transaction opened by the outermost savepoint of the current thread, or null if there is none */
+	private static final ThreadLocal<Transaction> CURRENT_TRANSACTION = new ThreadLocal<Transaction>();
 
 	private DatabaseIntegrityManager() {
 		// not needed
 	}
 	
 	/**
-	 * Creates a savepoint to which the database state can be rolled back to. A new transaction is started.
-	 * @return The name of the created savepoint or null in case of failure. The create savepoint should only be 
-	 * used in public methods to avoid overhead with nested savepoints. 
+	 * Creates a savepoint to which the database state can be rolled back to. A new transaction is started, unless the 
+	 * current thread already holds one. In that case, the savepoint joins the existing transaction and no savepoint is 
+	 * created in the database. Rolling back a joined savepoint marks the whole transaction for rollback.
+	 * Other threads wait until the transaction of the current thread has been finished.
+	 * @return The name of the created savepoint. The savepoint must be released by the current thread.
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	public static String createSavepoint() throws DatabaseWrapperOperationException {
+		Transaction transaction = CURRENT_TRANSACTION.get();
+		
+		if (transaction != null) {
+			return JOINED_SAVEPOINT_NAME;
+		}
+		
 		String savepointName = UUID.randomUUID().toString();
+		TRANSACTION_LOCK.lock();
 	
 		try (PreparedStatement createSavepointStatement = ConnectionManager.getConnection().prepareStatement(
 				SAVEPOINT + DatabaseStringUtilities.encloseNameWithQuotes(savepointName));) {			
 			createSavepointStatement.execute();
+			ConnectionManager.savepointCreated();
+			CURRENT_TRANSACTION.set(new Transaction(savepointName));
 			return savepointName;
 		} catch (SQLException e) {
+			TRANSACTION_LOCK.unlock();
 			LOGGER.error("Creating the savepoint {} failed", savepointName);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		}
@@ -81,8 +101,10 @@ public final class DatabaseIntegrityManager {
 	 * If the stack of transaction is not empty (i.e. inner transaction) then no changes are comitted but the savepoint
 	 * is removed nonetheless from the stack. The release should only be used in public methods to avoid ovehead
 	 * with nested savepoints. 
+	 * Releasing the outermost savepoint of a transaction which has been marked for rollback discards all of its changes.
 	 * @param The name of the savepoint to be released. Must not be null or empty! 
 	 * @throws DatabaseWrapperOperationException If the errorstate within is ErrorWithDirtyState that means the release was not possible 
+	 * If the errorstate is ErrorWithCleanState, the transaction had been marked for rollback and its changes have been discarded.
 	 */
 	public static void releaseSavepoint(String savepointName) throws DatabaseWrapperOperationException {
 	
@@ -91,17 +113,50 @@ public final class DatabaseIntegrityManager {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE);
 		}
 		
-		try (PreparedStatement releaseSavepointStatement = ConnectionManager.getConnection().prepareStatement("RELEASE SAVEPOINT " + 
-				DatabaseStringUtilities.encloseNameWithQuotes(savepointName));) {			
-			releaseSavepointStatement.execute();
+		Transaction transaction = CURRENT_TRANSACTION.get();
+		if (transaction == null || (!savepointName.equals(JOINED_SAVEPOINT_NAME) && !savepointName.equals(transaction.savepointName))) {
+			LOGGER.error("The savepoint {} does not belong to the transaction of the current thread", savepointName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE);
+		}
+		
+		// Joined savepoints do not exist in the database, the outermost savepoint commits their changes
+		if (savepointName.equals(JOINED_SAVEPOINT_NAME)) {
+			return;
+		}
+		
+		boolean rollbackOnly = transaction.rollbackOnly;
+		try {
+			if (rollbackOnly) {
+				executeSavepointStatement(ROLLBACK_TO + SAVEPOINT, savepointName);
+			}
+			executeSavepointStatement("RELEASE SAVEPOINT ", savepointName);
+			ConnectionManager.savepointReleased();
 		} catch (SQLException sqlEx) {
 			LOGGER.error("Releasing the savepoint {} failed", savepointName);
+			runActions(transaction.rollbackActions);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
+		} finally {
+			CURRENT_TRANSACTION.remove();
+			TRANSACTION_LOCK.unlock();
+		}
+		
+		if (!rollbackOnly) {
+			runActions(transaction.commitActions);
+		}
+		
+		if (rollbackOnly) {
+			runActions(transaction.rollbackActions);
+			// A nested operation failed, hence the caller must not assume that its changes have been committed
+			LOGGER.error("The transaction of the savepoint {} has been rolled back since a nested operation failed", savepointName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, 
+					"A nested operation failed, hence all changes of the transaction have been discarded");
 		}
 	}
 	
 	/**
-	 * The rollback should only be used in public methods to avoid overhead with nested savepoints. 
+	 * Rolls back all changes since the savepoint has been created. Since joined savepoints do not exist in the database,
+	 * rolling back a joined savepoint marks the whole transaction for rollback instead. The changes are then discarded
+	 * as soon as the outermost savepoint is released.
 	 * @param savepointName
 	 * * @throws DatabaseWrapperOperationException If the error state within is ErrorWithDirtyState that means the release was not possible
 	 */
@@ -111,16 +166,91 @@ public final class DatabaseIntegrityManager {
 			LOGGER.error("The savepoint could not be rolledback to since the name string is null or empty");
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE);
 		}	
+		
+		Transaction transaction = CURRENT_TRANSACTION.get();
+		if (transaction != null && savepointName.equals(JOINED_SAVEPOINT_NAME)) {
+			transaction.rollbackOnly = true;
+			return;
+		}
 	
-		try (PreparedStatement rollbackToSavepointStatement = ConnectionManager.getConnection().prepareStatement(
-				ROLLBACK_TO + SAVEPOINT + DatabaseStringUtilities.encloseNameWithQuotes(savepointName))){
-			rollbackToSavepointStatement.execute();
+		try {
+			executeSavepointStatement(ROLLBACK_TO + SAVEPOINT, savepointName);
+			
+			if (transaction != null) {
+				transaction.rollbackOnly = false;
+				transaction.commitActions.clear();
+				runActions(transaction.rollbackActions);
+			}
 		} catch (SQLException sqlEx) {
 			LOGGER.error("Rolling back the savepoint {} failed", savepointName);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
 		}
 	}
 	
+	/**
+	 * Begins a unit of work, i.e. a transaction which can be passed through several operations. Operations performed by the 
+	 * current thread join the unit of work instead of creating their own savepoints.
+	 * @return The unit of work which must be committed or closed by the current thread.
+	 * @throws DatabaseWrapperOperationException If the transaction could not be started.
+	 */
+	public static UnitOfWork beginUnitOfWork() throws DatabaseWrapperOperationException {
+		return new UnitOfWork(createSavepoint());
+	}
+	
+	/**
+	 * Runs the given action once the changes of the current thread have been committed, e.g. to mark objects as being stored.
+	 * If the thread holds no transaction, the action is run immediately. Otherwise, it is run after the outermost savepoint
+	 * has been released, and dropped if the changes of the transaction are discarded.
+	 * @param commitAction The action to be run by the current thread.
+	 */
+	public static void runAfterCommit(Runnable commitAction) {
+		Transaction transaction = CURRENT_TRANSACTION.get();
+		
+		if (transaction == null) {
+			commitAction.run();
+		} else {
+			transaction.commitActions.add(commitAction);
+		}
+	}
+	
+	/**
+	 * Runs the given action once the changes of the current thread have been discarded, e.g. to remove files which would
+	 * not be referenced by any stored entry. If the thread holds no transaction, the action is never run. Otherwise, it is
+	 * run after the outermost savepoint has been rolled back, or if the changes of the transaction could not be committed.
+	 * @param rollbackAction The action to be run by the current thread.
+	 */
+	public static void runAfterRollback(Runnable rollbackAction) {
+		Transaction transaction = CURRENT_TRANSACTION.get();
+		
+		if (transaction != null) {
+			transaction.rollbackActions.add(rollbackAction);
+		}
+	}
+	
+	/** Runs and forgets the given actions */
+	private static void runActions(List<Runnable> actions) {
+		List<Runnable> actionsToRun = new ArrayList<Runnable>(actions);
+		actions.clear();
+		
+		for (Runnable action : actionsToRun) {
+			action.run();
+		}
+	}
+	
+	/** @return True if the current thread holds a transaction which has been marked for rollback */
+	static boolean isTransactionMarkedForRollback() {
+		Transaction transaction = CURRENT_TRANSACTION.get();
+		
+		return transaction != null && transaction.rollbackOnly;
+	}
+	
+	private static void executeSavepointStatement(String command, String savepointName) throws SQLException {
+		try (PreparedStatement savepointStatement = ConnectionManager.getConnection().prepareStatement(
+				command + DatabaseStringUtilities.encloseNameWithQuotes(savepointName))) {
+			savepointStatement.execute();
+		}
+	}
+	
 	/** Retrieves a thread able to backup the database entries along the properties and pictures to the specified file.
 	 * @param backupLocationPath The path ending with the file name under which the backup will be stored. */
 	public static BackupThread getBackupThread(String backupLocationPath) {
@@ -232,6 +362,9 @@ public final class DatabaseIntegrityManager {
 				File.separator + "PERIODICAL_BACKUP_" + programVersion + "_";
 	
 		List<File> previousAutoSaveList = getAllAutoSaves();
+		
+		// Only the database file is copied, hence the write-ahead log must be transferred into it beforehand
+		ConnectionManager.checkpointWriteAheadLog();
 	
 		if (previousAutoSaveList.isEmpty()) {
 			// When no changes were made then the timestamp is the current time
@@ -270,4 +403,18 @@ public final class DatabaseIntegrityManager {
 			}
 		}
 	}
+	
+	/** The savepoint which opened the transaction of a thread, together with the state of the savepoints which joined it */
+	private static final class Transaction {
+		private final String savepointName;
+		private boolean rollbackOnly = false;
+		/** The actions which are run once the transaction has been committed */
+		private final List<Runnable> commitActions = new ArrayList<Runnable>();
+		/** The actions which are run once the changes of the transaction have been discarded */
+		private final List<Runnable> rollbackActions = new ArrayList<Runnable>();
+		
+		private Transaction(String savepointName) {
+			this.savepointName = savepointName;
+		}
+	}
 }
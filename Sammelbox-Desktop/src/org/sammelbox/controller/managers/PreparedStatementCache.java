@@ -0,0 +1,198 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.controller.managers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the prepared statements of a single connection, keyed by their SQL text. Hence SQLite parses and plans a query
+ * only once, as long as its statement is among the recently used ones. A statement is handed out to a single caller at a 
+ * time: it is removed from the cache when it is acquired, and put back when it is released after its result set has been 
+ * closed. Callers that never release a statement simply cause a new one to be prepared.
+ *
+ * Statements are prepared for a certain table structure, hence all cached statements are discarded whenever the structure 
+ * of an album changes (see {@link #invalidateAll()}).
+ */
+public final class PreparedStatementCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PreparedStatementCache.class);
+	/** The maximum number of idle statements which are kept per connection */
+	static final int MAX_CACHED_STATEMENTS = 32;
+	/** Statements prepared before the latest invalidation are not reused */
+	private static final AtomicLong GENERATION = new AtomicLong();
+	private static final AtomicLong HITS = new AtomicLong();
+	private static final AtomicLong MISSES = new AtomicLong();
+
+	private final Connection connection;
+	/** The idle statements in access order, i.e. the least recently used statement comes first */
+	private final LinkedHashMap<String, CachedStatement> idleStatements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true);
+	/** The generations of the statements which are currently used by a caller */
+	private final Map<PreparedStatement, Long> acquiredStatements = new IdentityHashMap<PreparedStatement, Long>();
+	private boolean closed = false;
+
+	PreparedStatementCache(Connection connection) {
+		this.connection = connection;
+	}
+
+	/** @return The number of statements which have been reused since the last reset */
+	public static long getHitCount() {
+		return HITS.get();
+	}
+
+	/** @return The number of statements which had to be prepared since the last reset */
+	public static long getMissCount() {
+		return MISSES.get();
+	}
+
+	/** Resets the hit and miss counters */
+	public static void resetStatistics() {
+		HITS.set(0);
+		MISSES.set(0);
+	}
+
+	/** Discards the cached statements of all connections. Must be called whenever the structure of an album changes */
+	public static void invalidateAll() {
+		GENERATION.incrementAndGet();
+	}
+
+	/**
+	 * Acquires a statement for the given SQL text. The statement belongs to the caller until it is passed to
+	 * {@link #release(String, PreparedStatement)} or {@link #discard(PreparedStatement)}.
+	 * @param sql The SQL text of the statement.
+	 * @return A cached statement if there is an idle one for the SQL text, a newly prepared one otherwise.
+	 * @throws SQLException If the statement could not be prepared.
+	 */
+	public PreparedStatement acquire(String sql) throws SQLException {
+		synchronized (this) {
+			CachedStatement cachedStatement = idleStatements.remove(sql);
+
+			if (cachedStatement != null && cachedStatement.generation == GENERATION.get()) {
+				HITS.incrementAndGet();
+				acquiredStatements.put(cachedStatement.preparedStatement, cachedStatement.generation);
+				return cachedStatement.preparedStatement;
+			} else if (cachedStatement != null) {
+				closeStatement(cachedStatement.preparedStatement);
+			}
+		}
+
+		// The generation is read before preparing, such that an invalidation in the meantime is not missed
+		long generation = GENERATION.get();
+		MISSES.incrementAndGet();
+		PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+		synchronized (this) {
+			acquiredStatements.put(preparedStatement, generation);
+		}
+
+		return preparedStatement;
+	}
+
+	/**
+	 * Returns a statement to the cache such that it can be reused. The result set of the statement must have been closed.
+	 * If the cache is full, the least recently used statement is closed.
+	 * @param sql The SQL text for which the statement has been acquired.
+	 * @param preparedStatement The statement to be released.
+	 */
+	public void release(String sql, PreparedStatement preparedStatement) {
+		List<PreparedStatement> evictedStatements = new ArrayList<PreparedStatement>();
+
+		synchronized (this) {
+			Long generation = acquiredStatements.remove(preparedStatement);
+
+			if (closed || generation == null || generation.longValue() != GENERATION.get() || idleStatements.containsKey(sql)) {
+				evictedStatements.add(preparedStatement);
+			} else {
+				try {
+					preparedStatement.clearParameters();
+					idleStatements.put(sql, new CachedStatement(preparedStatement, generation));
+				} catch (SQLException sqlEx) {
+					LOGGER.warn("A statement could not be reset and is therefore not cached", sqlEx);
+					evictedStatements.add(preparedStatement);
+				}
+
+				Iterator<CachedStatement> leastRecentlyUsed = idleStatements.values().iterator();
+				while (idleStatements.size() > MAX_CACHED_STATEMENTS) {
+					evictedStatements.add(leastRecentlyUsed.next().preparedStatement);
+					leastRecentlyUsed.remove();
+				}
+			}
+		}
+
+		for (PreparedStatement evictedStatement : evictedStatements) {
+			closeStatement(evictedStatement);
+		}
+	}
+
+	/**
+	 * Closes a statement instead of returning it to the cache, e.g. because its execution failed.
+	 * @param preparedStatement The statement to be discarded.
+	 */
+	public void discard(PreparedStatement preparedStatement) {
+		synchronized (this) {
+			acquiredStatements.remove(preparedStatement);
+		}
+
+		closeStatement(preparedStatement);
+	}
+
+	/** Closes all idle statements. Statements released afterwards are closed immediately */
+	synchronized void close() {
+		closed = true;
+
+		for (CachedStatement cachedStatement : idleStatements.values()) {
+			closeStatement(cachedStatement.preparedStatement);
+		}
+		idleStatements.clear();
+	}
+
+	/** @return The number of idle statements */
+	synchronized int size() {
+		return idleStatements.size();
+	}
+
+	private static void closeStatement(PreparedStatement preparedStatement) {
+		try {
+			preparedStatement.close();
+		} catch (SQLException sqlEx) {
+			LOGGER.warn("A cached statement could not be closed", sqlEx);
+		}
+	}
+
+	private static final class CachedStatement {
+		private final PreparedStatement preparedStatement;
+		private final long generation;
+
+		private CachedStatement(PreparedStatement preparedStatement, long generation) {
+			this.preparedStatement = preparedStatement;
+			this.generation = generation;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.controller.managers;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemResultSet;
+import org.sammelbox.model.album.AlbumItemStore;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes quick searches on a background thread. Searches are debounced, i.e. a search only starts once no other search has
+ * been requested for a short delay. Requesting a new search cancels the running query, and only the result of the latest
+ * search is delivered. The background thread also prepares the album for the search, e.g. by creating its full text index.
+ */
+public class QuickSearchManager {
+	private static final Logger LOGGER = LoggerFactory.getLogger(QuickSearchManager.class);
+	/** The default time to wait for further keystrokes before a search is started */
+	public static final long DEFAULT_DEBOUNCE_DELAY_IN_MILLI_SECONDS = 250;
+
+	/** Receives the album items found by a quick search */
+	public interface QuickSearchResultHandler {
+		/**
+		 * Called (using the result executor) with the result of the latest quick search.
+		 * @param albumName The name of the album which has been searched.
+		 * @param albumItems The album items found, as loaded by {@link AlbumItemStore#loadAlbumItems}.
+		 */
+		void handleQuickSearchResult(String albumName, List<AlbumItem> albumItems);
+	}
+
+	private final ScheduledExecutorService searchExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread searchThread = new Thread(runnable, "quick-search");
+			searchThread.setDaemon(true);
+			return searchThread;
+		}
+	});
+	private final Executor resultExecutor;
+	private final long debounceDelayInMilliSeconds;
+	/** Identifies the latest search. Searches with a lower number are outdated */
+	private final AtomicLong latestSearchNumber = new AtomicLong(0);
+	/** The result set of the running query, which is cancelled by later searches */
+	private final AtomicReference<AlbumItemResultSet> runningQuery = new AtomicReference<AlbumItemResultSet>();
+	private ScheduledFuture<?> pendingSearch = null;
+	/** Only used by the search thread. Cancelling a statement interrupts its whole connection, hence it is not shared */
+	private Connection searchConnection = null;
+
+	/**
+	 * Constructor.
+	 * @param resultExecutor The executor used to deliver the results, e.g. one which runs the handler on the UI thread.
+	 * @param debounceDelayInMilliSeconds The time to wait for further requests before a search is started.
+	 */
+	public QuickSearchManager(Executor resultExecutor, long debounceDelayInMilliSeconds) {
+		this.resultExecutor = resultExecutor;
+		this.debounceDelayInMilliSeconds = debounceDelayInMilliSeconds;
+	}
+
+	/**
+	 * Schedules a quick search and cancels all previously scheduled or running searches.
+	 * @param albumName The name of the album to be searched.
+	 * @param quickSearchTerms The terms to be searched for. If null, all album items are found.
+	 * @param resultHandler The handler receiving the result, unless another search is scheduled in the meantime.
+	 */
+	public synchronized void scheduleQuickSearch(final String albumName, final List<String> quickSearchTerms,
+			final QuickSearchResultHandler resultHandler) {
+		final long searchNumber = latestSearchNumber.incrementAndGet();
+
+		if (pendingSearch != null) {
+			pendingSearch.cancel(false);
+		}
+		cancelRunningQuery();
+
+		pendingSearch = searchExecutor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				executeQuickSearch(searchNumber, albumName, quickSearchTerms, resultHandler);
+			}
+		}, debounceDelayInMilliSeconds, TimeUnit.MILLISECONDS);
+	}
+
+	/** Cancels all scheduled and running searches, such that no further results are delivered */
+	public synchronized void cancelQuickSearches() {
+		latestSearchNumber.incrementAndGet();
+
+		if (pendingSearch != null) {
+			pendingSearch.cancel(false);
+		}
+		cancelRunningQuery();
+	}
+
+	/** Cancels all searches and stops the search thread */
+	public synchronized void shutdown() {
+		cancelQuickSearches();
+		searchExecutor.shutdownNow();
+	}
+
+	private void cancelRunningQuery() {
+		AlbumItemResultSet albumItemResultSet = runningQuery.getAndSet(null);
+
+		if (albumItemResultSet != null) {
+			albumItemResultSet.cancel();
+		}
+	}
+
+	private boolean isOutdated(long searchNumber) {
+		return searchNumber != latestSearchNumber.get();
+	}
+
+	private void executeQuickSearch(final long searchNumber, final String albumName, List<String> quickSearchTerms,
+			final QuickSearchResultHandler resultHandler) {
+		final List<AlbumItem> albumItems;
+
+		try {
+			if (quickSearchTerms != null) {
+				// Writes (e.g. creating a missing full text index) use the write connection, the search connection only reads
+				DatabaseOperations.prepareQuickSearch(albumName);
+			}
+			
+			Connection connection = getSearchConnection();
+			if (isOutdated(searchNumber)) {
+				return;
+			}
+
+			AlbumItemResultSet albumItemResultSet = DatabaseOperations.executeQuickSearch(albumName, quickSearchTerms, connection);
+			runningQuery.set(albumItemResultSet);
+			try {
+				// A search scheduled before the query has been registered could not cancel it
+				if (isOutdated(searchNumber)) {
+					return;
+				}
+				
+				albumItems = AlbumItemStore.loadAlbumItems(albumItemResultSet, true);
+			} finally {
+				runningQuery.compareAndSet(albumItemResultSet, null);
+				// Returns the statement to the cache even if the query has been cancelled
+				albumItemResultSet.close();
+			}
+		} catch (SQLException | DatabaseWrapperOperationException ex) {
+			// Cancelled queries fail on purpose
+			if (!isOutdated(searchNumber)) {
+				LOGGER.error("An error occurred while performing a quick search on the album " + albumName, ex);
+			}
+			return;
+		}
+
+		// The result of a cancelled query might be incomplete
+		if (isOutdated(searchNumber)) {
+			return;
+		}
+
+		resultExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (!isOutdated(searchNumber)) {
+					resultHandler.handleQuickSearchResult(albumName, albumItems);
+				}
+			}
+		});
+	}
+
+	private Connection getSearchConnection() throws SQLException, DatabaseWrapperOperationException {
+		// The connection is closed whenever the database is replaced (e.g. during a restore)
+		if (searchConnection == null || searchConnection.isClosed()) {
+			searchConnection = ConnectionManager.openExclusiveReadConnection();
+		}
+
+		return searchConnection;
+	}
+}
@@ -24,6 +24,7 @@ import org.sammelbox.controller.events.SammelboxEvent;
 import org.sammelbox.controller.filesystem.xml.XmlStorageWrapper;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
+import org.sammelbox.model.database.CompiledQuery;
 import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.QueryBuilderException;
 import org.sammelbox.model.database.QueryComponent;
@@ -226,7 +227,7 @@ public final class SavedSearchManager {
 			this.orderAscending = orderAscending;
 		}
 		
-		public String getSQLQueryString() throws QueryBuilderException {
+		public CompiledQuery getSQLQuery() throws QueryBuilderException {
 			if (this.getOrderByField() == null || this.getOrderByField().isEmpty()) {
 				return QueryBuilder.buildQuery(this.getQueryComponents(), 
 						this.isConnectedByAnd(), this.getAlbum());
@@ -238,7 +239,7 @@ public final class SavedSearchManager {
 		}
 	}
 
-	public static String getSqlQueryBySavedSearchName(String albumName, String savedSearchName) {
+	public static CompiledQuery getSqlQueryBySavedSearchName(String albumName, String savedSearchName) {
 		List<SavedSearch> savedSearches = albumNamesToSavedSearches.get(albumName);
 		
 		for (SavedSearch savedSearch : savedSearches) {
@@ -0,0 +1,92 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.controller.managers;
+
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+
+/**
+ * A transaction spanning several database operations, e.g. an import or the changes of a spreadsheet. All operations
+ * performed by the thread which began the unit of work join it instead of creating their own savepoints. Other threads
+ * wait with their modifications until the unit of work has been committed or closed. Units of work can be nested, in
+ * which case the inner units join the outermost one.
+ *
+ * Typical usage:
+ * <pre>
+ * try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+ *     DatabaseOperations.addAlbumItem(...);
+ *     DatabaseOperations.updateAlbumItem(...);
+ *     unitOfWork.commit();
+ * }
+ * </pre>
+ */
+public final class UnitOfWork implements AutoCloseable {
+	private final String savepointName;
+	private boolean finished = false;
+
+	UnitOfWork(String savepointName) {
+		this.savepointName = savepointName;
+	}
+
+	/** @return True if this unit of work joined the unit of work of an outer caller */
+	public boolean isJoined() {
+		return DatabaseIntegrityManager.JOINED_SAVEPOINT_NAME.equals(savepointName);
+	}
+
+	/**
+	 * Commits all changes performed within this unit of work. The changes of a joined unit of work are committed by the
+	 * outermost unit of work.
+	 * @throws DatabaseWrapperOperationException If one of the operations failed, in which case all changes are discarded,
+	 * or if the changes could not be committed.
+	 */
+	public void commit() throws DatabaseWrapperOperationException {
+		if (finished) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "The unit of work has already been finished");
+		}
+
+		finished = true;
+		boolean markedForRollback = DatabaseIntegrityManager.isTransactionMarkedForRollback();
+		// Releasing the outermost unit of work discards the changes and fails by itself if it has been marked for rollback
+		DatabaseIntegrityManager.releaseSavepoint(savepointName);
+
+		if (markedForRollback) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE,
+					"An operation of the unit of work failed, hence its changes will be discarded");
+		}
+	}
+
+	/**
+	 * Discards all changes performed within this unit of work unless it has been committed. Closing a joined unit of work
+	 * marks the outermost one for rollback.
+	 * @throws DatabaseWrapperOperationException If the changes could not be discarded.
+	 */
+	@Override
+	public void close() throws DatabaseWrapperOperationException {
+		if (finished) {
+			return;
+		}
+
+		finished = true;
+		try {
+			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+		} finally {
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+		}
+	}
+}
@@ -43,7 +43,8 @@ public final class HelpMenuItemListener {
 				saveFileDialog.setFilterExtensions(filterExt);
 				
 				String filepath = saveFileDialog.open();
-				if (filepath != null) {
+				// The last page is not available while album items are still being rendered
+				if (filepath != null && BrowserUtils.getLastPageAsHtml() != null) {
 					FileSystemAccessWrapper.writeToFile(BrowserUtils.getLastPageAsHtml(), filepath);
 				}
 			}
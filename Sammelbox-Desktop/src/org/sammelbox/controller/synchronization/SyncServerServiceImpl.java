@@ -29,7 +29,9 @@ import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
+import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.SettingsManager;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.browser.BrowserFacade;
 import org.sammelbox.view.various.SynchronizeCompositeHelper;
@@ -80,6 +82,7 @@ public class SyncServerServiceImpl implements SyncServerService {
 				LOGGER.error("Could not create sync folder - " + SYNC_DIRECTORY_PATH);
 			}
 
+			ConnectionManager.checkpointWriteAheadLog();
 			FileSystemAccessWrapper.copyFile(
 					new File(FileSystemLocations.getDatabaseFile()), 
 					new File(SYNC_DIRECTORY_PATH + FileSystemLocations.DATABASE_NAME));
@@ -101,6 +104,8 @@ public class SyncServerServiceImpl implements SyncServerService {
 			FileSystemAccessWrapper.zipFolderToFile(syncFolder.getAbsolutePath(), SYNC_ZIP_ARCHIVE_PATH);
 		} catch (IOException ioe) {
 			LOGGER.error("An error occurred while packaging the information before synchronization", ioe);
+		} catch (DatabaseWrapperOperationException dwoe) {
+			LOGGER.error("An error occurred while packaging the database before synchronization", dwoe);
 		}
 		
 		return new File(SYNC_ZIP_ARCHIVE_PATH);
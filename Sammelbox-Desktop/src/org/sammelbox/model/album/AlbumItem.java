@@ -40,6 +40,8 @@ public class AlbumItem {
 	private String albumName = "";
 	private List<ItemField> itemFields;
 	private List<AlbumItemPicture> albumItemPictures;
+	/** The original picture names as stored in the database, or null if they are unknown */
+	private List<String> cleanPictureNames;
 	private UUID contentVersion;
 	
 	/**
@@ -342,6 +344,7 @@ public class AlbumItem {
 	public void loadPicturesFromDatabase() {
 		try {
 			setPictures(DatabaseOperations.getAlbumItemPictures(albumName, itemId));
+			cleanPictureNames = getOriginalPictureNames(albumItemPictures);
 		} catch (DatabaseWrapperOperationException e) {
 			LOGGER.error("Couldn't load album item pictures for album " + albumName + " with id " + itemId + "\n" + 
 							" Stacktrace: " +  e.getMessage());
@@ -362,6 +365,48 @@ public class AlbumItem {
 		return albumItemPictures;
 	}
 	
+	/** Checks whether the pictures might differ from the pictures stored in the database.
+	 * @return false if the pictures have never been set or loaded, or if they still match the stored pictures. True otherwise. */
+	public boolean hasChangedPictures() {
+		if (albumItemPictures == null) {
+			return false;
+		}
+		
+		return cleanPictureNames == null || !cleanPictureNames.equals(getOriginalPictureNames(albumItemPictures));
+	}
+	
+	/** Returns the fields whose values might differ from the values stored in the database, not including the id field 
+	 * @return the list of dirty fields, which is empty if all field values are stored */
+	public List<ItemField> getDirtyFields() {
+		List<ItemField> dirtyFields = new ArrayList<ItemField>();
+		for (ItemField itemField : itemFields) {
+			if (itemField.isDirty() && !itemField.getType().equals(FieldType.ID)) {
+				dirtyFields.add(itemField);
+			}
+		}
+		
+		return dirtyFields;
+	}
+	
+	/** Marks all fields and the pictures of this album item as being equal to the stored ones. This is done whenever the 
+	 * item has been loaded from or written to the database. */
+	public void markClean() {
+		for (ItemField itemField : itemFields) {
+			itemField.markClean();
+		}
+		
+		cleanPictureNames = albumItemPictures == null ? null : getOriginalPictureNames(albumItemPictures);
+	}
+	
+	private static List<String> getOriginalPictureNames(List<AlbumItemPicture> pictures) {
+		List<String> originalPictureNames = new ArrayList<String>(pictures.size());
+		for (AlbumItemPicture picture : pictures) {
+			originalPictureNames.add(picture.getOriginalPictureName());
+		}
+		
+		return originalPictureNames;
+	}
+	
 	/** Returns the first picture associated with the album item 
 	 * @return the first picture associated with the album item, or null if 
 	 * A) no picture is associated with the album item, B) pictures are generally not supported by the album */
@@ -0,0 +1,166 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.album;
+
+import java.util.Arrays;
+
+/**
+ * Maps album item ids to their position within the album item store. The index uses open addressing with linear
+ * probing on primitive arrays, such that neither the ids nor the positions are boxed.
+ */
+final class AlbumItemIdIndex {
+	/** Returned by {@link #get(long)} if the id is not part of the index */
+	static final int NOT_FOUND = -1;
+	/** Marks an empty slot. Album item ids are never negative, hence this value cannot collide with a real id */
+	private static final long EMPTY_SLOT = Long.MIN_VALUE;
+	private static final int MINIMUM_CAPACITY = 16;
+
+	private long[] keys;
+	private int[] values;
+	private int size = 0;
+
+	AlbumItemIdIndex() {
+		this(0);
+	}
+
+	/**
+	 * Constructor.
+	 * @param expectedSize The number of ids that will be stored in this index. The index is sized such that it never
+	 * needs to grow while adding this number of ids.
+	 */
+	AlbumItemIdIndex(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * Retrieves the position of the given id.
+	 * @param albumItemId The id of the album item.
+	 * @return The position or {@link #NOT_FOUND} if the id is not part of the index.
+	 */
+	int get(long albumItemId) {
+		int slot = slotOf(albumItemId);
+
+		while (keys[slot] != EMPTY_SLOT) {
+			if (keys[slot] == albumItemId) {
+				return values[slot];
+			}
+			slot = (slot + 1) & (keys.length - 1);
+		}
+
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Stores the position of the given id. An existing position for this id is overwritten.
+	 * @param albumItemId The id of the album item.
+	 * @param position The position of the album item.
+	 */
+	void put(long albumItemId, int position) {
+		if ((size + 1) * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+
+		int slot = slotOf(albumItemId);
+		while (keys[slot] != EMPTY_SLOT) {
+			if (keys[slot] == albumItemId) {
+				values[slot] = position;
+				return;
+			}
+			slot = (slot + 1) & (keys.length - 1);
+		}
+
+		keys[slot] = albumItemId;
+		values[slot] = position;
+		size++;
+	}
+
+	/**
+	 * Removes the given id from the index. Removing an id which is not part of the index has no effect.
+	 * @param albumItemId The id of the album item.
+	 */
+	void remove(long albumItemId) {
+		int mask = keys.length - 1;
+		int slot = slotOf(albumItemId);
+
+		while (keys[slot] != albumItemId) {
+			if (keys[slot] == EMPTY_SLOT) {
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		// Shift the following entries back such that no probing sequence is interrupted by the removal
+		int emptySlot = slot;
+		slot = (slot + 1) & mask;
+		while (keys[slot] != EMPTY_SLOT) {
+			int preferredSlot = slotOf(keys[slot]);
+
+			// The entry may only be moved if its preferred slot does not lie (cyclically) between the empty slot and itself
+			if (((slot - preferredSlot) & mask) >= ((slot - emptySlot) & mask)) {
+				keys[emptySlot] = keys[slot];
+				values[emptySlot] = values[slot];
+				emptySlot = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		keys[emptySlot] = EMPTY_SLOT;
+		size--;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private int slotOf(long albumItemId) {
+		// Spreads sequential ids (the common case) over the whole table
+		long hash = albumItemId * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+	}
+
+	private void resize(int newCapacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		allocate(newCapacity);
+		size = 0;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY_SLOT) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, EMPTY_SLOT);
+	}
+
+	/** The capacity is a power of two which keeps the load factor at or below one half */
+	private static int capacityFor(int expectedSize) {
+		int capacity = MINIMUM_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+
+		return capacity;
+	}
+}
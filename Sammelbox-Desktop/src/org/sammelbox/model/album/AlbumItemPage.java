@@ -0,0 +1,104 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.album;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.sammelbox.model.database.PageCursor;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+import org.sammelbox.model.database.operations.DatabaseConstants;
+
+/**
+ * A page of album items returned by a paginated album query, together with the cursor pointing to the next page.
+ * See {@link org.sammelbox.model.database.operations.DatabaseOperations#getAlbumItemPage} for details.
+ */
+public final class AlbumItemPage {
+	private final List<AlbumItem> albumItems;
+	private final PageCursor nextPageCursor;
+
+	private AlbumItemPage(List<AlbumItem> albumItems, PageCursor nextPageCursor) {
+		this.albumItems = Collections.unmodifiableList(albumItems);
+		this.nextPageCursor = nextPageCursor;
+	}
+
+	/** @return The album items of this page, including their pictures */
+	public List<AlbumItem> getAlbumItems() {
+		return albumItems;
+	}
+
+	/** @return The cursor which is needed to fetch the next page, or null if this is the last page */
+	public PageCursor getNextPageCursor() {
+		return nextPageCursor;
+	}
+
+	/** @return True if further album items follow this page */
+	public boolean hasNextPage() {
+		return nextPageCursor != null;
+	}
+
+	/**
+	 * Reads a page from a result set containing up to one more album item than the page size. The additional album item
+	 * is not part of the page, but indicates that there is a next page. The result set is closed afterwards.
+	 * @param albumItemResultSet The result set of a paginated album query.
+	 * @param sortField The field by which the query is sorted, or null if the album items are sorted by their ids.
+	 * @param pageSize The maximum number of album items of the page.
+	 * @return The page.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static AlbumItemPage readPage(AlbumItemResultSet albumItemResultSet, String sortField, int pageSize) throws DatabaseWrapperOperationException {
+		List<AlbumItem> albumItems = new ArrayList<AlbumItem>(pageSize);
+		PageCursor nextPageCursor = null;
+
+		try {
+			int idFieldIndex = getFieldIndex(albumItemResultSet, DatabaseConstants.ID_COLUMN_NAME);
+			int sortFieldIndex = sortField == null ? idFieldIndex : getFieldIndex(albumItemResultSet, sortField);
+			PageCursor lastAlbumItemCursor = null;
+
+			while (albumItemResultSet.moveToNext()) {
+				if (albumItems.size() == pageSize) {
+					nextPageCursor = lastAlbumItemCursor;
+					break;
+				}
+
+				albumItems.add(AlbumItemStore.createAlbumItem(albumItemResultSet));
+				lastAlbumItemCursor = new PageCursor(sortField == null ? null : albumItemResultSet.getDatabaseValue(sortFieldIndex),
+						albumItemResultSet.<Long>getFieldValue(idFieldIndex));
+			}
+		} finally {
+			albumItemResultSet.close();
+		}
+
+		AlbumItemStore.attachPictures(albumItemResultSet.getAlbumName(), albumItems);
+
+		return new AlbumItemPage(albumItems, nextPageCursor);
+	}
+
+	private static int getFieldIndex(AlbumItemResultSet albumItemResultSet, String fieldName) throws DatabaseWrapperOperationException {
+		for (int i=1; i<=albumItemResultSet.getFieldCount(); i++) {
+			if (fieldName.equals(albumItemResultSet.getFieldName(i))) {
+				return i;
+			}
+		}
+
+		throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "The field " + fieldName + " is not part of the result set");
+	}
+}
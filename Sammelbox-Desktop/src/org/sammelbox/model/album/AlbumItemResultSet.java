@@ -18,10 +18,14 @@
 
 package org.sammelbox.model.album;
 
+import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.controller.managers.PreparedStatementCache;
+import org.sammelbox.model.database.CompiledQuery;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
 import org.sammelbox.model.database.operations.DatabaseConstants;
 import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.model.database.operations.FieldValueDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,6 +40,16 @@ public class AlbumItemResultSet {
 	private String albumName = "";
 	private ResultSetMetaData metaData = null;
 	private Map<Integer, MetaItemField> metaInfoMap = new HashMap<Integer, MetaItemField>();
+	/** The names, types and decoders of the fields indexed by their column index. They are determined once per result set, 
+	 * such that reading a row requires neither map lookups nor a dispatch on the field type */
+	private String[] fieldNames = new String[1];
+	private FieldType[] fieldTypes = new FieldType[1];
+	private FieldValueDecoder[] fieldDecoders = new FieldValueDecoder[1];
+	private boolean closed = false;
+	/** The cache to which the statement of the result set is returned once the result set is closed */
+	private PreparedStatementCache statementCache = null;
+	private PreparedStatement cachedStatement = null;
+	private String cachedStatementSql = null;
 	
 	/**
 	 * Constructor.
@@ -44,25 +58,27 @@ public class AlbumItemResultSet {
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	public AlbumItemResultSet(Connection connection, String sqlStatement) throws DatabaseWrapperOperationException {
-		Statement statement = null;
+		this(connection, new CompiledQuery(sqlStatement));
+	}
+	
+	/**
+	 * Constructor.
+	 * @param connection The jdbc connection used to access the actual database.
+	 * @param query The query to yield the result set. Its statement is taken from the statement cache of the connection.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public AlbumItemResultSet(Connection connection, CompiledQuery query) throws DatabaseWrapperOperationException {
+		executeQuery(connection, query);
 		try {
-			statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
-			this.items = statement.executeQuery(sqlStatement);
-			this.metaData = items.getMetaData();
 			this.albumName = DatabaseOperations.getAlbumName(metaData.getTableName(1));			
-			this.metaInfoMap = DatabaseOperations.getAlbumItemMetaMap(albumName);
-		} catch (SQLException sqlException) {
-			try {
-				if (statement != null) {
-					statement.close();
-				}
-			} catch (SQLException innerSqlException) {
-				LOGGER.error("Failed to close statment while recovering from an error. "
-						+ "Additional exceptions might reveal the cause of this problem.", innerSqlException);
-			}
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlException);
-		}		
-	}	
+			this.metaInfoMap = mapResultColumnsToFields(DatabaseOperations.getAlbumItemMetaMap(albumName));
+			compileFieldDecoders();
+		} catch (SQLException | DatabaseWrapperOperationException ex) {
+			releaseStatement(false);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, ex);
+		}
+		ConnectionManager.resultSetOpened();
+	}
 	
 	/**
 	 * Constructor. Convenience method which allows to specify meta data explicitly.
@@ -72,24 +88,16 @@ public class AlbumItemResultSet {
 	 * @throws DatabaseWrapperOperationException Exception which will be thrown in case anything went wrong while creating the result set.
 	 */
 	public AlbumItemResultSet(Connection connection, String sqlStatement, Map<Integer, MetaItemField> metaInfoMap) throws DatabaseWrapperOperationException {
-		this.metaInfoMap = metaInfoMap;
-		Statement statement = null;
+		executeQuery(connection, new CompiledQuery(sqlStatement));
 		try {
-			statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-			this.items = statement.executeQuery(sqlStatement);
-			this.metaData = items.getMetaData();
+			this.metaInfoMap = mapResultColumnsToFields(metaInfoMap);
+			compileFieldDecoders();
 			this.albumName = DatabaseOperations.getAlbumName(metaData.getTableName(1));	
-		} catch (SQLException sqlException) {
-			try {
-				if (statement != null) {
-					statement.close();
-				}
-			} catch (SQLException innerSqlException) {
-				LOGGER.error("Failed to close statment while recovering from an error. "
-						+ "Additional exceptions might reveal the cause of this problem.", innerSqlException);
-			}
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlException);
+		} catch (SQLException | DatabaseWrapperOperationException ex) {
+			releaseStatement(false);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, ex);
 		}
+		ConnectionManager.resultSetOpened();
 	}
 	
 	/**
@@ -97,29 +105,98 @@ public class AlbumItemResultSet {
 	 * Use this method if the album name cannot be determined from the resultset's meta data
 	 * @param albumName The name of the album for which a resultset should be created
 	 * @param connection The jdbc connection used to access the actual database.
-	 * @param sqlStatement The SQL statement to yield the result set. Must be formatted properly.
+	 * @param query The query to yield the result set. Its statement is taken from the statement cache of the connection.
 	 * @param metaInfoMap A map containing all the metadata of the fields.
-	 * @throws SQLException Exception which will be thrown in case anything went wrong while creating the result set.
+	 * @throws DatabaseWrapperOperationException Exception which will be thrown in case anything went wrong while creating the result set.
 	 */
-	public AlbumItemResultSet(Connection connection, String albumName, String sqlStatement, Map<Integer, MetaItemField> metaInfoMap) throws DatabaseWrapperOperationException {
-		this.metaInfoMap = metaInfoMap;
-		Statement statement = null;
+	public AlbumItemResultSet(Connection connection, String albumName, CompiledQuery query, Map<Integer, MetaItemField> metaInfoMap) throws DatabaseWrapperOperationException {
+		this.albumName = albumName;
+		executeQuery(connection, query);
 		try {
-			statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-			this.items = statement.executeQuery(sqlStatement);
+			this.metaInfoMap = mapResultColumnsToFields(metaInfoMap);
+			compileFieldDecoders();
+		} catch (SQLException ex) {
+			releaseStatement(false);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, ex);
+		}
+		ConnectionManager.resultSetOpened();
+	}
+	
+	/**
+	 * Maps the columns of the result to the fields of the album. Queries selecting all columns (SELECT *) return the columns
+	 * in the order of the table, whereas projections (see {@link org.sammelbox.model.database.QueryBuilder#createSelectQuery})
+	 * only return some of them. Hence the columns are matched by name, unless they are in the order of the table anyway. 
+	 * @param tableMetaInfoMap The meta data of all fields, keyed by the (one based) column index within the album table.
+	 * @return The meta data of the fields contained in the result, keyed by the column index within the result.
+	 */
+	private Map<Integer, MetaItemField> mapResultColumnsToFields(Map<Integer, MetaItemField> tableMetaInfoMap) throws SQLException {
+		int columnCount = metaData.getColumnCount();
+		Map<String, MetaItemField> fieldsByName = null;
+		Map<Integer, MetaItemField> resultMetaInfoMap = new HashMap<Integer, MetaItemField>();
+		
+		for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
+			String columnName = metaData.getColumnName(columnIndex);
+			MetaItemField tableField = tableMetaInfoMap.get(columnIndex);
+			
+			if (tableField == null || !tableField.getName().equals(columnName)) {
+				if (fieldsByName == null) {
+					fieldsByName = new HashMap<String, MetaItemField>();
+					for (MetaItemField metaItemField : tableMetaInfoMap.values()) {
+						fieldsByName.put(metaItemField.getName(), metaItemField);
+					}
+				}
+				
+				// Columns which are not part of the table (e.g. computed columns) keep their positional meta data
+				if (fieldsByName.containsKey(columnName)) {
+					tableField = fieldsByName.get(columnName);
+				}
+			}
+			
+			if (tableField != null) {
+				resultMetaInfoMap.put(columnIndex, tableField);
+			}
+		}
+		
+		return resultMetaInfoMap;
+	}
+
+	/** Determines the name, type and decoder of every column of the result */
+	private void compileFieldDecoders() throws SQLException {
+		int columnCount = metaData.getColumnCount();
+		fieldNames = new String[columnCount + 1];
+		fieldTypes = new FieldType[columnCount + 1];
+		fieldDecoders = new FieldValueDecoder[columnCount + 1];
+		
+		for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
+			MetaItemField field = metaInfoMap.get(columnIndex);
+			
+			if (field != null) {
+				fieldNames[columnIndex] = field.getName();
+				fieldTypes[columnIndex] = field.getType();
+				fieldDecoders[columnIndex] = FieldValueDecoder.forType(field.getType());
+			}
+		}
+	}
+	
+	/** Executes the query using a statement of the statement cache of the connection */
+	private void executeQuery(Connection connection, CompiledQuery query) throws DatabaseWrapperOperationException {
+		PreparedStatementCache connectionStatementCache = ConnectionManager.getStatementCache(connection);
+		PreparedStatement statement = null;
+		try {
+			statement = connectionStatementCache.acquire(query.getSql());
+			query.bindParameters(statement);
+			this.items = statement.executeQuery();
 			this.metaData = items.getMetaData();
-			this.albumName = albumName;
 		} catch (SQLException sqlException) {
-			try {
-				if (statement != null) {
-					statement.close();
-				}
-			} catch (SQLException innerSqlException) {
-				LOGGER.error("Failed to close statment while recovering from an error. "
-						+ "Additional exceptions might reveal the cause of this problem.", innerSqlException);
+			if (statement != null) {
+				connectionStatementCache.discard(statement);
 			}
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlException);
 		}
+		
+		this.statementCache = connectionStatementCache;
+		this.cachedStatement = statement;
+		this.cachedStatementSql = query.getSql();
 	}
 
 	/**
@@ -156,16 +233,7 @@ public class AlbumItemResultSet {
 	 * @return An integer specifying the number of fields.
 	 */
 	public int getFieldCount() {
-		// Retrieve table metadata
-		try {
-			if (metaData != null) {
-				return metaData.getColumnCount();
-			}
-		} catch (SQLException e) {
-			LOGGER.error("An error occurred while retrieving the field could from the album item result set");
-		}
-
-		return 0;
+		return fieldDecoders.length - 1;
 	}
 
 	/**
@@ -176,30 +244,46 @@ public class AlbumItemResultSet {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> T getFieldValue(int fieldIndex) throws DatabaseWrapperOperationException {
-		FieldType type =  metaInfoMap.get(fieldIndex).getType();
-		Object outValue = null;
+		FieldValueDecoder fieldDecoder = fieldIndex > 0 && fieldIndex < fieldDecoders.length ? fieldDecoders[fieldIndex] : null;
+		if (fieldDecoder == null) {
+			LOGGER.error("The field index {} does not refer to a field of the album {}", fieldIndex, albumName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
+		}
+		
 		try {
-			outValue = DatabaseOperations.fetchFieldItemValue(items, fieldIndex, type, albumName);
-			return (T)outValue;
-		} catch (DatabaseWrapperOperationException e) {
+			return (T) fieldDecoder.decode(items, fieldIndex);
+		} catch (SQLException e) {
 			LOGGER.error("Fetching the field value for the index {} failed", fieldIndex);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		}		
 	}
 
+	/**
+	 * Gets the value of the specified field as it is stored in the database, i.e. without converting it to the type of the field.
+	 * Such values can be bound to query parameters, e.g. to compare other rows against this one.
+	 * @param fieldIndex The index under which the field value is stored.
+	 * @return The stored value, or null if the field has no value.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public Object getDatabaseValue(int fieldIndex) throws DatabaseWrapperOperationException {
+		try {
+			return items.getObject(fieldIndex);
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
+
 	/**
 	 * Getter for a field name. 
 	 * @param fieldIndex The index position under which the item is stored.
 	 * @return The name of the field or null if the index is invalid.
 	 */
 	public String getFieldName(int fieldIndex) {
-		MetaItemField field = metaInfoMap.get(fieldIndex);
-		if (field == null) {
+		if (fieldIndex <= 0 || fieldIndex >= fieldNames.length) {
 			return null;
 		}
-		String name = field.getName();
 
-		return name;
+		return fieldNames[fieldIndex];
 	}
 
 	/**
@@ -208,13 +292,11 @@ public class AlbumItemResultSet {
 	 * @return The type of the field or null if the index is invalid.
 	 */
 	public FieldType getFieldType(int fieldIndex) {
-		MetaItemField field = metaInfoMap.get(fieldIndex);
-		if (field == null) {
+		if (fieldIndex <= 0 || fieldIndex >= fieldTypes.length) {
 			return null;
 		}
-		FieldType type =  field.getType();
 
-		return type;
+		return fieldTypes[fieldIndex];
 	}
 	
 	/**
@@ -240,13 +322,52 @@ public class AlbumItemResultSet {
 	 * Closes the result set and ensures that allocated resources are freed properly-
 	 * @return true if the closing was successfully, false otherwise.
 	 */
-	public boolean close() {
+	public synchronized boolean close() {
+		if (!closed) {
+			closed = true;
+			ConnectionManager.resultSetClosed();
+		}
+		
 		try {
 			items.close();
 		} catch (SQLException e) {			
 			LOGGER.error("An error occurred while closing the album item result set");
+			releaseStatement(false);
 			return false;
 		}
+		
+		releaseStatement(true);
 		return true;
 	}
+	
+	/**
+	 * Cancels the query of this result set. This method may be called by another thread than the one reading the result set, 
+	 * which then fails to read further album items. Nothing happens if the result set has already been closed.
+	 */
+	public synchronized void cancel() {
+		// Once released, the statement might be used by another query
+		if (statementCache == null) {
+			return;
+		}
+		
+		try {
+			cachedStatement.cancel();
+		} catch (SQLException e) {
+			LOGGER.warn("The query of the album item result set could not be cancelled", e);
+		}
+	}
+	
+	/** Returns the statement to the statement cache (reusable == true) or closes it, unless this already happened */
+	private void releaseStatement(boolean reusable) {
+		if (statementCache == null) {
+			return;
+		}
+		
+		if (reusable) {
+			statementCache.release(cachedStatementSql, cachedStatement);
+		} else {
+			statementCache.discard(cachedStatement);
+		}
+		statementCache = null;
+	}
 }
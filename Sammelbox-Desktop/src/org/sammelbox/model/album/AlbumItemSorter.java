@@ -0,0 +1,318 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.album;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts the rows of a loaded result by the values of one field. Every value is first translated into a sort key, i.e.
+ * a primitive long whose order equals the order of the values. Numbers, dates and times are their own sort keys, texts 
+ * are ranked in the binary order of SQLite (i.e. by their characters), such that the rows are sorted in the same way as 
+ * by an ORDER BY clause. Hence the rows are sorted by comparing primitives only, using several threads for large results. 
+ * Since ranking texts is expensive, the sort keys of a field can be kept and reused as long as the rows do not change. 
+ * Like SQLite, null values precede all other values in ascending order, and numbers precede texts.
+ */
+final class AlbumItemSorter {
+	/** Ranges with at most this number of rows are sorted by a single thread */
+	private static final int PARALLEL_SORT_THRESHOLD = 8192;
+	/** Ranges with at most this number of rows are sorted by insertion sort */
+	private static final int INSERTION_SORT_THRESHOLD = 32;
+	private static final ForkJoinPool SORT_POOL = new ForkJoinPool();
+	/** The order of SQLite's BINARY collation, which is used for all text columns */
+	private static final Comparator<Object> DATABASE_ORDER = new Comparator<Object>() {
+		@Override
+		public int compare(Object value, Object otherValue) {
+			boolean isNumeric = isNumeric(value);
+			if (isNumeric != isNumeric(otherValue)) {
+				return isNumeric ? -1 : 1;
+			} else if (isNumeric) {
+				return compareNumbers(toNumber(value), toNumber(otherValue));
+			}
+			
+			// The driver stores texts as modified UTF-8, whose bytes are in the order of the UTF-16 characters
+			return value.toString().compareTo(otherValue.toString());
+		}
+	};
+
+	private AlbumItemSorter() {
+		// use static methods
+	}
+
+	/**
+	 * Determines the order of the rows sorted by the given sort keys. Rows with equal values keep their order.
+	 * @param sortKeys The sort keys of the rows, see {@link #createSortKeys(Object[])}.
+	 * @param ascending True if the rows are sorted ascending, false if they are sorted descending.
+	 * @return The positions of the rows in the sorted order.
+	 */
+	static int[] sort(SortKeys sortKeys, boolean ascending) {
+		int rowCount = sortKeys.keys.length;
+		int[] nullRows = new int[sortKeys.nullRows.cardinality()];
+		int[] rows = new int[rowCount - nullRows.length];
+		int nullRowCount = 0;
+		int nonNullRowCount = 0;
+		for (int row = 0; row < rowCount; row++) {
+			if (sortKeys.nullRows.get(row)) {
+				nullRows[nullRowCount++] = row;
+			} else {
+				rows[nonNullRowCount++] = row;
+			}
+		}
+
+		int[] buffer = new int[nonNullRowCount];
+		if (nonNullRowCount > PARALLEL_SORT_THRESHOLD) {
+			SORT_POOL.invoke(new SortTask(rows, buffer, sortKeys.keys, ascending, 0, nonNullRowCount));
+		} else {
+			mergeSort(rows, buffer, sortKeys.keys, ascending, 0, nonNullRowCount);
+		}
+
+		int[] sortedRows = new int[rowCount];
+		if (ascending) {
+			System.arraycopy(nullRows, 0, sortedRows, 0, nullRowCount);
+			System.arraycopy(rows, 0, sortedRows, nullRowCount, nonNullRowCount);
+		} else {
+			System.arraycopy(rows, 0, sortedRows, 0, nonNullRowCount);
+			System.arraycopy(nullRows, 0, sortedRows, nonNullRowCount, nullRowCount);
+		}
+
+		return sortedRows;
+	}
+
+	/**
+	 * Translates the values into sort keys, which can be used to sort the rows repeatedly.
+	 * @param values The value of every row.
+	 * @return The sort keys of the rows.
+	 */
+	static SortKeys createSortKeys(Object[] values) {
+		BitSet nullRows = new BitSet();
+		for (int row = 0; row < values.length; row++) {
+			if (values[row] == null) {
+				nullRows.set(row);
+			}
+		}
+
+		return new SortKeys(createKeys(values), nullRows);
+	}
+
+	/** The keys of null values are undefined */
+	private static long[] createKeys(Object[] values) {
+		long[] sortKeys = new long[values.length];
+		boolean containsDecimals = false;
+		boolean containsOtherValues = false;
+
+		for (Object value : values) {
+			if (value instanceof Double || value instanceof Float) {
+				containsDecimals = true;
+			} else if (value != null && !isNumeric(value)) {
+				containsOtherValues = true;
+			}
+		}
+
+		if (containsOtherValues) {
+			return createRankSortKeys(values);
+		}
+
+		for (int row = 0; row < values.length; row++) {
+			Object value = values[row];
+
+			if (value instanceof Number && containsDecimals) {
+				sortKeys[row] = toSortableLong(((Number) value).doubleValue());
+			} else if (value != null) {
+				sortKeys[row] = toNumber(value).longValue();
+			}
+		}
+
+		return sortKeys;
+	}
+
+	/** Maps a double to a long such that the longs are ordered in the same way as the doubles */
+	private static long toSortableLong(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> (Long.SIZE - 1)) & Long.MAX_VALUE);
+	}
+
+	/** Uses the rank of every value among the distinct values as sort key, such that each distinct value is compared to 
+	 * the other values only while it is ranked */
+	private static long[] createRankSortKeys(Object[] values) {
+		// Equal values share their entry and hence their rank
+		Map<Object, Long> ranksByValue = new TreeMap<Object, Long>(DATABASE_ORDER);
+		for (Object value : values) {
+			if (value != null) {
+				ranksByValue.put(value, null);
+			}
+		}
+
+		long rank = 0;
+		for (Map.Entry<Object, Long> rankOfValue : ranksByValue.entrySet()) {
+			rankOfValue.setValue(rank++);
+		}
+
+		long[] sortKeys = new long[values.length];
+		for (int row = 0; row < values.length; row++) {
+			if (values[row] != null) {
+				sortKeys[row] = ranksByValue.get(values[row]);
+			}
+		}
+
+		return sortKeys;
+	}
+
+	/** Dates, times and star ratings are stored as numbers */
+	private static boolean isNumeric(Object value) {
+		return value instanceof Number || value instanceof Date || value instanceof StarRating;
+	}
+
+	private static Number toNumber(Object value) {
+		if (value instanceof Date) {
+			return ((Date) value).getTime();
+		} else if (value instanceof StarRating) {
+			return ((StarRating) value).getIntegerValue();
+		}
+
+		return (Number) value;
+	}
+
+	private static int compareNumbers(Number number, Number otherNumber) {
+		if (number instanceof Double || number instanceof Float || otherNumber instanceof Double || otherNumber instanceof Float) {
+			return Double.compare(number.doubleValue(), otherNumber.doubleValue());
+		}
+
+		return Long.compare(number.longValue(), otherNumber.longValue());
+	}
+
+	/** Sorts the rows between fromIndex (inclusive) and toIndex (exclusive) by a stable merge sort */
+	private static void mergeSort(int[] rows, int[] buffer, long[] sortKeys, boolean ascending, int fromIndex, int toIndex) {
+		if (toIndex - fromIndex <= INSERTION_SORT_THRESHOLD) {
+			insertionSort(rows, sortKeys, ascending, fromIndex, toIndex);
+			return;
+		}
+
+		int middleIndex = (fromIndex + toIndex) >>> 1;
+		mergeSort(rows, buffer, sortKeys, ascending, fromIndex, middleIndex);
+		mergeSort(rows, buffer, sortKeys, ascending, middleIndex, toIndex);
+		merge(rows, buffer, sortKeys, ascending, fromIndex, middleIndex, toIndex);
+	}
+
+	private static void insertionSort(int[] rows, long[] sortKeys, boolean ascending, int fromIndex, int toIndex) {
+		for (int i = fromIndex + 1; i < toIndex; i++) {
+			int row = rows[i];
+			int j = i - 1;
+
+			while (j >= fromIndex && compare(sortKeys, ascending, rows[j], row) > 0) {
+				rows[j + 1] = rows[j];
+				j--;
+			}
+			rows[j + 1] = row;
+		}
+	}
+
+	/** Merges the sorted ranges [fromIndex, middleIndex) and [middleIndex, toIndex) */
+	private static void merge(int[] rows, int[] buffer, long[] sortKeys, boolean ascending, int fromIndex, int middleIndex, int toIndex) {
+		if (compare(sortKeys, ascending, rows[middleIndex - 1], rows[middleIndex]) <= 0) {
+			// the ranges are already in order
+			return;
+		}
+
+		System.arraycopy(rows, fromIndex, buffer, fromIndex, toIndex - fromIndex);
+
+		int left = fromIndex;
+		int right = middleIndex;
+		for (int i = fromIndex; i < toIndex; i++) {
+			if (right >= toIndex || (left < middleIndex && compare(sortKeys, ascending, buffer[left], buffer[right]) <= 0)) {
+				rows[i] = buffer[left++];
+			} else {
+				rows[i] = buffer[right++];
+			}
+		}
+	}
+
+	private static int compare(long[] sortKeys, boolean ascending, int row, int otherRow) {
+		int comparison = Long.compare(sortKeys[row], sortKeys[otherRow]);
+		return ascending ? comparison : -comparison;
+	}
+
+	/** The sort keys of all rows. Null values have no sort key, they are marked instead */
+	static final class SortKeys {
+		private long[] keys;
+		private BitSet nullRows;
+
+		private SortKeys(long[] keys, BitSet nullRows) {
+			this.keys = keys;
+			this.nullRows = nullRows;
+		}
+
+		/**
+		 * Rearranges the sort keys along with the rows to which they belong.
+		 * @param rows The current positions of the rows in their new order. Rows whose positions are not given are removed.
+		 */
+		void reorder(int[] rows) {
+			long[] reorderedKeys = new long[rows.length];
+			BitSet reorderedNullRows = new BitSet();
+
+			for (int row = 0; row < rows.length; row++) {
+				reorderedKeys[row] = keys[rows[row]];
+				if (nullRows.get(rows[row])) {
+					reorderedNullRows.set(row);
+				}
+			}
+
+			keys = reorderedKeys;
+			nullRows = reorderedNullRows;
+		}
+	}
+
+	/** Sorts both halves of its range in parallel, and merges them afterwards */
+	private static final class SortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] rows;
+		private final int[] buffer;
+		private final long[] sortKeys;
+		private final boolean ascending;
+		private final int fromIndex;
+		private final int toIndex;
+
+		SortTask(int[] rows, int[] buffer, long[] sortKeys, boolean ascending, int fromIndex, int toIndex) {
+			this.rows = rows;
+			this.buffer = buffer;
+			this.sortKeys = sortKeys;
+			this.ascending = ascending;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+		}
+
+		@Override
+		protected void compute() {
+			if (toIndex - fromIndex <= PARALLEL_SORT_THRESHOLD) {
+				mergeSort(rows, buffer, sortKeys, ascending, fromIndex, toIndex);
+				return;
+			}
+
+			int middleIndex = (fromIndex + toIndex) >>> 1;
+			invokeAll(new SortTask(rows, buffer, sortKeys, ascending, fromIndex, middleIndex),
+					  new SortTask(rows, buffer, sortKeys, ascending, middleIndex, toIndex));
+			merge(rows, buffer, sortKeys, ascending, fromIndex, middleIndex, toIndex);
+		}
+	}
+}
@@ -20,13 +20,19 @@ package org.sammelbox.model.album;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.sammelbox.controller.filesystem.FileSystemLocations;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseConstants;
+import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.composites.StatusBarComposite;
 
@@ -36,33 +42,335 @@ public final class AlbumItemStore {
 	private static final int MULTIPLIER_FOR_RANDOM_DECIMAL = 100;
 	private static final int MAX_RANDOM_INT = 100;
 	private static final String SAMPLE = "Sample";
+	private static final int NO_ID_FIELD = -1;
 	
 	private static List<AlbumItem> albumItems = new ArrayList<AlbumItem>();
+	/** Maps the id of every album item in the store to its position within the album item list */
+	private static AlbumItemIdIndex albumItemIndex = new AlbumItemIdIndex();
+	/** The sort keys of the fields by which the store has been sorted. They are kept until the album items change */
+	private static Map<String, AlbumItemSorter.SortKeys> sortKeysByFieldName = new HashMap<String, AlbumItemSorter.SortKeys>();
+	/** If enabled, only the ids of the album items are kept in memory while the album items are fetched page by page. Since 
+	 * the pages are fetched by the thread accessing the album items, which usually is the UI thread, the paged mode is off by default */
+	private static boolean pagingEnabled = false;
 	
 	private AlbumItemStore() {
 	}
 	
 	public static void reinitializeStore(AlbumItemResultSet albumItemResultSet) throws DatabaseWrapperOperationException {
-		albumItems.clear();
+		reinitializeStore(albumItemResultSet, false);
+	}
+	
+	/** Reinitializes the store with the album items of the given result set
+	 * @param albumItemResultSet the result set containing the album items. The result set is closed afterwards
+	 * @param prefetchPictures if true, the pictures of the album items are fetched together with the album items using a 
+	 * single query (per page in paged mode) instead of one query per album item. Views showing pictures should use this */
+	public static void reinitializeStore(AlbumItemResultSet albumItemResultSet, boolean prefetchPictures) throws DatabaseWrapperOperationException {
+		reinitializeStore(loadAlbumItems(albumItemResultSet, prefetchPictures));
+	}
+	
+	/** Reinitializes the store with album items which have been loaded using {@link #loadAlbumItems(AlbumItemResultSet, boolean)}
+	 * @param loadedAlbumItems the album items which replace the current content of the store */
+	public static void reinitializeStore(List<AlbumItem> loadedAlbumItems) {
+		albumItems = loadedAlbumItems;
+		sortKeysByFieldName.clear();
+		rebuildIndexFrom(0);
+	}
+	
+	/** Loads the album items of the given result set in the same way as the store does, but without modifying the store. 
+	 * Hence this method may be used by background threads to prepare the content of the store
+	 * @param albumItemResultSet the result set containing the album items. The result set is closed afterwards
+	 * @param prefetchPictures see {@link #reinitializeStore(AlbumItemResultSet, boolean)} 
+	 * @return a list of album items which can be passed to {@link #reinitializeStore(List)} */
+	public static List<AlbumItem> loadAlbumItems(AlbumItemResultSet albumItemResultSet, boolean prefetchPictures) throws DatabaseWrapperOperationException {
+		int idFieldIndex = getIdFieldIndex(albumItemResultSet);
+		List<AlbumItem> loadedAlbumItems;
 		
-		while (albumItemResultSet.moveToNext()) {
-			List<ItemField> itemFields = new ArrayList<ItemField>();
+		if (pagingEnabled && idFieldIndex != NO_ID_FIELD) {
+			List<Long> albumItemIds = new ArrayList<Long>();
+			while (albumItemResultSet.moveToNext()) {
+				albumItemIds.add(albumItemResultSet.<Long>getFieldValue(idFieldIndex));
+			}
+			albumItemResultSet.close();
 			
-			for (int i=1; i<=albumItemResultSet.getFieldCount(); i++) {				
-				itemFields.add(new ItemField(albumItemResultSet.getFieldName(i), albumItemResultSet.getFieldType(i), albumItemResultSet.getFieldValue(i)));
+			long[] ids = new long[albumItemIds.size()];
+			for (int i=0; i<ids.length; i++) {
+				ids[i] = albumItemIds.get(i);
 			}
 			
-			AlbumItem albumItem = new AlbumItem(albumItemResultSet.getAlbumName(), itemFields);
-			albumItem.setFields(itemFields);
-			albumItems.add(albumItem);
+			loadedAlbumItems = new PagedAlbumItemList(albumItemResultSet.getAlbumName(), ids, prefetchPictures);
+		} else {
+			// The values are kept column by column rather than as one album item per row
+			ColumnarAlbumItemList columnarAlbumItems = ColumnarAlbumItemList.read(albumItemResultSet);
+			albumItemResultSet.close();
+			
+			if (prefetchPictures) {
+				attachPictures(albumItemResultSet.getAlbumName(), columnarAlbumItems);
+			}
+			
+			loadedAlbumItems = columnarAlbumItems;
 		}
 		
-		albumItemResultSet.close();
+		return loadedAlbumItems;
 	}
 	
-	public static void reinitializeStoreAndUpdateStatus(AlbumItemResultSet albumItemResultSet) throws DatabaseWrapperOperationException {
-		reinitializeStore(albumItemResultSet);
+	/** Updates the positions of all album items starting at the given position */
+	private static void rebuildIndexFrom(int fromIndex) {
+		if (fromIndex == 0) {
+			albumItemIndex = new AlbumItemIdIndex(albumItems.size());
+		}
+		
+		for (int i=fromIndex; i<albumItems.size(); i++) {
+			albumItemIndex.put(getAlbumItemId(i), i);
+		}
+	}
+	
+	/** Retrieves the id of the album item at the given position without fetching the item in paged mode */
+	private static long getAlbumItemId(int index) {
+		if (albumItems instanceof PagedAlbumItemList) {
+			return ((PagedAlbumItemList) albumItems).getAlbumItemId(index);
+		} else if (albumItems instanceof ColumnarAlbumItemList) {
+			return ((ColumnarAlbumItemList) albumItems).getAlbumItemId(index);
+		}
+		
+		return albumItems.get(index).getItemId();
+	}
+	
+	/** Appends the given album item to the store
+	 * @param albumItem an album item which has already been stored in the database */
+	public static void addAlbumItem(AlbumItem albumItem) {
+		albumItems.add(albumItem);
+		albumItemIndex.put(albumItem.getItemId(), albumItems.size() - 1);
+		sortKeysByFieldName.clear();
+	}
+	
+	/** Replaces the album item with the same id by the given album item. If no such item exists, the store remains unchanged 
+	 * @param albumItem the album item containing the updated fields */
+	public static void updateAlbumItem(AlbumItem albumItem) {
+		int index = albumItemIndex.get(albumItem.getItemId());
 		
+		if (index != AlbumItemIdIndex.NOT_FOUND) {
+			albumItems.set(index, albumItem);
+			sortKeysByFieldName.clear();
+		}
+	}
+	
+	/** Removes the album item with the given id from the store. If no such item exists, the store remains unchanged
+	 * @param albumItemId the id of the album item to be removed */
+	public static void removeAlbumItem(long albumItemId) {
+		removeAlbumItems(Collections.singletonList(albumItemId));
+	}
+	
+	/** Removes the album items with the given ids from the store. Ids of album items which are not part of the store are ignored.
+	 * The album items are removed together, such that the positions of the remaining items are only updated once
+	 * @param albumItemIds the ids of the album items to be removed */
+	public static void removeAlbumItems(Collection<Long> albumItemIds) {
+		boolean[] removed = new boolean[albumItems.size()];
+		int numberOfRemovedAlbumItems = 0;
+		
+		for (long albumItemId : albumItemIds) {
+			int index = albumItemIndex.get(albumItemId);
+			
+			if (index != AlbumItemIdIndex.NOT_FOUND && !removed[index]) {
+				removed[index] = true;
+				numberOfRemovedAlbumItems++;
+			}
+		}
+		
+		if (numberOfRemovedAlbumItems == 0) {
+			return;
+		}
+		
+		int[] remainingIndexes = new int[albumItems.size() - numberOfRemovedAlbumItems];
+		int remainingIndex = 0;
+		for (int index=0; index<removed.length; index++) {
+			if (!removed[index]) {
+				remainingIndexes[remainingIndex++] = index;
+			}
+		}
+		
+		sortKeysByFieldName.clear();
+		reorderAlbumItems(remainingIndexes);
+	}
+	
+	/** Sorts the album items of the store by the values of the given field without querying the album items again. Album items 
+	 * with equal values keep their order. The sort keys of the field are kept, such that sorting by the same field again (e.g.
+	 * in the opposite direction) only compares the sort keys
+	 * @param albumName the name of the album whose items should be sorted
+	 * @param fieldName the name of the field by which the album items are sorted
+	 * @param sortAscending true if the album items are sorted ascending, false if they are sorted descending
+	 * @return true if the album items have been sorted, false if the store does not contain the items of the album or if the 
+	 * album has no such field. In these cases, the album items need to be queried in the desired order */
+	public static boolean sortAlbumItems(String albumName, String fieldName, boolean sortAscending) throws DatabaseWrapperOperationException {
+		if (!isStoreOfAlbum(albumName)) {
+			return false;
+		}
+		
+		AlbumItemSorter.SortKeys sortKeys = sortKeysByFieldName.get(fieldName);
+		if (sortKeys == null) {
+			Object[] values = getFieldValues(albumName, fieldName);
+			
+			if (values == null) {
+				return false;
+			}
+			
+			sortKeys = AlbumItemSorter.createSortKeys(values);
+			sortKeysByFieldName.put(fieldName, sortKeys);
+		}
+		
+		reorderAlbumItems(AlbumItemSorter.sort(sortKeys, sortAscending));
+		return true;
+	}
+	
+	/** Retrieves the values of the given field for all album items of the store without creating the album items, 
+	 * or null if the store does not contain the items of the album or if the album has no such field */
+	private static Object[] getFieldValues(String albumName, String fieldName) throws DatabaseWrapperOperationException {
+		if (!isStoreOfAlbum(albumName)) {
+			return null;
+		}
+		
+		if (albumItems instanceof PagedAlbumItemList) {
+			return ((PagedAlbumItemList) albumItems).getFieldValues(fieldName);
+		} else if (albumItems instanceof ColumnarAlbumItemList) {
+			return ((ColumnarAlbumItemList) albumItems).getFieldValues(fieldName);
+		}
+		
+		Object[] values = new Object[albumItems.size()];
+		for (int i=0; i<albumItems.size(); i++) {
+			ItemField itemField = albumItems.get(i).getField(fieldName);
+			
+			if (itemField == null) {
+				return null;
+			}
+			values[i] = itemField.getValue();
+		}
+		
+		return values;
+	}
+	
+	/** @return true if the store has been initialized with the items of the given album */
+	private static boolean isStoreOfAlbum(String albumName) {
+		if (albumItems instanceof PagedAlbumItemList) {
+			return ((PagedAlbumItemList) albumItems).getAlbumName().equals(albumName);
+		} else if (albumItems instanceof ColumnarAlbumItemList) {
+			return ((ColumnarAlbumItemList) albumItems).getAlbumName().equals(albumName);
+		}
+		
+		if (albumItems.isEmpty()) {
+			// the album of an empty list is unknown
+			return false;
+		}
+		
+		for (AlbumItem albumItem : albumItems) {
+			if (!albumItem.getAlbumName().equals(albumName)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/** Rearranges the album items of the store in the given order and removes the album items whose positions are not given */
+	private static void reorderAlbumItems(int[] indexes) {
+		if (albumItems instanceof PagedAlbumItemList) {
+			((PagedAlbumItemList) albumItems).reorder(indexes);
+		} else if (albumItems instanceof ColumnarAlbumItemList) {
+			((ColumnarAlbumItemList) albumItems).reorder(indexes);
+		} else {
+			List<AlbumItem> reorderedAlbumItems = new ArrayList<AlbumItem>(indexes.length);
+			for (int index : indexes) {
+				reorderedAlbumItems.add(albumItems.get(index));
+			}
+			albumItems = reorderedAlbumItems;
+		}
+		
+		for (AlbumItemSorter.SortKeys sortKeys : sortKeysByFieldName.values()) {
+			sortKeys.reorder(indexes);
+		}
+		rebuildIndexFrom(0);
+	}
+	
+	/** Loads the pictures of all given album items using a single query and attaches them to the album items */
+	static void attachPictures(String albumName, List<AlbumItem> albumItemsWithoutPictures) throws DatabaseWrapperOperationException {
+		List<Long> albumItemIds = new ArrayList<Long>(albumItemsWithoutPictures.size());
+		for (AlbumItem albumItem : albumItemsWithoutPictures) {
+			if (albumItem != null) {
+				albumItemIds.add(albumItem.getItemId());
+			}
+		}
+		
+		Map<Long, List<AlbumItemPicture>> picturesByAlbumItemId = DatabaseOperations.getAlbumItemPictures(albumName, albumItemIds);
+		for (AlbumItem albumItem : albumItemsWithoutPictures) {
+			if (albumItem != null) {
+				albumItem.setPictures(picturesByAlbumItemId.get(albumItem.getItemId()));
+				albumItem.markClean();
+			}
+		}
+	}
+	
+	/** Loads the pictures of all album items of the columnar list using a single query and attaches them to the rows */
+	private static void attachPictures(String albumName, ColumnarAlbumItemList columnarAlbumItems) throws DatabaseWrapperOperationException {
+		List<Long> albumItemIds = new ArrayList<Long>(columnarAlbumItems.size());
+		for (int i=0; i<columnarAlbumItems.size(); i++) {
+			albumItemIds.add(columnarAlbumItems.getAlbumItemId(i));
+		}
+		
+		Map<Long, List<AlbumItemPicture>> picturesByAlbumItemId = DatabaseOperations.getAlbumItemPictures(albumName, albumItemIds);
+		for (int i=0; i<columnarAlbumItems.size(); i++) {
+			columnarAlbumItems.setPictures(i, picturesByAlbumItemId.get(albumItemIds.get(i)));
+		}
+	}
+	
+	/** Creates an album item from the current position of the result set */
+	static AlbumItem createAlbumItem(AlbumItemResultSet albumItemResultSet) throws DatabaseWrapperOperationException {
+		int fieldCount = albumItemResultSet.getFieldCount();
+		List<ItemField> itemFields = new ArrayList<ItemField>(fieldCount);
+		
+		for (int i=1; i<=fieldCount; i++) {				
+			itemFields.add(new ItemField(albumItemResultSet.getFieldName(i), albumItemResultSet.getFieldType(i), albumItemResultSet.getFieldValue(i)));
+		}
+		
+		AlbumItem albumItem = new AlbumItem(albumItemResultSet.getAlbumName(), itemFields);
+		albumItem.setFields(itemFields);
+		albumItem.markClean();
+		
+		return albumItem;
+	}
+	
+	private static int getIdFieldIndex(AlbumItemResultSet albumItemResultSet) {
+		for (int i=1; i<=albumItemResultSet.getFieldCount(); i++) {
+			if (DatabaseConstants.ID_COLUMN_NAME.equals(albumItemResultSet.getFieldName(i))) {
+				return i;
+			}
+		}
+		
+		return NO_ID_FIELD;
+	}
+	
+	/** Enables or disables the paged mode for all subsequent reinitializations of the store. In paged mode, only the ids 
+	 * of the album items are kept in memory, while the album items themselves are fetched page by page when accessed. 
+	 * Otherwise, which is the default, the album items are read completely into a {@link ColumnarAlbumItemList}. */
+	public static void setPagingEnabled(boolean pagingEnabled) {
+		AlbumItemStore.pagingEnabled = pagingEnabled;
+	}
+	
+	public static boolean isPagingEnabled() {
+		return pagingEnabled;
+	}
+	
+	public static void reinitializeStoreAndUpdateStatus(AlbumItemResultSet albumItemResultSet) throws DatabaseWrapperOperationException {
+		// The album views show (at least) the first picture of every album item
+		reinitializeStoreAndUpdateStatus(loadAlbumItems(albumItemResultSet, true));
+	}
+	
+	/** Reinitializes the store with album items which have been loaded (including their pictures) using 
+	 * {@link #loadAlbumItems(AlbumItemResultSet, boolean)} and shows the number of album items in the status bar */
+	public static void reinitializeStoreAndUpdateStatus(List<AlbumItem> loadedAlbumItems) {
+		reinitializeStore(loadedAlbumItems);
+		updateStatus();
+	}
+	
+	/** Shows the number of album items in the status bar, e.g. after album items have been added to or removed from the store */
+	public static void updateStatus() {
 		StatusBarComposite.getInstance(ApplicationUI.getShell()).writeStatus(
 				Translator.get(DictKeys.STATUSBAR_NUMBER_OF_ITEMS, albumItems.size()), false);
 	}
@@ -74,15 +382,31 @@ public final class AlbumItemStore {
 	public static List<AlbumItem> getAlbumItems() {
 		return albumItems;
 	}
+	
+	/** Retrieves the album items of the store for a view which only renders some of their fields. In paged mode, the pages of
+	 * the returned list are fetched without the other fields, hence the list is a snapshot which is not modified along with the 
+	 * store. Its album items are incomplete and must not be edited, since the complete items are retrieved when they are opened 
+	 * (see {@link DatabaseOperations#getAlbumItem(String, long)})
+	 * @param fieldNames the names of the fields which are rendered. The id of the album items is always contained
+	 * @return the album items in the order of the store */
+	public static List<AlbumItem> getAlbumItems(Collection<String> fieldNames) {
+		if (albumItems instanceof PagedAlbumItemList) {
+			return ((PagedAlbumItemList) albumItems).project(fieldNames);
+		}
+		
+		// The album items have been read along with the store, which only reads the user fields when an album is shown
+		// (see QueryBuilder#createOrderedSelectUserFieldsQuery)
+		return albumItems;
+	}
 
 	public static AlbumItem getAlbumItem(long albumItemId) {
-		for (AlbumItem albumItem : albumItems) {
-			if (albumItem.getItemId() == albumItemId) {
-				return albumItem;
-			}
+		int index = albumItemIndex.get(albumItemId);
+		
+		if (index == AlbumItemIdIndex.NOT_FOUND) {
+			return null;
 		}
 		
-		return null;
+		return albumItems.get(index);
 	}
 	
 	public static AlbumItem getSamplePictureAlbumItemWithoutFields() {
@@ -0,0 +1,631 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.album;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseConstants;
+
+/**
+ * A list of album items which stores the field values column by column instead of keeping an album item per row. Numbers,
+ * dates and ids are stored as primitive values, while the values of text, url, option and star rating fields are replaced by
+ * the index of the value within a dictionary of the column. Null values are marked in a bitmap per column, and the names and
+ * types of the fields are shared by all rows. The album items are created whenever they are accessed, hence modifications of 
+ * the returned album items are not reflected by the list. Album items which are added to or set in the list are kept as they are.
+ */
+final class ColumnarAlbumItemList extends AbstractList<AlbumItem> {
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int NO_ID_COLUMN = -1;
+
+	private final String albumName;
+	private final String[] fieldNames;
+	private final FieldType[] fieldTypes;
+	private final Column[] columns;
+	private final int idColumn;
+	/** The album items which have been added or set after the list has been read, or null for rows which are stored in the columns */
+	private AlbumItem[] detachedAlbumItems;
+	/** The prefetched pictures of each row, or null if the pictures of the row have not been prefetched */
+	private Object[] pictures;
+	private int capacity = 0;
+	private int size = 0;
+
+	private ColumnarAlbumItemList(String albumName, String[] fieldNames, FieldType[] fieldTypes) {
+		this.albumName = albumName;
+		this.fieldNames = fieldNames;
+		this.fieldTypes = fieldTypes;
+		this.columns = new Column[fieldNames.length];
+
+		int idColumnIndex = NO_ID_COLUMN;
+		for (int column = 0; column < fieldNames.length; column++) {
+			columns[column] = createColumn(fieldTypes[column]);
+			if (DatabaseConstants.ID_COLUMN_NAME.equals(fieldNames[column])) {
+				idColumnIndex = column;
+			}
+		}
+		this.idColumn = idColumnIndex;
+
+		ensureCapacity(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Reads all remaining album items of the result set. The result set is not closed.
+	 * @param albumItemResultSet The result set containing the album items.
+	 * @return A list containing the album items in the order of the result set.
+	 * @throws DatabaseWrapperOperationException If a value could not be read.
+	 */
+	static ColumnarAlbumItemList read(AlbumItemResultSet albumItemResultSet) throws DatabaseWrapperOperationException {
+		int fieldCount = albumItemResultSet.getFieldCount();
+		String[] fieldNames = new String[fieldCount];
+		FieldType[] fieldTypes = new FieldType[fieldCount];
+
+		for (int column = 0; column < fieldCount; column++) {
+			fieldNames[column] = albumItemResultSet.getFieldName(column + 1);
+			fieldTypes[column] = albumItemResultSet.getFieldType(column + 1);
+		}
+
+		ColumnarAlbumItemList albumItems = new ColumnarAlbumItemList(albumItemResultSet.getAlbumName(), fieldNames, fieldTypes);
+		while (albumItemResultSet.moveToNext()) {
+			albumItems.ensureCapacity(albumItems.size + 1);
+			for (int column = 0; column < fieldCount; column++) {
+				albumItems.columns[column].set(albumItems.size, albumItemResultSet.getFieldValue(column + 1));
+			}
+			albumItems.size++;
+		}
+
+		// Only added or set rows follow, which are not stored in the columns
+		albumItems.capacity = albumItems.size;
+		for (Column column : albumItems.columns) {
+			column.grow(albumItems.size);
+			column.finishReading();
+		}
+
+		return albumItems;
+	}
+
+	/**
+	 * Creates the album item of the given position from the values of the columns.
+	 * @return A new album item, unless the album item has been added or set. 
+	 */
+	@Override
+	public AlbumItem get(int index) {
+		checkIndex(index, size);
+
+		if (detachedAlbumItems != null && detachedAlbumItems[index] != null) {
+			return detachedAlbumItems[index];
+		}
+
+		List<ItemField> itemFields = new ArrayList<ItemField>(columns.length);
+		for (int column = 0; column < columns.length; column++) {
+			itemFields.add(new ItemField(fieldNames[column], fieldTypes[column], columns[column].get(index)));
+		}
+
+		AlbumItem albumItem = new AlbumItem(albumName, itemFields);
+		albumItem.setFields(itemFields);
+
+		if (pictures != null && pictures[index] != null) {
+			albumItem.setPictures(getPictures(index));
+		}
+		albumItem.markClean();
+
+		return albumItem;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public AlbumItem set(int index, AlbumItem albumItem) {
+		AlbumItem previousAlbumItem = get(index);
+
+		if (detachedAlbumItems == null) {
+			detachedAlbumItems = new AlbumItem[capacity];
+		}
+		detachedAlbumItems[index] = albumItem;
+		if (pictures != null) {
+			pictures[index] = null;
+		}
+
+		return previousAlbumItem;
+	}
+
+	@Override
+	public void add(int index, AlbumItem albumItem) {
+		checkIndex(index, size + 1);
+		ensureCapacity(size + 1);
+
+		moveRows(index, index + 1, size - index);
+		size++;
+		set(index, albumItem);
+		modCount++;
+	}
+
+	@Override
+	public AlbumItem remove(int index) {
+		AlbumItem removedAlbumItem = get(index);
+
+		moveRows(index + 1, index, size - index - 1);
+		size--;
+		if (detachedAlbumItems != null) {
+			detachedAlbumItems[size] = null;
+		}
+		if (pictures != null) {
+			pictures[size] = null;
+		}
+		modCount++;
+
+		return removedAlbumItem;
+	}
+
+	String getAlbumName() {
+		return albumName;
+	}
+
+	/**
+	 * Retrieves the id of the album item at the given position without creating the album item.
+	 * @param index The position of the album item.
+	 * @return The id of the album item.
+	 */
+	long getAlbumItemId(int index) {
+		checkIndex(index, size);
+
+		if (idColumn == NO_ID_COLUMN || (detachedAlbumItems != null && detachedAlbumItems[index] != null)) {
+			return get(index).getItemId();
+		}
+
+		return ((LongColumn) columns[idColumn]).values[index];
+	}
+
+	/**
+	 * Attaches prefetched pictures to the album item at the given position. They are passed to the album item whenever it is created.
+	 * @param index The position of the album item.
+	 * @param albumItemPictures The pictures of the album item.
+	 */
+	void setPictures(int index, List<AlbumItemPicture> albumItemPictures) {
+		checkIndex(index, size);
+
+		if (detachedAlbumItems != null && detachedAlbumItems[index] != null) {
+			detachedAlbumItems[index].setPictures(albumItemPictures);
+			return;
+		}
+
+		if (pictures == null) {
+			pictures = new Object[capacity];
+		}
+		pictures[index] = albumItemPictures;
+	}
+
+	/**
+	 * Retrieves the values of a field for all rows without creating the album items.
+	 * @param fieldName The name of the field.
+	 * @return The values in the order of the rows, or null if the album items have no such field.
+	 */
+	Object[] getFieldValues(String fieldName) {
+		int column = Arrays.asList(fieldNames).indexOf(fieldName);
+		if (column == -1) {
+			return null;
+		}
+
+		Object[] values = new Object[size];
+		for (int row = 0; row < size; row++) {
+			values[row] = getFieldValue(row, column);
+		}
+
+		return values;
+	}
+
+	/**
+	 * Retrieves the values of a field for the given rows without creating the album items.
+	 * @param fieldName The name of the field.
+	 * @param rows The rows whose values are retrieved. Rows given as {@link AlbumItemIdIndex#NOT_FOUND} yield null.
+	 * @return The values in the order of the given rows, or null if the album items have no such field.
+	 */
+	Object[] getFieldValues(String fieldName, int[] rows) {
+		int column = Arrays.asList(fieldNames).indexOf(fieldName);
+		if (column == -1) {
+			return null;
+		}
+
+		Object[] values = new Object[rows.length];
+		for (int index = 0; index < rows.length; index++) {
+			if (rows[index] != AlbumItemIdIndex.NOT_FOUND) {
+				checkIndex(rows[index], size);
+				values[index] = getFieldValue(rows[index], column);
+			}
+		}
+
+		return values;
+	}
+
+	private Object getFieldValue(int row, int column) {
+		if (detachedAlbumItems != null && detachedAlbumItems[row] != null) {
+			ItemField itemField = detachedAlbumItems[row].getField(fieldNames[column]);
+			return itemField == null ? null : itemField.getValue();
+		}
+
+		return columns[column].get(row);
+	}
+
+	/**
+	 * Rearranges the rows in the given order. Rows whose positions are not given are removed.
+	 * @param rows The current positions of the rows in their new order. Each position must be given at most once.
+	 */
+	void reorder(int[] rows) {
+		for (Column column : columns) {
+			column.reorder(rows);
+		}
+		if (detachedAlbumItems != null) {
+			detachedAlbumItems = reorder(detachedAlbumItems, rows);
+		}
+		if (pictures != null) {
+			pictures = reorder(pictures, rows);
+		}
+
+		capacity = rows.length;
+		size = rows.length;
+		modCount++;
+	}
+
+	private static <T> T[] reorder(T[] rowValues, int[] rows) {
+		T[] reorderedRowValues = Arrays.copyOf(rowValues, rows.length);
+		for (int row = 0; row < rows.length; row++) {
+			reorderedRowValues[row] = rowValues[rows[row]];
+		}
+		return reorderedRowValues;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<AlbumItemPicture> getPictures(int index) {
+		return (List<AlbumItemPicture>) pictures[index];
+	}
+
+	private void ensureCapacity(int minimumCapacity) {
+		if (minimumCapacity <= capacity) {
+			return;
+		}
+
+		capacity = Math.max(minimumCapacity, Math.max(INITIAL_CAPACITY, capacity * 2));
+		for (Column column : columns) {
+			column.grow(capacity);
+		}
+		if (detachedAlbumItems != null) {
+			detachedAlbumItems = Arrays.copyOf(detachedAlbumItems, capacity);
+		}
+		if (pictures != null) {
+			pictures = Arrays.copyOf(pictures, capacity);
+		}
+	}
+
+	/** Moves the given number of rows, starting at fromRow, such that they start at toRow */
+	private void moveRows(int fromRow, int toRow, int rowCount) {
+		for (Column column : columns) {
+			column.move(fromRow, toRow, rowCount);
+		}
+		if (detachedAlbumItems != null) {
+			System.arraycopy(detachedAlbumItems, fromRow, detachedAlbumItems, toRow, rowCount);
+		}
+		if (pictures != null) {
+			System.arraycopy(pictures, fromRow, pictures, toRow, rowCount);
+		}
+	}
+
+	private static void checkIndex(int index, int upperExclusiveBound) {
+		if (index < 0 || index >= upperExclusiveBound) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Bound: " + upperExclusiveBound);
+		}
+	}
+
+	private static Column createColumn(FieldType fieldType) {
+		if (fieldType == null) {
+			return new DictionaryColumn();
+		}
+
+		switch (fieldType) {
+		case ID:
+			return new LongColumn();
+		case INTEGER:
+			return new IntegerColumn();
+		case DECIMAL:
+			return new DecimalColumn();
+		case DATE:
+			return new DateColumn();
+		case TIME:
+			return new TimeColumn();
+		case UUID:
+			return new UUIDColumn();
+		default:
+			// text, url, option and star rating values repeat frequently
+			return new DictionaryColumn();
+		}
+	}
+
+	/** The values of a single field for all rows. Null values are marked in the bitmap, the other values are stored by the subclasses */
+	private abstract static class Column {
+		private BitSet nullValues = new BitSet();
+
+		final Object get(int row) {
+			return nullValues.get(row) ? null : getValue(row);
+		}
+
+		final void set(int row, Object value) {
+			nullValues.set(row, value == null);
+			if (value != null) {
+				setValue(row, value);
+			}
+		}
+
+		final void move(int fromRow, int toRow, int rowCount) {
+			moveValues(fromRow, toRow, rowCount);
+
+			BitSet movedNullValues = nullValues.get(fromRow, fromRow + rowCount);
+			nullValues.clear(Math.min(fromRow, toRow), Math.max(fromRow, toRow) + rowCount);
+			for (int row = movedNullValues.nextSetBit(0); row >= 0; row = movedNullValues.nextSetBit(row + 1)) {
+				nullValues.set(toRow + row);
+			}
+		}
+
+		final void reorder(int[] rows) {
+			BitSet reorderedNullValues = new BitSet();
+			for (int row = 0; row < rows.length; row++) {
+				if (nullValues.get(rows[row])) {
+					reorderedNullValues.set(row);
+				}
+			}
+
+			nullValues = reorderedNullValues;
+			reorderValues(rows);
+		}
+
+		/** Called once all rows have been read, after which values are only moved */
+		void finishReading() {
+			// nothing to release by default
+		}
+
+		abstract Object getValue(int row);
+		abstract void setValue(int row, Object value);
+		abstract void moveValues(int fromRow, int toRow, int rowCount);
+		/** Replaces the values by the values of the given rows, in the order of the rows */
+		abstract void reorderValues(int[] rows);
+		abstract void grow(int capacity);
+	}
+
+	private static class LongColumn extends Column {
+		long[] values = new long[0];
+
+		@Override
+		Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		void setValue(int row, Object value) {
+			values[row] = (Long) value;
+		}
+
+		@Override
+		void moveValues(int fromRow, int toRow, int rowCount) {
+			System.arraycopy(values, fromRow, values, toRow, rowCount);
+		}
+
+		@Override
+		void reorderValues(int[] rows) {
+			long[] reorderedValues = new long[rows.length];
+			for (int row = 0; row < rows.length; row++) {
+				reorderedValues[row] = values[rows[row]];
+			}
+			values = reorderedValues;
+		}
+
+		@Override
+		void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	private static final class DateColumn extends LongColumn {
+		@Override
+		Object getValue(int row) {
+			return new Date(values[row]);
+		}
+
+		@Override
+		void setValue(int row, Object value) {
+			values[row] = ((Date) value).getTime();
+		}
+	}
+
+	private static final class TimeColumn extends LongColumn {
+		@Override
+		Object getValue(int row) {
+			return new Time(values[row]);
+		}
+
+		@Override
+		void setValue(int row, Object value) {
+			values[row] = ((Time) value).getTime();
+		}
+	}
+
+	private static final class IntegerColumn extends Column {
+		private int[] values = new int[0];
+
+		@Override
+		Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		void setValue(int row, Object value) {
+			values[row] = (Integer) value;
+		}
+
+		@Override
+		void moveValues(int fromRow, int toRow, int rowCount) {
+			System.arraycopy(values, fromRow, values, toRow, rowCount);
+		}
+
+		@Override
+		void reorderValues(int[] rows) {
+			int[] reorderedValues = new int[rows.length];
+			for (int row = 0; row < rows.length; row++) {
+				reorderedValues[row] = values[rows[row]];
+			}
+			values = reorderedValues;
+		}
+
+		@Override
+		void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	private static final class DecimalColumn extends Column {
+		private double[] values = new double[0];
+
+		@Override
+		Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		void setValue(int row, Object value) {
+			values[row] = (Double) value;
+		}
+
+		@Override
+		void moveValues(int fromRow, int toRow, int rowCount) {
+			System.arraycopy(values, fromRow, values, toRow, rowCount);
+		}
+
+		@Override
+		void reorderValues(int[] rows) {
+			double[] reorderedValues = new double[rows.length];
+			for (int row = 0; row < rows.length; row++) {
+				reorderedValues[row] = values[rows[row]];
+			}
+			values = reorderedValues;
+		}
+
+		@Override
+		void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	private static final class UUIDColumn extends Column {
+		private long[] mostSignificantBits = new long[0];
+		private long[] leastSignificantBits = new long[0];
+
+		@Override
+		Object getValue(int row) {
+			return new UUID(mostSignificantBits[row], leastSignificantBits[row]);
+		}
+
+		@Override
+		void setValue(int row, Object value) {
+			mostSignificantBits[row] = ((UUID) value).getMostSignificantBits();
+			leastSignificantBits[row] = ((UUID) value).getLeastSignificantBits();
+		}
+
+		@Override
+		void moveValues(int fromRow, int toRow, int rowCount) {
+			System.arraycopy(mostSignificantBits, fromRow, mostSignificantBits, toRow, rowCount);
+			System.arraycopy(leastSignificantBits, fromRow, leastSignificantBits, toRow, rowCount);
+		}
+
+		@Override
+		void reorderValues(int[] rows) {
+			long[] reorderedMostSignificantBits = new long[rows.length];
+			long[] reorderedLeastSignificantBits = new long[rows.length];
+			for (int row = 0; row < rows.length; row++) {
+				reorderedMostSignificantBits[row] = mostSignificantBits[rows[row]];
+				reorderedLeastSignificantBits[row] = leastSignificantBits[rows[row]];
+			}
+			mostSignificantBits = reorderedMostSignificantBits;
+			leastSignificantBits = reorderedLeastSignificantBits;
+		}
+
+		@Override
+		void grow(int capacity) {
+			mostSignificantBits = Arrays.copyOf(mostSignificantBits, capacity);
+			leastSignificantBits = Arrays.copyOf(leastSignificantBits, capacity);
+		}
+	}
+
+	/** Stores every distinct value once, while the rows refer to the values by their position within the dictionary */
+	private static final class DictionaryColumn extends Column {
+		private final ArrayList<Object> dictionary = new ArrayList<Object>();
+		private Map<Object, Integer> dictionaryPositions = new HashMap<Object, Integer>();
+		private int[] dictionaryReferences = new int[0];
+
+		@Override
+		Object getValue(int row) {
+			return dictionary.get(dictionaryReferences[row]);
+		}
+
+		@Override
+		void setValue(int row, Object value) {
+			Integer dictionaryPosition = dictionaryPositions.get(value);
+
+			if (dictionaryPosition == null) {
+				dictionaryPosition = dictionary.size();
+				dictionary.add(value);
+				dictionaryPositions.put(value, dictionaryPosition);
+			}
+
+			dictionaryReferences[row] = dictionaryPosition;
+		}
+
+		@Override
+		void finishReading() {
+			dictionary.trimToSize();
+			dictionaryPositions = null;
+		}
+
+		@Override
+		void moveValues(int fromRow, int toRow, int rowCount) {
+			System.arraycopy(dictionaryReferences, fromRow, dictionaryReferences, toRow, rowCount);
+		}
+
+		@Override
+		void reorderValues(int[] rows) {
+			int[] reorderedValues = new int[rows.length];
+			for (int row = 0; row < rows.length; row++) {
+				reorderedValues[row] = dictionaryReferences[rows[row]];
+			}
+			dictionaryReferences = reorderedValues;
+		}
+
+		@Override
+		void grow(int capacity) {
+			dictionaryReferences = Arrays.copyOf(dictionaryReferences, capacity);
+		}
+	}
+}
@@ -24,6 +24,8 @@ import java.util.UUID;
 
 public class ItemField extends MetaItemField {
 	private Object value; 
+	/** True unless the value is known to match the value stored in the database */
+	private boolean dirty = true;
 	
 	/**
 	 * Constructor.
@@ -109,8 +111,26 @@ public class ItemField extends MetaItemField {
 	 * @see {@link FieldType} for supported types.
 	 */
 	public final void setValue(Object value) {
+		if (this.value == null ? value != null : !this.value.equals(value)) {
+			dirty = true;
+		}
+		
 		this.value = value;
 	}
+	
+	/**
+	 * Checks whether the value might differ from the value stored in the database. Fields which have not been loaded 
+	 * from the database are always dirty, loaded fields become dirty as soon as a different value is set.
+	 * @return True if the value must be written when the item is updated, false otherwise.
+	 */
+	public boolean isDirty() {
+		return dirty;
+	}
+	
+	/** Marks the value as being equal to the value stored in the database. */
+	public void markClean() {
+		dirty = false;
+	}
 
 	/**
 	 * Tests if the value is of the same type as the stored field type. The stored type may be converted
@@ -0,0 +1,331 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.album;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sammelbox.model.database.CompiledQuery;
+import org.sammelbox.model.database.QueryBuilder;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseConstants;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+
+/**
+ * A list of album items which only keeps the ids of its items in memory. The album items themselves are fetched page 
+ * by page when they are accessed. Only the most recently used pages are kept, such that the memory consumption does not
+ * depend on the number of items in the list. Items which are added to or set in this list must be stored in the database,
+ * since only their ids are retained.
+ */
+final class PagedAlbumItemList extends AbstractList<AlbumItem> {
+	/** The number of album items which are fetched together */
+	static final int PAGE_SIZE = 100;
+	/** The number of pages which are kept in memory */
+	static final int MAX_CACHED_PAGES = 5;
+	/** Bound to the unused placeholders of the last page. Album item ids are never negative, hence it matches no album item */
+	private static final long NO_ALBUM_ITEM_ID = -1;
+
+	private final String albumName;
+	private final boolean prefetchPictures;
+	/** The names of the fields which are fetched, or null if all fields are fetched */
+	private final List<String> projectedFieldNames;
+	private long[] albumItemIds;
+	private int size;
+	/** The values of the fields by which the list has been sorted or filtered, by the names of the fields */
+	private final Map<String, FieldColumn> cachedFieldValues = new HashMap<String, FieldColumn>();
+	private final Map<Integer, List<AlbumItem>> cachedPages =
+			new LinkedHashMap<Integer, List<AlbumItem>>(MAX_CACHED_PAGES + 1, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, List<AlbumItem>> eldestPage) {
+			return size() > MAX_CACHED_PAGES;
+		}
+	};
+
+	/**
+	 * Constructor.
+	 * @param albumName The name of the album to which all items belong.
+	 * @param albumItemIds The ids of the album items in the order in which they should be listed.
+	 * @param prefetchPictures True if the pictures of the album items should be fetched together with each page.
+	 */
+	PagedAlbumItemList(String albumName, long[] albumItemIds, boolean prefetchPictures) {
+		this(albumName, albumItemIds, prefetchPictures, null);
+	}
+	
+	private PagedAlbumItemList(String albumName, long[] albumItemIds, boolean prefetchPictures, List<String> projectedFieldNames) {
+		this.albumName = albumName;
+		this.prefetchPictures = prefetchPictures;
+		this.projectedFieldNames = projectedFieldNames;
+		this.albumItemIds = albumItemIds;
+		this.size = albumItemIds.length;
+	}
+	
+	/**
+	 * Creates a copy of this list whose pages only contain the given fields (and the id) of the album items. The copy does not
+	 * reflect later modifications of this list.
+	 * @param fieldNames The names of the fields which are fetched.
+	 * @return A list of incomplete album items. Complete album items need to be retrieved via their ids.
+	 */
+	PagedAlbumItemList project(Collection<String> fieldNames) {
+		return new PagedAlbumItemList(albumName, Arrays.copyOf(albumItemIds, size), prefetchPictures, new ArrayList<String>(fieldNames));
+	}
+
+	/**
+	 * Retrieves the album item at the given position. The page containing the item is fetched if necessary.
+	 * @return The album item, or null if it has been deleted since the list has been created
+	 * @throws IllegalStateException If the page could not be fetched from the database. The cause is the database error.
+	 */
+	@Override
+	public AlbumItem get(int index) {
+		checkIndex(index, size);
+
+		int pageIndex = index / PAGE_SIZE;
+		List<AlbumItem> page = cachedPages.get(pageIndex);
+
+		if (page == null) {
+			try {
+				page = fetchPage(pageIndex);
+				cachedPages.put(pageIndex, page);
+			} catch (DatabaseWrapperOperationException ex) {
+				throw new IllegalStateException("The page " + pageIndex + " of the album " + albumName + " could not be fetched", ex);
+			}
+		}
+
+		return page.get(index % PAGE_SIZE);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Replaces the album item at the given position. The previous album item is not fetched only to be returned.
+	 * @return The previous album item if its page is cached, otherwise null
+	 */
+	@Override
+	public AlbumItem set(int index, AlbumItem albumItem) {
+		checkIndex(index, size);
+		AlbumItem previousAlbumItem = getCachedAlbumItem(index);
+		
+		albumItemIds[index] = albumItem.getItemId();
+		cachedPages.remove(index / PAGE_SIZE);
+		cachedFieldValues.clear();
+		
+		return previousAlbumItem;
+	}
+	
+	@Override
+	public void add(int index, AlbumItem albumItem) {
+		checkIndex(index, size + 1);
+		
+		if (size == albumItemIds.length) {
+			albumItemIds = Arrays.copyOf(albumItemIds, Math.max(PAGE_SIZE, size * 2));
+		}
+		
+		System.arraycopy(albumItemIds, index, albumItemIds, index + 1, size - index);
+		albumItemIds[index] = albumItem.getItemId();
+		size++;
+		
+		invalidatePagesFrom(index);
+		cachedFieldValues.clear();
+		modCount++;
+	}
+	
+	/**
+	 * Removes the album item at the given position. The removed album item is not fetched only to be returned.
+	 * @return The removed album item if its page is cached, otherwise null
+	 */
+	@Override
+	public AlbumItem remove(int index) {
+		checkIndex(index, size);
+		AlbumItem removedAlbumItem = getCachedAlbumItem(index);
+		
+		System.arraycopy(albumItemIds, index + 1, albumItemIds, index, size - index - 1);
+		size--;
+		
+		invalidatePagesFrom(index);
+		modCount++;
+		
+		return removedAlbumItem;
+	}
+
+	String getAlbumName() {
+		return albumName;
+	}
+
+	/**
+	 * Retrieves the id of the album item at the given position without fetching the album item.
+	 * @param index The position of the album item.
+	 * @return The id of the album item.
+	 */
+	long getAlbumItemId(int index) {
+		return albumItemIds[index];
+	}
+
+	/**
+	 * Retrieves the values of a field for all album items without fetching the album items. Since this list does not keep
+	 * any field values in memory, the ids and the values of the field are queried for the whole album. This happens once
+	 * per field, as the queried values are kept in a columnar list (using primitive columns where possible) until this list
+	 * is modified.
+	 * @param fieldName The name of the field.
+	 * @return The values in the order of the list, or null if the album has no such field.
+	 * @throws DatabaseWrapperOperationException If the values could not be queried.
+	 */
+	Object[] getFieldValues(String fieldName) throws DatabaseWrapperOperationException {
+		FieldColumn fieldColumn = cachedFieldValues.get(fieldName);
+		
+		if (fieldColumn == null) {
+			if (!DatabaseConstants.ID_COLUMN_NAME.equals(fieldName) && 
+					!DatabaseOperations.getAlbumItemFieldNameToTypeMap(albumName).containsKey(fieldName)) {
+				return null;
+			}
+			
+			fieldColumn = FieldColumn.query(albumName, fieldName);
+			cachedFieldValues.put(fieldName, fieldColumn);
+		}
+		
+		int[] rows = new int[size];
+		for (int index = 0; index < size; index++) {
+			rows[index] = fieldColumn.rowsByAlbumItemId.get(albumItemIds[index]);
+		}
+		
+		return fieldColumn.values.getFieldValues(fieldName, rows);
+	}
+	
+	/**
+	 * Rearranges the album items in the given order. Album items whose positions are not given are removed.
+	 * @param indexes The current positions of the album items in their new order. Each position must be given at most once.
+	 */
+	void reorder(int[] indexes) {
+		long[] reorderedAlbumItemIds = new long[indexes.length];
+		for (int index = 0; index < indexes.length; index++) {
+			reorderedAlbumItemIds[index] = albumItemIds[indexes[index]];
+		}
+		
+		albumItemIds = reorderedAlbumItemIds;
+		size = indexes.length;
+		cachedPages.clear();
+		modCount++;
+	}
+
+	/** @return The album item at the given position if its page is cached, otherwise null */
+	private AlbumItem getCachedAlbumItem(int index) {
+		List<AlbumItem> page = cachedPages.get(index / PAGE_SIZE);
+		
+		return page == null ? null : page.get(index % PAGE_SIZE);
+	}
+	
+	/** Removes all cached pages that contain the given or a later position, since their items have been shifted */
+	private void invalidatePagesFrom(int index) {
+		int firstInvalidPage = index / PAGE_SIZE;
+		Iterator<Integer> pageIterator = cachedPages.keySet().iterator();
+		
+		while (pageIterator.hasNext()) {
+			if (pageIterator.next() >= firstInvalidPage) {
+				pageIterator.remove();
+			}
+		}
+	}
+	
+	private static void checkIndex(int index, int upperExclusiveBound) {
+		if (index < 0 || index >= upperExclusiveBound) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Bound: " + upperExclusiveBound);
+		}
+	}
+
+	/** The values of a single field of all album items of the album, together with the rows of the album items */
+	private static final class FieldColumn {
+		private final ColumnarAlbumItemList values;
+		private final AlbumItemIdIndex rowsByAlbumItemId;
+		
+		private FieldColumn(ColumnarAlbumItemList values) {
+			this.values = values;
+			this.rowsByAlbumItemId = new AlbumItemIdIndex(values.size());
+			
+			for (int row = 0; row < values.size(); row++) {
+				rowsByAlbumItemId.put(values.getAlbumItemId(row), row);
+			}
+		}
+		
+		private static FieldColumn query(String albumName, String fieldName) throws DatabaseWrapperOperationException {
+			// The id is always selected, hence it identifies the rows
+			AlbumItemResultSet albumItemResultSet = DatabaseOperations.executeSQLQuery(
+					QueryBuilder.createSelectQuery(albumName, Collections.singletonList(fieldName)));
+			try {
+				return new FieldColumn(ColumnarAlbumItemList.read(albumItemResultSet));
+			} finally {
+				albumItemResultSet.close();
+			}
+		}
+	}
+
+	private List<AlbumItem> fetchPage(int pageIndex) throws DatabaseWrapperOperationException {
+		int fromIndex = pageIndex * PAGE_SIZE;
+		int toIndex = Math.min(fromIndex + PAGE_SIZE, size);
+
+		StringBuilder sb = new StringBuilder(projectedFieldNames == null ? 
+				QueryBuilder.createSelectStarQuery(albumName) : QueryBuilder.createSelectQuery(albumName, projectedFieldNames));
+		sb.append(" WHERE ");
+		sb.append(DatabaseConstants.ID_COLUMN_NAME);
+		sb.append(" IN (");
+		// Every page binds the same number of ids, such that all pages share one statement of the statement cache
+		List<Long> pageAlbumItemIds = new ArrayList<Long>(PAGE_SIZE);
+		for (int index = fromIndex; index < fromIndex + PAGE_SIZE; index++) {
+			if (index != fromIndex) {
+				sb.append(", ");
+			}
+			sb.append("?");
+			pageAlbumItemIds.add(index < toIndex ? albumItemIds[index] : NO_ALBUM_ITEM_ID);
+		}
+		sb.append(")");
+
+		// The items are returned in the order of their ids, hence they need to be sorted according to the list
+		Map<Long, AlbumItem> fetchedAlbumItems = new HashMap<Long, AlbumItem>();
+		AlbumItemResultSet albumItemResultSet = DatabaseOperations.executeSQLQuery(new CompiledQuery(sb.toString(), pageAlbumItemIds));
+		try {
+			while (albumItemResultSet.moveToNext()) {
+				AlbumItem albumItem = AlbumItemStore.createAlbumItem(albumItemResultSet);
+				fetchedAlbumItems.put(albumItem.getItemId(), albumItem);
+			}
+		} finally {
+			albumItemResultSet.close();
+		}
+
+		List<AlbumItem> page = new ArrayList<AlbumItem>(toIndex - fromIndex);
+		for (int index = fromIndex; index < toIndex; index++) {
+			page.add(fetchedAlbumItems.get(albumItemIds[index]));
+		}
+		
+		if (prefetchPictures) {
+			AlbumItemStore.attachPictures(albumName, page);
+		}
+
+		return page;
+	}
+}
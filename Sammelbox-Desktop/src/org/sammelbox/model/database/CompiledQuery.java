@@ -0,0 +1,78 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A query consisting of SQL text with placeholders ('?') and the values bound to them. Since the values are not part of
+ * the SQL text, queries differing only in their values share the same SQL text, and hence the same prepared statement.
+ */
+public final class CompiledQuery {
+	private final String sql;
+	private final List<Object> parameters;
+
+	/**
+	 * Constructor for a query without parameters.
+	 * @param sql The SQL text of the query.
+	 */
+	public CompiledQuery(String sql) {
+		this(sql, Collections.emptyList());
+	}
+
+	/**
+	 * Constructor.
+	 * @param sql The SQL text of the query, containing one placeholder per parameter.
+	 * @param parameters The values bound to the placeholders, in the order of the placeholders.
+	 */
+	public CompiledQuery(String sql, List<?> parameters) {
+		this.sql = sql;
+		this.parameters = Collections.unmodifiableList(new ArrayList<Object>(parameters));
+	}
+
+	/** @return The SQL text containing the placeholders */
+	public String getSql() {
+		return sql;
+	}
+
+	/** @return The values bound to the placeholders */
+	public List<Object> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Binds the parameters to the placeholders of the statement.
+	 * @param preparedStatement A statement prepared using the SQL text of this query.
+	 * @throws SQLException If a parameter could not be bound.
+	 */
+	public void bindParameters(PreparedStatement preparedStatement) throws SQLException {
+		for (int i = 0; i < parameters.size(); i++) {
+			preparedStatement.setObject(i + 1, parameters.get(i));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return parameters.isEmpty() ? sql : sql + " " + parameters;
+	}
+}
@@ -0,0 +1,80 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.sqlite.Function;
+
+/**
+ * Computes the Okapi BM25 relevance of a full text match. FTS4 does not provide a ranking function, hence this function
+ * is registered on every connection and evaluates the matchinfo blob (format 'pcnalx') of a match. In contrast to the
+ * bm25 function of FTS5, higher values indicate more relevant matches.
+ */
+public final class FullTextRankingFunction extends Function {
+	/** The name under which the function is available in SQL statements */
+	public static final String NAME = "bm25";
+	/** Controls the saturation of the term frequency */
+	private static final double K1 = 1.2;
+	/** Controls the normalization by the length of the column */
+	private static final double B = 0.75;
+
+	/**
+	 * Registers the ranking function on the given connection.
+	 * @param connection A connection to the SQLite database. Must not be wrapped by a proxy.
+	 * @throws SQLException If the function could not be registered.
+	 */
+	public static void register(Connection connection) throws SQLException {
+		Function.create(connection, NAME, new FullTextRankingFunction());
+	}
+
+	@Override
+	protected void xFunc() throws SQLException {
+		IntBuffer matchInfo = ByteBuffer.wrap(value_blob(0)).order(ByteOrder.nativeOrder()).asIntBuffer();
+
+		int phraseCount = matchInfo.get(0);
+		int columnCount = matchInfo.get(1);
+		int rowCount = matchInfo.get(2);
+		int averageLengthOffset = 3;
+		int lengthOffset = averageLengthOffset + columnCount;
+		int hitOffset = lengthOffset + columnCount;
+
+		double score = 0.0;
+		for (int phrase = 0; phrase < phraseCount; phrase++) {
+			for (int column = 0; column < columnCount; column++) {
+				int hitIndex = hitOffset + 3 * (phrase * columnCount + column);
+				int hitsInRow = matchInfo.get(hitIndex);
+				int rowsWithHits = matchInfo.get(hitIndex + 2);
+
+				if (hitsInRow > 0) {
+					double inverseDocumentFrequency = Math.log(1.0 + (rowCount - rowsWithHits + 0.5) / (rowsWithHits + 0.5));
+					double relativeLength = (double) matchInfo.get(lengthOffset + column) / Math.max(1, matchInfo.get(averageLengthOffset + column));
+
+					score += inverseDocumentFrequency * (hitsInRow * (K1 + 1)) / (hitsInRow + K1 * (1 - B + B * relativeLength));
+				}
+			}
+		}
+
+		result(score);
+	}
+}
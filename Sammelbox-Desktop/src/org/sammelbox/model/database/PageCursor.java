@@ -0,0 +1,54 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database;
+
+/**
+ * The position after which the next page of a paginated album query starts, i.e. the sort value and the id of the last
+ * album item of the previous page. Since a page is found by comparing against these values instead of skipping the preceding
+ * rows, fetching a page costs the same no matter how far into the album it is. A cursor is only meaningful for queries
+ * with the same album, sort field and sort direction as the query it has been returned by.
+ */
+public final class PageCursor {
+	private final Object sortValue;
+	private final long albumItemId;
+
+	/**
+	 * Constructor.
+	 * @param sortValue The value of the sort field as stored in the database. Null if the field has no value or
+	 * if the album items are only sorted by their ids.
+	 * @param albumItemId The id of the last album item of the previous page.
+	 */
+	public PageCursor(Object sortValue, long albumItemId) {
+		this.sortValue = sortValue;
+		this.albumItemId = albumItemId;
+	}
+
+	public Object getSortValue() {
+		return sortValue;
+	}
+
+	public long getAlbumItemId() {
+		return albumItemId;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + sortValue + ", " + albumItemId + ")";
+	}
+}
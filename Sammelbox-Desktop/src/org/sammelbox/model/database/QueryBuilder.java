@@ -19,6 +19,7 @@
 package org.sammelbox.model.database;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +32,7 @@ import org.sammelbox.model.album.Album;
 import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.MetaItemField;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseConstants;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.browser.BrowserFacade;
 import org.slf4j.Logger;
@@ -135,28 +137,30 @@ public final class QueryBuilder {
 		return new QueryComponent(fieldName, operator, value);
 	}
 	
-	/** This method builds a SQL query string out of multiple query components 
-	 * @param queryComponents a list of query components. Escapes all appearing quotes in the album fields.
+	/** This method builds a SQL query out of multiple query components 
+	 * @param queryComponents a list of query components. The values are bound as parameters of the query.
 	 * @param connectByAnd a boolean specifying whether the query components are connected by AND (connectedByAnd == true) 
 	 * 						or by OR (connectedByAnd == false). 
 	 * @param album the name of the album which should be queried. 
-	 * @return a valid SQL query as a string. By default a 'SELECT *' is performed on the field/column names. 
+	 * @return a valid SQL query with placeholders and their values. By default a 'SELECT *' is performed on the field/column names. 
 	 * @throws QueryBuilderException */
-	public static String buildQuery(List<QueryComponent> queryComponents, boolean connectByAnd, String albumName) throws QueryBuilderException {
+	public static CompiledQuery buildQuery(List<QueryComponent> queryComponents, boolean connectByAnd, String albumName) throws QueryBuilderException {
 		return buildQuery(queryComponents, connectByAnd, albumName, null, false);
 	}
 	
-	/** This method builds a SQL query string out of multiple query components 
-	 * @param queryComponents a list of query components. Escapes all appearing quotes in the album fields.
+	/** This method builds a SQL query out of multiple query components. The values of the components are not part of the SQL 
+	 * text but bound as parameters, hence queries differing only in their values share the same prepared statement.
+	 * @param queryComponents a list of query components. The values are bound as parameters of the query.
 	 * @param connectByAnd a boolean specifying whether the query components are connected by AND (connectedByAnd == true) 
 	 * 						or by OR (connectedByAnd == false). 
 	 * @param albumName the name of the album which should be queried.
 	 * @param sortField the field upon which the results should be sorted. Can be null or empty if not needed
 	 * @param sortAscending only if a sortField is specified. In this case, true means that the results are sorted ascending, false means descending
-	 * @return a valid SQL query as a string. By default a 'SELECT *' is performed on the field/column names. 
+	 * @return a valid SQL query with placeholders and their values. By default a 'SELECT *' is performed on the field/column names. 
 	 * @throws QueryBuilderException */
-	public static String buildQuery(List<QueryComponent> queryComponents, boolean connectByAnd, String albumName, String sortField, boolean sortAscending) throws QueryBuilderException {
+	public static CompiledQuery buildQuery(List<QueryComponent> queryComponents, boolean connectByAnd, String albumName, String sortField, boolean sortAscending) throws QueryBuilderException {
 		StringBuilder query = new StringBuilder();
+		List<Object> parameters = new ArrayList<Object>();
 		query.append("SELECT * FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)));
 		
 		if (!queryComponents.isEmpty()) {
@@ -179,22 +183,17 @@ public final class QueryBuilder {
 					fieldNameToFieldTypeMap.get(queryComponents.get(i).getFieldName()).equals(FieldType.URL) ||
 					fieldNameToFieldTypeMap.get(queryComponents.get(i).getFieldName()).equals(FieldType.TEXT)) {
 				if (queryComponents.get(i).getOperator() == QueryOperator.CONTAINS) {
-					query.append( "(" +
-							"[" + queryComponents.get(i).getFieldName() + "] " + 
-							toSQLOperator(queryComponents.get(i).getOperator()) + " " + 
-							"'%" + DatabaseStringUtilities.sanitizeSingleQuotesInAlbumItemValues(queryComponents.get(i).getValue()) + "%')");
+					parameters.add("%" + queryComponents.get(i).getValue() + "%");
 				} else {
-					query.append( "(" +
-							"[" + queryComponents.get(i).getFieldName() + "] " + 
-							toSQLOperator(queryComponents.get(i).getOperator()) + " " + 
-							"'" + DatabaseStringUtilities.sanitizeSingleQuotesInAlbumItemValues(queryComponents.get(i).getValue()) + "')");
+					parameters.add(queryComponents.get(i).getValue());
 				}
 			} else {
-				query.append( "(" +
-						"[" + queryComponents.get(i).getFieldName() + "] " + 
-						toSQLOperator(queryComponents.get(i).getOperator()) + " " + 
-						queryComponents.get(i).getValue() + ")");
+				parameters.add(toNumericParameter(queryComponents.get(i).getValue()));
 			}
+			
+			query.append( "(" +
+					"[" + queryComponents.get(i).getFieldName() + "] " + 
+					toSQLOperator(queryComponents.get(i).getOperator()) + " ?)");
 
 			if (i+1 != queryComponents.size()) {
 				if (connectByAnd) {
@@ -215,7 +214,23 @@ public final class QueryBuilder {
 			}
 		}
 		
-		return query.toString();
+		return new CompiledQuery(query.toString(), parameters);
+	}
+	
+	/** Numbers (and dates, which are stored as numbers) are bound as numbers such that they are compared numerically.
+	 * Values which are no numbers are bound as they are */
+	private static Object toNumericParameter(String value) {
+		try {
+			return Long.valueOf(value.trim());
+		} catch (NumberFormatException nfe) {
+			// not an integral number
+		}
+		
+		try {
+			return Double.valueOf(value.trim());
+		} catch (NumberFormatException nfe) {
+			return value;
+		}
 	}
 
 	/** This method builds a SQL query out of multiple query components and executes the resulting query. The result set is presented
@@ -226,7 +241,7 @@ public final class QueryBuilder {
 	 * @param album the name of the album which should be queried 
 	 * @throws QueryBuilderException */
 	public static void buildQueryAndExecute(ArrayList<QueryComponent> queryComponents, boolean connectByAnd, String album) throws QueryBuilderException {
-		String query = buildQuery(queryComponents, connectByAnd, album, null, false);		
+		CompiledQuery query = buildQuery(queryComponents, connectByAnd, album, null, false);		
 		BrowserFacade.performBrowserQueryAndShow(query);
 	}
 
@@ -240,11 +255,112 @@ public final class QueryBuilder {
 	 * @param album the name of the album which should be queried 
 	 * @throws QueryBuilderException */
 	public static void buildQueryAndExecute(ArrayList<QueryComponent> queryComponents, boolean connectByAnd, String album, String sortField, boolean sortAscending) throws QueryBuilderException {
-		String query = buildQuery(queryComponents, connectByAnd, album, sortField, sortAscending);
+		CompiledQuery query = buildQuery(queryComponents, connectByAnd, album, sortField, sortAscending);
 		BrowserFacade.performBrowserQueryAndShow(query);
 	}
 
+	/**
+	 * Creates a query for a single page of album items (keyset pagination). The album items are sorted by the sort field and then
+	 * by their ids, such that the order is total. Instead of skipping the preceding rows (OFFSET), the query starts right after
+	 * the cursor, whose sort value and id are bound as parameters. The predicate on the sort value is a range on its own 
+	 * (e.g. s >= ? AND (s > ? OR id > ?)), such that SQLite can seek into the sort index. Empty values are sorted first in 
+	 * ascending order and last in descending order. Since they cannot be part of that range, they are selected by a separate
+	 * branch of the query (UNION ALL) whenever they follow the cursor. The query returns up to one more album item than the 
+	 * page size, which indicates whether there is a next page.
+	 * @param albumName The name of the album to be queried.
+	 * @param sortField The field by which the album items are sorted, or null if they are only sorted by their ids.
+	 * @param sortAscending True if the album items are sorted in ascending order, false for descending order.
+	 * @param pageSize The number of album items per page.
+	 * @param afterCursor The cursor returned with the previous page, or null for the first page.
+	 * @return The query for the page.
+	 */
+	public static CompiledQuery createKeysetPageQuery(String albumName, String sortField, boolean sortAscending, int pageSize, PageCursor afterCursor) {
+		String idColumn = DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ID_COLUMN_NAME);
+		String idComparison = sortAscending ? " > ?" : " < ?";
+		String selectStar = "SELECT * FROM " + 
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName));
+		List<Object> parameters = new ArrayList<Object>();
+		
+		StringBuilder query = new StringBuilder(selectStar);
+		
+		if (afterCursor != null && sortField == null) {
+			query.append(" WHERE " + idColumn + idComparison);
+			parameters.add(afterCursor.getAlbumItemId());
+		} else if (afterCursor != null) {
+			String sortColumn = DatabaseStringUtilities.transformColumnNameToSelectQueryName(sortField);
+			
+			if (afterCursor.getSortValue() == null) {
+				// Empty values come first when ascending, hence all values follow. They come last when descending
+				query.append(" WHERE " + sortColumn + " IS NULL AND " + idColumn + idComparison);
+				parameters.add(afterCursor.getAlbumItemId());
+				if (sortAscending) {
+					query.append(" UNION ALL " + selectStar + " WHERE " + sortColumn + " IS NOT NULL");
+				}
+			} else {
+				query.append(" WHERE " + sortColumn + (sortAscending ? " >= ?" : " <= ?"));
+				query.append(" AND (" + sortColumn + (sortAscending ? " > ?" : " < ?") + " OR " + idColumn + idComparison + ")");
+				parameters.add(afterCursor.getSortValue());
+				parameters.add(afterCursor.getSortValue());
+				parameters.add(afterCursor.getAlbumItemId());
+				if (!sortAscending) {
+					query.append(" UNION ALL " + selectStar + " WHERE " + sortColumn + " IS NULL");
+				}
+			}
+		}
+		
+		String sortDirection = sortAscending ? " ASC" : " DESC";
+		query.append(" ORDER BY ");
+		if (sortField != null) {
+			query.append(DatabaseStringUtilities.transformColumnNameToSelectQueryName(sortField) + sortDirection + ", ");
+		}
+		query.append(idColumn + sortDirection);
+		
+		query.append(" LIMIT ?");
+		parameters.add(pageSize + 1);
+		
+		return new CompiledQuery(query.toString(), parameters);
+	}
+
 	public static String createOrderedSelectStarQuery(String albumName) {		
+		return "SELECT * " + 
+	           "FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)) + 
+	           createOrderByClause(albumName);
+	}
+	
+	/**
+	 * Creates a query selecting only the given fields (and the id) of all album items, sorted in the same way as
+	 * {@link #createOrderedSelectStarQuery(String)} sorts them.
+	 * @param albumName The album on which the query should be performed.
+	 * @param fieldNames The names of the fields to be selected. The id is always selected.
+	 * @return A string containing the proper SQL string.
+	 */
+	public static String createOrderedSelectQuery(String albumName, Collection<String> fieldNames) {
+		return createSelectQuery(albumName, fieldNames) + createOrderByClause(albumName);
+	}
+	
+	/**
+	 * Creates the query used to show an album. It selects the user editable fields (and the id) of all album items, hence the 
+	 * internal columns (e.g. the content version) are neither read nor decoded. The album items are sorted in the same way as 
+	 * {@link #createOrderedSelectStarQuery(String)} sorts them.
+	 * @param albumName The album on which the query should be performed.
+	 * @return A string containing the proper SQL string.
+	 */
+	public static String createOrderedSelectUserFieldsQuery(String albumName) {
+		List<String> userFieldNames = new ArrayList<String>();
+		try {
+			for (MetaItemField metaItemField : DatabaseOperations.getMetaItemFields(albumName)) {
+				userFieldNames.add(metaItemField.getName());
+			}
+		} catch (DatabaseWrapperOperationException dwoe) {
+			LOGGER.error("The fields of " + albumName + " could not be retrieved, hence all fields are selected", dwoe);
+			return createOrderedSelectStarQuery(albumName);
+		}
+		
+		return createOrderedSelectQuery(albumName, userFieldNames);
+	}
+	
+	/** @return The ORDER BY clause sorting the album items by the "SortByField" of the album, or an empty string */
+	private static String createOrderByClause(String albumName) {
 		List<MetaItemField> metaItemFields = new ArrayList<MetaItemField>();
 		try {
 			metaItemFields.addAll(DatabaseOperations.getMetaItemFields(albumName));
@@ -273,9 +389,7 @@ public final class QueryBuilder {
 			}
 		}
 		
-		return "SELECT * " + 
-	           "FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)) + 
-	           orderBy;
+		return orderBy;
 	}
 	
 	/**
@@ -288,6 +402,27 @@ public final class QueryBuilder {
 	           "FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName));
 	}
 	
+	/**
+	 * Creates a query selecting only the given fields of all album items, such that the other fields are neither read nor decoded. 
+	 * The id is always selected, since it is needed to retrieve the remaining fields of an album item later on.
+	 * @param albumName The album on which the query should be performed.
+	 * @param fieldNames The names of the fields to be selected.
+	 * @return A string containing the proper SQL string.
+	 */
+	public static String createSelectQuery(String albumName, Collection<String> fieldNames) {
+		StringBuilder query = new StringBuilder("SELECT ");
+		query.append(DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ID_COLUMN_NAME));
+		
+		for (String fieldName : fieldNames) {
+			if (!DatabaseConstants.ID_COLUMN_NAME.equals(fieldName)) {
+				query.append(", ").append(DatabaseStringUtilities.transformColumnNameToSelectQueryName(fieldName));
+			}
+		}
+		
+		query.append(" FROM ").append(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)));
+		return query.toString();
+	}
+	
 	/**
 	 * Creates a simple select * from albumName with a properly formatted albumName and columnName
 	 * @param albumName The name of the album to which this query refers to
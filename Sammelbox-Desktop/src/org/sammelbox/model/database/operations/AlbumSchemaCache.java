@@ -0,0 +1,137 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database.operations;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.controller.managers.PreparedStatementCache;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+
+/**
+ * Caches the meta item fields of each album. An entry is only used as long as the schema version UUID of the album
+ * is the one for which the entry has been created. Hence reading the schema version is the only query of a cache hit,
+ * while a miss walks the table metadata and detects the type of every column.
+ */
+public final class AlbumSchemaCache {
+	private static final Map<String, CachedAlbumSchema> CACHED_SCHEMAS = new HashMap<String, CachedAlbumSchema>();
+	private static final AtomicLong HITS = new AtomicLong();
+	private static final AtomicLong MISSES = new AtomicLong();
+
+	private AlbumSchemaCache() {
+		// use static methods
+	}
+
+	/** @return The number of lookups which have been answered from the cache since the last reset */
+	public static long getHitCount() {
+		return HITS.get();
+	}
+
+	/** @return The number of lookups which required the schema to be read from the database since the last reset */
+	public static long getMissCount() {
+		return MISSES.get();
+	}
+
+	/** Resets the hit and miss counters */
+	public static void resetStatistics() {
+		HITS.set(0);
+		MISSES.set(0);
+	}
+
+	/**
+	 * Retrieves all meta item fields of the album, including those for internal use only, in the order of the columns.
+	 * The returned fields are copies which may be modified by the caller.
+	 * @param albumName The name of the album.
+	 * @return The list of meta item fields.
+	 * @throws DatabaseWrapperOperationException If the album does not exist or its schema could not be read.
+	 */
+	static List<MetaItemField> getMetaItemFields(String albumName) throws DatabaseWrapperOperationException {
+		String schemaVersion = readSchemaVersion(albumName);
+		List<MetaItemField> metaItemFields;
+
+		synchronized (CACHED_SCHEMAS) {
+			CachedAlbumSchema cachedAlbumSchema = CACHED_SCHEMAS.get(albumName);
+			if (cachedAlbumSchema != null && cachedAlbumSchema.schemaVersion.equals(schemaVersion)) {
+				HITS.incrementAndGet();
+				metaItemFields = cachedAlbumSchema.metaItemFields;
+			} else {
+				MISSES.incrementAndGet();
+				metaItemFields = QueryOperations.readAllAlbumItemMetaItemFields(albumName);
+				CACHED_SCHEMAS.put(albumName, new CachedAlbumSchema(schemaVersion, metaItemFields));
+			}
+		}
+
+		List<MetaItemField> copiedMetaItemFields = new ArrayList<MetaItemField>(metaItemFields.size());
+		for (MetaItemField metaItemField : metaItemFields) {
+			copiedMetaItemFields.add(new MetaItemField(metaItemField.getName(), metaItemField.getType(), metaItemField.isQuickSearchable()));
+		}
+
+		return copiedMetaItemFields;
+	}
+
+	/**
+	 * Removes the cached schema of the given album. Must be called whenever the structure of the album changes.
+	 * The cached prepared statements are discarded as well, since they have been prepared for the previous structure.
+	 * @param albumName The name of the album.
+	 */
+	static void invalidate(String albumName) {
+		synchronized (CACHED_SCHEMAS) {
+			CACHED_SCHEMAS.remove(albumName);
+		}
+		
+		PreparedStatementCache.invalidateAll();
+	}
+
+	private static String readSchemaVersion(String albumName) throws DatabaseWrapperOperationException {
+		String typeInfoTableName = DatabaseStringUtilities.generateTypeInfoTableName(albumName);
+
+		try (Statement statement = ConnectionManager.getReadConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			 ResultSet rs = statement.executeQuery("SELECT " + DatabaseConstants.SCHEMA_VERSION_COLUMN_NAME +
+					 " FROM " + DatabaseStringUtilities.encloseNameWithQuotes(typeInfoTableName))) {
+
+			if (rs.next() && rs.getString(1) != null) {
+				return rs.getString(1);
+			}
+
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "The album " + albumName + " has no schema version");
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
+
+	private static final class CachedAlbumSchema {
+		private final String schemaVersion;
+		private final List<MetaItemField> metaItemFields;
+
+		private CachedAlbumSchema(String schemaVersion, List<MetaItemField> metaItemFields) {
+			this.schemaVersion = schemaVersion;
+			this.metaItemFields = metaItemFields;
+		}
+	}
+}
@@ -33,7 +33,10 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public final class CreateOperations {
@@ -66,6 +69,8 @@ public final class CreateOperations {
 		
 		// Make columns quick-searchable
 		createIndex(DatabaseStringUtilities.generateTableName(albumName), quickSearchableColumnNames);
+		
+		AlbumSchemaCache.invalidate(albumName);
 	}
 	
 	/**
@@ -203,10 +208,10 @@ public final class CreateOperations {
 	}
 
 	/**
-	 * Creates a database index containing the specified columns of the album (table). This index is currently used to identify the 
-	 * fields (columns)  marked for the quicksearch feature.
+	 * Creates the database indexes of the specified columns of the album (table). These indexes are also used to identify the 
+	 * fields (columns) marked for the quicksearch feature. See {@link IndexOperations} for details.
 	 * @param albumName The name of the album to which the index belongs. This name should NOT be escaped.
-	 * @param columnNames The list of names of columns to be included in the index. Performs an automatic test to see if the column names 
+	 * @param columnNames The list of names of columns to be indexed. Performs an automatic test to see if the column names 
 	 * are quoted.  
 	 * @throws DatabaseWrapperOperationException 
 	 */
@@ -215,26 +220,7 @@ public final class CreateOperations {
 			return;
 		}
 		
-		StringBuilder sqlStringbuiler = new StringBuilder("CREATE INDEX ");
-		sqlStringbuiler.append(DatabaseStringUtilities.encloseNameWithQuotes(
-				DatabaseStringUtilities.generateIndexTableName(albumName)));
-		sqlStringbuiler.append(" ON ");
-		sqlStringbuiler.append(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)));
-		sqlStringbuiler.append(" (");
-		sqlStringbuiler.append(DatabaseStringUtilities.encloseNameWithQuotes(columnNames.get(0)));		
-		if (columnNames.size()>=2) {
-			for (int i=1;i<columnNames.size(); i++) {
-				sqlStringbuiler.append(", ");
-				sqlStringbuiler.append(DatabaseStringUtilities.encloseNameWithQuotes(columnNames.get(i))); 
-			}
-		}		
-		sqlStringbuiler.append(")");
-		
-		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(sqlStringbuiler.toString())) {
-			preparedStatement.execute();
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
-		}
+		IndexOperations.updateIndexes(albumName, columnNames);
 	}
 	
 	static void createAlbumMasterTableIfItDoesNotExist() throws DatabaseWrapperOperationException {
@@ -305,6 +291,9 @@ public final class CreateOperations {
 	
 		createTableWithIdAsPrimaryKey(DatabaseStringUtilities.encloseNameWithQuotes(
 				DatabaseStringUtilities.generatePictureTableName(albumName)), columns , false, true);
+		
+		// The pictures are always looked up by the album item they belong to
+		IndexOperations.createPictureTableIndex(albumName);
 	}
 	
 	/** Adds the given album item to the corresponding album table 
@@ -429,6 +418,224 @@ public final class CreateOperations {
 		return addAlbumItem(albumItem, true, updateContentVersion);
 	}
 	
+	/** Adds all given album items to the specified album using batched inserts. In contrast to calling 
+	 * {@link #addAlbumItem(AlbumItem, boolean, boolean)} for every item, the insert statements are only prepared once per 
+	 * distinct set of fields, the content version is written as part of the insert and the items are written in chunks, 
+	 * each of which is protected by a single savepoint. Chunks that have been written before a failure remain in the 
+	 * database, unless the caller holds a savepoint of its own.
+	 * @param albumName the name of the album to which all items belong
+	 * @param albumItems the items to be added. IDs are assigned to items without an ID in the order of the iteration
+	 * @param addPictures should the pictures from the given album items be added to the corresponding picture table?
+	 * @param updateContentVersion should a new content version be generated for every item? Otherwise the content 
+	 * version of the items is carried over
+	 * @param chunkSize the number of items that are written per chunk 
+	 * @return the number of items that have been added */
+	static long addAlbumItems(String albumName, Iterable<AlbumItem> albumItems, boolean addPictures, 
+			boolean updateContentVersion, int chunkSize) throws DatabaseWrapperOperationException {
+		if (chunkSize < 1) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "The chunk size must be positive");
+		}
+		
+		String tableName = DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName));
+		// Statements are cached by their SQL string since items may omit fields without a value (e.g. csv imports)
+		Map<String, PreparedStatement> insertStatements = new HashMap<String, PreparedStatement>();
+		PreparedStatement pictureInsertStatement = null;
+		
+		long numberOfAddedItems = 0;
+		int numberOfItemsInChunk = 0;
+		String savepointName = null;
+		
+		try {
+			pictureInsertStatement = ConnectionManager.getConnection().prepareStatement(createPictureInsertString(albumName));
+			long nextItemId = getMaximumItemId(tableName) + 1;
+			
+			for (AlbumItem albumItem : albumItems) {
+				validateAlbumItemForAddition(albumName, albumItem, updateContentVersion);
+				
+				if (savepointName == null) {
+					savepointName = DatabaseIntegrityManager.createSavepoint();
+				}
+				
+				long itemId = albumItem.getItemId();
+				if (itemId <= AlbumItem.ITEM_ID_UNDEFINED) {
+					itemId = nextItemId;
+				}
+				nextItemId = Math.max(nextItemId, itemId + 1);
+				
+				List<ItemField> insertableFields = getInsertableFields(albumItem);
+				String insertString = createBulkInsertString(tableName, insertableFields);
+				PreparedStatement insertStatement = insertStatements.get(insertString);
+				if (insertStatement == null) {
+					insertStatement = ConnectionManager.getConnection().prepareStatement(insertString);
+					insertStatements.put(insertString, insertStatement);
+				}
+				
+				int parameterIndex = 1;
+				insertStatement.setLong(parameterIndex++, itemId);
+				for (ItemField itemField : insertableFields) {
+					HelperOperations.setValueToPreparedStatement(insertStatement, parameterIndex++, itemField, albumName);
+				}
+				UUID contentVersion = updateContentVersion ? UUID.randomUUID() : albumItem.getContentVersion();
+				insertStatement.setString(parameterIndex++, contentVersion.toString());
+				insertStatement.setLong(parameterIndex, DatabaseConstants.TYPE_INFO_FOREIGN_KEY);
+				insertStatement.addBatch();
+				
+				if (addPictures && albumItem.getPictures() != null) {
+					for (AlbumItemPicture picture : albumItem.getPictures()) {
+						if (picture instanceof SampleAlbumItemPicture) {
+							throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "Cannot persist SampleAlbumItemPicture");
+						}
+						
+						picture.setAlbumItemID(itemId);
+						picture.setAlbumName(albumName);
+						pictureInsertStatement.setString(1, picture.getOriginalPictureName());
+						pictureInsertStatement.setString(2, picture.getThumbnailPictureName());
+						pictureInsertStatement.setLong(3, itemId);
+						pictureInsertStatement.addBatch();
+					}
+				}
+				
+				numberOfAddedItems++;
+				numberOfItemsInChunk++;
+				
+				if (numberOfItemsInChunk == chunkSize) {
+					executeBatches(insertStatements.values(), pictureInsertStatement);
+					DatabaseIntegrityManager.releaseSavepoint(savepointName);
+					savepointName = null;
+					numberOfItemsInChunk = 0;
+				}
+			}
+			
+			if (savepointName != null) {
+				executeBatches(insertStatements.values(), pictureInsertStatement);
+				DatabaseIntegrityManager.releaseSavepoint(savepointName);
+				savepointName = null;
+			}
+			
+			if (numberOfAddedItems > 0) {
+				DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
+			}
+			
+			return numberOfAddedItems;
+		} catch (SQLException | DatabaseWrapperOperationException exception) {
+			rollbackChunk(savepointName);
+			// The database is only left untouched if no previous chunk has been written
+			boolean hasWrittenChunks = numberOfAddedItems > numberOfItemsInChunk;
+			throw new DatabaseWrapperOperationException(
+					hasWrittenChunks ? DBErrorState.ERROR_DIRTY_STATE : DBErrorState.ERROR_CLEAN_STATE, exception);
+		} finally {
+			for (PreparedStatement insertStatement : insertStatements.values()) {
+				closeStatement(insertStatement);
+			}
+			closeStatement(pictureInsertStatement);
+		}
+	}
+	
+	/** Performs the same checks on the given item as {@link #addAlbumItem(AlbumItem, boolean, boolean)} does and additionally
+	 * ensures that the item belongs to the specified album */
+	private static void validateAlbumItemForAddition(String albumName, AlbumItem albumItem, boolean updateContentVersion) 
+			throws DatabaseWrapperOperationException {
+		if (!albumName.equals(albumItem.getAlbumName())) {
+			LOGGER.error("Item {} does not belong to the album {}", albumItem, albumName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
+		}
+		
+		if (!albumItem.isValid()) {
+			LOGGER.error("Item {} is invalid", albumItem);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
+		}
+		
+		if (!updateContentVersion && albumItem.getContentVersion() == null) {
+			LOGGER.error("The option for carrying over the old content version " +
+					"is checked but no content version is found in the item!");
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
+		}
+	}
+	
+	/** Returns the fields of the item which are set explicitly by the bulk insert, i.e. all fields except the internal columns */
+	private static List<ItemField> getInsertableFields(AlbumItem albumItem) {
+		List<ItemField> insertableFields = new ArrayList<ItemField>();
+		
+		for (ItemField itemField : albumItem.getFields()) {
+			String name = itemField.getName();
+			if (!name.equalsIgnoreCase(DatabaseConstants.ID_COLUMN_NAME) 
+					&& !name.equalsIgnoreCase(DatabaseConstants.TYPE_INFO_COLUMN_NAME)
+					&& !name.equalsIgnoreCase(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME)) {
+				insertableFields.add(itemField);
+			}
+		}
+		
+		return insertableFields;
+	}
+	
+	/** Builds an insert string with place-holders '?' for the id, the given fields, the content version and the type info */
+	private static String createBulkInsertString(String tableName, List<ItemField> insertableFields) {
+		StringBuilder sb = new StringBuilder("INSERT INTO ");
+		sb.append(tableName);
+		sb.append(" ( ");
+		sb.append(DatabaseConstants.ID_COLUMN_NAME);
+		sb.append(", ");
+		
+		for (ItemField itemField : insertableFields) {
+			sb.append(DatabaseStringUtilities.encloseNameWithQuotes(itemField.getName()));
+			sb.append(", ");
+		}
+		
+		sb.append(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME);
+		sb.append(", ");
+		sb.append(DatabaseConstants.TYPE_INFO_COLUMN_NAME);
+		sb.append(" ) VALUES ( ?, ");
+		
+		for (int i=0; i<insertableFields.size(); i++) {
+			sb.append("?, ");
+		}
+		
+		sb.append("?, ? )");
+		
+		return sb.toString();
+	}
+	
+	private static String createPictureInsertString(String albumName) {
+		return "INSERT INTO " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName)) + 
+				" ( " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) + " ) VALUES ( ?, ?, ? )";
+	}
+	
+	private static long getMaximumItemId(String tableName) throws SQLException {
+		try (Statement statement = ConnectionManager.getConnection().createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT IFNULL(MAX(" + DatabaseConstants.ID_COLUMN_NAME + "), 0) FROM " + tableName)) {
+			
+			return resultSet.next() ? resultSet.getLong(1) : 0;
+		}
+	}
+	
+	private static void executeBatches(Collection<PreparedStatement> insertStatements, PreparedStatement pictureInsertStatement) throws SQLException {
+		for (PreparedStatement insertStatement : insertStatements) {
+			insertStatement.executeBatch();
+		}
+		pictureInsertStatement.executeBatch();
+	}
+	
+	private static void rollbackChunk(String savepointName) throws DatabaseWrapperOperationException {
+		if (savepointName != null) {
+			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+		}
+	}
+	
+	private static void closeStatement(PreparedStatement preparedStatement) {
+		if (preparedStatement == null) {
+			return;
+		}
+		
+		try {
+			preparedStatement.close();
+		} catch (SQLException sqlException) {
+			LOGGER.error("Failed to close a prepared statement of the bulk insert", sqlException);
+		}
+	}
+	
 	static void addAlbumItemPicture(AlbumItemPicture albumItemPicture) throws DatabaseWrapperOperationException {
 		if (albumItemPicture instanceof SampleAlbumItemPicture) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "Cannot persist SampleAlbumItemPicture");
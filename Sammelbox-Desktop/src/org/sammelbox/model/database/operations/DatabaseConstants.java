@@ -33,8 +33,14 @@ public final class DatabaseConstants {
 	public static final String TYPE_INFO_SUFFIX = "_typeinfo";
 	/** Suffix used to append to the name of the main table to obtain the index name during index creation.*/
 	public static final String INDEX_NAME_SUFFIX = "_index";
+	/** Suffix used to append to the name of the main table to obtain the name of the index on the sort field.*/
+	public static final String SORT_INDEX_NAME_SUFFIX = "_sort_index";
+	/** The suffix used to append to the main table name to obtain the name of the full text index (FTS4 table) for the quicksearch.*/
+	public static final String FULL_TEXT_INDEX_SUFFIX = "_fts";
 	/** The suffix used to append to the main table to obtain the temporary table name.*/
 	public static final String TEMP_TABLE_SUFFIX = "_temptable";
+	/** The default number of album items that are written per savepoint when album items are added in bulk */
+	public static final int DEFAULT_BULK_INSERT_CHUNK_SIZE = 1000;
 	
 	
 	/** The name of the picture table column that stores the filename of the original picture */
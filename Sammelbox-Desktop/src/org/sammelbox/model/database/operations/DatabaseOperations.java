@@ -20,11 +20,18 @@ package org.sammelbox.model.database.operations;
 
 import org.sammelbox.controller.managers.WelcomePageManager;
 import org.sammelbox.model.album.*;
+import org.sammelbox.model.database.CompiledQuery;
+import org.sammelbox.model.database.PageCursor;
+import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public final class DatabaseOperations {	
 	private DatabaseOperations() {
@@ -59,6 +66,32 @@ public final class DatabaseOperations {
 		return CreateOperations.addAlbumItem(item, updateContentVersion);
 	}
 	
+	/**
+	 * Adds the specified items to an existing album using batched inserts. A new contentVersion is set for every item and 
+	 * the album item pictures are linked to their album items. This is considerably faster than adding the items one by one.
+	 * @param albumName The name of the album to which all items belong.
+	 * @param items The album items to be added.
+	 * @return The number of added items.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static long addAlbumItems(String albumName, Iterable<AlbumItem> items) throws DatabaseWrapperOperationException {
+		return addAlbumItems(albumName, items, DatabaseConstants.DEFAULT_BULK_INSERT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Adds the specified items to an existing album using batched inserts. See {@link #addAlbumItems(String, Iterable)}
+	 * @param albumName The name of the album to which all items belong.
+	 * @param items The album items to be added.
+	 * @param chunkSize The number of items which are committed together. If the addition fails, the chunks that have been
+	 * written before the failure remain in the database.
+	 * @return The number of added items.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static long addAlbumItems(String albumName, Iterable<AlbumItem> items, int chunkSize) throws DatabaseWrapperOperationException {
+		WelcomePageManager.updateLastModifiedWithCurrentDate(albumName);
+		return CreateOperations.addAlbumItems(albumName, items, true, true, chunkSize);
+	}
+	
 	/**
 	 * Permanently renames an album in the specified database
 	 * @param oldAlbumName The old name of the album to be renamed
@@ -96,6 +129,16 @@ public final class DatabaseOperations {
 		WelcomePageManager.updateLastModifiedWithCurrentDate(albumName);
 	}
 	
+	/**
+	 * Indexes the album on the field by which its album items are sorted. The index on a previous sort field is dropped.
+	 * @param albumName The name of the album.
+	 * @param sortFieldName The name of the sort field, or null if the album items are not sorted by a field.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static void updateSortIndex(String albumName, String sortFieldName) throws DatabaseWrapperOperationException {
+		UpdateOperations.updateSortIndex(albumName, sortFieldName);
+	}
+	
 	/**
 	 * Sets the ability of albumField to the value found in the metaItemField describing that field.
 	 * @param albumName The name of the album to which the item belongs.
@@ -130,7 +173,9 @@ public final class DatabaseOperations {
 	}
 	
 	/**
-	 * Updates all the fields of the specified item in the database using the values provided through item.
+	 * Updates the specified item in the database using the values provided through item. Only dirty fields are written, and 
+	 * the pictures are only touched if they have been changed, in which case removed pictures are deleted and new ones added.
+	 * Afterwards the item is marked as clean.
 	 * @param albumItem The item to be updated.
 	 * @throws DatabaseWrapperOperationException 
 	 */
@@ -139,6 +184,41 @@ public final class DatabaseOperations {
 		WelcomePageManager.updateLastModifiedWithCurrentDate(albumItem.getAlbumName());
 	}
 	
+	/**
+	 * Updates only the given fields of several items. The changes of each field are written using one batched statement, while
+	 * all other fields and the pictures of the items remain untouched. A new contentVersion is set for every updated item.
+	 * @param albumName The name of the album to which all items belong.
+	 * @param changedAlbumItems Items which only contain their id and the fields that have been changed.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static void updateAlbumItemFields(String albumName, Collection<AlbumItem> changedAlbumItems) throws DatabaseWrapperOperationException {
+		if (changedAlbumItems.isEmpty()) {
+			return;
+		}
+		
+		UpdateOperations.updateAlbumItemFields(albumName, changedAlbumItems);
+		WelcomePageManager.updateLastModifiedWithCurrentDate(albumName);
+	}
+	
+	/**
+	 * Replaces the thumbnail file names of the given pictures by the names the pictures currently hold, e.g. after their
+	 * thumbnails have been stored in another format. A picture is only updated if it still holds its previous thumbnail name,
+	 * since it might have been removed in the meantime and its id reused by another picture. A new contentVersion is set for
+	 * every album item owning one of the updated pictures. The thumbnail files themselves are neither created nor deleted.
+	 * @param albumName The name of the album to which all pictures belong.
+	 * @param picturesByPreviousThumbnailName The pictures, identified by their ids, holding their new thumbnail names.
+	 * @return The previous thumbnail names of the pictures which have been updated.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static Set<String> updateThumbnailPictureNames(String albumName, 
+			Map<String, AlbumItemPicture> picturesByPreviousThumbnailName) throws DatabaseWrapperOperationException {
+		if (picturesByPreviousThumbnailName.isEmpty()) {
+			return Collections.emptySet();
+		}
+		
+		return UpdateOperations.updateThumbnailPictureNames(albumName, picturesByPreviousThumbnailName);
+	}
+	
 	/**
 	 * Simply executes the provided sql query via the connection against a database and returns the results.
 	 * @param sqlStatement An sql query, typically a SELECT statement like SELECT * FROM albumName.
@@ -149,18 +229,52 @@ public final class DatabaseOperations {
 		return QueryOperations.executeSQLQuery(sqlStatement);
 	}
 	
+	/**
+	 * Executes the provided query and returns the results. The statement of the query is reused for all queries with the
+	 * same SQL text, independently of the values bound to its parameters.
+	 * @param query A query, typically created by the {@link QueryBuilder}.
+	 * @return A resultSet containing the desired entries.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static AlbumItemResultSet executeSQLQuery(CompiledQuery query) throws DatabaseWrapperOperationException {
+		return QueryOperations.executeSQLQuery(query);
+	}
+	
 	/**
 	 * Performs a quicksearch. A quicksearch is a search limited to the marked fields. Every item return contains at least a field
 	 * whose value partially matches the any query term.
 	 * @param albumName The name of the album to which the query refers to.
-	 * @param quickSearchTerms A list of terms to be matched against the marked fields. If null, a select * is performed.
-	 * @return A valid albumItemResultSet for the provided quicksearch terms or a select * 
+	 * @param quickSearchTerms A list of terms to be matched against the marked fields. If null, all album items are selected.
+	 * @return A valid albumItemResultSet for the provided quicksearch terms or all album items 
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	public static AlbumItemResultSet executeQuickSearch(String albumName, List<String> quickSearchTerms) throws DatabaseWrapperOperationException {
 		return QueryOperations.executeQuickSearch(albumName, quickSearchTerms);
 	}
 	
+	/**
+	 * Performs a quicksearch using the given connection. The search can be cancelled from another thread using
+	 * {@link AlbumItemResultSet#cancel()}. Since this interrupts the connection, it should not be shared with other queries.
+	 * @param albumName The name of the album to which the query refers to.
+	 * @param quickSearchTerms A list of terms to be matched against the marked fields. If null, all album items are selected.
+	 * @param connection The read connection used to execute the search. The connection must be owned by the caller.
+	 * @return A valid albumItemResultSet for the provided quicksearch terms or all album items 
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static AlbumItemResultSet executeQuickSearch(String albumName, List<String> quickSearchTerms, Connection connection) throws DatabaseWrapperOperationException {
+		return QueryOperations.executeQuickSearch(albumName, quickSearchTerms, connection);
+	}
+	
+	/**
+	 * Prepares the album for quick searches, e.g. by creating its full text index if the database does not contain it yet.
+	 * Call this method before quick searches are executed on a thread which must not write to the database.
+	 * @param albumName The name of the album which will be searched.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static void prepareQuickSearch(String albumName) throws DatabaseWrapperOperationException {
+		FullTextIndexOperations.ensureFullTextIndex(albumName);
+	}
+	
 	/**
 	 * Returns the matching album name for a given table name
 	 * @param tableName the table name for which the album name is requested
@@ -275,6 +389,24 @@ public final class DatabaseOperations {
 		return QueryOperations.isItemFieldNameAvailable(albumName, requestedFieldName);
 	}
 	
+	/**
+	 * Fetches a single page of album items. Instead of loading all album items at once, an album of any size can be walked 
+	 * page by page by passing the cursor of each page to the next call, until a page has no next page cursor. Each page is 
+	 * fetched by seeking to the cursor, hence its cost does not grow with the number of preceding album items.
+	 * @param albumName The name of the album.
+	 * @param sortField The field by which the album items are sorted, or null if they are only sorted by their ids. Album
+	 * items with equal values are sorted by their ids.
+	 * @param sortAscending True if the album items are sorted in ascending order, false for descending order.
+	 * @param pageSize The maximum number of album items of the page.
+	 * @param afterCursor The cursor returned with the previous page, or null for the first page.
+	 * @return The page including the cursor of the next page.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static AlbumItemPage getAlbumItemPage(String albumName, String sortField, boolean sortAscending, int pageSize, PageCursor afterCursor) 
+			throws DatabaseWrapperOperationException {
+		return QueryOperations.getAlbumItemPage(albumName, sortField, sortAscending, pageSize, afterCursor);
+	}
+	
 	/**
 	 * Fetches an album item by its id and album name.
 	 * @param albumName The name of the album to which this item belongs to.
@@ -323,6 +455,28 @@ public final class DatabaseOperations {
 		return QueryOperations.getAlbumItemPictures(albumName, albumItemID);
 	}
 	
+	/**
+	 * Returns all pictures of the specified album
+	 * @param albumName the album whose pictures are requested
+	 * @return a list of album item pictures, which is empty if the album does not support pictures
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static List<AlbumItemPicture> getAllAlbumItemPictures(String albumName) throws DatabaseWrapperOperationException {
+		return QueryOperations.getAllAlbumItemPictures(albumName);
+	}
+	
+	/**
+	 * Returns the pictures attached to the specified album items using a single query (per 500 album items)
+	 * @param albumName the album which contains the relevant album items
+	 * @param albumItemIDs the ids of the album items for which the pictures are requested
+	 * @return a map from every requested album item id to the list of its pictures. The list is empty if the album item
+	 * has no pictures or the album does not support pictures
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static Map<Long, List<AlbumItemPicture>> getAlbumItemPictures(String albumName, Collection<Long> albumItemIDs) throws DatabaseWrapperOperationException {
+		return QueryOperations.getAlbumItemPictures(albumName, albumItemIDs);
+	}
+	
 	/**
 	 * Creates the album master table if it does not already exist
 	 * @throws DatabaseWrapperOperationException
@@ -331,6 +485,14 @@ public final class DatabaseOperations {
 		CreateOperations.createAlbumMasterTableIfItDoesNotExist();
 	}
 	
+	/**
+	 * Creates the picture table indexes which are missing in databases created by older versions
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static void createMissingPictureTableIndexes() throws DatabaseWrapperOperationException {
+		IndexOperations.createMissingPictureTableIndexes();
+	}
+	
 	/**
 	 * Permanently deletes the given albumItem from the database
 	 * @param albumItem The item to be deleted
@@ -69,6 +69,9 @@ public final class DeleteOperations {
 		String savepointName = DatabaseIntegrityManager.createSavepoint();
 		
 		try {
+			// The sort index is dropped together with the old table
+			String sortIndexColumnName = IndexOperations.getSortIndexColumnName(albumName);
+			
 			// Drop the old table and typeTable
 			removeAlbum(albumName);
 		
@@ -82,10 +85,13 @@ public final class DeleteOperations {
 			List<AlbumItem> newAlbumItems = removeFieldFromAlbumItemList(metaItemField, albumItems);
 			for (AlbumItem albumItem : newAlbumItems) {
 				albumItem.setAlbumName(albumName);
-				CreateOperations.addAlbumItem(albumItem, false, false);
 			}
+			CreateOperations.addAlbumItems(albumName, newAlbumItems, false, false, DatabaseConstants.DEFAULT_BULK_INSERT_CHUNK_SIZE);
 	
 			UpdateOperations.rebuildIndexForTable(albumName, newFields);
+			if (sortIndexColumnName != null && !sortIndexColumnName.equals(metaItemField.getName())) {
+				IndexOperations.createSortIndex(albumName, sortIndexColumnName);
+			}
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 		} catch (DatabaseWrapperOperationException e) {
 			if (e.getErrorState().equals(DBErrorState.ERROR_CLEAN_STATE)) {
@@ -127,8 +133,10 @@ public final class DeleteOperations {
 		try {	
 			dropTable(DatabaseStringUtilities.generateTableName(albumName));
 			dropTable(DatabaseStringUtilities.generateTypeInfoTableName(albumName));
+			FullTextIndexOperations.dropFullTextIndex(albumName);
 			
 			UpdateOperations.removeAlbumFromAlbumMasterTable(albumName); 
+			AlbumSchemaCache.invalidate(albumName);
 			
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 		} catch (DatabaseWrapperOperationException e) {
@@ -180,6 +188,29 @@ public final class DeleteOperations {
 		}
 	}
 	
+	/** Removes the given picture records from the picture table, identifying them by their picture ids
+	 * ATTENTION: this method does no delete the physical files!
+	 * @param albumName the album to which the pictures belong
+	 * @param albumItemPictures the pictures whose records should be deleted */
+	static void removePicturesFromPictureTable(String albumName, List<AlbumItemPicture> albumItemPictures) throws DatabaseWrapperOperationException {
+		if (albumItemPictures.isEmpty()) {
+			return;
+		}
+		
+		String deleteQuery = "DELETE FROM " + DatabaseStringUtilities.encloseNameWithQuotes(
+				DatabaseStringUtilities.generatePictureTableName(albumName)) + " WHERE " + DatabaseConstants.ID_COLUMN_NAME + " = ?";
+		
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(deleteQuery)) {
+			for (AlbumItemPicture albumItemPicture : albumItemPictures) {
+				preparedStatement.setLong(1, albumItemPicture.getPictureID());
+				preparedStatement.addBatch();
+			}
+			preparedStatement.executeBatch();
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+	
 	/**
 	 * Drops a table if it exists. No error or side effects if it does not exist.
 	 * @param tableName The name of the table which is to be dropped.
@@ -194,27 +225,16 @@ public final class DeleteOperations {
 	}
 	
 	/**
-	 * Drops the first index associated to the given table name. 
-	 * @param albumName The name of the album to which the index belongs.
-	 * @return true if the table has no associated index to it. false if the operation failed.
+	 * Drops the quicksearch indexes associated to the given album, such that none of its fields is quicksearchable anymore. 
+	 * @param albumName The name of the album to which the indexes belong.
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	static void dropIndex(String albumName) throws DatabaseWrapperOperationException {
-		String indexName = DatabaseStringUtilities.generateIndexTableName(albumName);		
-		
-		// null indicates that no index was there to drop
-		if (indexName == null) {
-			return;
-		}
-				
-		String quotedIndexName = DatabaseStringUtilities.encloseNameWithQuotes(indexName);
-		String sqlStatementString = "DROP INDEX IF EXISTS " + quotedIndexName;
-		
 		String savepointName = DatabaseIntegrityManager.createSavepoint();
 		
-		try (Statement statement = ConnectionManager.getConnection().createStatement()){			
-			statement.execute(sqlStatementString);
-		} catch (SQLException e) {
+		try {
+			IndexOperations.dropIndexes(albumName);
+		} catch (DatabaseWrapperOperationException e) {
 			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		} finally {
@@ -0,0 +1,155 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database.operations;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.OptionType;
+import org.sammelbox.model.album.StarRating;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the value of an item field of a specific type from a column of a result set. Result sets choose the decoder of each
+ * column once (see {@link #forType(FieldType)}), such that reading a row neither looks up the field types nor dispatches on them.
+ */
+public abstract class FieldValueDecoder {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FieldValueDecoder.class);
+	/** The option types keyed by the values stored in the database */
+	private static final Map<String, OptionType> OPTION_TYPES_BY_DATABASE_VALUE = new HashMap<String, OptionType>();
+	private static final Map<FieldType, FieldValueDecoder> DECODERS = new EnumMap<FieldType, FieldValueDecoder>(FieldType.class);
+	/** Used for field types without a decoder of their own. Always yields null */
+	private static final FieldValueDecoder NULL_DECODER = new FieldValueDecoder() {
+		@Override
+		public Object decode(ResultSet results, int columnIndex) {
+			return null;
+		}
+	};
+
+	static {
+		for (OptionType optionType : OptionType.values()) {
+			OPTION_TYPES_BY_DATABASE_VALUE.put(optionType.toString(), optionType);
+		}
+
+		DECODERS.put(FieldType.ID, new FieldValueDecoder() {
+			@Override
+			public Object decode(ResultSet results, int columnIndex) throws SQLException {
+				return results.getLong(columnIndex);
+			}
+		});
+
+		FieldValueDecoder stringDecoder = new FieldValueDecoder() {
+			@Override
+			public Object decode(ResultSet results, int columnIndex) throws SQLException {
+				return results.getString(columnIndex);
+			}
+		};
+		DECODERS.put(FieldType.TEXT, stringDecoder);
+		DECODERS.put(FieldType.URL, stringDecoder);
+
+		DECODERS.put(FieldType.DECIMAL, new FieldValueDecoder() {
+			@Override
+			public Object decode(ResultSet results, int columnIndex) throws SQLException {
+				return results.getDouble(columnIndex);
+			}
+		});
+
+		DECODERS.put(FieldType.INTEGER, new FieldValueDecoder() {
+			@Override
+			public Object decode(ResultSet results, int columnIndex) throws SQLException {
+				return results.getInt(columnIndex);
+			}
+		});
+
+		DECODERS.put(FieldType.DATE, new FieldValueDecoder() {
+			@Override
+			public Object decode(ResultSet results, int columnIndex) throws SQLException {
+				return results.getDate(columnIndex);
+			}
+		});
+
+		DECODERS.put(FieldType.TIME, new FieldValueDecoder() {
+			@Override
+			public Object decode(ResultSet results, int columnIndex) throws SQLException {
+				return results.getTime(columnIndex);
+			}
+		});
+
+		DECODERS.put(FieldType.OPTION, new FieldValueDecoder() {
+			@Override
+			public Object decode(ResultSet results, int columnIndex) throws SQLException {
+				String optionValue = results.getString(columnIndex);
+				if (optionValue == null || optionValue.isEmpty()) {
+					LOGGER.error("Fetching option type for item field failed. Option string is unexpectedly null or empty");
+					return null;
+				}
+
+				OptionType optionType = OPTION_TYPES_BY_DATABASE_VALUE.get(optionValue);
+				if (optionType == null) {
+					// Behaves like OptionType.valueOf for unknown values
+					throw new IllegalArgumentException("No option type " + optionValue);
+				}
+				return optionType;
+			}
+		});
+
+		DECODERS.put(FieldType.STAR_RATING, new FieldValueDecoder() {
+			@Override
+			public Object decode(ResultSet results, int columnIndex) throws SQLException {
+				return StarRating.getByIntegerValue(results.getInt(columnIndex));
+			}
+		});
+
+		DECODERS.put(FieldType.UUID, new FieldValueDecoder() {
+			@Override
+			public Object decode(ResultSet results, int columnIndex) throws SQLException {
+				return UUID.fromString(results.getString(columnIndex));
+			}
+		});
+	}
+
+	FieldValueDecoder() {
+		// only the decoders of this class are used
+	}
+
+	/**
+	 * Reads the value of the given column of the current row.
+	 * @param results The result set pointing to the row whose value is to be read.
+	 * @param columnIndex The (one based) index of the column.
+	 * @return The value of the item field, which is of the type expected for the field type of the decoder.
+	 * @throws SQLException If the value could not be read.
+	 */
+	public abstract Object decode(ResultSet results, int columnIndex) throws SQLException;
+
+	/**
+	 * Retrieves the decoder for values of the given field type. The decoders are stateless and shared by all result sets.
+	 * @param type The type of the item field.
+	 * @return The decoder of the field type. Never null.
+	 */
+	public static FieldValueDecoder forType(FieldType type) {
+		FieldValueDecoder decoder = DECODERS.get(type);
+		return decoder != null ? decoder : NULL_DECODER;
+	}
+}
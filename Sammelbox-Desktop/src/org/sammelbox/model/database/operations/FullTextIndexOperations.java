@@ -0,0 +1,283 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database.operations;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.database.CompiledQuery;
+import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.FullTextRankingFunction;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+
+/**
+ * Maintains the full text index (an FTS4 virtual table) of an album. The index covers the quicksearchable TEXT, URL and
+ * OPTION columns and is kept in sync with the album table by triggers. It is created and dropped together with the
+ * regular quicksearch index.
+ */
+public final class FullTextIndexOperations {
+	/** The suffixes of the triggers which keep the full text index in sync with the album table */
+	private static final String INSERT_TRIGGER_SUFFIX = "_insert";
+	private static final String UPDATE_TRIGGER_SUFFIX = "_update";
+	private static final String DELETE_TRIGGER_SUFFIX = "_delete";
+	/** The matchinfo format expected by the ranking function */
+	private static final String MATCH_INFO_FORMAT = "pcnalx";
+
+	private FullTextIndexOperations() {
+		// use static methods
+	}
+
+	/**
+	 * Creates the full text index for the given quicksearchable columns of the album and fills it with the current content
+	 * of the album. An existing full text index is replaced. Columns that cannot be searched as text are ignored, and no
+	 * index is created if none of the columns can be searched as text.
+	 * @param albumName The name of the album to which the index belongs.
+	 * @param columnNames The names of the quicksearchable columns. Enclosing quotes are removed.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void createFullTextIndex(String albumName, List<String> columnNames) throws DatabaseWrapperOperationException {
+		dropFullTextIndex(albumName);
+
+		String tableName = DatabaseStringUtilities.generateTableName(albumName);
+		List<String> textColumnNames = getFullTextSearchableColumnNames(albumName, columnNames);
+
+		if (textColumnNames.isEmpty()) {
+			return;
+		}
+
+		String fullTextIndexName = quoteIdentifier(DatabaseStringUtilities.generateFullTextIndexTableName(albumName));
+		String quotedTableName = quoteIdentifier(tableName);
+		String columnList = createColumnList(textColumnNames, "");
+		String newColumnList = createColumnList(textColumnNames, "new.");
+
+		List<String> sqlStatements = new ArrayList<String>();
+		sqlStatements.add("CREATE VIRTUAL TABLE " + fullTextIndexName + " USING fts4(" + columnList + ", tokenize=unicode61)");
+		sqlStatements.add("INSERT INTO " + fullTextIndexName + " (docid, " + columnList + ") SELECT " +
+				DatabaseConstants.ID_COLUMN_NAME + ", " + columnList + " FROM " + quotedTableName);
+		sqlStatements.add("CREATE TRIGGER " + generateTriggerName(albumName, INSERT_TRIGGER_SUFFIX) + " AFTER INSERT ON " + quotedTableName +
+				" BEGIN INSERT INTO " + fullTextIndexName + " (docid, " + columnList + ") VALUES (new." +
+				DatabaseConstants.ID_COLUMN_NAME + ", " + newColumnList + "); END");
+		sqlStatements.add("CREATE TRIGGER " + generateTriggerName(albumName, UPDATE_TRIGGER_SUFFIX) + " AFTER UPDATE ON " + quotedTableName +
+				" BEGIN DELETE FROM " + fullTextIndexName + " WHERE docid = old." + DatabaseConstants.ID_COLUMN_NAME + "; " +
+				"INSERT INTO " + fullTextIndexName + " (docid, " + columnList + ") VALUES (new." +
+				DatabaseConstants.ID_COLUMN_NAME + ", " + newColumnList + "); END");
+		sqlStatements.add("CREATE TRIGGER " + generateTriggerName(albumName, DELETE_TRIGGER_SUFFIX) + " AFTER DELETE ON " + quotedTableName +
+				" BEGIN DELETE FROM " + fullTextIndexName + " WHERE docid = old." + DatabaseConstants.ID_COLUMN_NAME + "; END");
+
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			for (String sqlStatement : sqlStatements) {
+				statement.execute(sqlStatement);
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+
+	/**
+	 * Makes sure that the full text index of the album covers exactly the text columns among the given quicksearchable
+	 * columns. The index is only rebuilt if its columns differ.
+	 * @param albumName The name of the album to which the index belongs.
+	 * @param columnNames The names of the quicksearchable columns. Enclosing quotes are removed.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void updateFullTextIndex(String albumName, List<String> columnNames) throws DatabaseWrapperOperationException {
+		List<String> textColumnNames = getFullTextSearchableColumnNames(albumName, columnNames);
+
+		if (textColumnNames.isEmpty() || !textColumnNames.equals(readFullTextIndexColumnNames(albumName))) {
+			createFullTextIndex(albumName, columnNames);
+		}
+	}
+
+	/**
+	 * Drops the full text index of the album together with its triggers. If the album has no full text index,
+	 * calling this method has no effect.
+	 * @param albumName The name of the album to which the index belongs.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void dropFullTextIndex(String albumName) throws DatabaseWrapperOperationException {
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			statement.execute("DROP TRIGGER IF EXISTS " + generateTriggerName(albumName, INSERT_TRIGGER_SUFFIX));
+			statement.execute("DROP TRIGGER IF EXISTS " + generateTriggerName(albumName, UPDATE_TRIGGER_SUFFIX));
+			statement.execute("DROP TRIGGER IF EXISTS " + generateTriggerName(albumName, DELETE_TRIGGER_SUFFIX));
+			statement.execute("DROP TABLE IF EXISTS " + quoteIdentifier(DatabaseStringUtilities.generateFullTextIndexTableName(albumName)));
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+
+	/**
+	 * Makes sure that the full text index of the album exists if the album has quicksearchable text columns. Databases
+	 * which were created (or backed up) before full text indices were introduced are thereby indexed on first use.
+	 * @param albumName The name of the album to which the index belongs.
+	 * @return True if the album has a full text index, false if none of its columns can be searched as text.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static boolean ensureFullTextIndex(String albumName) throws DatabaseWrapperOperationException {
+		if (hasFullTextIndex(albumName)) {
+			return true;
+		}
+
+		List<String> quickSearchableColumnNames = QueryOperations.getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
+		if (quickSearchableColumnNames.isEmpty()) {
+			return false;
+		}
+
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
+		try {
+			createFullTextIndex(albumName, quickSearchableColumnNames);
+		} catch (DatabaseWrapperOperationException e) {
+			if (e.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
+				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+			}
+			throw e;
+		} finally {
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+		}
+
+		return hasFullTextIndex(albumName);
+	}
+
+	static boolean hasFullTextIndex(String albumName) throws DatabaseWrapperOperationException {
+		try (PreparedStatement preparedStatement = ConnectionManager.getReadConnection().prepareStatement(
+				"SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+			preparedStatement.setString(1, DatabaseStringUtilities.generateFullTextIndexTableName(albumName));
+
+			try (ResultSet resultSet = preparedStatement.executeQuery()) {
+				return resultSet.next();
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
+
+	/**
+	 * Creates a query that retrieves the ids of all album items matching at least one of the given terms, together with their
+	 * relevance (the higher the more relevant). Each term matches all words starting with the term.
+	 * @param albumName The name of the album to which the index belongs.
+	 * @param quickSearchTerms The terms entered by the user.
+	 * @return A query with the columns docid and rank, or null if none of the terms contains a searchable word.
+	 */
+	static CompiledQuery createRankedMatchQuery(String albumName, List<String> quickSearchTerms) {
+		String matchExpression = createMatchExpression(quickSearchTerms);
+		if (matchExpression == null) {
+			return null;
+		}
+
+		String fullTextIndexName = quoteIdentifier(DatabaseStringUtilities.generateFullTextIndexTableName(albumName));
+		return new CompiledQuery("SELECT docid, " + FullTextRankingFunction.NAME + "(matchinfo(" + fullTextIndexName + ", '" + MATCH_INFO_FORMAT + "')) AS rank" +
+			   " FROM " + fullTextIndexName +
+			   " WHERE " + fullTextIndexName + " MATCH ?", Collections.singletonList(matchExpression));
+	}
+
+	/**
+	 * Transforms the terms into an FTS4 match expression. Each term becomes a prefix phrase of its words, and the phrases
+	 * are combined using OR. Characters which are not part of words are dropped, hence the terms cannot inject operators.
+	 */
+	private static String createMatchExpression(List<String> quickSearchTerms) {
+		StringBuilder matchExpression = new StringBuilder();
+
+		for (String term : quickSearchTerms) {
+			StringBuilder phrase = new StringBuilder();
+			for (String word : term.split("[^\\p{L}\\p{N}]+")) {
+				if (!word.isEmpty()) {
+					phrase.append(phrase.length() == 0 ? "" : " ").append(word);
+				}
+			}
+
+			if (phrase.length() != 0) {
+				matchExpression.append(matchExpression.length() == 0 ? "" : " OR ");
+				matchExpression.append("\"").append(phrase).append("*\"");
+			}
+		}
+
+		return matchExpression.length() == 0 ? null : matchExpression.toString();
+	}
+
+	private static List<String> getFullTextSearchableColumnNames(String albumName, List<String> columnNames) throws DatabaseWrapperOperationException {
+		String tableName = DatabaseStringUtilities.generateTableName(albumName);
+		List<String> textColumnNames = new ArrayList<String>();
+
+		for (String columnName : columnNames) {
+			String unquotedColumnName = DatabaseStringUtilities.removeQuotesEnclosingName(columnName);
+			if (isFullTextSearchable(HelperOperations.detectDataType(tableName, unquotedColumnName))) {
+				textColumnNames.add(unquotedColumnName);
+			}
+		}
+
+		return textColumnNames;
+	}
+
+	/** @return The columns of the existing full text index, or an empty list if the album has no full text index */
+	private static List<String> readFullTextIndexColumnNames(String albumName) throws DatabaseWrapperOperationException {
+		List<String> columnNames = new ArrayList<String>();
+		if (!hasFullTextIndex(albumName)) {
+			return columnNames;
+		}
+
+		try (Statement statement = ConnectionManager.getReadConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			 ResultSet rs = statement.executeQuery("PRAGMA table_info(" + quoteIdentifier(DatabaseStringUtilities.generateFullTextIndexTableName(albumName)) + ")")) {
+			while (rs.next()) {
+				columnNames.add(rs.getString("name"));
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+
+		return columnNames;
+	}
+
+	private static boolean isFullTextSearchable(FieldType fieldType) {
+		return fieldType.equals(FieldType.TEXT) || fieldType.equals(FieldType.URL) || fieldType.equals(FieldType.OPTION);
+	}
+
+	private static String createColumnList(List<String> columnNames, String prefix) {
+		StringBuilder columnList = new StringBuilder();
+
+		Iterator<String> it = columnNames.iterator();
+		while (it.hasNext()) {
+			columnList.append(prefix);
+			columnList.append(DatabaseStringUtilities.transformColumnNameToSelectQueryName(it.next()));
+			if (it.hasNext()) {
+				columnList.append(", ");
+			}
+		}
+
+		return columnList.toString();
+	}
+
+	private static String generateTriggerName(String albumName, String triggerSuffix) {
+		return quoteIdentifier(DatabaseStringUtilities.generateFullTextIndexTableName(albumName) + triggerSuffix);
+	}
+
+	/** FTS4 functions expect the table as a column reference, hence identifiers are quoted using double quotes here */
+	private static String quoteIdentifier(String identifier) {
+		return "\"" + identifier.replace("\"", "\"\"") + "\"";
+	}
+}
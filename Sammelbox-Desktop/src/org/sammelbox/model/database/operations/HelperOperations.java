@@ -27,7 +27,6 @@ import java.sql.Statement;
 import java.sql.Time;
 import java.util.Calendar;
 import java.util.TimeZone;
-import java.util.UUID;
 
 import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.model.album.FieldType;
@@ -142,7 +141,7 @@ public final class HelperOperations {
 		DatabaseMetaData dbmetadata = null;
 		
 		try {
-			dbmetadata = ConnectionManager.getConnection().getMetaData();
+			dbmetadata = ConnectionManager.getReadConnection().getMetaData();
 		} catch (SQLException sqlEx) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlEx);
 		}
@@ -163,7 +162,7 @@ public final class HelperOperations {
 
 		String dbtypeInfoTableName = DatabaseStringUtilities.generateTypeInfoTableName(tableName);
 		try (
-				Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
+				Statement statement = ConnectionManager.getReadConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
 				ResultSet typeResultSet = statement.executeQuery(QueryBuilder.createSelectColumnQuery(dbtypeInfoTableName, columnName));) {			
 			return FieldType.valueOf(typeResultSet.getString(1));
 			
@@ -178,50 +177,8 @@ public final class HelperOperations {
 	}
 
 	static Object fetchFieldItemValue(ResultSet results, int columnIndex, FieldType type, String albumName) throws DatabaseWrapperOperationException {
-		Object value = null;
 		try {
-			switch (type) {
-			case ID:
-				value = results.getLong(columnIndex);
-				break;
-			case TEXT:
-				value = results.getString(columnIndex);
-				break;
-			case DECIMAL:
-				value = results.getDouble(columnIndex);
-				break;
-			case INTEGER:
-				value = results.getInt(columnIndex);
-				break;
-			case DATE:
-				value = results.getDate(columnIndex);
-				break;
-			case TIME:
-				value = results.getTime(columnIndex);
-				break;
-			case OPTION:
-				String optionValue = results.getString(columnIndex);
-				if (optionValue != null && !optionValue.isEmpty()) {
-					value =  OptionType.valueOf(optionValue);
-				} else {
-					LOGGER.error("Fetching option type for item field failed. Url string is unexpectantly null or empty");
-				}
-				break;
-			case URL:
-				String urlString = results.getString(columnIndex);
-				value =  urlString;
-				break;
-			case STAR_RATING:
-				value = StarRating.getByIntegerValue(results.getInt(columnIndex));
-				break;
-			case UUID:
-				value  = UUID.fromString(results.getString(columnIndex));
-				break;
-			default:
-				value = null;
-				break;
-			}
-			return value;
+			return FieldValueDecoder.forType(type).decode(results, columnIndex);
 		} catch (SQLException e) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		}
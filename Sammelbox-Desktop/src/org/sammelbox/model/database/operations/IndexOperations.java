@@ -0,0 +1,336 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database.operations;
+
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+
+/**
+ * Maintains the indexes of an album. Every quicksearchable column has an index of its own, since SQLite can only use
+ * a composite index for conditions on its first column. The names of these indexes also record which columns are
+ * quicksearchable. Furthermore, the picture table is indexed by the album item it references, and the album table by
+ * the field by which its album items are sorted.
+ *
+ * Older databases contain a single composite index over all quicksearchable columns instead. It is still recognized,
+ * and replaced by the per column indexes as soon as the indexes of the album are updated.
+ */
+public final class IndexOperations {
+	/** The name of the column containing the index name in the result of {@link DatabaseMetaData#getIndexInfo} */
+	private static final String SQLITE_INDEX_NAME = "INDEX_NAME";
+	/** The name of the column containing the indexed column name in the result of {@link DatabaseMetaData#getIndexInfo} */
+	private static final String SQLITE_INDEX_COLUMN_NAME = "COLUMN_NAME";
+
+	private IndexOperations() {
+		// use static methods
+	}
+
+	/**
+	 * Updates the indexes of the album such that exactly the given columns are quicksearchable. Only the indexes of the
+	 * columns which became or ceased to be quicksearchable are created or dropped, all other indexes are kept. The same
+	 * holds for the full text index, which is only rebuilt if its columns change.
+	 * @param albumName The name of the album to which the indexes belong.
+	 * @param quickSearchableColumnNames The names of the quicksearchable columns. Enclosing quotes are removed.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void updateIndexes(String albumName, List<String> quickSearchableColumnNames) throws DatabaseWrapperOperationException {
+		String tableName = DatabaseStringUtilities.generateTableName(albumName);
+
+		Map<String, String> wantedIndexes = new LinkedHashMap<String, String>();
+		List<String> unquotedColumnNames = new ArrayList<String>();
+		for (String columnName : quickSearchableColumnNames) {
+			String unquotedColumnName = DatabaseStringUtilities.removeQuotesEnclosingName(columnName);
+			wantedIndexes.put(generateColumnIndexName(albumName, unquotedColumnName), unquotedColumnName);
+			unquotedColumnNames.add(unquotedColumnName);
+		}
+
+		Set<String> existingIndexes = readQuickSearchIndexes(tableName).keySet();
+
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			for (String existingIndex : existingIndexes) {
+				if (!wantedIndexes.containsKey(existingIndex)) {
+					statement.execute("DROP INDEX IF EXISTS " + DatabaseStringUtilities.encloseNameWithQuotes(existingIndex));
+				}
+			}
+
+			for (Map.Entry<String, String> wantedIndex : wantedIndexes.entrySet()) {
+				if (!existingIndexes.contains(wantedIndex.getKey())) {
+					statement.execute("CREATE INDEX " + DatabaseStringUtilities.encloseNameWithQuotes(wantedIndex.getKey()) +
+							" ON " + DatabaseStringUtilities.encloseNameWithQuotes(tableName) +
+							" (" + DatabaseStringUtilities.encloseNameWithQuotes(wantedIndex.getValue()) + ")");
+				}
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+
+		// The text columns among the quicksearchable columns are additionally indexed for full text search
+		FullTextIndexOperations.updateFullTextIndex(albumName, unquotedColumnNames);
+	}
+
+	/**
+	 * Drops all quicksearch indexes of the album, including its full text index. Afterwards, no column of the album
+	 * is quicksearchable.
+	 * @param albumName The name of the album to which the indexes belong.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void dropIndexes(String albumName) throws DatabaseWrapperOperationException {
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			for (String existingIndex : readQuickSearchIndexes(DatabaseStringUtilities.generateTableName(albumName)).keySet()) {
+				statement.execute("DROP INDEX IF EXISTS " + DatabaseStringUtilities.encloseNameWithQuotes(existingIndex));
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+
+		FullTextIndexOperations.dropFullTextIndex(albumName);
+	}
+
+	/**
+	 * Makes sure that the album is indexed on the field by which its album items are sorted, such that sorted queries do
+	 * not need to sort the whole album. The index on a previous sort field is dropped. No index is needed if the album
+	 * items are sorted by their ids, since the id is the primary key.
+	 * @param albumName The name of the album to which the index belongs.
+	 * @param sortFieldName The name of the sort field, or null if the album items are not sorted by a field. Names which
+	 * are not fields of the album, e.g. {@link org.sammelbox.model.album.Album#NO_SORTING}, are treated like null.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void updateSortIndex(String albumName, String sortFieldName) throws DatabaseWrapperOperationException {
+		String indexedFieldName = sortFieldName;
+		if (DatabaseConstants.ID_COLUMN_NAME.equals(sortFieldName) ||
+				!QueryOperations.getAlbumItemFieldNameToTypeMap(albumName).containsKey(sortFieldName)) {
+			indexedFieldName = null;
+		}
+
+		String existingFieldName = getSortIndexColumnName(albumName);
+		if (indexedFieldName == null ? existingFieldName == null : indexedFieldName.equals(existingFieldName)) {
+			return;
+		}
+
+		if (indexedFieldName == null) {
+			dropSortIndex(albumName);
+		} else {
+			createSortIndex(albumName, indexedFieldName);
+		}
+	}
+
+	/**
+	 * Creates the index on the sort field of the album. An existing sort index is replaced.
+	 * @param albumName The name of the album to which the index belongs.
+	 * @param columnName The name of the column by which the album items are sorted. The column must exist.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void createSortIndex(String albumName, String columnName) throws DatabaseWrapperOperationException {
+		String sortIndexName = DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateSortIndexName(albumName));
+
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			statement.execute("DROP INDEX IF EXISTS " + sortIndexName);
+			statement.execute("CREATE INDEX " + sortIndexName + " ON " +
+					DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)) +
+					" (" + DatabaseStringUtilities.encloseNameWithQuotes(columnName) + ")");
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+
+	/**
+	 * Drops the index on the sort field of the album, e.g. before the album table is renamed. If the album has no sort
+	 * index, calling this method has no effect.
+	 * @param albumName The name of the album to which the index belongs.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void dropSortIndex(String albumName) throws DatabaseWrapperOperationException {
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement("DROP INDEX IF EXISTS " +
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateSortIndexName(albumName)))) {
+			preparedStatement.execute();
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+
+	/**
+	 * Retrieves the column covered by the sort index of the album. The write connection is used, such that indexes
+	 * changed by the current transaction are taken into account.
+	 * @param albumName The name of the album to which the index belongs.
+	 * @return The name of the indexed column, or null if the album has no sort index.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static String getSortIndexColumnName(String albumName) throws DatabaseWrapperOperationException {
+		String sortIndexName = DatabaseStringUtilities.generateSortIndexName(albumName);
+
+		// The pragma fails instead of returning an empty result if the index does not exist
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(
+				"SELECT name FROM sqlite_master WHERE type = 'index' AND name = ?")) {
+			preparedStatement.setString(1, sortIndexName);
+
+			try (ResultSet resultSet = preparedStatement.executeQuery()) {
+				if (!resultSet.next()) {
+					return null;
+				}
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+
+		try (Statement statement = ConnectionManager.getConnection().createStatement();
+			 ResultSet rs = statement.executeQuery("PRAGMA index_info(" + DatabaseStringUtilities.encloseNameWithQuotes(sortIndexName) + ")")) {
+			return rs.next() ? rs.getString("name") : null;
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
+
+	/**
+	 * Creates the index of the picture table on the referenced album items, unless it already exists.
+	 * @param albumName The name of the album to which the picture table belongs.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void createPictureTableIndex(String albumName) throws DatabaseWrapperOperationException {
+		String pictureTableName = DatabaseStringUtilities.generatePictureTableName(albumName);
+
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(
+				"CREATE INDEX IF NOT EXISTS " + DatabaseStringUtilities.encloseNameWithQuotes(pictureTableName + DatabaseConstants.INDEX_NAME_SUFFIX) +
+				" ON " + DatabaseStringUtilities.encloseNameWithQuotes(pictureTableName) +
+				" (" + DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE + ")")) {
+			preparedStatement.execute();
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+
+	/**
+	 * Drops the index of the picture table on the referenced album items, e.g. before the picture table is renamed.
+	 * @param albumName The name of the album to which the picture table belongs.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void dropPictureTableIndex(String albumName) throws DatabaseWrapperOperationException {
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement("DROP INDEX IF EXISTS " +
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName) + DatabaseConstants.INDEX_NAME_SUFFIX))) {
+			preparedStatement.execute();
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+
+	/**
+	 * Creates the picture table indexes of all albums which were created before picture tables have been indexed.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static void createMissingPictureTableIndexes() throws DatabaseWrapperOperationException {
+		for (String albumName : QueryOperations.getListOfAllAlbums()) {
+			if (tableExists(DatabaseStringUtilities.generatePictureTableName(albumName))) {
+				createPictureTableIndex(albumName);
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the names of the quicksearchable columns of an album table.
+	 * @param tableName The name of the album table.
+	 * @return The names of the quicksearchable columns in the order of the table columns.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static List<String> getQuickSearchableColumnNames(String tableName) throws DatabaseWrapperOperationException {
+		Set<String> indexedColumnNames = new LinkedHashSet<String>();
+		for (List<String> columnNames : readQuickSearchIndexes(tableName).values()) {
+			indexedColumnNames.addAll(columnNames);
+		}
+
+		if (indexedColumnNames.size() <= 1) {
+			return new ArrayList<String>(indexedColumnNames);
+		}
+
+		// The indexes are listed in no particular order
+		List<String> quickSearchableColumnNames = new ArrayList<String>();
+		try (Statement statement = ConnectionManager.getReadConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			 ResultSet rs = statement.executeQuery("PRAGMA table_info(" + DatabaseStringUtilities.encloseNameWithQuotes(tableName) + ")")) {
+			while (rs.next()) {
+				if (indexedColumnNames.contains(rs.getString("name"))) {
+					quickSearchableColumnNames.add(rs.getString("name"));
+				}
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+
+		return quickSearchableColumnNames;
+	}
+
+	/** @return The quicksearch indexes of the table, i.e. the per column indexes and the legacy composite index, with their columns */
+	private static Map<String, List<String>> readQuickSearchIndexes(String tableName) throws DatabaseWrapperOperationException {
+		// The album table name is a valid album name which yields the same table name
+		String compositeIndexName = DatabaseStringUtilities.generateIndexTableName(tableName);
+		Map<String, List<String>> quickSearchIndexes = new LinkedHashMap<String, List<String>>();
+
+		DatabaseMetaData dbmetadata = null;
+		try {
+			dbmetadata = ConnectionManager.getReadConnection().getMetaData();
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+
+		try (ResultSet indexRS = dbmetadata.getIndexInfo(null, null, tableName, false, true)) {
+			while (indexRS.next()) {
+				String indexName = indexRS.getString(SQLITE_INDEX_NAME);
+				String columnName = indexRS.getString(SQLITE_INDEX_COLUMN_NAME);
+
+				if (columnName != null && indexName != null &&
+						(indexName.equals(compositeIndexName) || indexName.startsWith(compositeIndexName + "_"))) {
+					if (!quickSearchIndexes.containsKey(indexName)) {
+						quickSearchIndexes.put(indexName, new ArrayList<String>());
+					}
+					quickSearchIndexes.get(indexName).add(columnName);
+				}
+			}
+			return quickSearchIndexes;
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
+
+	private static boolean tableExists(String tableName) throws DatabaseWrapperOperationException {
+		try (PreparedStatement preparedStatement = ConnectionManager.getReadConnection().prepareStatement(
+				"SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+			preparedStatement.setString(1, tableName);
+
+			try (ResultSet resultSet = preparedStatement.executeQuery()) {
+				return resultSet.next();
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
+
+	private static String generateColumnIndexName(String albumName, String columnName) {
+		return DatabaseStringUtilities.generateIndexTableName(albumName) + "_" + columnName;
+	}
+}
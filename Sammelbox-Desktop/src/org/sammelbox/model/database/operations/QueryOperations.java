@@ -18,7 +18,9 @@
 
 package org.sammelbox.model.database.operations;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -27,8 +29,10 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -37,18 +41,19 @@ import java.util.UUID;
 import java.util.regex.Pattern;
 
 import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.controller.managers.PreparedStatementCache;
 import org.sammelbox.controller.managers.SettingsManager;
 import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPage;
 import org.sammelbox.model.album.AlbumItemPicture;
 import org.sammelbox.model.album.AlbumItemResultSet;
 import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.MetaItemField;
 import org.sammelbox.model.album.OptionType;
+import org.sammelbox.model.database.CompiledQuery;
 import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.PageCursor;
 import org.sammelbox.model.database.QueryBuilder;
-import org.sammelbox.model.database.QueryBuilderException;
-import org.sammelbox.model.database.QueryComponent;
-import org.sammelbox.model.database.QueryOperator;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
 import org.slf4j.Logger;
@@ -56,12 +61,12 @@ import org.slf4j.LoggerFactory;
 
 public final class QueryOperations {
 	private static final Logger LOGGER = LoggerFactory.getLogger(QueryOperations.class);
-	private static final String SQLITE_INDEX_COLUMN_NAME = "COLUMN_NAME";
 	
 	private static final int PICTURE_ID_COLUMN_INDEX = 1;
 	private static final int THUMBNAIL_PICTURE_NAME_COLUMN_INDEX = 2;
 	private static final int ORIGINAL_PICTURE_NAME_COLUMN_INDEX = 3;
 	private static final int ALBUM_ITEM_ID_COLUMN_INDEX = 4;
+	private static final int MAX_IDS_PER_PICTURE_QUERY = 500;
 	
 	private QueryOperations() {
 		// use static methods
@@ -69,90 +74,181 @@ public final class QueryOperations {
 	
 	static AlbumItemResultSet executeSQLQuery(String sqlStatement, String albumName) throws DatabaseWrapperOperationException {	
 		Map<Integer, MetaItemField> metaInfoMap = QueryOperations.getAlbumItemMetaMap(albumName);
-		return new AlbumItemResultSet(ConnectionManager.getConnection(), sqlStatement, metaInfoMap);
+		return new AlbumItemResultSet(ConnectionManager.getReadConnection(), sqlStatement, metaInfoMap);
 	}
 	
-	static AlbumItemResultSet executeQuickSearchQuery(String sqlStatement, String albumName) throws DatabaseWrapperOperationException {	
+	static AlbumItemResultSet executeQuickSearchQuery(CompiledQuery query, String albumName) throws DatabaseWrapperOperationException {	
 		Map<Integer, MetaItemField> metaInfoMap = QueryOperations.getAlbumItemMetaMap(albumName);
-		return new AlbumItemResultSet(ConnectionManager.getConnection(), albumName, sqlStatement, metaInfoMap);
+		return new AlbumItemResultSet(ConnectionManager.getReadConnection(), albumName, query, metaInfoMap);
 	}
 
 	static AlbumItemResultSet executeSQLQuery(String sqlStatement) throws DatabaseWrapperOperationException {
+		return executeSQLQuery(new CompiledQuery(sqlStatement));
+	}
+	
+	static AlbumItemResultSet executeSQLQuery(CompiledQuery query) throws DatabaseWrapperOperationException {
 		AlbumItemResultSet albumItemRS = null;
 		try {
-			albumItemRS = new AlbumItemResultSet(ConnectionManager.getConnection(), sqlStatement);
+			albumItemRS = new AlbumItemResultSet(ConnectionManager.getReadConnection(), query);
 			return albumItemRS;
 		} catch (DatabaseWrapperOperationException e) {
-			LOGGER.error("The query: \"{}\" could not be executed and terminated with message: {}", sqlStatement ,  e.getMessage());
+			LOGGER.error("The query: \"{}\" could not be executed and terminated with message: {}", query ,  e.getMessage());
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		}		
 	}
 	
+	/**
+	 * Executes a quick search. The terms are searched for anywhere within the quicksearchable text fields. Numbers and dates are 
+	 * additionally compared to the quicksearchable fields of the according type. Album items matching any of the terms are returned.
+	 * The full text index of the text fields, where each term matches all words starting with it, ranks the most relevant matches first.
+	 * @param albumName The name of the album to be searched.
+	 * @param quickSearchTerms The terms entered by the user.
+	 * @return A result set containing the matching album items, or all album items if there is nothing to search for.
+	 * @throws DatabaseWrapperOperationException
+	 */
 	static AlbumItemResultSet executeQuickSearch(String albumName, List<String> quickSearchTerms) throws DatabaseWrapperOperationException {
-		List<MetaItemField> albumFields = getAllAlbumItemMetaItemFields(albumName);
-		String query = "";
-		ArrayList<QueryComponent> queryFields = null;
+		return executeQuickSearchQuery(createQuickSearchQuery(albumName, quickSearchTerms), albumName);
+	}
+	
+	/**
+	 * Executes a quick search using the given connection, such that the search can be cancelled from another thread.
+	 * See {@link #executeQuickSearch(String, List)} for the semantics of the search.
+	 * @param albumName The name of the album to be searched.
+	 * @param quickSearchTerms The terms entered by the user.
+	 * @param connection The read connection used to execute the search. It remains owned by the caller.
+	 * @return A result set containing the matching album items, or all album items if there is nothing to search for.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static AlbumItemResultSet executeQuickSearch(String albumName, List<String> quickSearchTerms, Connection connection) throws DatabaseWrapperOperationException {
+		CompiledQuery query = createQuickSearchQuery(albumName, quickSearchTerms);
+		return new AlbumItemResultSet(connection, albumName, query, getAlbumItemMetaMap(albumName));
+	}
+	
+	/**
+	 * Fetches a single page of album items using keyset pagination. See {@link QueryBuilder#createKeysetPageQuery} for the order.
+	 * @param albumName The name of the album.
+	 * @param sortField The field by which the album items are sorted, or null if they are only sorted by their ids.
+	 * @param sortAscending True if the album items are sorted in ascending order, false for descending order.
+	 * @param pageSize The maximum number of album items of the page. Must be positive.
+	 * @param afterCursor The cursor returned with the previous page, or null for the first page.
+	 * @return The page including the cursor of the next page.
+	 * @throws DatabaseWrapperOperationException If the sort field is not part of the album or the page could not be fetched.
+	 */
+	static AlbumItemPage getAlbumItemPage(String albumName, String sortField, boolean sortAscending, int pageSize, PageCursor afterCursor) 
+			throws DatabaseWrapperOperationException {
+		if (pageSize <= 0) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "The page size must be positive");
+		}
+		
+		if (DatabaseConstants.ID_COLUMN_NAME.equals(sortField)) {
+			sortField = null;
+		} else if (sortField != null && !getAlbumItemFieldNameToTypeMap(albumName).containsKey(sortField)) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "The album " + albumName + " has no field " + sortField);
+		}
+		
+		// The album cannot be determined from the meta data of a compound query, hence it is specified explicitly
+		CompiledQuery pageQuery = QueryBuilder.createKeysetPageQuery(albumName, sortField, sortAscending, pageSize, afterCursor);
+		AlbumItemResultSet pageResultSet = new AlbumItemResultSet(
+				ConnectionManager.getReadConnection(), albumName, pageQuery, getAlbumItemMetaMap(albumName));
+		return AlbumItemPage.readPage(pageResultSet, sortField, pageSize);
+	}
+	
+	/** Creates the quick search query. The terms are bound as parameters, hence searches with terms of the same kinds share their plan */
+	private static CompiledQuery createQuickSearchQuery(String albumName, List<String> quickSearchTerms) throws DatabaseWrapperOperationException {
 		List<String> quicksearchFieldNames = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
 
-		// If no field is quicksearchable return select * from albumName or no terms have been entered
+		// If no field is quicksearchable or no terms have been entered, all album items are selected
 		if (quicksearchFieldNames == null || quicksearchFieldNames.isEmpty() || quickSearchTerms == null || quickSearchTerms.isEmpty() ) {
-			query = QueryBuilder.createOrderedSelectStarQuery(albumName);
-			return executeSQLQuery(query);
+			return new CompiledQuery(QueryBuilder.createOrderedSelectUserFieldsQuery(albumName));
 		}
 
-		boolean first = true;
+		// All fields are compared to the terms individually. The full text index only ranks the items matching word prefixes first
+		boolean hasFullTextIndex = FullTextIndexOperations.ensureFullTextIndex(albumName);
+		List<MetaItemField> albumFields = getAllAlbumItemMetaItemFields(albumName);
+		List<String> conditions = new ArrayList<String>();
+		List<Object> conditionParameters = new ArrayList<Object>();
 		for (String term : quickSearchTerms) {
 			if (term.isEmpty()) {
 				continue;
 			}
-			if (!first) {
-				query += " UNION ";
-			} else {
-				first = false;
-			}
-			queryFields = new ArrayList<QueryComponent>();
+			
 			for (MetaItemField field : albumFields) {
-				if (field.isQuickSearchable()) {
-					if (field.getType().equals(FieldType.TEXT) || field.getType().equals(FieldType.OPTION) || 
-							field.getType().equals(FieldType.URL)) {
-						queryFields.add(QueryBuilder.getQueryComponent(field.getName(), QueryOperator.CONTAINS, term));
-					}
-					else if ((field.getType().equals(FieldType.INTEGER) || field.getType().equals(FieldType.STAR_RATING))
-							&& (Pattern.compile("-?[0-9]+").matcher(term).matches())) {
-						queryFields.add(QueryBuilder.getQueryComponent(
-								field.getName(), QueryOperator.EQUALS, Integer.valueOf(term).toString()));
-					}
-					else if (field.getType().equals(FieldType.DECIMAL) && Pattern.compile("\\d+(.\\d+)*").matcher(term).matches()) {
-						queryFields.add(QueryBuilder.getQueryComponent(
-								field.getName(), QueryOperator.EQUALS, Double.valueOf(term).toString()));
-					}
-					else if (field.getType().equals(FieldType.DATE)) {
-						try {
-							long utcTimeForDateTerm = transformDateStringToUTCUnixTime(term);
-							
-							queryFields.add(QueryBuilder.getQueryComponent(
-									field.getName(), QueryOperator.EQUALS, String.valueOf(utcTimeForDateTerm)));
-						} catch (ParseException e) {
-							continue;
-						}
+				if (!field.isQuickSearchable()) {
+					continue;
+				}
+				
+				String columnName = DatabaseStringUtilities.transformColumnNameToSelectQueryName(field.getName());
+				if (field.getType().equals(FieldType.TEXT) || field.getType().equals(FieldType.OPTION) || field.getType().equals(FieldType.URL)) {
+					// The index only finds terms at the start of words, hence the terms are searched within the words as well
+					conditions.add(columnName + " LIKE ?");
+					conditionParameters.add("%" + term + "%");
+				}
+				else if ((field.getType().equals(FieldType.INTEGER) || field.getType().equals(FieldType.STAR_RATING))
+						&& (Pattern.compile("-?[0-9]+").matcher(term).matches())) {
+					conditions.add(columnName + " = ?");
+					conditionParameters.add(Integer.valueOf(term));
+				}
+				else if (field.getType().equals(FieldType.DECIMAL) && Pattern.compile("\\d+(.\\d+)*").matcher(term).matches()) {
+					conditions.add(columnName + " = ?");
+					conditionParameters.add(Double.valueOf(term));
+				}
+				else if (field.getType().equals(FieldType.DATE)) {
+					try {
+						long utcUnixTime = transformDateStringToUTCUnixTime(term);
+						conditions.add(columnName + " = ?");
+						conditionParameters.add(Long.valueOf(utcUnixTime));
+					} catch (ParseException e) {
+						continue;
 					}
 				}
 			}// end of for - fields
-			if (queryFields != null && !queryFields.isEmpty()) {
-				try {
-					query += QueryBuilder.buildQuery(queryFields, false, albumName);
-				} catch (QueryBuilderException queryBuilderException) {
-					LOGGER.error("With a quick search query, we should never get this problem: ", queryBuilderException);
-				}
-			}
-
 		}// end of for - terms
 
-		if (query.isEmpty()) {
-			return executeSQLQuery(QueryBuilder.createOrderedSelectStarQuery(albumName));
-		} else {
-			return executeQuickSearchQuery(query, albumName);
+		CompiledQuery rankedMatchQuery = null;
+		if (hasFullTextIndex) {
+			rankedMatchQuery = FullTextIndexOperations.createRankedMatchQuery(albumName, quickSearchTerms);
+		}
+
+		if (rankedMatchQuery == null && conditions.isEmpty()) {
+			return new CompiledQuery(QueryBuilder.createOrderedSelectUserFieldsQuery(albumName));
+		}
+		
+		List<Object> parameters = new ArrayList<Object>();
+
+		StringBuilder query = new StringBuilder("SELECT items.* FROM ");
+		query.append(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)));
+		query.append(" AS items");
+		
+		if (rankedMatchQuery != null) {
+			// Items which only match one of the conditions have no rank, hence they must not be dropped by the join
+			query.append(conditions.isEmpty() ? " JOIN (" : " LEFT JOIN (");
+			query.append(rankedMatchQuery.getSql());
+			query.append(") AS matches ON matches.docid = items.");
+			parameters.addAll(rankedMatchQuery.getParameters());
+			query.append(DatabaseConstants.ID_COLUMN_NAME);
+			conditions.add(0, "matches.docid IS NOT NULL");
+		}
+		
+		if (rankedMatchQuery == null || conditions.size() > 1) {
+			query.append(" WHERE ");
+			Iterator<String> it = conditions.iterator();
+			while (it.hasNext()) {
+				query.append("(").append(it.next()).append(")");
+				if (it.hasNext()) {
+					query.append(" OR ");
+				}
+			}
 		}
+		
+		query.append(" ORDER BY ");
+		if (rankedMatchQuery != null) {
+			query.append("IFNULL(matches.rank, 0) DESC, ");
+		}
+		query.append("items.");
+		query.append(DatabaseConstants.ID_COLUMN_NAME);
+		parameters.addAll(conditionParameters);
+
+		return new CompiledQuery(query.toString(), parameters);
 	}
 	
 	public static long transformDateStringToUTCUnixTime(String dateString) throws ParseException {
@@ -162,7 +258,7 @@ public final class QueryOperations {
 	}
 
 	static long getNumberOfItemsInAlbum(String albumName) throws DatabaseWrapperOperationException {
-		try (Statement statement = ConnectionManager.getConnection().createStatement();
+		try (Statement statement = ConnectionManager.getReadConnection().createStatement();
 			 ResultSet resultSet = statement.executeQuery(QueryBuilder.createCountAsAliasStarWhere(albumName, "numberOfItems"));){			
 			
 			if (resultSet.next()) {
@@ -181,7 +277,7 @@ public final class QueryOperations {
 		String queryAllAlbumsSQL = QueryBuilder.createSelectColumnQuery(
 				DatabaseConstants.ALBUM_MASTER_TABLE_NAME, DatabaseConstants.ALBUMNAME_IN_ALBUM_MASTER_TABLE);
 
-		try (Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
+		try (Statement statement = ConnectionManager.getReadConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
 			ResultSet rs = statement.executeQuery(queryAllAlbumsSQL);) {
 
 			while(rs.next()) {
@@ -195,31 +291,14 @@ public final class QueryOperations {
 	}
 
 	static List<String> getIndexedColumnNames(String tableName) throws DatabaseWrapperOperationException {
-		List<String> indexedColumns = new ArrayList<String>();
-		DatabaseMetaData dbmetadata = null;
-		try {
-			dbmetadata = ConnectionManager.getConnection().getMetaData();			
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
-		}
-				
-		try (ResultSet indexRS = dbmetadata.getIndexInfo(null, null, tableName, false, true)) {	
-			while (indexRS.next()) {
-				if (indexRS.getString(SQLITE_INDEX_COLUMN_NAME) != null) {
-					indexedColumns.add(indexRS.getString(SQLITE_INDEX_COLUMN_NAME));
-				}
-			}
-			return indexedColumns;
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
-		}		
+		return IndexOperations.getQuickSearchableColumnNames(tableName);
 	}
 
 	static String getTableIndexName(String tableName) throws DatabaseWrapperOperationException {		
 		String indexName = null;
 		DatabaseMetaData dbmetadata = null;
 		try {
-			dbmetadata =  ConnectionManager.getConnection().getMetaData();
+			dbmetadata =  ConnectionManager.getReadConnection().getMetaData();
 		} catch (SQLException e) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		}
@@ -234,57 +313,50 @@ public final class QueryOperations {
 		}		
 	}
 
+	/**
+	 * Retrieves the meta item fields of an album, excluding the columns that are for internal use only.
+	 * @param albumName The name of the album of which to retrieve the information.
+	 * @return The list of MetaItemFields.
+	 * @throws DatabaseWrapperOperationException If the album does not exist.
+	 */
 	static List<MetaItemField> getAlbumItemFieldNamesAndTypes(String albumName) throws DatabaseWrapperOperationException {
-		String tableName = DatabaseStringUtilities.generateTableName(albumName);
+		List<String> internalColumnNames = Arrays.asList("id", DatabaseConstants.TYPE_INFO_COLUMN_NAME, DatabaseConstants.CONTENT_VERSION_COLUMN_NAME);
 		List<MetaItemField> itemMetadata = new ArrayList<MetaItemField>();
 		
-		// Is available means that it does not exist in the db, hence its fields cannot be retrieved
-		if (QueryOperations.isAlbumNameAvailable(albumName)) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
+		for (MetaItemField metaItemField : AlbumSchemaCache.getMetaItemFields(albumName)) {
+			// Excludes all columns that are for internal use only.
+			if (!internalColumnNames.contains(metaItemField.getName())) {
+				itemMetadata.add(metaItemField);
+			}
 		}
-
-		List<String> quickSearchableColumnNames = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
-		List<String> internalColumnNames = Arrays.asList("id", DatabaseConstants.TYPE_INFO_COLUMN_NAME, DatabaseConstants.CONTENT_VERSION_COLUMN_NAME);
 		
-		try (
-			Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
-			ResultSet rs = statement.executeQuery(QueryBuilder.createSelectStarQuery(tableName));)
-		{
-			// Retrieve table metadata
-			ResultSetMetaData metaData = rs.getMetaData();
-
-			int columnCount = metaData.getColumnCount();
-			// Each ItemField. Classic for loop since meta data only provides access via indices.
-			for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
-
-				// Excludes all columns that are for internal use only.
-				String columnName = metaData.getColumnName(columnIndex);
-				if (!internalColumnNames.contains(columnName)) {
-					FieldType type = HelperOperations.detectDataType(tableName, columnName);
-					MetaItemField metaItem = new MetaItemField(columnName, type, quickSearchableColumnNames.contains(columnName));
-					itemMetadata.add(metaItem);
-				}
-			}
-			
-			return itemMetadata;
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
-		}		
+		return itemMetadata;
 	}
 
 	/**
 	 *  Retrieves a list of all MetaItemFields, including those that are for internal use only. Meta item fields describe the items of the album.
+	 *  The fields are served from the {@link AlbumSchemaCache} as long as the schema version of the album does not change.
 	 * @param albumName The name of the album of which to retrieve the information.
-	 * @return The list of MetaItemFields. Return an empty  list if a structural error exists in the database. Null when an internal SQL error occurred.
+	 * @return The list of MetaItemFields.
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	static List<MetaItemField> getAllAlbumItemMetaItemFields(String albumName) throws DatabaseWrapperOperationException{
+		return AlbumSchemaCache.getMetaItemFields(albumName);
+	}
+	
+	/**
+	 * Reads all MetaItemFields of an album from the table metadata, bypassing the {@link AlbumSchemaCache}.
+	 * @param albumName The name of the album of which to retrieve the information.
+	 * @return The list of MetaItemFields in the order of the table columns.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	static List<MetaItemField> readAllAlbumItemMetaItemFields(String albumName) throws DatabaseWrapperOperationException{
 		String tableName = DatabaseStringUtilities.generateTableName(albumName);
 		
 		List<MetaItemField> itemMetadata = new ArrayList<MetaItemField>();
 		List<String> quickSearchableColumnNames = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
 		try (
-			Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			Statement statement = ConnectionManager.getReadConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
 			ResultSet rs = statement.executeQuery(QueryBuilder.createSelectStarQuery(albumName));) {					
 
 			// Retrieve table metadata
@@ -305,55 +377,30 @@ public final class QueryOperations {
 	}
 
 	static Map<Integer, MetaItemField> getAlbumItemMetaMap(String albumName) throws DatabaseWrapperOperationException {
-		List<String> quickSearchableColumns = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
-
 		Map<Integer, MetaItemField> itemMetaData = new HashMap<Integer, MetaItemField>();
 		
-		try (Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-			 ResultSet set = statement.executeQuery(QueryBuilder.createSelectStarQuery(albumName))) {			
-			
-			// Retrieve table metadata	
-			ResultSetMetaData metaData = set.getMetaData();
-			
-			int columnCount = metaData.getColumnCount();
-			// Each ItemField
-			for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
-				String name = metaData.getColumnName(columnIndex);
-				
-				FieldType type = HelperOperations.detectDataType(DatabaseStringUtilities.generateTableName(albumName), name);	
-				
-				MetaItemField metaItemField = new MetaItemField(name, type, quickSearchableColumns.contains(name));
-				itemMetaData.put(columnIndex, metaItemField);
-			}
-			return itemMetaData;
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		// The keys are the (one based) column indices of the album table
+		int columnIndex = 1;
+		for (MetaItemField metaItemField : AlbumSchemaCache.getMetaItemFields(albumName)) {
+			itemMetaData.put(columnIndex, metaItemField);
+			columnIndex++;
 		}
+		
+		return itemMetaData;
 	}
 	
 	static List<AlbumItemPicture> getAlbumItemPictures(String albumName, long albumItemID) throws DatabaseWrapperOperationException {
 		List<AlbumItemPicture> pictures = new ArrayList<AlbumItemPicture>();
 		
 		if (isPictureAlbum(albumName)) {
-			String picturesQuery = 
-				   " SELECT " +
-						DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ID_COLUMN_NAME) + ", " +
-						DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
-						DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
-						DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) +
-				   " FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName)) +
+			String picturesQuery = createPictureSelectQuery(albumName) +
 				   " WHERE " + DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) + " = " + albumItemID;
 			
-			try (Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
+			try (Statement statement = ConnectionManager.getReadConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
 				 ResultSet rs = statement.executeQuery(picturesQuery);) {			
 			
 				while (rs.next()) {
-					pictures.add(new AlbumItemPicture(
-							rs.getLong(PICTURE_ID_COLUMN_INDEX), 
-							rs.getString(THUMBNAIL_PICTURE_NAME_COLUMN_INDEX), 
-							rs.getString(ORIGINAL_PICTURE_NAME_COLUMN_INDEX), 
-							albumName, 
-							rs.getLong(ALBUM_ITEM_ID_COLUMN_INDEX)));
+					pictures.add(createAlbumItemPicture(rs, albumName));
 				}			
 			} catch (SQLException e) {			
 				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
@@ -363,11 +410,95 @@ public final class QueryOperations {
 		return pictures;
 	}
 	
+	static Map<Long, List<AlbumItemPicture>> getAlbumItemPictures(String albumName, Collection<Long> albumItemIDs) throws DatabaseWrapperOperationException {
+		Map<Long, List<AlbumItemPicture>> picturesByAlbumItemID = new HashMap<Long, List<AlbumItemPicture>>();
+		
+		// Album items without pictures are part of the result as well
+		for (Long albumItemID : albumItemIDs) {
+			picturesByAlbumItemID.put(albumItemID, new ArrayList<AlbumItemPicture>());
+		}
+		
+		if (albumItemIDs.isEmpty() || !isPictureAlbum(albumName)) {
+			return picturesByAlbumItemID;
+		}
+		
+		String albumItemIdColumnName = DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE);
+		List<Long> remainingAlbumItemIDs = new ArrayList<Long>(picturesByAlbumItemID.keySet());
+		
+		// The ids are queried in chunks to keep the statements reasonably short
+		for (int fromIndex = 0; fromIndex < remainingAlbumItemIDs.size(); fromIndex += MAX_IDS_PER_PICTURE_QUERY) {
+			List<Long> chunk = remainingAlbumItemIDs.subList(fromIndex, Math.min(fromIndex + MAX_IDS_PER_PICTURE_QUERY, remainingAlbumItemIDs.size()));
+			
+			StringBuilder picturesQuery = new StringBuilder(createPictureSelectQuery(albumName));
+			picturesQuery.append(" WHERE ").append(albumItemIdColumnName).append(" IN (");
+			for (int i = 0; i < chunk.size(); i++) {
+				if (i != 0) {
+					picturesQuery.append(", ");
+				}
+				picturesQuery.append(chunk.get(i));
+			}
+			picturesQuery.append(") ORDER BY ").append(albumItemIdColumnName).append(", ")
+				.append(DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ID_COLUMN_NAME));
+			
+			try (Statement statement = ConnectionManager.getReadConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
+				 ResultSet rs = statement.executeQuery(picturesQuery.toString());) {
+				
+				while (rs.next()) {
+					AlbumItemPicture albumItemPicture = createAlbumItemPicture(rs, albumName);
+					picturesByAlbumItemID.get(albumItemPicture.getAlbumItemID()).add(albumItemPicture);
+				}
+			} catch (SQLException e) {
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+			}
+		}
+		
+		return picturesByAlbumItemID;
+	}
+	
+	static List<AlbumItemPicture> getAllAlbumItemPictures(String albumName) throws DatabaseWrapperOperationException {
+		List<AlbumItemPicture> pictures = new ArrayList<AlbumItemPicture>();
+		
+		if (isPictureAlbum(albumName)) {
+			String picturesQuery = createPictureSelectQuery(albumName) + 
+				   " ORDER BY " + DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ID_COLUMN_NAME);
+			
+			try (Statement statement = ConnectionManager.getReadConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
+				 ResultSet rs = statement.executeQuery(picturesQuery);) {
+				
+				while (rs.next()) {
+					pictures.add(createAlbumItemPicture(rs, albumName));
+				}
+			} catch (SQLException e) {
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+			}
+		}
+		
+		return pictures;
+	}
+	
+	private static String createPictureSelectQuery(String albumName) {
+		return " SELECT " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ID_COLUMN_NAME) + ", " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) +
+			   " FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName));
+	}
+	
+	private static AlbumItemPicture createAlbumItemPicture(ResultSet rs, String albumName) throws SQLException {
+		return new AlbumItemPicture(
+				rs.getLong(PICTURE_ID_COLUMN_INDEX), 
+				rs.getString(THUMBNAIL_PICTURE_NAME_COLUMN_INDEX), 
+				rs.getString(ORIGINAL_PICTURE_NAME_COLUMN_INDEX), 
+				albumName, 
+				rs.getLong(ALBUM_ITEM_ID_COLUMN_INDEX));
+	}
+	
 	static AlbumItem getAlbumItem(String albumName, long albumItemId) throws DatabaseWrapperOperationException {
 		String queryString = QueryBuilder.createSelectStarQuery(
 				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName))) + 
-				" WHERE id = " + albumItemId;
-		List<AlbumItem> items = getAlbumItems(queryString);
+				" WHERE id = ?";
+		List<AlbumItem> items = getAlbumItems(new CompiledQuery(queryString, Arrays.asList(albumItemId)));
 
 		AlbumItem requestedItem = null;
 		try {
@@ -379,51 +510,82 @@ public final class QueryOperations {
 	}
 
 	static List<AlbumItem> getAlbumItems(String queryString) throws DatabaseWrapperOperationException {
+		return getAlbumItems(new CompiledQuery(queryString));
+	}
+	
+	static List<AlbumItem> getAlbumItems(CompiledQuery query) throws DatabaseWrapperOperationException {
 
  		LinkedList<AlbumItem> list = new LinkedList<AlbumItem>();		
+		PreparedStatementCache statementCache = ConnectionManager.getStatementCache(ConnectionManager.getReadConnection());
+		PreparedStatement statement = null;
+		boolean reusable = false;
 		
-		try (
-			Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
-			ResultSet rs = statement.executeQuery(queryString); ) {
+		try {
+			statement = statementCache.acquire(query.getSql());
+			query.bindParameters(statement);
+			readAlbumItems(statement, list);
+			reusable = true;
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE,e);
+		} finally {
+			if (statement != null && reusable) {
+				statementCache.release(query.getSql(), statement);
+			} else if (statement != null) {
+				statementCache.discard(statement);
+			}
+		}
+
+		return list;
+	}
+	
+	private static void readAlbumItems(PreparedStatement statement, List<AlbumItem> list) throws SQLException, DatabaseWrapperOperationException {
+		try (ResultSet rs = statement.executeQuery()) {
 	
 			// Retrieve table metadata
 			ResultSetMetaData metaData = rs.getMetaData();
 
 			int columnCount = metaData.getColumnCount();
+			String albumName = null;
+			// The name, type and decoder of each column are the same for all rows, hence they are determined with the first row
+			String[] fieldNames = new String[columnCount + 1];
+			FieldType[] types = new FieldType[columnCount + 1];
+			FieldValueDecoder[] decoders = new FieldValueDecoder[columnCount + 1];
+			boolean[] quicksearchable = new boolean[columnCount + 1];
+			
 			// For each albumItem
 			while (rs.next()) {
+				if (albumName == null) {
+					String tableName = metaData.getTableName(1);
+					albumName = DatabaseOperations.getAlbumName(tableName);
+					
+					for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
+						fieldNames[columnIndex] = metaData.getColumnName(columnIndex);
+						types[columnIndex] = HelperOperations.detectDataType(tableName, fieldNames[columnIndex]);
+						decoders[columnIndex] = FieldValueDecoder.forType(types[columnIndex]);
+						quicksearchable[columnIndex] = isAlbumFieldQuicksearchable(albumName, fieldNames[columnIndex]);
+					}
+				}
+				
 				// Create a new AlbumItem instance
-				AlbumItem albumItem = new AlbumItem("");
+				AlbumItem albumItem = new AlbumItem(albumName);
 				// Each ItemField
 				for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
-
-					// Add new field
-					String fieldName = metaData.getColumnName(columnIndex);
-					String tableName = metaData.getTableName(1);
-					String albumName = DatabaseOperations.getAlbumName(tableName);
-					
-					albumItem.setAlbumName(albumName);
+					String fieldName = fieldNames[columnIndex];
+					FieldType type = types[columnIndex];
 					
-					FieldType type = HelperOperations.detectDataType(tableName, fieldName);
-					Object value = HelperOperations.fetchFieldItemValue(rs, columnIndex, type, albumName);
-					boolean quicksearchable = isAlbumFieldQuicksearchable(albumName, fieldName);
 					// omit the typeinfo field and set the contentVersion separately
 					if (type == FieldType.ID && fieldName.endsWith(DatabaseConstants.TYPE_INFO_COLUMN_NAME)){
 						continue;
 					} else if (type.equals(FieldType.UUID) && fieldName.equals(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME)) {
-						albumItem.setContentVersion((UUID) value);
+						albumItem.setContentVersion((UUID) decoders[columnIndex].decode(rs, columnIndex));
 					} else {
-						albumItem.addField(fieldName, type, value, quicksearchable);
+						albumItem.addField(fieldName, type, decoders[columnIndex].decode(rs, columnIndex), quicksearchable[columnIndex]);
 					}
 				}
+				albumItem.markClean();
 				list.add(albumItem);
 			}
-
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE,e);
 		}
-
-		return list;
 	}
 	
 	static boolean isDateField(String albumName, String fieldName) throws DatabaseWrapperOperationException {
@@ -492,7 +654,7 @@ public final class QueryOperations {
 					   "  WHERE " + DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUMNAME_IN_ALBUM_MASTER_TABLE) + 
 					   					"=" + DatabaseStringUtilities.encloseNameWithQuotes(albumName);
 		
-		try (Statement statement = ConnectionManager.getConnection().createStatement();
+		try (Statement statement = ConnectionManager.getReadConnection().createStatement();
 			 ResultSet resultSet = statement.executeQuery(query)) {		
 			
 			if (resultSet.next()) {
@@ -511,7 +673,7 @@ public final class QueryOperations {
 				       "  WHERE " + DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_TABLENAME_IN_ALBUM_MASTER_TABLE) + 
 				   						"=" + DatabaseStringUtilities.encloseNameWithQuotes(tableName);
 	
-		try (Statement statement = ConnectionManager.getConnection().createStatement();
+		try (Statement statement = ConnectionManager.getReadConnection().createStatement();
 			 ResultSet resultSet = statement.executeQuery(query)) {		
 			
 			if (resultSet.next()) {
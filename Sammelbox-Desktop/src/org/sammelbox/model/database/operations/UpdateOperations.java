@@ -24,7 +24,6 @@ import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.model.album.*;
 import org.sammelbox.model.database.DatabaseStringUtilities;
-import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
 import org.slf4j.Logger;
@@ -35,8 +34,14 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public final class UpdateOperations {
@@ -61,6 +66,12 @@ public final class UpdateOperations {
 			List<String> quickSearchableColumnNames = 
 					QueryOperations.getIndexedColumnNames(DatabaseStringUtilities.generateTableName(oldAlbumName));
 			
+			// The index names are derived from the album name, hence the indexes are dropped while they can still be found
+			String sortIndexColumnName = IndexOperations.getSortIndexColumnName(oldAlbumName);
+			DeleteOperations.dropIndex(oldAlbumName);
+			IndexOperations.dropPictureTableIndex(oldAlbumName);
+			IndexOperations.dropSortIndex(oldAlbumName);
+			
 			// Rename the album table
 			renameTable(oldAlbumName, newAlbumName);
 			
@@ -74,17 +85,22 @@ public final class UpdateOperations {
 			String newPictureTableName = DatabaseStringUtilities.generatePictureTableName(newAlbumName);
 			renameTable(oldPictureTableName, newPictureTableName);
 
-			// Recreate the index (if an index already exists)
+			// Recreate the indexes (if an index already exists)
 			if (isQuickSearchable) {
-				DeleteOperations.dropIndex(oldAlbumName);
 				CreateOperations.createIndex(newAlbumName, quickSearchableColumnNames);
 			}
+			IndexOperations.createPictureTableIndex(newAlbumName);
+			if (sortIndexColumnName != null) {
+				IndexOperations.createSortIndex(newAlbumName, sortIndexColumnName);
+			}
 			
 			// Rename the picture folder
 			FileSystemAccessWrapper.renameAlbumPictureFolder(oldAlbumName, newAlbumName);
 			
 			// Change the entry in the album master table. OptionType.UNKNOWN indicates no change of the picture storing 
 			updateAlbumInAlbumMasterTable(oldAlbumName, newAlbumName, OptionType.UNKNOWN);			
+			AlbumSchemaCache.invalidate(oldAlbumName);
+			AlbumSchemaCache.invalidate(newAlbumName);
 	
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 		} catch (DatabaseWrapperOperationException e) {
@@ -131,31 +147,18 @@ public final class UpdateOperations {
 		
 		String savepointName = DatabaseIntegrityManager.createSavepoint();		
 		try {
-			// Backup the old data in java objects
-			List<AlbumItem> albumItems = QueryOperations.getAlbumItems(QueryBuilder.createSelectStarQuery(albumName));
-
-			// Create the new table pointing to new typeinfo
 			boolean hasPictureField = QueryOperations.isPictureAlbum(albumName);
 			List<MetaItemField> newFields = QueryOperations.getAlbumItemFieldNamesAndTypes(albumName);
-			newFields = renameFieldInMetaItemList(oldMetaItemField, newMetaItemField, newFields);
-		
-			// Drop old tables
-			DeleteOperations.removeAlbum(albumName);
 			
-			// the following three columns are automatically created by createNewAlbumTable
-			newFields = removeFieldFromMetaItemList(new MetaItemField("id", FieldType.ID), newFields);
-			newFields = removeFieldFromMetaItemList(new MetaItemField(DatabaseConstants.TYPE_INFO_COLUMN_NAME, FieldType.ID), newFields);
-
-			CreateOperations.createNewAlbumTable(newFields, albumName, 
-					DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)), hasPictureField);	
-
-			// Restore the old data from the java objects in the new tables [rename column]
-			renameFieldInAlbumItemList(oldMetaItemField, newMetaItemField, albumItems);
-		
-			// Re-add all album items
-			for (AlbumItem albumItem : albumItems) {
-				CreateOperations.addAlbumItem(albumItem, false, false);
+			// Every column is copied from the column with the same name, except for the renamed one
+			Map<String, String> sourceColumnNames = new HashMap<String, String>();
+			for (MetaItemField metaItemField : newFields) {
+				sourceColumnNames.put(metaItemField.getName(), metaItemField.getName());
 			}
+			sourceColumnNames.put(newMetaItemField.getName(), oldMetaItemField.getName());
+			
+			newFields = renameFieldInMetaItemList(oldMetaItemField, newMetaItemField, newFields);
+			migrateAlbumTable(albumName, newFields, sourceColumnNames, hasPictureField);
 			
 			rebuildIndexForTable(albumName, newFields);
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
@@ -178,27 +181,17 @@ public final class UpdateOperations {
 
 		String savepointName = DatabaseIntegrityManager.createSavepoint();
 		try {
-			// Backup the old data in java objects
-			List<AlbumItem> albumItems = QueryOperations.getAlbumItems(QueryBuilder.createOrderedSelectStarQuery(albumName));
-			// Create the new table pointing to new typeinfo
 			boolean hasPictureField = QueryOperations.isPictureAlbum(albumName);
 			List<MetaItemField> newFields = QueryOperations.getAlbumItemFieldNamesAndTypes(albumName);
 			newFields = reorderFieldInMetaItemList(metaItemField, precedingField, newFields);
-
-			// Drop old tables
-			DeleteOperations.removeAlbum(albumName);
-
-			// Create the new table pointing to new typeinfo
-			CreateOperations.createNewAlbumTable(newFields, albumName, 
-					DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)), hasPictureField);
-
-			// Restore the old data from the temporary tables in the new tables [reorder column]
-			List<AlbumItem> newAlbumItems = reorderFieldInAlbumItemList(metaItemField, precedingField, albumItems);
-			// replace the empty picField with the saved raw PicField 
-			for (AlbumItem albumItem : newAlbumItems) {
-				albumItem.setAlbumName(albumName);
-				CreateOperations.addAlbumItem(albumItem, false, false);				
+			
+			// Only the order of the columns changes, hence every column is copied from the column with the same name
+			Map<String, String> sourceColumnNames = new HashMap<String, String>();
+			for (MetaItemField newField : newFields) {
+				sourceColumnNames.put(newField.getName(), newField.getName());
 			}
+			
+			migrateAlbumTable(albumName, newFields, sourceColumnNames, hasPictureField);
 
 			rebuildIndexForTable(albumName, newFields);
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
@@ -212,6 +205,21 @@ public final class UpdateOperations {
 		}
 	}
 
+	static void updateSortIndex(String albumName, String sortFieldName) throws DatabaseWrapperOperationException {
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
+		try {
+			IndexOperations.updateSortIndex(albumName, sortFieldName);
+		} catch (DatabaseWrapperOperationException dwoe) {
+			if (dwoe.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
+				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, dwoe);
+			}
+			throw dwoe;
+		} finally {
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+		}
+	}
+
 	static void updateQuickSearchable(String albumName, MetaItemField metaItemField) throws DatabaseWrapperOperationException {
 		String savepointName = DatabaseIntegrityManager.createSavepoint();
 		try {
@@ -226,9 +234,8 @@ public final class UpdateOperations {
 				quickSearchableColumnNames.remove(metaItemField.getName());
 			}
 			
-			// update index for the album
-			DeleteOperations.dropIndex(albumName);
-			CreateOperations.createIndex(albumName, quickSearchableColumnNames);
+			// update index for the album, only the index of the changed field is created or dropped
+			IndexOperations.updateIndexes(albumName, quickSearchableColumnNames);
 			
 			updateSchemaVersion(albumName);
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
@@ -293,34 +300,72 @@ public final class UpdateOperations {
 	}
 	
 	/**
-	 * Renames a field in all the album items in the list. Returns the result in a new list.
-	 * @param oldMetaItemField The metaItemField to be renamed.
-	 * @param newMetaItemField The metaItemField containing the new name.
-	 * @param albumList The list of album items whose field is to be renamed.
-	 * @return The new list of album items.
+	 * Migrates the content of an album table to a new table structure without loading the album items into memory. The old 
+	 * table is renamed, the new album table (including its type info table) is created and the content is copied using a single
+	 * INSERT INTO ... SELECT statement, before the old table is dropped. The ids and content versions of the album items are 
+	 * carried over such that the picture table remains valid. This method must be called within a savepoint.
+	 * @param albumName The name of the album to be migrated.
+	 * @param newFields The fields of the new album table in their new ordering. Internal columns must not be part of this list.
+	 * @param sourceColumnNames Maps the name of every new field to the name of the old column from which its values are copied.
+	 * @param hasPictureField True if the album may contain pictures.
+	 * @throws DatabaseWrapperOperationException
 	 */
-	private static List<AlbumItem> renameFieldInAlbumItemList(MetaItemField oldMetaItemField, MetaItemField newMetaItemField, final List<AlbumItem> albumList) {
-		for (AlbumItem albumItem: albumList) {
-			albumItem.renameField(oldMetaItemField, newMetaItemField);
+	private static void migrateAlbumTable(String albumName, List<MetaItemField> newFields, Map<String, String> sourceColumnNames,
+			boolean hasPictureField) throws DatabaseWrapperOperationException {
+		String tableName = DatabaseStringUtilities.generateTableName(albumName);
+		String oldTableName = DatabaseStringUtilities.generateTempTableName(albumName);
+		
+		// The old table references the type info table which is replaced before the content is copied
+		deferForeignKeyChecks();
+		
+		// The index would otherwise remain attached to the old table and prevent the creation of the new index
+		DeleteOperations.dropIndex(albumName);
+		String sortIndexColumnName = IndexOperations.getSortIndexColumnName(albumName);
+		IndexOperations.dropSortIndex(albumName);
+		if (!renameTable(tableName, oldTableName)) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, "The album table could not be renamed");
+		}
+		
+		removeAlbumFromAlbumMasterTable(albumName);
+		CreateOperations.createNewAlbumTable(newFields, albumName, DatabaseStringUtilities.encloseNameWithQuotes(tableName), hasPictureField);
+		
+		StringBuilder targetColumns = new StringBuilder(DatabaseConstants.ID_COLUMN_NAME);
+		StringBuilder sourceColumns = new StringBuilder(DatabaseConstants.ID_COLUMN_NAME);
+		for (MetaItemField metaItemField : newFields) {
+			targetColumns.append(", ").append(DatabaseStringUtilities.encloseNameWithQuotes(metaItemField.getName()));
+			sourceColumns.append(", ").append(DatabaseStringUtilities.transformColumnNameToSelectQueryName(sourceColumnNames.get(metaItemField.getName())));
+		}
+		targetColumns.append(", ").append(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME);
+		sourceColumns.append(", ").append(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME);
+		targetColumns.append(", ").append(DatabaseConstants.TYPE_INFO_COLUMN_NAME);
+		sourceColumns.append(", ").append(DatabaseConstants.TYPE_INFO_FOREIGN_KEY);
+		
+		String copyContentSQLString = "INSERT INTO " + DatabaseStringUtilities.encloseNameWithQuotes(tableName) + 
+				" ( " + targetColumns + " ) SELECT " + sourceColumns + " FROM " + DatabaseStringUtilities.encloseNameWithQuotes(oldTableName);
+		
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(copyContentSQLString)) {
+			preparedStatement.executeUpdate();
+		} catch (SQLException sqlEx) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
+		}
+		
+		DeleteOperations.dropTable(DatabaseStringUtilities.encloseNameWithQuotes(oldTableName));
+		
+		// The sort index follows its column if the column is renamed, and is dropped together with the column
+		for (MetaItemField metaItemField : newFields) {
+			if (sourceColumnNames.get(metaItemField.getName()).equals(sortIndexColumnName)) {
+				IndexOperations.createSortIndex(albumName, metaItemField.getName());
+			}
 		}
-
-		return albumList;
 	}
-
-	/**
-	 * Moves a field of an album item to a new position. Returns the result in a new list. 
-	 * @param metaItemField The field to be moved.
-	 * @param precedingField The field which will precede the specified item after the reordering. If null the item will be moved to the top
-	 * of the list. 
-	 * @param albumList The list of album items in their original ordering.
-	 * @return The list of album items in their new order. Content remains untouched.
-	 */
-	private static List<AlbumItem> reorderFieldInAlbumItemList(MetaItemField metaItemField, MetaItemField precedingField, final List<AlbumItem> albumList) {
-		for (AlbumItem albumItem: albumList) {
-			albumItem.reorderField(metaItemField, precedingField);
+	
+	/** Defers the foreign key checks of the current transaction until it is committed */
+	private static void deferForeignKeyChecks() throws DatabaseWrapperOperationException {
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement("PRAGMA defer_foreign_keys = ON")) {
+			preparedStatement.execute();
+		} catch (SQLException sqlEx) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
 		}
-
-		return albumList;
 	}
 	
 	static void appendNewAlbumField(String albumName, MetaItemField metaItemField) throws DatabaseWrapperOperationException {
@@ -370,11 +415,11 @@ public final class UpdateOperations {
 	}
 
 	static void setAlbumPictureFunctionality(String albumName, boolean albumPicturesEnabled) throws DatabaseWrapperOperationException {
-		String savepointName = DatabaseIntegrityManager.createSavepoint();
-		
 		if (albumPicturesEnabled && QueryOperations.isPictureAlbum(albumName)) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "Album " + albumName + " already contains pictures");
 		}
+		
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
 
 		try {
 			if (albumPicturesEnabled) {			
@@ -478,7 +523,8 @@ public final class UpdateOperations {
 	}
 
 	/**
-	 * Rebuilds the index for a table after an alter table operation. 
+	 * Rebuilds the index for a table after an alter table operation. The existing indexes are compared to the wanted ones,
+	 * such that only the indexes of changed fields are created or dropped.
 	 * @param albumName The album to which these fields belong.
 	 * @param metaItemFields The items containing the information of whether they are quicksearchable.
 	 * @throws DatabaseWrapperOperationException 
@@ -490,17 +536,16 @@ public final class UpdateOperations {
 				quickSearchColumnNames.add(metaItemField.getName());
 			}
 		}
-		if (!quickSearchColumnNames.isEmpty()){
-			String savepointName = DatabaseIntegrityManager.createSavepoint();
-			try {
-				CreateOperations.createIndex(albumName, quickSearchColumnNames);
-			} catch (DatabaseWrapperOperationException e) {
-				if (e.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
-					DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
-				}
-			}finally {
-				DatabaseIntegrityManager.releaseSavepoint(savepointName);
+		
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
+		try {
+			IndexOperations.updateIndexes(albumName, quickSearchColumnNames);
+		} catch (DatabaseWrapperOperationException e) {
+			if (e.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
+				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
 			}
+		}finally {
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
 		}
 	}
 	
@@ -525,86 +570,232 @@ public final class UpdateOperations {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
 		}
 
-		// Build the string with place-holders '?'
+		// Only the values and pictures which differ from the stored ones are written
+		List<ItemField> dirtyFields = albumItem.getDirtyFields();
+		boolean picturesChanged = albumItem.hasChangedPictures();
+		if (dirtyFields.isEmpty() && !picturesChanged) {
+			return;
+		}
+		
+		Long id = idField.getValue();
+		String savepointName =  DatabaseIntegrityManager.createSavepoint();		
+		
+		try {
+			if (!dirtyFields.isEmpty()) {
+				updateDirtyFields(albumItem.getAlbumName(), id, dirtyFields);
+			}
+			
+			if (picturesChanged) {
+				updateChangedPictures(albumItem);
+			}
+			
+			updateContentVersion(albumItem.getAlbumName(), id, UUID.randomUUID());
+			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
+			
+			// The album item only matches the stored one once the changes have been committed
+			final AlbumItem updatedAlbumItem = albumItem;
+			DatabaseIntegrityManager.runAfterCommit(new Runnable() {
+				@Override
+				public void run() {
+					updatedAlbumItem.markClean();
+				}
+			});
+		} catch (DatabaseWrapperOperationException e) {
+			if (e.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
+				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+			}
+		} finally {
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+		}		
+	}
+	
+	/** Updates the columns of the given fields for the album item with the specified id */
+	private static void updateDirtyFields(String albumName, Long id, List<ItemField> dirtyFields) throws DatabaseWrapperOperationException {
 		StringBuilder sb = new StringBuilder("UPDATE ");
-		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(
-				DatabaseStringUtilities.generateTableName(albumItem.getAlbumName())));
+		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)));
 		sb.append(" SET ");
-
-		// Add each field to be update by the query
-		Iterator<ItemField> it = albumItem.getFields().iterator();
-		boolean firstAppended = true;
-		while (it.hasNext()) {
-			ItemField next = it.next();
-			// Exclude the id and fid fields
-			if (!next.getType().equals(FieldType.ID)){
-				if (!firstAppended) {
-					sb.append(", ");
-
-				}
-				sb.append(DatabaseStringUtilities.encloseNameWithQuotes(next.getName()));
-				sb.append("=? ");
-				firstAppended = false;				
+		
+		for (int i = 0; i < dirtyFields.size(); i++) {
+			if (i != 0) {
+				sb.append(", ");
 			}
-
+			sb.append(DatabaseStringUtilities.encloseNameWithQuotes(dirtyFields.get(i).getName()));
+			sb.append("=? ");
 		}
 		sb.append("WHERE id=?");
 		
-		String savepointName =  DatabaseIntegrityManager.createSavepoint();		
-		
 		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(sb.toString())) {
-			// Replace the wildcards
 			int parameterIndex = 1;
-			for (ItemField next : albumItem.getFields()) {
-				// Exclude the id and id fields
-				if (!next.getType().equals(FieldType.ID)){
-					HelperOperations.setValueToPreparedStatement(preparedStatement, parameterIndex, next, albumItem.getAlbumName());
-					parameterIndex++;
-				}
+			for (ItemField dirtyField : dirtyFields) {
+				HelperOperations.setValueToPreparedStatement(preparedStatement, parameterIndex, dirtyField, albumName);
+				parameterIndex++;
 			}
-
-			// Replace wildcard char '?' in WHERE id=? clause
-			Long id = idField.getValue();
+			
 			preparedStatement.setString(parameterIndex, id.toString());
 			preparedStatement.executeUpdate();
-
-			// Get those physical picture files that are currently still referenced
-			List<AlbumItemPicture> picturesBeforeUpdate = QueryOperations.getAlbumItemPictures(albumItem.getAlbumName(), albumItem.getItemId());
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+	
+	/** 
+	 * Applies the difference between the stored pictures and the pictures of the album item. The records and physical files 
+	 * of pictures which are no longer referenced are deleted (the files after the commit), and records are inserted for the 
+	 * new pictures. Since new records are appended, all records of the item are only rewritten if the remaining pictures 
+	 * have been reordered.
+	 */
+	private static void updateChangedPictures(AlbumItem albumItem) throws DatabaseWrapperOperationException {
+		List<AlbumItemPicture> pictures = albumItem.getPictures();
+		List<AlbumItemPicture> picturesBeforeUpdate = QueryOperations.getAlbumItemPictures(albumItem.getAlbumName(), albumItem.getItemId());
+		
+		Set<String> originalPictureNames = new HashSet<String>();
+		for (AlbumItemPicture albumItemPicture : pictures) {
+			originalPictureNames.add(albumItemPicture.getOriginalPictureName());
+		}
+		
+		Set<String> originalPictureNamesBeforeUpdate = new HashSet<String>();
+		List<AlbumItemPicture> keptPictures = new ArrayList<AlbumItemPicture>();
+		List<AlbumItemPicture> removedPictures = new ArrayList<AlbumItemPicture>();
+		for (AlbumItemPicture pictureBeforeUpdate : picturesBeforeUpdate) {
+			originalPictureNamesBeforeUpdate.add(pictureBeforeUpdate.getOriginalPictureName());
 			
-			// Remove those physical pictures that are no longer needed. However, the table records will remain for the moment
-			for (AlbumItemPicture stillReferencedPicture : picturesBeforeUpdate) {
-				boolean pictureIsNoLongerNeeded = true;
-				
-				for (AlbumItemPicture albumItemPicture : albumItem.getPictures()) {
-					if (stillReferencedPicture.getOriginalPictureName().equals(albumItemPicture.getOriginalPictureName())) {
-						pictureIsNoLongerNeeded = false;
-					}
-				}
-				
-				if (pictureIsNoLongerNeeded) {
-					FileSystemAccessWrapper.deleteFile(stillReferencedPicture.getThumbnailPicturePath());
-					FileSystemAccessWrapper.deleteFile(stillReferencedPicture.getOriginalPicturePath());
+			if (originalPictureNames.contains(pictureBeforeUpdate.getOriginalPictureName())) {
+				keptPictures.add(pictureBeforeUpdate);
+			} else {
+				removedPictures.add(pictureBeforeUpdate);
+			}
+		}
+		
+		// Remove those physical pictures that are no longer needed, but only once their records are gone for good. 
+		// If the update is rolled back, the records still refer to the files
+		final List<AlbumItemPicture> picturesToDelete = removedPictures;
+		DatabaseIntegrityManager.runAfterCommit(new Runnable() {
+			@Override
+			public void run() {
+				for (AlbumItemPicture removedPicture : picturesToDelete) {
+					FileSystemAccessWrapper.deleteFile(removedPicture.getThumbnailPicturePath());
+					FileSystemAccessWrapper.deleteFile(removedPicture.getOriginalPicturePath());
 				}
 			}
-			
-			// Update picture table by first deleting all pictures for this album item, and then rewriting the references
+		});
+		
+		boolean keptPicturesLeadInStoredOrder = keptPictures.size() <= pictures.size();
+		for (int i = 0; keptPicturesLeadInStoredOrder && i < keptPictures.size(); i++) {
+			keptPicturesLeadInStoredOrder = keptPictures.get(i).getOriginalPictureName().equals(pictures.get(i).getOriginalPictureName());
+		}
+		
+		if (keptPicturesLeadInStoredOrder) {
+			DeleteOperations.removePicturesFromPictureTable(albumItem.getAlbumName(), removedPictures);
+		} else {
 			DeleteOperations.removeAllPicturesForAlbumItemFromPictureTable(albumItem);
-			for (AlbumItemPicture albumItemPicture : albumItem.getPictures()) {				
+		}
+		
+		for (AlbumItemPicture albumItemPicture : pictures) {
+			if (!keptPicturesLeadInStoredOrder || !originalPictureNamesBeforeUpdate.contains(albumItemPicture.getOriginalPictureName())) {
 				albumItemPicture.setAlbumItemID(albumItem.getItemId());
 				CreateOperations.addAlbumItemPicture(albumItemPicture);
 			}
+		}
+	}
+	
+	static void updateAlbumItemFields(String albumName, Collection<AlbumItem> changedAlbumItems) throws DatabaseWrapperOperationException {
+		String tableName = DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName));
+		
+		// The changes are grouped by field, such that each field is updated by a single batched statement
+		Map<String, List<AlbumItem>> albumItemsByChangedField = new LinkedHashMap<String, List<AlbumItem>>();
+		for (AlbumItem albumItem : changedAlbumItems) {
+			for (ItemField itemField : albumItem.getFields()) {
+				if (!itemField.getType().equals(FieldType.ID)) {
+					if (!albumItemsByChangedField.containsKey(itemField.getName())) {
+						albumItemsByChangedField.put(itemField.getName(), new ArrayList<AlbumItem>());
+					}
+					albumItemsByChangedField.get(itemField.getName()).add(albumItem);
+				}
+			}
+		}
+		
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
+		try {
+			for (Map.Entry<String, List<AlbumItem>> changedField : albumItemsByChangedField.entrySet()) {
+				try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement("UPDATE " + tableName + 
+						" SET " + DatabaseStringUtilities.encloseNameWithQuotes(changedField.getKey()) + " = ? WHERE id = ?")) {
+					for (AlbumItem albumItem : changedField.getValue()) {
+						HelperOperations.setValueToPreparedStatement(preparedStatement, 1, albumItem.getField(changedField.getKey()), albumName);
+						preparedStatement.setLong(2, albumItem.getItemId());
+						preparedStatement.addBatch();
+					}
+					preparedStatement.executeBatch();
+				}
+			}
+			
+			try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement("UPDATE " + tableName + 
+					" SET " + DatabaseConstants.CONTENT_VERSION_COLUMN_NAME + " = ? WHERE id = ?")) {
+				for (AlbumItem albumItem : changedAlbumItems) {
+					preparedStatement.setString(1, UUID.randomUUID().toString());
+					preparedStatement.setLong(2, albumItem.getItemId());
+					preparedStatement.addBatch();
+				}
+				preparedStatement.executeBatch();
+			}
 			
-			updateContentVersion(albumItem.getAlbumName(), id, UUID.randomUUID());
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
-		} catch (DatabaseWrapperOperationException e) {
-			if (e.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
-				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+		} catch (SQLException sqlEx) {
+			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
+		} catch (DatabaseWrapperOperationException ex) {
+			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+			throw ex;
+		} finally {
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+		}
+	}
+	
+	static Set<String> updateThumbnailPictureNames(String albumName, Map<String, AlbumItemPicture> picturesByPreviousThumbnailName) 
+			throws DatabaseWrapperOperationException {
+		Set<String> updatedThumbnailNames = new HashSet<String>();
+		Set<Long> albumItemIDs = new HashSet<Long>();
+		
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
+		try {
+			// Picture ids are reused, hence a picture removed in the meantime must not be mistaken for the one which replaced it
+			try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(
+					"UPDATE " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName)) + 
+					" SET " + DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE + " = ? WHERE id = ? AND " + 
+					DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE + " = ?")) {
+				for (Map.Entry<String, AlbumItemPicture> pictureByPreviousThumbnailName : picturesByPreviousThumbnailName.entrySet()) {
+					AlbumItemPicture picture = pictureByPreviousThumbnailName.getValue();
+					preparedStatement.setString(1, picture.getThumbnailPictureName());
+					preparedStatement.setLong(2, picture.getPictureID());
+					preparedStatement.setString(3, pictureByPreviousThumbnailName.getKey());
+					
+					if (preparedStatement.executeUpdate() > 0) {
+						updatedThumbnailNames.add(pictureByPreviousThumbnailName.getKey());
+						albumItemIDs.add(picture.getAlbumItemID());
+					}
+				}
 			}
-		} catch (SQLException e) {
-			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);			
+			
+			// The thumbnails are part of the content which is synchronized
+			try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(
+					"UPDATE " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)) + 
+					" SET " + DatabaseConstants.CONTENT_VERSION_COLUMN_NAME + " = ? WHERE id = ?")) {
+				for (Long albumItemID : albumItemIDs) {
+					preparedStatement.setString(1, UUID.randomUUID().toString());
+					preparedStatement.setLong(2, albumItemID);
+					preparedStatement.addBatch();
+				}
+				preparedStatement.executeBatch();
+			}
+			
+			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
+		} catch (SQLException sqlEx) {
+			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
-		}		
+		}
+		
+		return updatedThumbnailNames;
 	}
 	
 	static void updateContentVersion(String albumName, long itemID, UUID newUuid) throws DatabaseWrapperOperationException {	
@@ -632,6 +823,7 @@ public final class UpdateOperations {
 				"UPDATE " + typeInfoTableName + " SET " + DatabaseConstants.SCHEMA_VERSION_COLUMN_NAME + " = ?")) {
 			preparedStatement.setString(1, UUID.randomUUID().toString());
 			preparedStatement.executeUpdate();
+			AlbumSchemaCache.invalidate(albumName);
 		} catch (SQLException sqlEx) {
 			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
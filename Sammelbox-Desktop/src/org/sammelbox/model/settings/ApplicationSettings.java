@@ -9,6 +9,9 @@ public class ApplicationSettings {
 	private SammelView defaultView = SammelView.DETAILED_VIEW;
 	private boolean showDebugMenu = false;
 	private boolean isFullSynchronizationEnabled = true;
+	private ThumbnailFormat thumbnailFormat = ThumbnailFormat.JPEG;
+	private int thumbnailQuality = 85;
+	private boolean isThumbnailPackEnabled = false;
 	
 	public ApplicationSettings() {}
 	
@@ -51,4 +54,29 @@ public class ApplicationSettings {
 	public boolean isFullSynchronizationEnabled() {
 		return isFullSynchronizationEnabled;
 	}
+
+	public ThumbnailFormat getThumbnailFormat() {
+		return thumbnailFormat;
+	}
+
+	public void setThumbnailFormat(ThumbnailFormat thumbnailFormat) {
+		this.thumbnailFormat = thumbnailFormat;
+	}
+
+	/** @return the quality of lossy thumbnails in percent */
+	public int getThumbnailQuality() {
+		return thumbnailQuality;
+	}
+
+	public void setThumbnailQuality(int thumbnailQuality) {
+		this.thumbnailQuality = thumbnailQuality;
+	}
+
+	public void setThumbnailPackEnabled(boolean isThumbnailPackEnabled) {
+		this.isThumbnailPackEnabled = isThumbnailPackEnabled;
+	}
+
+	public boolean isThumbnailPackEnabled() {
+		return isThumbnailPackEnabled;
+	}
 }
\ No newline at end of file
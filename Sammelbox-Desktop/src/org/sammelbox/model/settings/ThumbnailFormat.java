@@ -0,0 +1,78 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.settings;
+
+/** The image formats in which thumbnails can be stored. */
+public enum ThumbnailFormat {
+	/** Lossless, and hence rather large for photographic content */
+	PNG("png", "png", "image/png", false),
+	/** Lossy, considerably smaller than PNG for photographic content */
+	JPEG("jpg", "jpeg", "image/jpeg", true);
+	
+	private final String fileExtension;
+	private final String imageIOFormatName;
+	private final String mimeType;
+	private final boolean isLossy;
+	
+	private ThumbnailFormat(String fileExtension, String imageIOFormatName, String mimeType, boolean isLossy) {
+		this.fileExtension = fileExtension;
+		this.imageIOFormatName = imageIOFormatName;
+		this.mimeType = mimeType;
+		this.isLossy = isLossy;
+	}
+	
+	/** @return the extension, without the dot, of thumbnails stored in this format */
+	public String getFileExtension() {
+		return fileExtension;
+	}
+	
+	/** @return the informal format name under which ImageIO knows this format */
+	public String getImageIOFormatName() {
+		return imageIOFormatName;
+	}
+	
+	/** @return the media type of thumbnails stored in this format */
+	public String getMimeType() {
+		return mimeType;
+	}
+	
+	/** @return true if the quality setting applies to this format */
+	public boolean isLossy() {
+		return isLossy;
+	}
+	
+	/** Determines the format of a stored thumbnail by the extension of its file name.
+	 * @param fileName the name of the thumbnail file
+	 * @return the format of the thumbnail, or null if the extension belongs to no known format */
+	public static ThumbnailFormat byFileName(String fileName) {
+		String lowerCaseFileName = fileName.toLowerCase();
+		
+		for (ThumbnailFormat thumbnailFormat : values()) {
+			if (lowerCaseFileName.endsWith("." + thumbnailFormat.fileExtension)) {
+				return thumbnailFormat;
+			}
+		}
+		
+		if (lowerCaseFileName.endsWith(".jpeg")) {
+			return JPEG;
+		}
+		
+		return null;
+	}
+}
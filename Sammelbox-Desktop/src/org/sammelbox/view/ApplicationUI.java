@@ -38,6 +38,7 @@ import org.sammelbox.controller.managers.AlbumManager;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.controller.managers.SavedSearchManager;
 import org.sammelbox.controller.managers.SavedSearchManager.SavedSearch;
+import org.sammelbox.controller.managers.SettingsManager;
 import org.sammelbox.controller.menu.MenuManager;
 import org.sammelbox.model.GuiState;
 import org.sammelbox.model.album.Album;
@@ -48,6 +49,8 @@ import org.sammelbox.view.browser.BrowserFacade;
 import org.sammelbox.view.composites.BrowserComposite;
 import org.sammelbox.view.composites.StatusBarComposite;
 import org.sammelbox.view.composites.ToolbarComposite;
+import org.sammelbox.view.image.ThumbnailCache;
+import org.sammelbox.view.image.ThumbnailPack;
 import org.sammelbox.view.sidepanes.EmptySidepane;
 import org.sammelbox.view.sidepanes.QuickControlSidepane;
 import org.sammelbox.view.various.ComponentFactory;
@@ -122,6 +125,14 @@ public final class ApplicationUI implements EventObserver {
 		// set program icon
 		SHELL.setImage(new Image(DISPLAY, FileSystemLocations.getLogoSmallPNG()));
 		
+		// high density displays are served with larger thumbnails
+		ThumbnailCache.setDisplayDpi(DISPLAY.getDPI().x);
+		
+		// the thumbnails of pictures removed during the last session are dropped from the pack
+		if (SettingsManager.getSettings().isThumbnailPackEnabled()) {
+			ThumbnailPack.compactInBackground();
+		}
+		
 		// setup the Layout for the shell
 		GridLayout shellGridLayout = new GridLayout(1, false);
 		shellGridLayout.marginHeight = 0;
@@ -390,7 +401,7 @@ public final class ApplicationUI implements EventObserver {
 			LOGGER.error("An error occurred while enabling the quick search field", ex);
 		}
 		
-		BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createOrderedSelectStarQuery(albumName));
+		BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createOrderedSelectUserFieldsQuery(albumName));
 		
 		ApplicationUI.getSavedSearchesListBox().setEnabled(SavedSearchManager.hasAlbumSavedSearches(albumName));
 		EventObservable.addEventToQueue(SammelboxEvent.ALBUM_SELECTED);
@@ -41,6 +41,14 @@ public final class UIConstants {
 	/** The minimum height of the shell in pixels. The shell can never have a smaller height than this. */
 	public static final int MIN_SHELL_HEIGHT = 700;
 	
+	// ------------------ Picture Display Sizes ------------------
+	/** The maximum width and height of the pictures in the gallery and of the main picture in the detailed view (see style.css) */
+	public static final int GALLERY_PICTURE_SIZE_IN_PIXELS = 200;
+	/** The maximum width and height of the alternative pictures in the detailed view (see style.css) */
+	public static final int ALTERNATIVE_PICTURE_SIZE_IN_PIXELS = 40;
+	/** The maximum height of the small pictures above the big picture */
+	public static final int PICTURE_VIEW_SMALL_PICTURE_SIZE_IN_PIXELS = 50;
+	
 	// ------------------ Browser Anchors ------------------
 	public static final String NO_ANCHOR_DEFINED = "";
 	
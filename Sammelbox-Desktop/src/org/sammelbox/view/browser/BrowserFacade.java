@@ -24,6 +24,7 @@ import org.sammelbox.controller.i18n.Language;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.model.album.AlbumItemResultSet;
+import org.sammelbox.model.database.CompiledQuery;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.UIConstants;
 import org.sammelbox.view.browser.spreadsheet.SpreadsheetAbortFunction;
@@ -43,13 +44,15 @@ public final class BrowserFacade {
 	public static void loadWelcomePage() { WelcomePageCreator.loadWelcomePage(); }
 	public static String getAnchorForAlbumItemId(long anchorId) { return BrowserUtils.getAnchorForAlbumItemId(anchorId); }
 	public static void jumpToAnchor(String anchor) { BrowserUtils.jumpToAnchor(anchor); }
-	public static void performBrowserQueryAndShow(String sqlQuery) { BrowserUtils.performBrowserQueryAndShow(sqlQuery); }
+	public static void performBrowserQueryAndShow(String sqlQuery) { BrowserUtils.performBrowserQueryAndShow(new CompiledQuery(sqlQuery)); }
+	public static void performBrowserQueryAndShow(CompiledQuery query) { BrowserUtils.performBrowserQueryAndShow(query); }
 	public static void showImageViewer(String pathToPicture, long albumItemId) { PictureViewCreator.showPicture(albumItemId); }
 	public static void resetFutureJumpAnchor() {BrowserUtils.setFutureJumpAnchor(UIConstants.NO_ANCHOR_DEFINED);}
 	public static void setFutureJumpAnchor(String futureJumpAnchor) { BrowserUtils.setFutureJumpAnchor(futureJumpAnchor); }
 	public static String getFutureJumpAnchor() { return BrowserUtils.getFutureJumpAnchor(); }
 	public static void returnFromImageViewer() { BrowserUtils.returnFromImageViewer(); }
 	public static void showResultSet(AlbumItemResultSet resultSet) { BrowserUtils.showResultSet(resultSet); }
+	public static void showAlbumItems(List<AlbumItem> loadedAlbumItems) { BrowserUtils.showAlbumItems(loadedAlbumItems); }
 	public static void showCreateNewAlbumPage(AlbumItem albumItem) { FeedbackCreator.showCreateNewAlbumPage(ApplicationUI.createOrRetrieveAlbumItemBrowser(), albumItem); }
 	public static void showCreateAlterAlbumPage(AlbumItem albumItem) { FeedbackCreator.showCreateAlterAlbumPage(ApplicationUI.createOrRetrieveAlbumItemBrowser(), albumItem); }
 	public static void generateAlbumItemUpdatedPage(long albumItemId) { FeedbackCreator.generateAlbumItemUpdatedPage(albumItemId); }
@@ -24,8 +24,11 @@ import org.eclipse.swt.widgets.Display;
 import org.sammelbox.controller.GuiController;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.model.album.AlbumItemResultSet;
 import org.sammelbox.model.album.AlbumItemStore;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.CompiledQuery;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
@@ -40,6 +43,7 @@ import org.w3c.tidy.Tidy;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -67,11 +71,11 @@ public final class BrowserUtils {
 	 * to the album view, the last generated HTML output is saved  */
 	private static String lastPageAsHtml;
 
-	static void performBrowserQueryAndShow(String sqlQuery) {				
+	static void performBrowserQueryAndShow(CompiledQuery query) {				
 		try {
-			AlbumItemStore.reinitializeStoreAndUpdateStatus(DatabaseOperations.executeSQLQuery(sqlQuery));
+			AlbumItemStore.reinitializeStoreAndUpdateStatus(DatabaseOperations.executeSQLQuery(query));
 		} catch (DatabaseWrapperOperationException ex) {
-			LOGGER.error("An error occurred while reinitializing the album item store using the following SQL query (" + sqlQuery + ")", ex);
+			LOGGER.error("An error occurred while reinitializing the album item store using the following SQL query (" + query + ")", ex);
 		}
 		
 		showAlbum();
@@ -85,6 +89,29 @@ public final class BrowserUtils {
 		}
 		showAlbum();
 	}
+	
+	/** Shows album items which have already been loaded, e.g. by a background thread */
+	static void showAlbumItems(List<AlbumItem> loadedAlbumItems) {
+		AlbumItemStore.reinitializeStoreAndUpdateStatus(loadedAlbumItems);
+		showAlbum();
+	}
+
+	/** Retrieves the album items of the store for a view rendering the user editable fields only. The internal fields
+	 * (e.g. the content version) are not fetched. See {@link AlbumItemStore#getAlbumItems(java.util.Collection)} */
+	static List<AlbumItem> getAlbumItemsWithUserFields() {
+		List<String> userFieldNames = new ArrayList<String>();
+		
+		try {
+			for (MetaItemField metaItemField : DatabaseOperations.getMetaItemFields(GuiController.getGuiState().getSelectedAlbum())) {
+				userFieldNames.add(metaItemField.getName());
+			}
+		} catch (DatabaseWrapperOperationException ex) {
+			LOGGER.error("The fields of the album could not be retrieved, hence all fields are fetched", ex);
+			return AlbumItemStore.getAlbumItems();
+		}
+		
+		return AlbumItemStore.getAlbumItems(userFieldNames);
+	}
 
 	/** Use this method to set a "future-jump-anchor" to a specific item
 	 * This id will be used to jump to an item after the content
@@ -106,7 +133,8 @@ public final class BrowserUtils {
 	 * jump as soon as the document is completely loaded */
 	static void jumpToAnchor(String anchor) {
 		if (!anchor.equals(UIConstants.NO_ANCHOR_DEFINED)) {
-			String javaScriptScrollToSnippet = "document.getElementById(\"" + anchor + "\").scrollIntoView(true)";
+			// The anchor might not exist (yet) if the album items are still being rendered
+			String javaScriptScrollToSnippet = "var anchor = document.getElementById(\"" + anchor + "\"); if (anchor != null) { anchor.scrollIntoView(true); }";
 			ApplicationUI.createOrRetrieveAlbumItemBrowser().execute(javaScriptScrollToSnippet);
 		}
 	}
@@ -114,6 +142,9 @@ public final class BrowserUtils {
 	static void returnFromImageViewer() {
 		if (lastPageAsHtml != null) {
 			ApplicationUI.createOrRetrieveAlbumItemBrowser().setText(lastPageAsHtml);
+		} else {
+			// The image viewer has been opened before the album items have been rendered completely
+			showAlbum();
 		}
 	}
 
@@ -27,6 +27,8 @@ import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException
 import org.sammelbox.model.database.operations.DatabaseConstants;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
+import org.sammelbox.view.UIConstants;
+import org.sammelbox.view.image.ThumbnailCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -190,7 +192,10 @@ public final class DetailedItemCreator {
 		
 		if (pictures.size() > 1) {
 			for(AlbumItemPicture picture : pictures) {
-				String escapedJavascriptFilePath = BrowserUtils.escapeBackslashesInFilePath(picture.getThumbnailPicturePath());
+				String escapedJavascriptFilePath = BrowserUtils.escapeBackslashesInFilePath(
+						ThumbnailCache.getThumbnailSource(picture, UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS));
+				String escapedAlternativeFilePath = BrowserUtils.escapeBackslashesInFilePath(
+						ThumbnailCache.getThumbnailSource(picture, UIConstants.ALTERNATIVE_PICTURE_SIZE_IN_PIXELS));
 				htmlBuilder.append("<div class=\"thumbnailWrapper\">");
 				
 				htmlBuilder.append("<a ");
@@ -200,7 +205,7 @@ public final class DetailedItemCreator {
 				htmlBuilder.append(" onMouseOver=\"change(&quot;imageId" + id + "&quot;, &quot;" + escapedJavascriptFilePath + "&quot;)\">");
 								
 				htmlBuilder.append("<img alt=\"\" onMouseOver=\"this.style.cursor=&quot;pointer&quot;\" "
-				        + "class=\"thumbnailPicture\" src=\"" + escapedJavascriptFilePath + "\">");
+				        + "class=\"thumbnailPicture\" src=\"" + escapedAlternativeFilePath + "\">");
 				      
 				if (hasButtonsAndLinks) {
 					htmlBuilder.append("</a>");
@@ -225,7 +230,7 @@ public final class DetailedItemCreator {
 			mainPictureHtml = "<img id=\"imageId" + id + "\" " +
 					          " alt=\"\"" +
 							  " class=\"mainPicture\"" +
-							  " src=\"" + albumItemPictures.get(0).getThumbnailPicturePath() + "\"";
+							  " src=\"" + ThumbnailCache.getThumbnailSource(albumItemPictures.get(0), UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS) + "\"";
 			
 			if (hasButtonsAndLinks) {
 				mainPictureHtml += " onMouseOver=\"changeCursorToHand(&quot;imageId" + id + "&quot;)\""
@@ -23,9 +23,9 @@ import org.sammelbox.controller.GuiController;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.model.album.AlbumItem;
-import org.sammelbox.model.album.AlbumItemStore;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.UIConstants;
+import org.sammelbox.view.browser.ProgressiveAlbumRenderer.AlbumItemContainerCreator;
 
 public final class DetailedViewCreator {	
 	private DetailedViewCreator() {
@@ -37,34 +37,30 @@ public final class DetailedViewCreator {
 			return;
 		}
 		
-		// Builders for efficient html creation
-		StringBuilder albumItemDetailDivContainers = new StringBuilder();
-		StringBuilder htmlDataColumnContent = new StringBuilder();
-		StringBuilder htmlPictureColumnContent = new StringBuilder();
-		StringBuilder htmlPreviewPicturesContent = new StringBuilder();
+		// Builders for efficient html creation, reused for all album items
+		final StringBuilder htmlDataColumnContent = new StringBuilder();
+		final StringBuilder htmlPictureColumnContent = new StringBuilder();
+		final StringBuilder htmlPreviewPicturesContent = new StringBuilder();
 
-
-		// Add all available album items
-		boolean hasEvenCountingInList = false;
-		for (AlbumItem albumItem : AlbumItemStore.getAlbumItems()) {
-			htmlDataColumnContent.delete(0, htmlDataColumnContent.length());
-			htmlPictureColumnContent.delete(0, htmlPictureColumnContent.length());
-			htmlPreviewPicturesContent.delete(0, htmlPreviewPicturesContent.length());
-			DetailedItemCreator.addImageAndDetailContainer(albumItem, htmlDataColumnContent, htmlPictureColumnContent, albumItemDetailDivContainers, htmlPreviewPicturesContent, true, hasEvenCountingInList);
-			hasEvenCountingInList = !hasEvenCountingInList;
-		}
+		AlbumItemContainerCreator detailContainerCreator = new AlbumItemContainerCreator() {
+			@Override
+			public void appendAlbumItemContainer(AlbumItem albumItem, int position, StringBuilder albumItemDetailDivContainers) {
+				htmlDataColumnContent.delete(0, htmlDataColumnContent.length());
+				htmlPictureColumnContent.delete(0, htmlPictureColumnContent.length());
+				htmlPreviewPicturesContent.delete(0, htmlPreviewPicturesContent.length());
+				DetailedItemCreator.addImageAndDetailContainer(albumItem, htmlDataColumnContent, htmlPictureColumnContent, 
+						albumItemDetailDivContainers, htmlPreviewPicturesContent, true, position % 2 == 1);
+			}
+		};
 
 		// If no album items have been found
-		if (htmlDataColumnContent.length() == 0 && htmlPictureColumnContent.length() == 0) {
-			albumItemDetailDivContainers.delete(0, albumItemDetailDivContainers.length());
-			albumItemDetailDivContainers.append(
+		String noAlbumItemsFoundHtml =
 	          "<tr><td><div>" + 
 	            "<h3>" + 
 	              Translator.get(DictKeys.BROWSER_NO_ITEMS_FOUND, GuiController.getGuiState().getSelectedAlbum()) + 
 	            "</h3>" + 
 	            "<p>" + Translator.get(DictKeys.BROWSER_NO_ITEMS_FOUND_EXPLANATION) + "</p>" +
-	          "</div></td></tr>"); 
-		}
+	          "</div></td></tr>"; 
 		
 		// Build header using album name. Include view name if appropriated
 		String collectionHeader = GuiController.getGuiState().getSelectedAlbum();
@@ -72,8 +68,8 @@ public final class DetailedViewCreator {
 			collectionHeader += " - " + GuiController.getGuiState().getSelectedSavedSearch();
 		}
 		
-		// Create final page html
-		String finalPageAsHtml = 
+		// Create the page html surrounding the album items, which are rendered progressively
+		String pageHeadHtml = 
 				"<!DOCTYPE HTML>" +
 				"<html>" +
 				  "<head>" +
@@ -83,12 +79,12 @@ public final class DetailedViewCreator {
 				    "<script src=\"" + UIConstants.EFFECTS_JS + "\"></script>" +
 				  "</head>" +
 				  "<body>" +
-				    "<h2>" + collectionHeader + "</h2>" +
-				  	"<div id=\"albumItems\">" + albumItemDetailDivContainers + "</div>" +
+				    "<h2>" + collectionHeader + "</h2>";
+		String pageTailHtml =
 				  "</body>" +
 				"</html>";
 		
-		browser.setText(finalPageAsHtml);		
-		BrowserUtils.setLastPageAsHtml(finalPageAsHtml);		
+		ProgressiveAlbumRenderer.showAlbumItems(browser, BrowserUtils.getAlbumItemsWithUserFields(), detailContainerCreator, 
+				pageHeadHtml, pageTailHtml, noAlbumItemsFoundHtml);
 	}
 }
@@ -3,6 +3,7 @@ package org.sammelbox.view.browser;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
 import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.view.UIConstants;
+import org.sammelbox.view.image.ThumbnailCache;
 
 public final class GalleryItemCreator {
 	private GalleryItemCreator() {
@@ -16,7 +17,8 @@ public final class GalleryItemCreator {
 	}
 	
 	private static String getThumbnailForFirstPicture(AlbumItem albumItem) {
-		return ((albumItem.getFirstPicture() != null) ? albumItem.getFirstPicture().getThumbnailPicturePath() : FileSystemLocations.getPlaceholderPNG());
+		return ((albumItem.getFirstPicture() != null) ? 
+				ThumbnailCache.getThumbnailSource(albumItem.getFirstPicture(), UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS) : FileSystemLocations.getPlaceholderPNG());
 	}
 	
 	static void addImageContainer(AlbumItem albumItem, StringBuilder htmlBuilder) {
@@ -23,81 +23,25 @@ import org.sammelbox.controller.GuiController;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
 import org.sammelbox.controller.filters.ItemFieldFilter;
 import org.sammelbox.model.album.*;
-import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
-import org.sammelbox.model.database.operations.DatabaseOperations;
-import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.UIConstants;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.sammelbox.view.browser.ProgressiveAlbumRenderer.AlbumItemContainerCreator;
+import org.sammelbox.view.image.ThumbnailCache;
 
 import java.util.List;
 
 public final class GalleryViewCreator {
-	private static final Logger LOGGER = LoggerFactory.getLogger(GalleryViewCreator.class);
 	
 	private GalleryViewCreator() {
 	}
 	
 	static void showOverviewAlbum(Browser browser) {
-		StringBuilder galleryItemHtmlBuilder = new StringBuilder();
-		StringBuilder htmlDataColumnContent = new StringBuilder();
-		
-		for (AlbumItem albumItem : AlbumItemStore.getAlbumItems()) {
-			String picturePath = "";
-			long id = 0;
-
-			for (ItemField fieldItem : albumItem.getFields()) {				
-				if (fieldItem.getType().equals(FieldType.UUID)) {
-					// schema or content version UUID --> ignore
-				} else if (fieldItem.getType().equals(FieldType.ID) && !fieldItem.getName().equals("typeinfo")) {
-					// do not show, but store id
-					id = fieldItem.getValue();
-				}
-			}		
-
-			List<AlbumItemPicture> pictures = null;
-			try {
-				pictures = DatabaseOperations.getAlbumItemPictures(ApplicationUI.getSelectedAlbum(), id);
-			} catch (DatabaseWrapperOperationException ex) {
-				LOGGER.error("An error occurred while retrieving the pictures associated with the album item #'" +
-					id + "' from the album '" + ApplicationUI.getSelectedAlbum() + "'", ex);
-			}
-			
-			if (pictures == null || pictures.isEmpty()) {
-				picturePath = FileSystemLocations.getPlaceholderPNG();
-			} else {
-				picturePath = pictures.get(0).getThumbnailPicturePath();
-			}
-			
-			htmlDataColumnContent.delete(0, htmlDataColumnContent.length());
-			DetailedItemCreator.createDetailContainer(albumItem, htmlDataColumnContent);
-			
-			galleryItemHtmlBuilder.append("<div id=\"imageId" + id + "\" " +
-					                         " class=\"pictureContainer");
-			
-			if (ItemFieldFilter.getValidItemFields(albumItem.getFields()).isEmpty()) {
-				galleryItemHtmlBuilder.append("\" ");
-			}
-			else {
-				galleryItemHtmlBuilder.append(" tooltip\" ");
-			}
-					                         
-			galleryItemHtmlBuilder.append(" onMouseOver=\"parent.location.href=&quot;" + UIConstants.SHOW_DETAILS + id + "&quot;\" " +
-					                         " onClick=\"parent.location.href=&quot;" + UIConstants.SHOW_UPDATE_ENTRY_COMPOSITE + id + "&quot;\">");
-			
-			galleryItemHtmlBuilder.append("<img class=\"pictureWrapper\" alt=\"\" src=\"" + picturePath + "\">" );
-			
-			galleryItemHtmlBuilder.append("<label> " + htmlDataColumnContent.toString() + " </label>");
-			galleryItemHtmlBuilder.append("</div>");
-		}
-
 		// Build header using album name. Include view name if appropriated
 		String collectionHeader = GuiController.getGuiState().getSelectedAlbum();
 		if (GuiController.getGuiState().isViewSelected()) {
 			collectionHeader += " - " + GuiController.getGuiState().getSelectedSavedSearch();
 		}
 		
-		String finalPageAsHtml = "<!DOCTYPE html>\n" +
+		String pageHeadHtml = "<!DOCTYPE html>\n" +
 		   "<html>" +
 		     "<head>" +
 		       "<meta http-equiv=\"X-UA-Compatible\" content=\"IE=edge,chrome=1\">" +
@@ -106,12 +50,60 @@ public final class GalleryViewCreator {
 		       "<title>www.sammelbox.org</title>" +
 		     "</head>" +
 		     "<body style=\"background-color:#ffffff;font-family:" +  BrowserUtils.getDefaultSystemFont() + "\">" +
-		       "<h2>" + collectionHeader + "</h2>" +
-		       "<div id=\"albumItems\">" + galleryItemHtmlBuilder.toString() + "</div>" +
+		       "<h2>" + collectionHeader + "</h2>";
+		String pageTailHtml =
 		     "</body>" +
 		   "</html>";
 		
-		browser.setText(finalPageAsHtml);
-		BrowserUtils.setLastPageAsHtml(finalPageAsHtml);
+		ProgressiveAlbumRenderer.showAlbumItems(browser, BrowserUtils.getAlbumItemsWithUserFields(), new AlbumItemContainerCreator() {
+			@Override
+			public void appendAlbumItemContainer(AlbumItem albumItem, int position, StringBuilder galleryItemHtmlBuilder) {
+				appendGalleryItemContainer(albumItem, galleryItemHtmlBuilder);
+			}
+		}, pageHeadHtml, pageTailHtml, "");
+	}
+	
+	private static void appendGalleryItemContainer(AlbumItem albumItem, StringBuilder galleryItemHtmlBuilder) {
+		String picturePath = "";
+		long id = 0;
+
+		for (ItemField fieldItem : albumItem.getFields()) {				
+			if (fieldItem.getType().equals(FieldType.UUID)) {
+				// schema or content version UUID --> ignore
+			} else if (fieldItem.getType().equals(FieldType.ID) && !fieldItem.getName().equals("typeinfo")) {
+				// do not show, but store id
+				id = fieldItem.getValue();
+			}
+		}		
+
+		// The pictures have usually been prefetched together with the album items
+		List<AlbumItemPicture> pictures = albumItem.getPictures();
+		
+		if (pictures == null || pictures.isEmpty()) {
+			picturePath = FileSystemLocations.getPlaceholderPNG();
+		} else {
+			picturePath = ThumbnailCache.getThumbnailSource(pictures.get(0), UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS);
+		}
+		
+		StringBuilder htmlDataColumnContent = new StringBuilder();
+		DetailedItemCreator.createDetailContainer(albumItem, htmlDataColumnContent);
+		
+		galleryItemHtmlBuilder.append("<div id=\"imageId" + id + "\" " +
+				                         " class=\"pictureContainer");
+		
+		if (ItemFieldFilter.getValidItemFields(albumItem.getFields()).isEmpty()) {
+			galleryItemHtmlBuilder.append("\" ");
+		}
+		else {
+			galleryItemHtmlBuilder.append(" tooltip\" ");
+		}
+				                         
+		galleryItemHtmlBuilder.append(" onMouseOver=\"parent.location.href=&quot;" + UIConstants.SHOW_DETAILS + id + "&quot;\" " +
+				                         " onClick=\"parent.location.href=&quot;" + UIConstants.SHOW_UPDATE_ENTRY_COMPOSITE + id + "&quot;\">");
+		
+		galleryItemHtmlBuilder.append("<img class=\"pictureWrapper\" alt=\"\" src=\"" + picturePath + "\">" );
+		
+		galleryItemHtmlBuilder.append("<label> " + htmlDataColumnContent.toString() + " </label>");
+		galleryItemHtmlBuilder.append("</div>");
 	}
 }
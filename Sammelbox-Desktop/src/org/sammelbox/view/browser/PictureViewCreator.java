@@ -18,6 +18,7 @@
 
 package org.sammelbox.view.browser;
 
+import org.eclipse.swt.graphics.Point;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.model.album.AlbumItemPicture;
@@ -26,6 +27,7 @@ import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.UIConstants;
 import org.sammelbox.view.composites.StatusBarComposite;
+import org.sammelbox.view.image.ThumbnailCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,9 +46,13 @@ public final class PictureViewCreator {
 		try {
 			List<AlbumItemPicture> pictures = DatabaseOperations.getAlbumItemPictures(ApplicationUI.getSelectedAlbum(), albumItemId);
 			
+			// The big picture is enlarged to the size of the browser
+			Point browserSize = ApplicationUI.createOrRetrieveAlbumItemBrowser().getSize();
+			int bigPictureSizeInPixels = Math.max(browserSize.x, browserSize.y);
+			
 			String originalPathToPicture = "";
 			if (pictures.size() >= 1) {
-				originalPathToPicture = pictures.get(0).getOriginalPicturePath();
+				originalPathToPicture = ThumbnailCache.getThumbnailSource(pictures.get(0), bigPictureSizeInPixels);
 			}
 	
 			StringBuilder smallPictures = new StringBuilder();
@@ -61,14 +67,14 @@ public final class PictureViewCreator {
 				int counter = 1;
 	
 				for (AlbumItemPicture picture : pictures) {
-					String escapedPicturePath = BrowserUtils.escapeBackslashesInFilePath(picture.getOriginalPicturePath());
+					String escapedPicturePath = BrowserUtils.escapeBackslashesInFilePath(ThumbnailCache.getThumbnailSource(picture, bigPictureSizeInPixels));
 					smallPictures.append(
 							"<a style=\"\" onMouseOver='change(\"bigimg\", \"" + escapedPicturePath + "\");maximizeImageSize(\"bigimg\", 110);'>" + 
 									"  <img " +
 									"       onMouseOver='this.style.cursor=\"pointer\"' " +
 									"       id=\"smallimage" + counter + "\" " +
 									"		style=\" max-height:50px; margin-top:10px;\"" +
-									"       src=\"" + picture.getThumbnailPicturePath() + "\">" +
+									"       src=\"" + ThumbnailCache.getThumbnailSource(picture, UIConstants.PICTURE_VIEW_SMALL_PICTURE_SIZE_IN_PIXELS) + "\">" +
 									"</a>");
 
 					counter++;
@@ -0,0 +1,221 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.view.browser;
+
+import java.util.List;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.browser.Browser;
+import org.eclipse.swt.browser.ProgressAdapter;
+import org.eclipse.swt.browser.ProgressEvent;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.view.image.ThumbnailCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders the album items of a view progressively. The page is loaded with the containers of the first few items only,
+ * such that the first paint does not depend on the size of the album. The remaining containers are appended batch by batch
+ * via javascript, giving the UI thread the chance to process other events between two batches. Starting a new rendering
+ * stops the previous one. Packed thumbnails are only embedded into the first batch, whose pictures are part of the first paint.
+ */
+final class ProgressiveAlbumRenderer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProgressiveAlbumRenderer.class);
+	/** The number of album items contained in the initially loaded page, i.e. roughly the first screenful */
+	static final int FIRST_BATCH_SIZE = 30;
+	/** The number of album items which are appended at once after the page has been loaded */
+	static final int BATCH_SIZE = 50;
+	/** The id of the html element to which the album item containers are appended */
+	private static final String ALBUM_ITEMS_CONTAINER_ID = "albumItems";
+
+	/** Identifies the latest rendering. Renderings with a lower number have been superseded */
+	private static long latestRenderingNumber = 0;
+
+	/** Creates the html container of a single album item */
+	interface AlbumItemContainerCreator {
+		/**
+		 * Appends the html container of the album item.
+		 * @param albumItem The album item to be rendered.
+		 * @param position The position of the album item within the rendered list.
+		 * @param albumItemContainers The builder to which the container is appended.
+		 */
+		void appendAlbumItemContainer(AlbumItem albumItem, int position, StringBuilder albumItemContainers);
+	}
+
+	private final Browser browser;
+	private final long renderingNumber;
+	private final List<AlbumItem> albumItems;
+	private final AlbumItemContainerCreator containerCreator;
+	private final String pageHeadHtml;
+	private final String pageTailHtml;
+	/** Collects all rendered containers, since the complete page is retained as the last shown page */
+	private final StringBuilder renderedContainers = new StringBuilder();
+	private int nextPosition = 0;
+
+	private ProgressiveAlbumRenderer(Browser browser, List<AlbumItem> albumItems, AlbumItemContainerCreator containerCreator,
+			String pageHeadHtml, String pageTailHtml) {
+		this.browser = browser;
+		this.renderingNumber = ++latestRenderingNumber;
+		this.albumItems = albumItems;
+		this.containerCreator = containerCreator;
+		this.pageHeadHtml = pageHeadHtml;
+		this.pageTailHtml = pageTailHtml;
+	}
+
+	/**
+	 * Shows a page containing the given album items. The page consists of the head html, the album items container and the tail html.
+	 * @param browser The browser in which the page is shown.
+	 * @param albumItems The album items to be rendered, in the order in which they are shown.
+	 * @param containerCreator Creates the html container of each album item.
+	 * @param pageHeadHtml The html preceding the album items container (e.g. the document head and the page title).
+	 * @param pageTailHtml The html following the album items container.
+	 * @param emptyAlbumHtml The content of the album items container if there are no album items.
+	 */
+	static void showAlbumItems(Browser browser, List<AlbumItem> albumItems, AlbumItemContainerCreator containerCreator,
+			String pageHeadHtml, String pageTailHtml, String emptyAlbumHtml) {
+		ProgressiveAlbumRenderer renderer = new ProgressiveAlbumRenderer(browser, albumItems, containerCreator, pageHeadHtml, pageTailHtml);
+
+		if (albumItems.isEmpty()) {
+			renderer.renderedContainers.append(emptyAlbumHtml);
+		} else {
+			renderer.renderNextBatch(FIRST_BATCH_SIZE);
+		}
+
+		renderer.showFirstBatch();
+	}
+
+	private void showFirstBatch() {
+		String firstPageAsHtml = createPageHtml(" data-rendering=\"" + renderingNumber + "\"");
+
+		if (isComplete()) {
+			BrowserUtils.setLastPageAsHtml(firstPageAsHtml);
+		} else {
+			// The page is incomplete until all batches have been appended
+			BrowserUtils.setLastPageAsHtml(null);
+
+			browser.addProgressListener(new ProgressAdapter() {
+				@Override
+				public void completed(ProgressEvent event) {
+					browser.removeProgressListener(this);
+					scheduleNextBatch();
+				}
+			});
+		}
+
+		browser.setText(firstPageAsHtml);
+	}
+
+	private void scheduleNextBatch() {
+		browser.getDisplay().asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				appendNextBatch();
+			}
+		});
+	}
+
+	private void appendNextBatch() {
+		if (renderingNumber != latestRenderingNumber || browser.isDisposed()) {
+			return;
+		}
+
+		int firstBatchContainer = renderedContainers.length();
+		renderNextBatch(BATCH_SIZE);
+
+		if (!appendToPage(renderedContainers.substring(firstBatchContainer))) {
+			// Another page has been loaded in the meantime
+			return;
+		}
+
+		if (isComplete()) {
+			BrowserUtils.setLastPageAsHtml(createPageHtml(""));
+			BrowserUtils.jumpToAnchor(BrowserUtils.getFutureJumpAnchor());
+		} else {
+			scheduleNextBatch();
+		}
+	}
+
+	private void renderNextBatch(int batchSize) {
+		int endPosition = Math.min(nextPosition + batchSize, albumItems.size());
+		// The embedded thumbnails are retained with the page, hence only the first batch embeds them
+		ThumbnailCache.setEmbeddingAllowed(nextPosition == 0);
+
+		try {
+			for (; nextPosition < endPosition; nextPosition++) {
+				AlbumItem albumItem = albumItems.get(nextPosition);
+
+				// The item might have been deleted since the list has been created
+				if (albumItem != null) {
+					containerCreator.appendAlbumItemContainer(albumItem, nextPosition, renderedContainers);
+				}
+			}
+		} finally {
+			ThumbnailCache.setEmbeddingAllowed(true);
+		}
+	}
+
+	/** Appends the containers, unless the album items container of this rendering is no longer part of the shown page */
+	private boolean appendToPage(String albumItemContainers) {
+		String appendScript =
+				"var albumItems = document.getElementById('" + ALBUM_ITEMS_CONTAINER_ID + "');" +
+				"if (albumItems == null || albumItems.getAttribute('data-rendering') != '" + renderingNumber + "') {" +
+				  "return false;" +
+				"}" +
+				"albumItems.insertAdjacentHTML('beforeend', '" + escapeJavaScriptString(albumItemContainers) + "');" +
+				"return true;";
+
+		try {
+			return Boolean.TRUE.equals(browser.evaluate(appendScript));
+		} catch (SWTException ex) {
+			LOGGER.error("The album items could not be appended to the page", ex);
+			return false;
+		}
+	}
+
+	private boolean isComplete() {
+		return nextPosition >= albumItems.size();
+	}
+
+	private String createPageHtml(String containerAttributes) {
+		return pageHeadHtml +
+			   "<div id=\"" + ALBUM_ITEMS_CONTAINER_ID + "\"" + containerAttributes + ">" + renderedContainers + "</div>" +
+			   pageTailHtml;
+	}
+
+	/** Escapes the string such that it can be used as a single quoted javascript string literal */
+	private static String escapeJavaScriptString(String string) {
+		StringBuilder escapedString = new StringBuilder(string.length() + 16);
+
+		for (int i = 0; i < string.length(); i++) {
+			char character = string.charAt(i);
+
+			switch (character) {
+			case '\\': escapedString.append("\\\\"); break;
+			case '\'': escapedString.append("\\'"); break;
+			case '\n': escapedString.append("\\n"); break;
+			case '\r': escapedString.append("\\r"); break;
+			case '\u2028': escapedString.append("\\u2028"); break;
+			case '\u2029': escapedString.append("\\u2029"); break;
+			default: escapedString.append(character);
+			}
+		}
+
+		return escapedString.toString();
+	}
+}
@@ -6,19 +6,25 @@ import org.eclipse.swt.browser.BrowserFunction;
 import org.sammelbox.controller.GuiController;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.controller.managers.SettingsManager;
+import org.sammelbox.controller.managers.UnitOfWork;
 import org.sammelbox.model.album.*;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
-import org.sammelbox.view.ApplicationUI;
+import org.sammelbox.view.browser.BrowserFacade;
 import org.sammelbox.view.various.ComponentFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SpreadsheetUpdateFunction extends BrowserFunction {
 	private static final Logger LOGGER = LoggerFactory.getLogger(SpreadsheetUpdateFunction.class);
@@ -27,145 +33,230 @@ public class SpreadsheetUpdateFunction extends BrowserFunction {
 		super (browser, name);
 	}
 	
+	/** The arguments are the names and types of the columns, the complete rows of the new album items, the changed cells of the 
+	 * existing album items (each consisting of the id, the column position and the new value) and the ids of the deleted album items */
 	@Override
 	public Object function (Object[] arguments) {
 		List<Object> updatesColumnNameMapping = Arrays.asList((Object[]) arguments[0]);
 		List<Object> updatesColumnTypeMapping = Arrays.asList((Object[]) arguments[1]);
-		List<Object> updates = Arrays.asList((Object[]) arguments[2]);
-		List<Object> deleteCandidates = Arrays.asList((Object[]) arguments[3]);
+		List<Object> additions = Arrays.asList((Object[]) arguments[2]);
+		List<Object> changedCells = Arrays.asList((Object[]) arguments[3]);
+		List<Object> deleteCandidates = Arrays.asList((Object[]) arguments[4]);
+		String albumName = GuiController.getGuiState().getSelectedAlbum();
 		
-		for (Object completeRow : updates) {
-			try	{
-				boolean isNewAlbumItem = true;
-				
-				FieldType idFieldType = FieldType.valueOf((String) updatesColumnTypeMapping.get(0));
-				String idFieldItemValue = (String) (((Object[]) completeRow)[0]);
-				
-				AlbumItem tmpAlbumItem = new AlbumItem(GuiController.getGuiState().getSelectedAlbum());
-				
-				if (idFieldType.equals(FieldType.ID)) {
-					Long id = Long.parseLong(idFieldItemValue);
-					
-					if (id > AlbumItem.ITEM_ID_UNDEFINED) {
-						isNewAlbumItem = false;
-						tmpAlbumItem.setItemId(id);
-					}
-				} else {
-					ComponentFactory.getMessageBox(
-							  Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED_HEADER), 
-							  Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED, "(Error: The first field type must be an ID field)"),
-							  SWT.ERROR | SWT.OK).open();
-					
-					LOGGER.error("The first field type must be an ID field.");
-					continue;
-				}
-				
-				for (int i = 1; i < ((Object[]) completeRow).length; i++) {
-					FieldType fieldType = FieldType.valueOf((String) updatesColumnTypeMapping.get(i));
-					String fieldItemValue = (String) (((Object[]) completeRow)[i]);
+		if (!additions.isEmpty() && !FieldType.ID.equals(FieldType.valueOf((String) updatesColumnTypeMapping.get(0)))) {
+			ComponentFactory.getMessageBox(
+					  Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED_HEADER), 
+					  Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED, "(Error: The first field type must be an ID field)"),
+					  SWT.ERROR | SWT.OK).open();
+			
+			LOGGER.error("The first field type must be an ID field.");
+			return null;
+		}
+		
+		// All cells are parsed before anything is stored. If a single cell is invalid, none of the changes is stored and the 
+		// spreadsheet is kept as it is, such that the cell can be corrected
+		List<AlbumItem> addedAlbumItems;
+		Map<Long, AlbumItem> changedAlbumItems;
+		try {
+			addedAlbumItems = parseAddedAlbumItems(albumName, updatesColumnNameMapping, updatesColumnTypeMapping, additions);
+			changedAlbumItems = parseChangedCells(albumName, updatesColumnNameMapping, updatesColumnTypeMapping, changedCells);
+		} catch (NumberFormatException nfe) {
+			showNumberFormatError(nfe);
+			return null;
+		} catch (ParseException pe) {
+			showDateFormatError(pe);
+			return null;
+		}
+		
+		// All changes are stored together, such that the album is not left half updated if one of them fails
+		try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+			List<Long> addedAlbumItemIds = storeAddedAlbumItems(addedAlbumItems);
+			DatabaseOperations.updateAlbumItemFields(albumName, changedAlbumItems.values());
+			List<Long> updatedAlbumItemIds = new ArrayList<Long>(changedAlbumItems.keySet());
+			List<Long> deletedAlbumItemIds = deleteAlbumItems(deleteCandidates);
+			
+			unitOfWork.commit();
+			
+			// Only the affected album items are refreshed instead of reloading the album
+			for (Long albumItemId : updatedAlbumItemIds) {
+				AlbumItemStore.updateAlbumItem(DatabaseOperations.getAlbumItem(albumName, albumItemId));
+			}
+			for (Long albumItemId : addedAlbumItemIds) {
+				AlbumItemStore.addAlbumItem(DatabaseOperations.getAlbumItem(albumName, albumItemId));
+			}
+			AlbumItemStore.removeAlbumItems(deletedAlbumItemIds);
+			AlbumItemStore.updateStatus();
+		} catch (DatabaseWrapperOperationException dbwoe) {
+			ComponentFactory.getMessageBox(
+					Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED_HEADER), 
+					Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED, "(Error: An error occurred while storing the changes of the spreadsheet.)"),
+					SWT.ERROR | SWT.OK).open();
+			
+			LOGGER.error("An error occurred while storing the changes of the spreadsheet.", dbwoe);
+		}
 
-					// Under Linux, leaving a spreadsheet field empty results in an empty string.
-					// However, under Windows, an empty field in the spreadsheet results in a null pointer!
-					// This causes then issues with the processing of the line.
-					if (fieldItemValue == null) {
-						fieldItemValue = "";
-					}
-					
-					if (fieldType.equals(FieldType.OPTION)) {
-						if (fieldItemValue.equals(OptionType.YES.toString())) {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, OptionType.YES);
-						} else if (fieldItemValue.equals(OptionType.NO.toString())) {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, OptionType.NO);
-						} else if (fieldItemValue.equals(OptionType.UNKNOWN.toString())) {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, OptionType.UNKNOWN);
-						} else {
-							LOGGER.error("Tried to parse the optiontyp " + fieldItemValue + " which seems not to be a valid option.");
-						}
-					} else if (fieldType.equals(FieldType.DATE)) {
-						if (!fieldItemValue.isEmpty()) {
-							SimpleDateFormat simpleDateFormat = new SimpleDateFormat(SettingsManager.getSettings().getDateFormat());
-							java.util.Date utilDate = simpleDateFormat.parse(fieldItemValue);
-							utilDate.setTime(utilDate.getTime() + (1000 * 60 * 60));
-							java.sql.Date sqlDate = new java.sql.Date(utilDate.getTime());
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, sqlDate);
-						} else {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, null);
-						}	
-					} else if (fieldType.equals(FieldType.TEXT)) {
-						tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, fieldItemValue);
-					} else if (fieldType.equals(FieldType.INTEGER)) {
-						tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, Integer.valueOf(fieldItemValue));
-					} else if (fieldType.equals(FieldType.DECIMAL)) {
-						tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, Double.valueOf(fieldItemValue));
-					} else if (fieldType.equals(FieldType.STAR_RATING)) {
-						if (fieldItemValue.equals(StarRating.ZERO_STARS.toString())) {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, StarRating.ZERO_STARS);
-						} else if (fieldItemValue.equals(StarRating.ONE_STAR.toString())) {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, StarRating.ONE_STAR);
-						} else if (fieldItemValue.equals(StarRating.TWO_STARS.toString())) {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, StarRating.TWO_STARS);
-						} else if (fieldItemValue.equals(StarRating.THREE_STARS.toString())) {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, StarRating.THREE_STARS);
-						} else if (fieldItemValue.equals(StarRating.FOUR_STARS.toString())) {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, StarRating.FOUR_STARS);
-						} else if (fieldItemValue.equals(StarRating.FIVE_STARS.toString())) {
-							tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, StarRating.FIVE_STARS);
-						} else {
-							LOGGER.error("Tried to parse the starRating " + fieldItemValue + " which seems not to be a valid starRating.");
-						}
-					} else if (fieldType.equals(FieldType.URL)) {
-						tmpAlbumItem.addField((String) updatesColumnNameMapping.get(i), fieldType, fieldItemValue);
-					}
-				}
-				
-				if (isNewAlbumItem) {
-					DatabaseOperations.addAlbumItem(tmpAlbumItem, true);
-				} else {
-					DatabaseOperations.updateAlbumItem(tmpAlbumItem);
-				}
+		BrowserFacade.showAlbum();
+		
+		return null;
+	}
 
-			} catch (NumberFormatException nfe) {
-				ComponentFactory.getMessageBox(
-						Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED_HEADER), 
-						Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED, "(Error: An error occurred while parsing a number of an update row.)"),
-						SWT.ERROR | SWT.OK).open();
-				
-				LOGGER.error("An error occurred while parsing a number of an update row.", nfe);
-			} catch (DatabaseWrapperOperationException dbwoe) {
-				ComponentFactory.getMessageBox(
-						Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED_HEADER), 
-						Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED, "(Error: An error occurred while storing or updating an item.)"),
-						SWT.ERROR | SWT.OK).open();
+	/** Creates the new album items from the complete rows of the spreadsheet, the first column of which is the id
+	 * @throws NumberFormatException if a number cannot be parsed
+	 * @throws ParseException if a date cannot be parsed */
+	private static List<AlbumItem> parseAddedAlbumItems(String albumName, List<Object> updatesColumnNameMapping, 
+			List<Object> updatesColumnTypeMapping, List<Object> additions) throws ParseException {
+		List<AlbumItem> addedAlbumItems = new ArrayList<AlbumItem>();
+		
+		for (Object completeRow : additions) {
+			AlbumItem tmpAlbumItem = new AlbumItem(albumName);
+			
+			for (int i = 1; i < ((Object[]) completeRow).length; i++) {
+				ItemField itemField = parseItemField((String) updatesColumnNameMapping.get(i), 
+						FieldType.valueOf((String) updatesColumnTypeMapping.get(i)), (String) (((Object[]) completeRow)[i]));
 				
-				LOGGER.error("An error occurred while storing or updating an item.", dbwoe);
-			} catch (ParseException pe) {
-				ComponentFactory.getMessageBox(
-						Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED_HEADER), 
-						Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED, "(Error: An error occurred while storing or updating a date.)"),
-					    SWT.ERROR | SWT.OK).open();
+				if (itemField != null) {
+					tmpAlbumItem.addField(itemField.getName(), itemField.getType(), itemField.getValue());
+				}
+			}
+			
+			addedAlbumItems.add(tmpAlbumItem);
+		}
+		
+		return addedAlbumItems;
+	}
+	
+	/** @return the ids of the added album items */
+	private static List<Long> storeAddedAlbumItems(Collection<AlbumItem> addedAlbumItems) throws DatabaseWrapperOperationException {
+		List<Long> addedAlbumItemIds = new ArrayList<Long>();
+		
+		for (AlbumItem addedAlbumItem : addedAlbumItems) {
+			addedAlbumItemIds.add(DatabaseOperations.addAlbumItem(addedAlbumItem, true));
+		}
+		
+		return addedAlbumItemIds;
+	}
+	
+	/** Collects the changed cells of the existing album items, each album item only containing its changed fields
+	 * @return the changed album items by their ids
+	 * @throws NumberFormatException if a number cannot be parsed
+	 * @throws ParseException if a date cannot be parsed */
+	private static Map<Long, AlbumItem> parseChangedCells(String albumName, List<Object> updatesColumnNameMapping, 
+			List<Object> updatesColumnTypeMapping, List<Object> changedCells) throws ParseException {
+		Map<Long, AlbumItem> changedAlbumItems = new LinkedHashMap<Long, AlbumItem>();
+		
+		for (Object changedCell : changedCells) {
+			Long id = Long.parseLong((String) ((Object[]) changedCell)[0]);
+			// JavaScript has only one type of numbers. Numbers can be written with, or without decimals:
+			int columnPosition = ((Double) ((Object[]) changedCell)[1]).intValue();
+			
+			ItemField itemField = parseItemField((String) updatesColumnNameMapping.get(columnPosition), 
+					FieldType.valueOf((String) updatesColumnTypeMapping.get(columnPosition)), (String) ((Object[]) changedCell)[2]);
+			
+			if (itemField != null) {
+				if (!changedAlbumItems.containsKey(id)) {
+					AlbumItem changedAlbumItem = new AlbumItem(albumName);
+					changedAlbumItem.setItemId(id);
+					changedAlbumItems.put(id, changedAlbumItem);
+				}
 				
-				LOGGER.error("An error occurred while storing or updating a date.", pe);
+				changedAlbumItems.get(id).addField(itemField.getName(), itemField.getType(), itemField.getValue());
 			}
 		}
 		
+		return changedAlbumItems;
+	}
+	
+	/** Creates an item field from the value of a spreadsheet cell 
+	 * @return the item field, or null if the value is not valid for the type of the field */
+	private static ItemField parseItemField(String fieldName, FieldType fieldType, String fieldItemValue) throws ParseException {
+		// Under Linux, leaving a spreadsheet field empty results in an empty string.
+		// However, under Windows, an empty field in the spreadsheet results in a null pointer!
+		// This causes then issues with the processing of the line.
+		if (fieldItemValue == null) {
+			fieldItemValue = "";
+		}
+		
+		if (fieldType.equals(FieldType.OPTION)) {
+			if (fieldItemValue.equals(OptionType.YES.toString())) {
+				return new ItemField(fieldName, fieldType, OptionType.YES);
+			} else if (fieldItemValue.equals(OptionType.NO.toString())) {
+				return new ItemField(fieldName, fieldType, OptionType.NO);
+			} else if (fieldItemValue.equals(OptionType.UNKNOWN.toString())) {
+				return new ItemField(fieldName, fieldType, OptionType.UNKNOWN);
+			} else {
+				LOGGER.error("Tried to parse the optiontyp " + fieldItemValue + " which seems not to be a valid option.");
+			}
+		} else if (fieldType.equals(FieldType.DATE)) {
+			if (!fieldItemValue.isEmpty()) {
+				SimpleDateFormat simpleDateFormat = new SimpleDateFormat(SettingsManager.getSettings().getDateFormat());
+				java.util.Date utilDate = simpleDateFormat.parse(fieldItemValue);
+				utilDate.setTime(utilDate.getTime() + (1000 * 60 * 60));
+				java.sql.Date sqlDate = new java.sql.Date(utilDate.getTime());
+				return new ItemField(fieldName, fieldType, sqlDate);
+			} else {
+				return new ItemField(fieldName, fieldType, null);
+			}	
+		} else if (fieldType.equals(FieldType.TEXT)) {
+			return new ItemField(fieldName, fieldType, fieldItemValue);
+		} else if (fieldType.equals(FieldType.INTEGER)) {
+			return new ItemField(fieldName, fieldType, Integer.valueOf(fieldItemValue));
+		} else if (fieldType.equals(FieldType.DECIMAL)) {
+			return new ItemField(fieldName, fieldType, Double.valueOf(fieldItemValue));
+		} else if (fieldType.equals(FieldType.STAR_RATING)) {
+			if (fieldItemValue.equals(StarRating.ZERO_STARS.toString())) {
+				return new ItemField(fieldName, fieldType, StarRating.ZERO_STARS);
+			} else if (fieldItemValue.equals(StarRating.ONE_STAR.toString())) {
+				return new ItemField(fieldName, fieldType, StarRating.ONE_STAR);
+			} else if (fieldItemValue.equals(StarRating.TWO_STARS.toString())) {
+				return new ItemField(fieldName, fieldType, StarRating.TWO_STARS);
+			} else if (fieldItemValue.equals(StarRating.THREE_STARS.toString())) {
+				return new ItemField(fieldName, fieldType, StarRating.THREE_STARS);
+			} else if (fieldItemValue.equals(StarRating.FOUR_STARS.toString())) {
+				return new ItemField(fieldName, fieldType, StarRating.FOUR_STARS);
+			} else if (fieldItemValue.equals(StarRating.FIVE_STARS.toString())) {
+				return new ItemField(fieldName, fieldType, StarRating.FIVE_STARS);
+			} else {
+				LOGGER.error("Tried to parse the starRating " + fieldItemValue + " which seems not to be a valid starRating.");
+			}
+		} else if (fieldType.equals(FieldType.URL)) {
+			return new ItemField(fieldName, fieldType, fieldItemValue);
+		}
+		
+		return null;
+	}
+	
+	private static void showNumberFormatError(NumberFormatException nfe) {
+		ComponentFactory.getMessageBox(
+				Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED_HEADER), 
+				Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED, "(Error: An error occurred while parsing a number of an update row.)"),
+				SWT.ERROR | SWT.OK).open();
+		
+		LOGGER.error("An error occurred while parsing a number of an update row.", nfe);
+	}
+	
+	private static void showDateFormatError(ParseException pe) {
+		ComponentFactory.getMessageBox(
+				Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED_HEADER), 
+				Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED, "(Error: An error occurred while storing or updating a date.)"),
+			    SWT.ERROR | SWT.OK).open();
+		
+		LOGGER.error("An error occurred while storing or updating a date.", pe);
+	}
+
+	/** @return the ids of the deleted album items */
+	private static List<Long> deleteAlbumItems(List<Object> deleteCandidates) throws DatabaseWrapperOperationException {
+		List<Long> deletedAlbumItemIds = new ArrayList<Long>();
+		
 		for (Object o : deleteCandidates){
 			//JavaScript has only one type of numbers. Numbers can be written with, or without decimals:
 			long id = ((Double)o).longValue();
 			
-			try {
-				DatabaseOperations.deleteAlbumItem(AlbumItemStore.getAlbumItem(id));
-			} catch (DatabaseWrapperOperationException dbwoe) {
-				ComponentFactory.getMessageBox(
-						Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED_HEADER), 
-						Translator.get(DictKeys.ERROR_AN_INTERNAL_ERROR_OCCURRED, "(Error: An error occurred while deleting an item.)"),
-						SWT.ERROR | SWT.OK).open();
-				
-				LOGGER.error("An error occurred while deleting an item.", dbwoe);
-			}
+			// A failed deletion aborts the unit of work like any other failed change
+			DatabaseOperations.deleteAlbumItem(AlbumItemStore.getAlbumItem(id));
+			deletedAlbumItemIds.add(id);
 		}
-
-		ApplicationUI.setSelectedAlbumAndReload(GuiController.getGuiState().getSelectedAlbum());
 		
-		return null;
+		return deletedAlbumItemIds;
 	}
-}
\ No newline at end of file
+}
@@ -20,6 +20,7 @@ package org.sammelbox.view.image;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -59,6 +60,7 @@ import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.model.album.AlbumItemPicture;
 import org.sammelbox.view.ApplicationUI;
+import org.sammelbox.view.image.ImageIngestionService.ImageIngestionListener;
 import org.sammelbox.view.various.ComponentFactory;
 
 public class ImageDropAndManagementComposite extends Composite implements DropTargetListener {
@@ -186,7 +188,7 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 		disposeAllChildren();
 
 		for (final AlbumItemPicture picture : pictures) {			
-			Image originalImage = new Image(Display.getCurrent(), picture.getOriginalPicturePath());
+			Image originalImage = new Image(Display.getCurrent(), ThumbnailCache.getThumbnailPath(picture, MAX_HEIGHT_OR_WIDTH_IN_PIXELS));
 			Image scaledImage;
 			
 			Rectangle originalImageBounds =  originalImage.getBounds();
@@ -359,48 +361,42 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 			});
 					
 			if (filepaths.length > 0) {
-				for (int i = 0; i < filepaths.length; i++) {
-					final int current = i + 1;
-					ApplicationUI.getShell().getDisplay().asyncExec(new Runnable() {
-						@Override
-						public void run() {
-							dropTextLabel.setText(Translator.get(DictKeys.LABEL_PROCESSING_IMG_X_OF_Y, current, filepaths.length));
-							dropTextLabel.setFont(boldFont);
-						}
-					});
-					
-					final String fileName = filepaths[i];
-
-					boolean processFile = false;
-					for (String allowedExtension : ALLOWED_EXTENSIONS) {
-						if (fileName.toLowerCase().endsWith(allowedExtension)) {
-							processFile = true;
-							break;
-						}
+				List<File> pictureFiles = new ArrayList<File>();
+				for (final String fileName : filepaths) {
+					if (hasAllowedExtension(fileName)) {
+						pictureFiles.add(new File(fileName));
+					} else {
+						ApplicationUI.getShell().getDisplay().asyncExec(new Runnable() {
+							@Override
+							public void run() {
+								showDroppedUnsupportedFileMessageBox(fileName);
+							}
+						});
 					}
-					
-					if (processFile) {
-						AlbumItemPicture picture = ImageManipulator.adaptAndStoreImageForCollector(
-								new File(fileName), GuiController.getGuiState().getSelectedAlbum());
+				}
+				
+				if (!pictureFiles.isEmpty()) {
+					showProgress(1, pictureFiles.size());
+				}
+				ImageIngestionService.ingestImages(pictureFiles, GuiController.getGuiState().getSelectedAlbum(), new ImageIngestionListener() {
+					@Override
+					public void imageProcessed(int imageNumber, int numberOfImages, final File pictureFile, AlbumItemPicture picture) {
 						if (picture == null) {
 							ApplicationUI.getShell().getDisplay().asyncExec(new Runnable() {
 								@Override
 								public void run() {
-									showDroppedUnsupportedFileMessageBox(fileName);
+									showDroppedUnsupportedFileMessageBox(pictureFile.getPath());
 								}
 							});
 						} else {
 							pictures.add(picture);
 						}
-					} else {
-						ApplicationUI.getShell().getDisplay().asyncExec(new Runnable() {
-							@Override
-							public void run() {
-								showDroppedUnsupportedFileMessageBox(fileName);
-							}
-						});
+						
+						if (imageNumber < numberOfImages) {
+							showProgress(imageNumber + 1, numberOfImages);
+						}
 					}
-				}
+				});
 				
 				ApplicationUI.getShell().getDisplay().asyncExec(new Runnable() {
 					@Override
@@ -420,5 +416,26 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 				}
 			});
 		}
+		
+		/** Shows which of the images is currently awaited, using the bold font of the label */
+		private void showProgress(final int imageNumber, final int numberOfImages) {
+			ApplicationUI.getShell().getDisplay().asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					dropTextLabel.setText(Translator.get(DictKeys.LABEL_PROCESSING_IMG_X_OF_Y, imageNumber, numberOfImages));
+					dropTextLabel.setFont(boldFont);
+				}
+			});
+		}
+		
+		private boolean hasAllowedExtension(String fileName) {
+			for (String allowedExtension : ALLOWED_EXTENSIONS) {
+				if (fileName.toLowerCase().endsWith(allowedExtension)) {
+					return true;
+				}
+			}
+			
+			return false;
+		}
 	}
 }
@@ -0,0 +1,115 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.view.image;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies image files into an album and creates their thumbnails using all available cores. The images are processed by 
+ * a shared work-stealing pool, while the results are delivered in the order in which the files have been submitted.
+ * Since decoded images are large, only a limited number of images is processed ahead of the next result to be delivered.
+ */
+public final class ImageIngestionService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageIngestionService.class);
+
+	/** The number of images which are processed in parallel */
+	private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+	/** The maximum number of images which are processed or waiting for delivery at the same time */
+	private static final int MAX_IMAGES_IN_FLIGHT = 2 * PARALLELISM;
+	private static final ForkJoinPool INGESTION_POOL = new ForkJoinPool(PARALLELISM);
+
+	/** Receives the progress of an ingestion. All calls are made by the thread which started the ingestion. */
+	public interface ImageIngestionListener {
+		/**
+		 * Called once for every image, in the order in which the images have been submitted.
+		 * @param imageNumber the position of the image within the submitted images, starting at 1
+		 * @param numberOfImages the number of submitted images
+		 * @param pictureFile the original image
+		 * @param picture the stored picture, or null if the image could not be processed
+		 */
+		void imageProcessed(int imageNumber, int numberOfImages, File pictureFile, AlbumItemPicture picture);
+	}
+
+	private ImageIngestionService() {
+		// use static methods
+	}
+
+	/**
+	 * Copies the originals into the album and creates their thumbnails, as done by 
+	 * {@link ImageManipulator#adaptAndStoreImageForCollector(File, String)}. The method returns once all images have been processed.
+	 * @param pictureFiles the original images
+	 * @param albumName the album to which the images should be assigned
+	 * @param listener the listener to be informed about every processed image, or null
+	 * @return the stored pictures in the order of the given files. The list contains null for every image that could not be processed
+	 */
+	public static List<AlbumItemPicture> ingestImages(List<File> pictureFiles, String albumName, ImageIngestionListener listener) {
+		List<AlbumItemPicture> pictures = new ArrayList<AlbumItemPicture>(pictureFiles.size());
+		Deque<ForkJoinTask<AlbumItemPicture>> imagesInFlight = new ArrayDeque<ForkJoinTask<AlbumItemPicture>>();
+		int numberOfSubmittedImages = 0;
+
+		for (int imageIndex = 0; imageIndex < pictureFiles.size(); imageIndex++) {
+			// Further images are only submitted once earlier results have been delivered
+			while (numberOfSubmittedImages < pictureFiles.size() && numberOfSubmittedImages - imageIndex < MAX_IMAGES_IN_FLIGHT) {
+				imagesInFlight.addLast(INGESTION_POOL.submit(
+						new ImageIngestionTask(pictureFiles.get(numberOfSubmittedImages), albumName)));
+				numberOfSubmittedImages++;
+			}
+
+			AlbumItemPicture picture = imagesInFlight.removeFirst().join();
+			pictures.add(picture);
+
+			if (listener != null) {
+				listener.imageProcessed(imageIndex + 1, pictureFiles.size(), pictureFiles.get(imageIndex), picture);
+			}
+		}
+
+		return pictures;
+	}
+
+	private static class ImageIngestionTask implements Callable<AlbumItemPicture> {
+		private final File pictureFile;
+		private final String albumName;
+
+		ImageIngestionTask(File pictureFile, String albumName) {
+			this.pictureFile = pictureFile;
+			this.albumName = albumName;
+		}
+
+		@Override
+		public AlbumItemPicture call() {
+			try {
+				return ImageManipulator.adaptAndStoreImageForCollector(pictureFile, albumName);
+			} catch (RuntimeException ex) {
+				LOGGER.error("The image " + pictureFile + " could not be processed", ex);
+				return null;
+			}
+		}
+	}
+}
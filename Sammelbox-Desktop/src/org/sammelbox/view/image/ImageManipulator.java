@@ -21,15 +21,29 @@ package org.sammelbox.view.image;
 import org.imgscalr.Scalr;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.managers.SettingsManager;
 import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.settings.ApplicationSettings;
+import org.sammelbox.model.settings.ThumbnailFormat;
 import org.sammelbox.view.ApplicationUI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
 import java.util.UUID;
 
 public final class ImageManipulator {
@@ -39,60 +53,34 @@ public final class ImageManipulator {
 	private static final int MAX_HEIGHT_IN_PIXELS = 200;
 	/** The maximum width of a thumb nail in pixels. Only originals with a higher resolution will be resized */
 	private static final int MAX_WIDTH_IN_PIXELS = 200;
+	/** Large originals are decoded at a reduced resolution, which keeps at least this factor of the thumbnail size for scaling */
+	private static final int MIN_DECODED_TO_THUMBNAIL_SIZE_RATIO = 2;
+	/** The range of the thumbnail quality setting, which is given in percent */
+	private static final int MIN_QUALITY = 1, MAX_QUALITY = 100;
 	
 	private ImageManipulator() {
 		// not needed
 	}
 	
 	/**This method is used to copy originals, and create thumbnails, within the picture folder. 
-	 * It uses imageScalr instead of SWT which seems to leak memory.
+	 * It uses imageScalr instead of SWT which seems to leak memory. The thumbnail is stored in the format configured in the settings.
 	 * @param pictureFile the original image
 	 * @param album the album to which the image should be assigned 
 	 * @return a picture pointing to the location of the original file and thumb nail within the album */	
 	public static AlbumItemPicture adaptAndStoreImageForCollector(File pictureFile, String album) {
 		try {
-			BufferedImage sourceImage = ImageIO.read(pictureFile);
-			
-			if (sourceImage == null) {
-				throw new IOException("Could not read image file");
-			}
-			
-			int imageWidth = sourceImage.getWidth();
-			int imageHeight	= sourceImage.getHeight();
-			
 			String identifierForOriginal = UUID.randomUUID().toString();
 			String identifierForThumbnail = UUID.randomUUID().toString();
+			ApplicationSettings applicationSettings = SettingsManager.getSettings();
 			
 			String newFileNameForOriginal = identifierForOriginal + "." + FileSystemAccessWrapper.getFileExtension(pictureFile.getName());
-			String newFileNameForThumbnail = identifierForThumbnail + ".png";
+			String newFileNameForThumbnail = identifierForThumbnail + "." + applicationSettings.getThumbnailFormat().getFileExtension();
 			
 			String newFileLocationForOriginal = FileSystemAccessWrapper.getFilePathForAlbum(album) + File.separatorChar + newFileNameForOriginal;
 			String newFileLocationForThumbnail = FileSystemLocations.getThumbnailsDir() + File.separatorChar + newFileNameForThumbnail;
-			BufferedImage thumbnailImage = null;
 			
-			if (imageWidth > MAX_WIDTH_IN_PIXELS || imageHeight > MAX_HEIGHT_IN_PIXELS) {
-				int newWidth = 0, newHeight = 0;
-				double imageRatio = 0.0;
-
-				if (imageWidth >= imageHeight) {
-					imageRatio = ((double) imageWidth / (double) imageHeight);
-					newWidth = MAX_WIDTH_IN_PIXELS;
-					newHeight = (int) (MAX_WIDTH_IN_PIXELS / imageRatio);
-				} else {
-					imageRatio = ((double) imageHeight / (double) imageWidth);
-					newHeight = MAX_HEIGHT_IN_PIXELS;
-					newWidth = (int) (MAX_HEIGHT_IN_PIXELS / imageRatio);
-				}
-				
-				thumbnailImage = Scalr.resize(sourceImage, Scalr.Method.SPEED, Scalr.Mode.FIT_TO_WIDTH, newWidth, newHeight, Scalr.OP_ANTIALIAS);			   
-				sourceImage.flush();
-			} else {
-				thumbnailImage = sourceImage;
-			}
-			
-            File thumbnailDestination = new File(newFileLocationForThumbnail); 
-			ImageIO.write(thumbnailImage, "png", thumbnailDestination);
-			thumbnailImage.flush();
+			writeThumbnail(pictureFile, new File(newFileLocationForThumbnail), MAX_WIDTH_IN_PIXELS, MAX_HEIGHT_IN_PIXELS, 
+					applicationSettings.getThumbnailFormat(), applicationSettings.getThumbnailQuality());
 			
 			FileSystemAccessWrapper.copyFile(new File(pictureFile.getPath()), new File(newFileLocationForOriginal));		
 			return new AlbumItemPicture(newFileNameForThumbnail, newFileNameForOriginal, album, AlbumItemPicture.PICTURE_ID_UNDEFINED);
@@ -103,4 +91,158 @@ public final class ImageManipulator {
 		
 		return null;
 	}
+	
+	/** Writes a PNG thumbnail of the image. Only images with a higher resolution than the maximum size will be resized.
+	 * @param pictureFile the image from which the thumbnail is created
+	 * @param thumbnailFile the file to which the thumbnail is written
+	 * @param maxWidthInPixels the maximum width of the thumbnail
+	 * @param maxHeightInPixels the maximum height of the thumbnail */
+	static void writeThumbnail(File pictureFile, File thumbnailFile, int maxWidthInPixels, int maxHeightInPixels) throws IOException {
+		writeThumbnail(pictureFile, thumbnailFile, maxWidthInPixels, maxHeightInPixels, ThumbnailFormat.PNG, MAX_QUALITY);
+	}
+	
+	/** Writes a thumbnail of the image in the given format. Only images with a higher resolution than the maximum size will be resized.
+	 * @param pictureFile the image from which the thumbnail is created
+	 * @param thumbnailFile the file to which the thumbnail is written
+	 * @param maxWidthInPixels the maximum width of the thumbnail
+	 * @param maxHeightInPixels the maximum height of the thumbnail
+	 * @param thumbnailFormat the format in which the thumbnail is written
+	 * @param quality the quality in percent, which only applies to lossy formats */
+	static void writeThumbnail(File pictureFile, File thumbnailFile, int maxWidthInPixels, int maxHeightInPixels, 
+			ThumbnailFormat thumbnailFormat, int quality) throws IOException {
+		BufferedImage sourceImage = readImageForThumbnail(pictureFile, maxWidthInPixels, maxHeightInPixels);
+		
+		if (sourceImage == null) {
+			throw new IOException("Could not read image file");
+		}
+		
+		int imageWidth = sourceImage.getWidth();
+		int imageHeight	= sourceImage.getHeight();
+		BufferedImage thumbnailImage = null;
+		
+		if (imageWidth > maxWidthInPixels || imageHeight > maxHeightInPixels) {
+			int newWidth = 0, newHeight = 0;
+			double imageRatio = 0.0;
+
+			if (imageWidth >= imageHeight) {
+				imageRatio = ((double) imageWidth / (double) imageHeight);
+				newWidth = maxWidthInPixels;
+				newHeight = (int) (maxWidthInPixels / imageRatio);
+			} else {
+				imageRatio = ((double) imageHeight / (double) imageWidth);
+				newHeight = maxHeightInPixels;
+				newWidth = (int) (maxHeightInPixels / imageRatio);
+			}
+			
+			thumbnailImage = Scalr.resize(sourceImage, Scalr.Method.SPEED, Scalr.Mode.FIT_TO_WIDTH, newWidth, newHeight, Scalr.OP_ANTIALIAS);			   
+			sourceImage.flush();
+		} else {
+			thumbnailImage = sourceImage;
+		}
+		
+		writeImage(thumbnailImage, thumbnailFile, thumbnailFormat, quality);
+		thumbnailImage.flush();
+	}
+	
+	/** Stores an existing thumbnail in another format, without resizing it.
+	 * @param thumbnailFile the existing thumbnail
+	 * @param reencodedThumbnailFile the file to which the thumbnail is written
+	 * @param thumbnailFormat the format in which the thumbnail is written
+	 * @param quality the quality in percent, which only applies to lossy formats */
+	static void reencodeThumbnail(File thumbnailFile, File reencodedThumbnailFile, ThumbnailFormat thumbnailFormat, int quality) throws IOException {
+		BufferedImage thumbnailImage = ImageIO.read(thumbnailFile);
+		
+		if (thumbnailImage == null) {
+			throw new IOException("Could not read image file");
+		}
+		
+		writeImage(thumbnailImage, reencodedThumbnailFile, thumbnailFormat, quality);
+		thumbnailImage.flush();
+	}
+	
+	private static void writeImage(BufferedImage image, File imageFile, ThumbnailFormat thumbnailFormat, int quality) throws IOException {
+		if (!thumbnailFormat.isLossy()) {
+			ImageIO.write(image, thumbnailFormat.getImageIOFormatName(), imageFile);
+			return;
+		}
+		
+		Iterator<ImageWriter> imageWriters = ImageIO.getImageWritersByFormatName(thumbnailFormat.getImageIOFormatName());
+		if (!imageWriters.hasNext()) {
+			throw new IOException("No image writer available for " + thumbnailFormat);
+		}
+		
+		BufferedImage opaqueImage = toOpaqueImage(image);
+		ImageWriter imageWriter = imageWriters.next();
+		
+		// The output stream would otherwise leave the remainder of a longer existing file in place
+		Files.deleteIfExists(imageFile.toPath());
+		
+		try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(imageFile)) {
+			ImageWriteParam imageWriteParam = imageWriter.getDefaultWriteParam();
+			imageWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			imageWriteParam.setCompressionQuality(Math.max(MIN_QUALITY, Math.min(MAX_QUALITY, quality)) / (float) MAX_QUALITY);
+			
+			imageWriter.setOutput(imageOutputStream);
+			imageWriter.write(null, new IIOImage(opaqueImage, null, null), imageWriteParam);
+		} finally {
+			imageWriter.dispose();
+			if (opaqueImage != image) {
+				opaqueImage.flush();
+			}
+		}
+	}
+	
+	/** Lossy formats cannot store transparency nor indexed colors, hence such images are drawn onto a white background */
+	private static BufferedImage toOpaqueImage(BufferedImage image) {
+		if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR 
+				|| image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+			return image;
+		}
+		
+		BufferedImage opaqueImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = opaqueImage.createGraphics();
+		try {
+			graphics.setColor(Color.WHITE);
+			graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+			graphics.drawImage(image, 0, 0, null);
+		} finally {
+			graphics.dispose();
+		}
+		
+		return opaqueImage;
+	}
+	
+	/** Decodes the image, skipping rows and columns of originals that are much larger than a thumbnail. Only the dimensions are 
+	 * read before the image data, such that the full resolution image is never held in memory.
+	 * @param pictureFile the original image
+	 * @return the decoded image, or null if no reader is available for the file */
+	private static BufferedImage readImageForThumbnail(File pictureFile, int maxWidthInPixels, int maxHeightInPixels) throws IOException {
+		try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(pictureFile)) {
+			if (imageInputStream == null) {
+				return null;
+			}
+			
+			Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
+			if (!imageReaders.hasNext()) {
+				return null;
+			}
+			
+			ImageReader imageReader = imageReaders.next();
+			try {
+				imageReader.setInput(imageInputStream, true, true);
+				
+				// The longer side determines the thumbnail size
+				int subsampling = Math.max(1, Math.max(
+						imageReader.getWidth(0) / (MIN_DECODED_TO_THUMBNAIL_SIZE_RATIO * maxWidthInPixels), 
+						imageReader.getHeight(0) / (MIN_DECODED_TO_THUMBNAIL_SIZE_RATIO * maxHeightInPixels)));
+				
+				ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+				imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				
+				return imageReader.read(0, imageReadParam);
+			} finally {
+				imageReader.dispose();
+			}
+		}
+	}
 }
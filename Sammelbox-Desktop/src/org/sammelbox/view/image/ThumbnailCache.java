@@ -0,0 +1,325 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.view.image;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.managers.SettingsManager;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.SampleAlbumItemPicture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides the thumbnails of pictures in the resolution in which they are displayed. The {@link ThumbnailTier#MEDIUM} thumbnails
+ * are created when a picture is added, all other tiers are generated on demand by a background thread. Until a tier is available,
+ * the medium thumbnail is used instead, since decoding the original might take longer than generating the tier. Only the most
+ * recently requested tiers are queued for generation, such that the tiers of views which are no longer visible are dropped.
+ * 
+ * The generated tiers are kept in a disk cache of limited size. When the size is exceeded, the least recently used tiers are removed.
+ * If enabled, the browser views are served the medium thumbnails from the {@link ThumbnailPack} instead of their files. Since the
+ * packed thumbnails are embedded into the page, only the pages which enable embedding (e.g. the first screenful of an album) use them.
+ */
+public final class ThumbnailCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailCache.class);
+	/** The maximum total size of the generated tiers */
+	private static final long MAX_CACHE_SIZE_IN_BYTES = 256L * 1024L * 1024L;
+	/** The resolution for which display sizes are specified */
+	private static final int DEFAULT_DPI = 96;
+	/** The maximum number of queued thumbnails, which is about the number of thumbnails shown by a few views */
+	private static final int MAX_QUEUED_THUMBNAILS = 256;
+	
+	/** Generates the thumbnails in the background. If the queue is full, the least recently requested thumbnail is dropped */
+	private static final ThreadPoolExecutor GENERATION_EXECUTOR = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, 
+			new LinkedBlockingQueue<Runnable>(MAX_QUEUED_THUMBNAILS), new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread generationThread = new Thread(runnable, "thumbnail-generation");
+			generationThread.setDaemon(true);
+			return generationThread;
+		}
+	}, new RejectedExecutionHandler() {
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				return;
+			}
+			
+			Runnable droppedTask = executor.getQueue().poll();
+			if (droppedTask instanceof ThumbnailTask) {
+				// The thumbnail is queued again once it is requested again
+				PENDING_THUMBNAIL_PATHS.remove(((ThumbnailTask) droppedTask).thumbnailPath);
+			}
+			
+			executor.execute(task);
+		}
+	});
+	/** The paths of the tiers which are currently generated, and of the thumbnails which are currently packed */
+	private static final Set<String> PENDING_THUMBNAIL_PATHS = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	
+	/** The sizes of the cached tiers by their paths, in the order of their last access. Guarded by the class lock */
+	private static final LinkedHashMap<String, Long> CACHED_THUMBNAIL_SIZES = new LinkedHashMap<String, Long>(16, 0.75f, true);
+	/** The directory for which the cached tiers have been read, since the home directory might change */
+	private static String loadedCacheDir = null;
+	private static long cacheSizeInBytes = 0;
+	private static int displayDpi = DEFAULT_DPI;
+	/** Whether packed thumbnails may be embedded into the page which is currently created. Only accessed by the UI thread */
+	private static boolean isEmbeddingAllowed = true;
+	
+	private ThumbnailCache() {
+		// use static methods
+	}
+	
+	/** Sets the resolution of the display, such that high density displays are served with larger tiers
+	 * @param dpi the horizontal dots per inch of the display */
+	public static void setDisplayDpi(int dpi) {
+		displayDpi = dpi;
+	}
+	
+	/** 
+	 * Allows or prevents embedding the packed thumbnails into the page which is currently created, such that the size of a page 
+	 * showing many pictures does not grow with the number of pictures.
+	 * @param isAllowed false if the thumbnails are referenced by their paths only
+	 */
+	public static void setEmbeddingAllowed(boolean isAllowed) {
+		isEmbeddingAllowed = isAllowed;
+	}
+	
+	/**
+	 * Returns the thumbnail which matches the size in which the picture is displayed. 
+	 * @param picture the picture to be displayed
+	 * @param displaySizeInPixels the maximum width and height in which the picture is displayed, for a display of {@value #DEFAULT_DPI} dpi
+	 * @return the path to the thumbnail, or to a replacement if it is not yet available 
+	 */
+	public static String getThumbnailPath(AlbumItemPicture picture, int displaySizeInPixels) {
+		return getThumbnailPath(picture, ThumbnailTier.forSize((int) Math.ceil((double) displaySizeInPixels * displayDpi / DEFAULT_DPI)));
+	}
+	
+	/**
+	 * Returns the thumbnail of the given tier. If it is not yet available, it is generated in the background.
+	 * @param picture the picture to be displayed
+	 * @param tier the tier of the thumbnail, or null for the original
+	 * @return the path to the thumbnail, or to a replacement if it is not yet available
+	 */
+	public static String getThumbnailPath(AlbumItemPicture picture, ThumbnailTier tier) {
+		if (tier == null) {
+			return picture.getOriginalPicturePath();
+		} else if (tier == ThumbnailTier.MEDIUM || picture instanceof SampleAlbumItemPicture) {
+			return picture.getThumbnailPicturePath();
+		}
+		
+		File cachedThumbnail = getCachedThumbnailFile(picture, tier);
+		if (isCached(cachedThumbnail)) {
+			return cachedThumbnail.getPath();
+		}
+		
+		scheduleGeneration(picture, tier, cachedThumbnail);
+		
+		return picture.getThumbnailPicturePath();
+	}
+	
+	/**
+	 * Returns the thumbnail which matches the size in which the picture is displayed, as image source for the browser views. If the
+	 * thumbnail pack is enabled and embedding is allowed, medium thumbnails are embedded as data URI. Thumbnails which are not yet 
+	 * packed are packed in the background, while their paths are returned in the meantime. Other tiers, e.g. those of high density
+	 * displays, are always referenced by their paths.
+	 * @param picture the picture to be displayed
+	 * @param displaySizeInPixels the maximum width and height in which the picture is displayed, for a display of {@value #DEFAULT_DPI} dpi
+	 * @return the data URI or path of the thumbnail
+	 */
+	public static String getThumbnailSource(AlbumItemPicture picture, int displaySizeInPixels) {
+		String thumbnailPath = getThumbnailPath(picture, displaySizeInPixels);
+		
+		if (!isEmbeddingAllowed || !SettingsManager.getSettings().isThumbnailPackEnabled() || picture instanceof SampleAlbumItemPicture 
+				|| !thumbnailPath.equals(picture.getThumbnailPicturePath())) {
+			return thumbnailPath;
+		}
+		
+		String thumbnailDataUri = ThumbnailPack.getThumbnailAsDataUri(picture.getThumbnailPictureName());
+		if (thumbnailDataUri == null) {
+			schedulePacking(picture);
+			return thumbnailPath;
+		}
+		
+		return thumbnailDataUri;
+	}
+	
+	private static File getCachedThumbnailFile(AlbumItemPicture picture, ThumbnailTier tier) {
+		String thumbnailName = picture.getThumbnailPictureName();
+		if (thumbnailName.contains(".")) {
+			thumbnailName = thumbnailName.substring(0, thumbnailName.lastIndexOf('.'));
+		}
+		
+		return new File(FileSystemLocations.getThumbnailCacheDir() + File.separatorChar + 
+				thumbnailName + "_" + tier.getSizeInPixels() + FileSystemLocations.CACHED_THUMBNAIL_EXTENSION);
+	}
+	
+	private static synchronized boolean isCached(File cachedThumbnail) {
+		loadCachedThumbnails();
+		
+		if (CACHED_THUMBNAIL_SIZES.get(cachedThumbnail.getPath()) == null) {
+			return false;
+		}
+		
+		if (!cachedThumbnail.exists()) {
+			cacheSizeInBytes -= CACHED_THUMBNAIL_SIZES.remove(cachedThumbnail.getPath());
+			return false;
+		}
+		
+		// The modification date keeps the order of access across restarts
+		if (!cachedThumbnail.setLastModified(System.currentTimeMillis())) {
+			LOGGER.debug("The access to the cached thumbnail {} could not be recorded", cachedThumbnail);
+		}
+		
+		return true;
+	}
+	
+	private static void scheduleGeneration(final AlbumItemPicture picture, final ThumbnailTier tier, final File cachedThumbnail) {
+		if (!PENDING_THUMBNAIL_PATHS.add(cachedThumbnail.getPath())) {
+			return;
+		}
+		
+		GENERATION_EXECUTOR.execute(new ThumbnailTask(cachedThumbnail.getPath()) {
+			@Override
+			public void run() {
+				try {
+					// Smaller tiers are created from the medium thumbnail, which is much faster to decode than the original
+					File source = new File(tier.getSizeInPixels() < ThumbnailTier.MEDIUM.getSizeInPixels() ? 
+							picture.getThumbnailPicturePath() : picture.getOriginalPicturePath());
+					File temporaryThumbnail = new File(cachedThumbnail.getPath() + ".tmp");
+					if (!cachedThumbnail.getParentFile().exists() && !cachedThumbnail.getParentFile().mkdirs()) {
+						throw new IOException("Could not create the thumbnail cache directory");
+					}
+					
+					ImageManipulator.writeThumbnail(source, temporaryThumbnail, tier.getSizeInPixels(), tier.getSizeInPixels());
+					FileSystemAccessWrapper.deleteFile(cachedThumbnail);
+					if (!temporaryThumbnail.renameTo(cachedThumbnail)) {
+						FileSystemAccessWrapper.deleteFile(temporaryThumbnail.getPath());
+						throw new IOException("Could not move the thumbnail to " + cachedThumbnail);
+					}
+					
+					addCachedThumbnail(cachedThumbnail);
+				} catch (IOException ex) {
+					LOGGER.error("The thumbnail " + cachedThumbnail + " could not be created", ex);
+				} finally {
+					PENDING_THUMBNAIL_PATHS.remove(cachedThumbnail.getPath());
+				}
+			}
+		});
+	}
+	
+	private static void schedulePacking(final AlbumItemPicture picture) {
+		if (!PENDING_THUMBNAIL_PATHS.add(picture.getThumbnailPicturePath())) {
+			return;
+		}
+		
+		GENERATION_EXECUTOR.execute(new ThumbnailTask(picture.getThumbnailPicturePath()) {
+			@Override
+			public void run() {
+				try {
+					if (!ThumbnailPack.addThumbnail(picture.getThumbnailPictureName(), new File(picture.getThumbnailPicturePath()))) {
+						LOGGER.warn("The thumbnail pack is full, hence the thumbnail {} is not packed", picture.getThumbnailPictureName());
+					}
+				} catch (IOException ex) {
+					LOGGER.error("The thumbnail " + picture.getThumbnailPicturePath() + " could not be packed", ex);
+				} finally {
+					PENDING_THUMBNAIL_PATHS.remove(picture.getThumbnailPicturePath());
+				}
+			}
+		});
+	}
+	
+	private static synchronized void addCachedThumbnail(File cachedThumbnail) {
+		loadCachedThumbnails();
+		
+		Long previousSize = CACHED_THUMBNAIL_SIZES.put(cachedThumbnail.getPath(), cachedThumbnail.length());
+		cacheSizeInBytes += cachedThumbnail.length() - (previousSize == null ? 0 : previousSize);
+		
+		evictLeastRecentlyUsedThumbnails();
+	}
+	
+	/** Reads the cached tiers of the active home directory, ordered by their last access */
+	private static void loadCachedThumbnails() {
+		String cacheDir = FileSystemLocations.getThumbnailCacheDir();
+		if (cacheDir.equals(loadedCacheDir)) {
+			return;
+		}
+		
+		CACHED_THUMBNAIL_SIZES.clear();
+		cacheSizeInBytes = 0;
+		loadedCacheDir = cacheDir;
+		
+		File[] cachedThumbnails = new File(cacheDir).listFiles();
+		if (cachedThumbnails == null) {
+			return;
+		}
+		
+		Arrays.sort(cachedThumbnails, new Comparator<File>() {
+			@Override
+			public int compare(File file, File otherFile) {
+				return Long.compare(file.lastModified(), otherFile.lastModified());
+			}
+		});
+		
+		for (File cachedThumbnail : cachedThumbnails) {
+			if (cachedThumbnail.getName().endsWith(FileSystemLocations.CACHED_THUMBNAIL_EXTENSION)) {
+				CACHED_THUMBNAIL_SIZES.put(cachedThumbnail.getPath(), cachedThumbnail.length());
+				cacheSizeInBytes += cachedThumbnail.length();
+			}
+		}
+		
+		evictLeastRecentlyUsedThumbnails();
+	}
+	
+	private static void evictLeastRecentlyUsedThumbnails() {
+		Iterator<Map.Entry<String, Long>> iterator = CACHED_THUMBNAIL_SIZES.entrySet().iterator();
+		
+		while (cacheSizeInBytes > MAX_CACHE_SIZE_IN_BYTES && iterator.hasNext()) {
+			Map.Entry<String, Long> leastRecentlyUsedThumbnail = iterator.next();
+			FileSystemAccessWrapper.deleteFile(leastRecentlyUsedThumbnail.getKey());
+			cacheSizeInBytes -= leastRecentlyUsedThumbnail.getValue();
+			iterator.remove();
+		}
+	}
+	
+	/** A background task which creates the thumbnail with the given pending path */
+	private abstract static class ThumbnailTask implements Runnable {
+		private final String thumbnailPath;
+		
+		private ThumbnailTask(String thumbnailPath) {
+			this.thumbnailPath = thumbnailPath;
+		}
+	}
+}
@@ -0,0 +1,533 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.view.image;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.model.settings.ThumbnailFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An optional store which packs copies of the thumbnails into a single file, such that the browser views can embed them without
+ * opening one file per thumbnail. Thumbnails are only ever appended to the pack file, while an index file records the name, offset
+ * and length of every appended thumbnail. The pack is read through a memory mapping.
+ * 
+ * The thumbnail files remain the authoritative copies, hence the pack can be deleted at any time. The thumbnails of removed pictures 
+ * stay in the pack until it is compacted, which copies the thumbnails still in use into a new generation of the pack. The new generation
+ * is written without holding the lock of the pack, which is only taken to replace the index and the mappings. Since a mapped file
+ * cannot be deleted on every platform, the previous generation is removed as soon as it is no longer mapped. Thumbnails appended
+ * after the pack has been mapped are read through an additional mapping of the appended region.
+ * 
+ * Only the {@link ThumbnailTier#MEDIUM} thumbnails are packed, hence displays with a higher density than {@value ThumbnailCache#DEFAULT_DPI}
+ * dpi are served the thumbnail files of the larger tiers instead.
+ */
+public final class ThumbnailPack {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailPack.class);
+	/** A single mapping cannot be larger than this */
+	private static final long MAX_PACK_SIZE_IN_BYTES = Integer.MAX_VALUE;
+	/** The number of mappings from which on the whole pack is mapped at once, such that many appends do not leave many small mappings */
+	private static final int MAX_NUMBER_OF_MAPPINGS = 16;
+	private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+	/** Matches the pack and index files of every generation, and captures the generation */
+	private static final Pattern PACK_FILE_PATTERN = Pattern.compile(Pattern.quote(FileSystemLocations.THUMBNAIL_PACK_NAME) + "\\.([0-9]+)(" + 
+			Pattern.quote(FileSystemLocations.THUMBNAIL_PACK_EXTENSION) + "|" + Pattern.quote(FileSystemLocations.THUMBNAIL_PACK_INDEX_EXTENSION) + ").*");
+	private static final char[] BASE64_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+	/** Serializes the compactions, which write the new generation of the pack without holding the class lock */
+	private static final Object COMPACTION_LOCK = new Object();
+	
+	/** The location of a thumbnail within the pack file */
+	private static final class PackedThumbnail {
+		private final long offset;
+		private final int length;
+		
+		private PackedThumbnail(long offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+	
+	/** The packed thumbnails by name, in the order in which they have been appended. Guarded by the class lock, as is all other state */
+	private static final Map<String, PackedThumbnail> PACKED_THUMBNAILS = new LinkedHashMap<String, PackedThumbnail>();
+	/** The directory for which the pack has been loaded, since the home directory might change */
+	private static String loadedPackDir = null;
+	private static long generation = 0;
+	/** The mappings of consecutive regions of the pack file by their offset, which do not contain the thumbnails appended afterwards */
+	private static final NavigableMap<Long, MappedByteBuffer> PACK_MAPPINGS = new TreeMap<Long, MappedByteBuffer>();
+	/** The length of the pack file which is covered by the mappings */
+	private static long mappedPackLength = 0;
+	
+	private ThumbnailPack() {
+		// use static methods
+	}
+	
+	/**
+	 * Returns the packed thumbnail as data URI, which can be used as image source within the browser views.
+	 * @param thumbnailName the file name of the thumbnail
+	 * @return the data URI, or null if the thumbnail is not packed
+	 */
+	public static String getThumbnailAsDataUri(String thumbnailName) {
+		ThumbnailFormat thumbnailFormat = ThumbnailFormat.byFileName(thumbnailName);
+		if (thumbnailFormat == null) {
+			return null;
+		}
+		
+		try {
+			byte[] thumbnail = getThumbnail(thumbnailName);
+			if (thumbnail != null) {
+				return "data:" + thumbnailFormat.getMimeType() + ";base64," + encodeBase64(thumbnail);
+			}
+		} catch (IOException ex) {
+			LOGGER.error("The packed thumbnail " + thumbnailName + " could not be read", ex);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Reads a packed thumbnail from the mapped pack file.
+	 * @param thumbnailName the file name of the thumbnail
+	 * @return the content of the thumbnail file, or null if the thumbnail is not packed
+	 */
+	static synchronized byte[] getThumbnail(String thumbnailName) throws IOException {
+		loadPack();
+		
+		PackedThumbnail packedThumbnail = PACKED_THUMBNAILS.get(thumbnailName);
+		if (packedThumbnail == null) {
+			return null;
+		}
+		
+		// Thumbnails appended since the pack file has been mapped are only visible in a new mapping
+		if (packedThumbnail.offset + packedThumbnail.length > mappedPackLength) {
+			mapAppendedThumbnails();
+			
+			if (packedThumbnail.offset + packedThumbnail.length > mappedPackLength) {
+				loadedPackDir = null;
+				throw new IOException("The thumbnail pack is shorter than its index");
+			}
+		}
+		
+		// Thumbnails are appended behind the end of the file, hence every thumbnail is contained in a single mapping
+		Map.Entry<Long, MappedByteBuffer> packMapping = PACK_MAPPINGS.floorEntry(packedThumbnail.offset);
+		byte[] thumbnail = new byte[packedThumbnail.length];
+		ByteBuffer packView = packMapping.getValue().duplicate();
+		packView.position((int) (packedThumbnail.offset - packMapping.getKey()));
+		packView.get(thumbnail);
+		
+		return thumbnail;
+	}
+	
+	/**
+	 * Appends a thumbnail to the pack, unless it is already packed.
+	 * @param thumbnailName the file name of the thumbnail
+	 * @param thumbnailFile the thumbnail file
+	 * @return true if the thumbnail is packed, false if the pack is full
+	 */
+	static synchronized boolean addThumbnail(String thumbnailName, File thumbnailFile) throws IOException {
+		loadPack();
+		
+		if (PACKED_THUMBNAILS.containsKey(thumbnailName)) {
+			return true;
+		}
+		
+		File packFile = getPackFile(loadedPackDir, generation);
+		// The pack file might end with a thumbnail whose index entry could not be written
+		long offset = packFile.length();
+		
+		if (offset + thumbnailFile.length() > MAX_PACK_SIZE_IN_BYTES) {
+			return false;
+		}
+		
+		byte[] thumbnail = Files.readAllBytes(thumbnailFile.toPath());
+		if (!packFile.getParentFile().exists() && !packFile.getParentFile().mkdirs()) {
+			throw new IOException("Could not create the thumbnail cache directory");
+		}
+		
+		// The thumbnail is written before its index entry, such that the index never refers to missing data
+		try (FileOutputStream packOutputStream = new FileOutputStream(packFile, true)) {
+			packOutputStream.write(thumbnail);
+		}
+		try (DataOutputStream indexOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getIndexFile(loadedPackDir, generation), true)))) {
+			writeIndexEntry(indexOutputStream, thumbnailName, offset, thumbnail.length);
+		}
+		
+		PACKED_THUMBNAILS.put(thumbnailName, new PackedThumbnail(offset, thumbnail.length));
+		return true;
+	}
+	
+	/**
+	 * Removes the thumbnails of pictures which no longer exist from the pack.
+	 * @return the number of removed thumbnails
+	 * @throws DatabaseWrapperOperationException if the pictures could not be retrieved
+	 * @throws IOException if the compacted pack could not be written, in which case the current pack is kept
+	 */
+	public static int compact() throws DatabaseWrapperOperationException, IOException {
+		Set<String> thumbnailNamesInUse = new HashSet<String>();
+		
+		for (String albumName : DatabaseOperations.getListOfAllAlbums()) {
+			for (AlbumItemPicture picture : DatabaseOperations.getAllAlbumItemPictures(albumName)) {
+				thumbnailNamesInUse.add(picture.getThumbnailPictureName());
+			}
+		}
+		
+		return compact(thumbnailNamesInUse);
+	}
+	
+	/**
+	 * Writes a new generation of the pack, which only contains the given thumbnails and those appended during the compaction.
+	 * The thumbnails are copied from a snapshot of the index, such that the pack can be read and appended in the meantime.
+	 * @param thumbnailNamesInUse the file names of the thumbnails to be kept
+	 * @return the number of removed thumbnails
+	 * @throws IOException if the compacted pack could not be written, in which case the current pack is kept
+	 */
+	static int compact(Set<String> thumbnailNamesInUse) throws IOException {
+		synchronized (COMPACTION_LOCK) {
+			Map<String, PackedThumbnail> snapshotThumbnails;
+			String packDir;
+			long snapshotGeneration;
+			FileChannel snapshotPackChannel;
+			
+			synchronized (ThumbnailPack.class) {
+				loadPack();
+				
+				int numberOfRemovedThumbnails = 0;
+				for (String thumbnailName : PACKED_THUMBNAILS.keySet()) {
+					if (!thumbnailNamesInUse.contains(thumbnailName)) {
+						numberOfRemovedThumbnails++;
+					}
+				}
+				
+				if (numberOfRemovedThumbnails == 0) {
+					return 0;
+				}
+				
+				snapshotThumbnails = new LinkedHashMap<String, PackedThumbnail>(PACKED_THUMBNAILS);
+				packDir = loadedPackDir;
+				snapshotGeneration = generation;
+				// The channel keeps the snapshot readable, even if the pack is replaced in the meantime
+				snapshotPackChannel = FileChannel.open(getPackFile(packDir, snapshotGeneration).toPath(), StandardOpenOption.READ);
+			}
+			
+			File temporaryPackFile = new File(getPackFile(packDir, snapshotGeneration + 1).getPath() + TEMPORARY_FILE_EXTENSION);
+			File temporaryIndexFile = new File(getIndexFile(packDir, snapshotGeneration + 1).getPath() + TEMPORARY_FILE_EXTENSION);
+			Map<String, PackedThumbnail> compactedThumbnails = new LinkedHashMap<String, PackedThumbnail>();
+			
+			try {
+				try (FileChannel packChannel = snapshotPackChannel;
+					 FileOutputStream packOutputStream = new FileOutputStream(temporaryPackFile);
+					 DataOutputStream indexOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryIndexFile)))) {
+					long offset = 0;
+					
+					for (Map.Entry<String, PackedThumbnail> snapshotThumbnail : snapshotThumbnails.entrySet()) {
+						if (thumbnailNamesInUse.contains(snapshotThumbnail.getKey())) {
+							byte[] thumbnail = readThumbnail(packChannel, snapshotThumbnail.getValue());
+							packOutputStream.write(thumbnail);
+							writeIndexEntry(indexOutputStream, snapshotThumbnail.getKey(), offset, thumbnail.length);
+							compactedThumbnails.put(snapshotThumbnail.getKey(), new PackedThumbnail(offset, thumbnail.length));
+							offset += thumbnail.length;
+						}
+					}
+				}
+				
+				return replacePack(packDir, snapshotGeneration, snapshotThumbnails.keySet(), 
+						compactedThumbnails, temporaryPackFile, temporaryIndexFile);
+			} finally {
+				// The temporary files have been moved, unless the compaction failed or has been abandoned
+				deleteFile(temporaryPackFile);
+				deleteFile(temporaryIndexFile);
+			}
+		}
+	}
+	
+	/**
+	 * Replaces the pack by its compacted generation, after the thumbnails appended during the compaction have been copied as well.
+	 * @return the number of removed thumbnails, or 0 if the pack has been replaced in the meantime
+	 */
+	private static synchronized int replacePack(String packDir, long snapshotGeneration, Set<String> snapshotThumbnailNames, 
+			Map<String, PackedThumbnail> compactedThumbnails, File temporaryPackFile, File temporaryIndexFile) throws IOException {
+		loadPack();
+		
+		// e.g. the pack has been cleared, or the home directory has been changed
+		if (!packDir.equals(loadedPackDir) || generation != snapshotGeneration) {
+			return 0;
+		}
+		
+		long compactedGeneration = snapshotGeneration + 1;
+		File compactedPackFile = getPackFile(packDir, compactedGeneration);
+		
+		try {
+			try (FileOutputStream packOutputStream = new FileOutputStream(temporaryPackFile, true);
+				 DataOutputStream indexOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryIndexFile, true)))) {
+				long offset = temporaryPackFile.length();
+				
+				for (String thumbnailName : PACKED_THUMBNAILS.keySet()) {
+					if (!snapshotThumbnailNames.contains(thumbnailName)) {
+						byte[] thumbnail = getThumbnail(thumbnailName);
+						packOutputStream.write(thumbnail);
+						writeIndexEntry(indexOutputStream, thumbnailName, offset, thumbnail.length);
+						compactedThumbnails.put(thumbnailName, new PackedThumbnail(offset, thumbnail.length));
+						offset += thumbnail.length;
+					}
+				}
+			}
+			
+			// The compacted generation only becomes visible once its index is complete
+			deleteFile(compactedPackFile);
+			if (!temporaryPackFile.renameTo(compactedPackFile)) {
+				throw new IOException("Could not move the pack to " + compactedPackFile);
+			}
+			if (!temporaryIndexFile.renameTo(getIndexFile(packDir, compactedGeneration))) {
+				throw new IOException("Could not move the index to " + getIndexFile(packDir, compactedGeneration));
+			}
+		} catch (IOException ex) {
+			deleteFile(compactedPackFile);
+			throw ex;
+		}
+		
+		int numberOfRemovedThumbnails = PACKED_THUMBNAILS.size() - compactedThumbnails.size();
+		PACKED_THUMBNAILS.clear();
+		PACKED_THUMBNAILS.putAll(compactedThumbnails);
+		generation = compactedGeneration;
+		discardPackMappings();
+		deletePreviousGenerations();
+		
+		LOGGER.info("{} thumbnails of removed pictures have been removed from the thumbnail pack", numberOfRemovedThumbnails);
+		return numberOfRemovedThumbnails;
+	}
+	
+	/** Compacts the pack in the background, see {@link #compact()} */
+	public static void compactInBackground() {
+		Thread compactionThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					compact();
+				} catch (DatabaseWrapperOperationException | IOException ex) {
+					LOGGER.error("The thumbnail pack could not be compacted", ex);
+				}
+			}
+		}, "thumbnail-pack-compaction");
+		
+		compactionThread.setDaemon(true);
+		compactionThread.start();
+	}
+	
+	/** Removes all thumbnails from the pack, e.g. once the pack is no longer used */
+	public static synchronized void clear() {
+		loadPack();
+		
+		PACKED_THUMBNAILS.clear();
+		discardPackMappings();
+		generation++;
+		deletePreviousGenerations();
+	}
+	
+	/** Reads the index of the latest generation of the pack within the active home directory */
+	private static void loadPack() {
+		String packDir = FileSystemLocations.getThumbnailCacheDir();
+		if (packDir.equals(loadedPackDir)) {
+			return;
+		}
+		
+		PACKED_THUMBNAILS.clear();
+		discardPackMappings();
+		generation = 0;
+		loadedPackDir = packDir;
+		
+		File[] packFiles = new File(packDir).listFiles();
+		if (packFiles == null) {
+			return;
+		}
+		
+		// Incomplete generations of an interrupted compaction have no index yet
+		for (File packFile : packFiles) {
+			Matcher matcher = PACK_FILE_PATTERN.matcher(packFile.getName());
+			if (matcher.matches() && packFile.getName().endsWith(FileSystemLocations.THUMBNAIL_PACK_INDEX_EXTENSION)) {
+				generation = Math.max(generation, Long.parseLong(matcher.group(1)));
+			}
+		}
+		
+		File indexFile = getIndexFile(loadedPackDir, generation);
+		if (indexFile.exists()) {
+			try {
+				readIndex(indexFile, getPackFile(loadedPackDir, generation).length());
+			} catch (IOException ex) {
+				LOGGER.error("The index of the thumbnail pack could not be read, hence a new pack is started", ex);
+				PACKED_THUMBNAILS.clear();
+				generation++;
+			}
+		}
+		
+		deletePreviousGenerations();
+	}
+	
+	/**
+	 * Maps the region of the pack file which has been appended since the last mapping, such that all thumbnails appended in the
+	 * meantime are mapped at once. Once there are too many mappings, the whole pack file is mapped again instead.
+	 */
+	private static void mapAppendedThumbnails() throws IOException {
+		try (FileChannel packChannel = FileChannel.open(getPackFile(loadedPackDir, generation).toPath(), StandardOpenOption.READ)) {
+			if (PACK_MAPPINGS.size() >= MAX_NUMBER_OF_MAPPINGS) {
+				discardPackMappings();
+			}
+			
+			long packLength = packChannel.size();
+			if (packLength > mappedPackLength) {
+				PACK_MAPPINGS.put(mappedPackLength, packChannel.map(FileChannel.MapMode.READ_ONLY, mappedPackLength, packLength - mappedPackLength));
+				mappedPackLength = packLength;
+			}
+		} catch (IOException ex) {
+			// The pack has been removed from outside, e.g. by restoring a backup. It is read again on the next access
+			loadedPackDir = null;
+			throw ex;
+		}
+	}
+	
+	private static void discardPackMappings() {
+		PACK_MAPPINGS.clear();
+		mappedPackLength = 0;
+	}
+	
+	private static void readIndex(File indexFile, long packFileLength) throws IOException {
+		byte[] index = Files.readAllBytes(indexFile.toPath());
+		ByteArrayInputStream indexInputStream = new ByteArrayInputStream(index);
+		DataInputStream indexReader = new DataInputStream(indexInputStream);
+		int completeIndexLength = 0;
+		
+		while (indexInputStream.available() > 0) {
+			try {
+				String thumbnailName = indexReader.readUTF();
+				long offset = indexReader.readLong();
+				int length = indexReader.readInt();
+				
+				// The application might have been terminated before the thumbnail had been completely written
+				if (offset + length > packFileLength) {
+					break;
+				}
+				
+				PACKED_THUMBNAILS.put(thumbnailName, new PackedThumbnail(offset, length));
+				completeIndexLength = index.length - indexInputStream.available();
+			} catch (EOFException ex) {
+				break;
+			}
+		}
+		
+		// Incomplete entries are removed, since further entries are appended
+		if (completeIndexLength < index.length) {
+			try (RandomAccessFile indexAccess = new RandomAccessFile(indexFile, "rw")) {
+				indexAccess.setLength(completeIndexLength);
+			}
+		}
+	}
+	
+	private static byte[] readThumbnail(FileChannel packChannel, PackedThumbnail packedThumbnail) throws IOException {
+		ByteBuffer thumbnail = ByteBuffer.allocate(packedThumbnail.length);
+		
+		while (thumbnail.hasRemaining()) {
+			if (packChannel.read(thumbnail, packedThumbnail.offset + thumbnail.position()) < 0) {
+				throw new EOFException("The thumbnail pack is shorter than its index");
+			}
+		}
+		
+		return thumbnail.array();
+	}
+	
+	private static void writeIndexEntry(DataOutputStream indexOutputStream, String thumbnailName, long offset, int length) throws IOException {
+		indexOutputStream.writeUTF(thumbnailName);
+		indexOutputStream.writeLong(offset);
+		indexOutputStream.writeInt(length);
+	}
+	
+	private static void deletePreviousGenerations() {
+		File[] packFiles = new File(loadedPackDir).listFiles();
+		if (packFiles == null) {
+			return;
+		}
+		
+		for (File packFile : packFiles) {
+			Matcher matcher = PACK_FILE_PATTERN.matcher(packFile.getName());
+			if (matcher.matches() && Long.parseLong(matcher.group(1)) != generation) {
+				deleteFile(packFile);
+			}
+		}
+	}
+	
+	private static void deleteFile(File file) {
+		if (file.exists() && !file.delete()) {
+			LOGGER.debug("The file {} could not be deleted yet", file);
+		}
+	}
+	
+	private static File getPackFile(String packDir, long packGeneration) {
+		return new File(packDir + File.separatorChar + 
+				FileSystemLocations.THUMBNAIL_PACK_NAME + "." + packGeneration + FileSystemLocations.THUMBNAIL_PACK_EXTENSION);
+	}
+	
+	private static File getIndexFile(String packDir, long packGeneration) {
+		return new File(packDir + File.separatorChar + 
+				FileSystemLocations.THUMBNAIL_PACK_NAME + "." + packGeneration + FileSystemLocations.THUMBNAIL_PACK_INDEX_EXTENSION);
+	}
+	
+	private static String encodeBase64(byte[] data) {
+		StringBuilder encodedData = new StringBuilder((data.length + 2) / 3 * 4);
+		
+		for (int i = 0; i < data.length; i += 3) {
+			int remainingBytes = Math.min(3, data.length - i);
+			int block = (data[i] & 0xFF) << 16;
+			if (remainingBytes > 1) {
+				block |= (data[i + 1] & 0xFF) << 8;
+			}
+			if (remainingBytes > 2) {
+				block |= data[i + 2] & 0xFF;
+			}
+			
+			encodedData.append(BASE64_CHARACTERS[(block >> 18) & 0x3F]);
+			encodedData.append(BASE64_CHARACTERS[(block >> 12) & 0x3F]);
+			encodedData.append(remainingBytes > 1 ? BASE64_CHARACTERS[(block >> 6) & 0x3F] : '=');
+			encodedData.append(remainingBytes > 2 ? BASE64_CHARACTERS[block & 0x3F] : '=');
+		}
+		
+		return encodedData.toString();
+	}
+}
@@ -0,0 +1,157 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.view.image;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.swt.widgets.Display;
+import org.sammelbox.controller.GuiController;
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.SettingsManager;
+import org.sammelbox.controller.managers.UnitOfWork;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.database.QueryBuilder;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.model.settings.ThumbnailFormat;
+import org.sammelbox.view.browser.BrowserFacade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the existing thumbnails in the format configured in the settings, e.g. after the format has been changed. The thumbnails
+ * of an album are re-encoded into new files, whose names replace the old ones in the picture table within a single transaction.
+ * The old files are only deleted once the transaction has been committed, such that every stored name refers to an existing file.
+ * Pictures which have been changed or removed while their thumbnails were re-encoded keep their current thumbnails.
+ */
+public final class ThumbnailReencoder {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailReencoder.class);
+	
+	/** Re-encoding jobs are executed one after another, such that a later job finds the work of an earlier one done */
+	private static final ExecutorService REENCODING_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread reencodingThread = new Thread(runnable, "thumbnail-reencoding");
+			reencodingThread.setDaemon(true);
+			return reencodingThread;
+		}
+	});
+	
+	private ThumbnailReencoder() {
+		// use static methods
+	}
+	
+	/** Re-encodes the existing thumbnails in the background. Once thumbnails have been re-encoded, the selected album is reloaded. */
+	public static void reencodeThumbnailsInBackground() {
+		REENCODING_EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (reencodeThumbnails() > 0) {
+						Display.getDefault().asyncExec(new Runnable() {
+							@Override
+							public void run() {
+								if (GuiController.getGuiState().isAlbumSelected()) {
+									BrowserFacade.performBrowserQueryAndShow(
+											QueryBuilder.createOrderedSelectStarQuery(GuiController.getGuiState().getSelectedAlbum()));
+								}
+							}
+						});
+					}
+				} catch (DatabaseWrapperOperationException ex) {
+					LOGGER.error("An error occurred while re-encoding the thumbnails", ex);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Re-encodes all thumbnails which are not stored in the configured format. Thumbnails which cannot be read are kept as they are.
+	 * @return the number of re-encoded thumbnails
+	 * @throws DatabaseWrapperOperationException if the new names could not be stored, in which case the album keeps its old thumbnails
+	 */
+	public static int reencodeThumbnails() throws DatabaseWrapperOperationException {
+		ThumbnailFormat thumbnailFormat = SettingsManager.getSettings().getThumbnailFormat();
+		int thumbnailQuality = SettingsManager.getSettings().getThumbnailQuality();
+		int numberOfReencodedThumbnails = 0;
+		
+		for (String albumName : DatabaseOperations.getListOfAllAlbums()) {
+			numberOfReencodedThumbnails += reencodeThumbnails(albumName, thumbnailFormat, thumbnailQuality);
+		}
+		
+		return numberOfReencodedThumbnails;
+	}
+	
+	private static int reencodeThumbnails(String albumName, ThumbnailFormat thumbnailFormat, int thumbnailQuality) throws DatabaseWrapperOperationException {
+		Map<String, AlbumItemPicture> reencodedPicturesByOldThumbnailName = new LinkedHashMap<String, AlbumItemPicture>();
+		
+		for (AlbumItemPicture picture : DatabaseOperations.getAllAlbumItemPictures(albumName)) {
+			if (thumbnailFormat.equals(ThumbnailFormat.byFileName(picture.getThumbnailPictureName()))) {
+				continue;
+			}
+			
+			String reencodedThumbnailName = UUID.randomUUID().toString() + "." + thumbnailFormat.getFileExtension();
+			try {
+				ImageManipulator.reencodeThumbnail(new File(picture.getThumbnailPicturePath()), 
+						new File(FileSystemLocations.getThumbnailsDir() + File.separatorChar + reencodedThumbnailName), thumbnailFormat, thumbnailQuality);
+			} catch (IOException ex) {
+				LOGGER.warn("The thumbnail " + picture.getThumbnailPicturePath() + " could not be re-encoded", ex);
+				continue;
+			}
+			
+			reencodedPicturesByOldThumbnailName.put(picture.getThumbnailPictureName(), picture);
+			picture.setThumbnailPictureName(reencodedThumbnailName);
+		}
+		
+		if (reencodedPicturesByOldThumbnailName.isEmpty()) {
+			return 0;
+		}
+		
+		Set<String> replacedThumbnailNames = Collections.emptySet();
+		try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+			Set<String> updatedThumbnailNames = DatabaseOperations.updateThumbnailPictureNames(albumName, reencodedPicturesByOldThumbnailName);
+			unitOfWork.commit();
+			replacedThumbnailNames = updatedThumbnailNames;
+		} finally {
+			// Only the thumbnails which are no longer referenced are deleted
+			for (Map.Entry<String, AlbumItemPicture> reencodedPictureByOldThumbnailName : reencodedPicturesByOldThumbnailName.entrySet()) {
+				if (replacedThumbnailNames.contains(reencodedPictureByOldThumbnailName.getKey())) {
+					FileSystemAccessWrapper.deleteFile(
+							FileSystemLocations.getThumbnailsDir() + File.separatorChar + reencodedPictureByOldThumbnailName.getKey());
+				} else {
+					FileSystemAccessWrapper.deleteFile(reencodedPictureByOldThumbnailName.getValue().getThumbnailPicturePath());
+				}
+			}
+		}
+		
+		LOGGER.info("{} thumbnails of the album {} have been stored as {}", replacedThumbnailNames.size(), albumName, thumbnailFormat);
+		return replacedThumbnailNames.size();
+	}
+}
@@ -0,0 +1,54 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.view.image;
+
+/** The resolutions in which thumbnails are available. Each resolution exists twice, the second tier serving high density displays. */
+public enum ThumbnailTier {
+	SMALL(64),
+	SMALL_HIDPI(128),
+	/** The tier of the thumbnails which are created when a picture is added */
+	MEDIUM(200),
+	MEDIUM_HIDPI(400),
+	LARGE(800),
+	LARGE_HIDPI(1600);
+	
+	/** The maximum width and height in pixels */
+	private final int sizeInPixels;
+	
+	private ThumbnailTier(int sizeInPixels) {
+		this.sizeInPixels = sizeInPixels;
+	}
+	
+	public int getSizeInPixels() {
+		return sizeInPixels;
+	}
+	
+	/** Returns the smallest tier which is at least as large as the given number of physical pixels
+	 * @param sizeInPixels the maximum width and height in which the picture is displayed
+	 * @return the matching tier, or null if the pictures should be displayed in their original resolution */
+	public static ThumbnailTier forSize(int sizeInPixels) {
+		for (ThumbnailTier tier : values()) {
+			if (tier.sizeInPixels >= sizeInPixels) {
+				return tier;
+			}
+		}
+		
+		return null;
+	}
+}
@@ -189,6 +189,16 @@ public final class BasicAlbumItemSidepane {
 				}
 				
 				AlbumItem albumItem = new AlbumItem(ApplicationUI.getSelectedAlbum());
+				if (isUpdateAlbumItemComposite) {
+					try {
+						// Starting from the stored album item, only the fields and pictures which have been changed are written
+						albumItem = DatabaseOperations.getAlbumItem(ApplicationUI.getSelectedAlbum(), albumItemId);
+						albumItem.getPictures();
+					} catch (DatabaseWrapperOperationException ex) {
+						LOGGER.error("The album item #" + albumItemId + " could not be retrieved", ex);
+						return;
+					}
+				}
 				
 				for (Control control : composite.getChildren()) {
 					if (control.getData(AlbumItemPicture.ALBUM_ITEM_PICTURE) != null) {
@@ -200,11 +210,11 @@ public final class BasicAlbumItemSidepane {
 						
 						if(fieldType.equals(FieldType.TEXT)) {
 							Text text = (Text) control;
-							albumItem.addField((String) text.getData("FieldName"), (FieldType) text.getData("FieldType"), text.getText());
+							setField(albumItem, (String) text.getData("FieldName"), (FieldType) text.getData("FieldType"), text.getText());
 						
 						} else if (fieldType.equals(FieldType.URL)) {
 							Text url = (Text) control;
-							albumItem.addField((String) url.getData("FieldName"), (FieldType) url.getData("FieldType"), url.getText());
+							setField(albumItem, (String) url.getData("FieldName"), (FieldType) url.getData("FieldType"), url.getText());
 						
 						} else if (fieldType.equals(FieldType.DECIMAL)) {
 							Text text = (Text) control;
@@ -214,7 +224,7 @@ public final class BasicAlbumItemSidepane {
 								number = Double.parseDouble(text.getText());
 							}
 
-							albumItem.addField((String) text.getData("FieldName"), (FieldType) text.getData("FieldType"), number);
+							setField(albumItem, (String) text.getData("FieldName"), (FieldType) text.getData("FieldType"), number);
 						
 						} else if (fieldType.equals(FieldType.INTEGER)) {
 							Text text = (Text) control;
@@ -224,7 +234,7 @@ public final class BasicAlbumItemSidepane {
 								integer = Integer.parseInt(text.getText());
 							}
 
-							albumItem.addField((String) text.getData("FieldName"), (FieldType) text.getData("FieldType"), integer);
+							setField(albumItem, (String) text.getData("FieldName"), (FieldType) text.getData("FieldType"), integer);
 						
 						} else if (fieldType.equals(FieldType.DATE)) {
 							Composite dateComposite = (Composite) control;
@@ -234,18 +244,23 @@ public final class BasicAlbumItemSidepane {
 									DateTime dateTime = (DateTime) dateControl;
 									
 									if (!dateTime.getEnabled()) {
-										albumItem.addField((String) dateTime.getData("FieldName"), (FieldType) dateTime.getData("FieldType"), null);
+										setField(albumItem, (String) dateTime.getData("FieldName"), (FieldType) dateTime.getData("FieldType"), null);
 									} else {
 										Calendar calendar = Calendar.getInstance();
+										ItemField storedDate = albumItem.getField((String) dateTime.getData("FieldName"));
+										if (storedDate != null && storedDate.getValue() != null) {
+											// The time of the stored date is kept, such that an unchanged day is not written again
+											calendar.setTime((java.util.Date) storedDate.getValue());
+										}
 										calendar.set(dateTime.getYear(), dateTime.getMonth(), dateTime.getDay());
-										albumItem.addField((String) dateTime.getData("FieldName"), (FieldType) dateTime.getData("FieldType"), new Date(calendar.getTimeInMillis()));
+										setField(albumItem, (String) dateTime.getData("FieldName"), (FieldType) dateTime.getData("FieldType"), new Date(calendar.getTimeInMillis()));
 									}
 								}
 							}
 						
 						} else if (fieldType.equals(FieldType.STAR_RATING)) {							
 							Combo combo = (Combo) control;
-							albumItem.addField((String) combo.getData("FieldName"), (FieldType) combo.getData("FieldType"), StarRating.values()[combo.getSelectionIndex()]);
+							setField(albumItem, (String) combo.getData("FieldName"), (FieldType) combo.getData("FieldType"), StarRating.values()[combo.getSelectionIndex()]);
 						
 						} else if (fieldType.equals(FieldType.OPTION)) {
 							Composite yesNoComposite = (Composite) control;
@@ -253,11 +268,11 @@ public final class BasicAlbumItemSidepane {
 								Button radioButton = (Button) yesNoControl;
 
 								if (((Boolean) radioButton.getData("yesButton")) && radioButton.getSelection()) {
-									albumItem.addField((String) control.getData("FieldName"), (FieldType) fieldType, OptionType.YES);
+									setField(albumItem, (String) control.getData("FieldName"), (FieldType) fieldType, OptionType.YES);
 								} else if (((Boolean) radioButton.getData("noButton")) && radioButton.getSelection()) {
-									albumItem.addField((String) control.getData("FieldName"), (FieldType) fieldType, OptionType.NO);
+									setField(albumItem, (String) control.getData("FieldName"), (FieldType) fieldType, OptionType.NO);
 								} else if (((Boolean) radioButton.getData("unknownButton")) && radioButton.getSelection()) {
-									albumItem.addField((String) control.getData("FieldName"), (FieldType) fieldType, OptionType.UNKNOWN);
+									setField(albumItem, (String) control.getData("FieldName"), (FieldType) fieldType, OptionType.UNKNOWN);
 								}
 							}
 						}
@@ -266,8 +281,6 @@ public final class BasicAlbumItemSidepane {
 			
 				try {
 					if (isUpdateAlbumItemComposite) {
-						albumItem.addField("id", FieldType.ID, albumItemId);
-						
 						DatabaseOperations.updateAlbumItem(albumItem);
 						BrowserFacade.generateAlbumItemUpdatedPage(albumItemId);
 					} else {						
@@ -286,6 +299,16 @@ public final class BasicAlbumItemSidepane {
 		};
 	}
 	
+	/** Sets the value of a field, which is added if the album item does not have it yet. Existing fields are only marked
+	 * dirty if their value changes */
+	private static void setField(AlbumItem albumItem, String fieldName, FieldType fieldType, Object value) {
+		if (albumItem.getField(fieldName) == null) {
+			albumItem.addField(fieldName, fieldType, value);
+		} else {
+			albumItem.setFieldValue(fieldName, value);
+		}
+	}
+	
 	private static ModifyListener getModifyListener() {
 		return new ModifyListener() {
 			@Override
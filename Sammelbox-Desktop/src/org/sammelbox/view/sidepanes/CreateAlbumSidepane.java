@@ -340,7 +340,7 @@ public final class CreateAlbumSidepane {
 				ApplicationUI.refreshAlbumList();
 				ApplicationUI.setSelectedAlbumAndReload(albumName);
 				
-				BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createOrderedSelectStarQuery(albumName));
+				BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createOrderedSelectUserFieldsQuery(albumName));
 
 				ApplicationUI.changeRightCompositeTo(PanelType.EMPTY, EmptySidepane.build(parentComposite));
 			}
@@ -18,6 +18,7 @@ import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.model.album.AlbumItemPicture;
 import org.sammelbox.view.image.ImageDropAndManagementComposite;
+import org.sammelbox.view.image.ThumbnailCache;
 import org.sammelbox.view.various.ComponentFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,7 +93,7 @@ public final class ImageViewerSidepane extends Composite {
 		imageScrolledComposite.setLayoutData(gridData);
 		
 		for (final AlbumItemPicture picture : pictures) {			
-			Image originalImage = new Image(Display.getCurrent(), picture.getOriginalPicturePath());
+			Image originalImage = new Image(Display.getCurrent(), ThumbnailCache.getThumbnailPath(picture, MAX_HEIGHT_OR_WIDTH_IN_PIXELS));
 			Image scaledImage;
 			
 			Rectangle originalImageBounds = originalImage.getBounds();
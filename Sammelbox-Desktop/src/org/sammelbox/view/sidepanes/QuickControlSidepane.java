@@ -36,6 +36,7 @@ import org.sammelbox.controller.managers.AlbumManager;
 import org.sammelbox.controller.managers.SavedSearchManager;
 import org.sammelbox.controller.managers.SavedSearchManager.SavedSearch;
 import org.sammelbox.model.GuiState;
+import org.sammelbox.model.album.AlbumItemStore;
 import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
@@ -217,7 +218,18 @@ public final class QuickControlSidepane {
 				
 				String selectedName = GuiController.getGuiState().getSelectedAlbum();
 				AlbumManager.setSortByField(selectedName, sortByField);
-				BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createOrderedSelectStarQuery(selectedName));
+				
+				// The loaded album items are sorted in memory if possible, otherwise they are queried in the new order
+				try {
+					if (AlbumItemStore.sortAlbumItems(selectedName, sortByField, true)) {
+						BrowserFacade.showAlbum();
+						return;
+					}
+				} catch (DatabaseWrapperOperationException ex) {
+					LOGGER.error("The album items of the album '" + selectedName + "' could not be sorted by '" + sortByField + "'", ex);
+				}
+				
+				BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createOrderedSelectUserFieldsQuery(selectedName));
 			}
 		});
 		
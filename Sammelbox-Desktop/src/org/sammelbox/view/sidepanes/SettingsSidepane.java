@@ -36,7 +36,10 @@ import org.sammelbox.controller.i18n.Language;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.controller.managers.SettingsManager;
 import org.sammelbox.model.settings.ApplicationSettings;
+import org.sammelbox.model.settings.ThumbnailFormat;
 import org.sammelbox.view.SammelView;
+import org.sammelbox.view.image.ThumbnailPack;
+import org.sammelbox.view.image.ThumbnailReencoder;
 import org.sammelbox.view.various.ComponentFactory;
 
 public final class SettingsSidepane {
@@ -56,6 +59,7 @@ public final class SettingsSidepane {
     }
     
     private static final int DEFAULT_COMPOSITE_HEIGHT_IN_PIXELS = 15;
+    private static final String[] THUMBNAIL_QUALITIES = new String[] { "50", "60", "70", "75", "80", "85", "90", "95", "100" };
 	
     private SettingsSidepane() {
 		// use build method instead
@@ -133,6 +137,41 @@ public final class SettingsSidepane {
 		}
 		fullSynchronizationCombo.setLayoutData(gridData);
 		
+		Label thumbnailFormat = new Label(innerComposite, SWT.NONE);
+		thumbnailFormat.setText(Translator.get(DictKeys.LABEL_THUMBNAIL_FORMAT));
+		
+		final Combo thumbnailFormatCombo = new Combo(innerComposite, SWT.READ_ONLY|SWT.BORDER|SWT.H_SCROLL);
+		String[] thumbnailFormats = new String[ThumbnailFormat.values().length];
+		for (int i=0; i<ThumbnailFormat.values().length; i++) {
+			thumbnailFormats[i] = ThumbnailFormat.values()[i].toString();
+		}
+		thumbnailFormatCombo.setItems(thumbnailFormats);
+		thumbnailFormatCombo.setText(SettingsManager.getSettings().getThumbnailFormat().toString());
+		thumbnailFormatCombo.setLayoutData(gridData);
+		
+		Label thumbnailQuality = new Label(innerComposite, SWT.NONE);
+		thumbnailQuality.setText(Translator.get(DictKeys.LABEL_THUMBNAIL_QUALITY));
+		
+		final Combo thumbnailQualityCombo = new Combo(innerComposite, SWT.READ_ONLY|SWT.BORDER|SWT.H_SCROLL);
+		thumbnailQualityCombo.setItems(THUMBNAIL_QUALITIES);
+		thumbnailQualityCombo.setText(String.valueOf(SettingsManager.getSettings().getThumbnailQuality()));
+		if (thumbnailQualityCombo.getText().isEmpty()) {
+			thumbnailQualityCombo.setText(String.valueOf(new ApplicationSettings().getThumbnailQuality()));
+		}
+		thumbnailQualityCombo.setLayoutData(gridData);
+		
+		Label thumbnailPack = new Label(innerComposite, SWT.NONE);
+		thumbnailPack.setText(Translator.get(DictKeys.LABEL_THUMBNAIL_PACK));
+		
+		final Combo thumbnailPackCombo = new Combo(innerComposite, SWT.READ_ONLY|SWT.BORDER|SWT.H_SCROLL);
+		thumbnailPackCombo.setItems(new String[] { Translator.get(DictKeys.COMBOBOX_CONTENT_YES), Translator.get(DictKeys.COMBOBOX_CONTENT_NO) });
+		if (SettingsManager.getSettings().isThumbnailPackEnabled()) {
+			thumbnailPackCombo.setText(Translator.get(DictKeys.COMBOBOX_CONTENT_YES));
+		} else {
+			thumbnailPackCombo.setText(Translator.get(DictKeys.COMBOBOX_CONTENT_NO));
+		}
+		thumbnailPackCombo.setLayoutData(gridData);
+		
 		Label seperator = new Label(settingsComposite, SWT.SEPARATOR | SWT.HORIZONTAL);
 		GridData gridDataForSeperator = new GridData(GridData.FILL_BOTH);
 		gridDataForSeperator.heightHint = DEFAULT_COMPOSITE_HEIGHT_IN_PIXELS;
@@ -150,8 +189,25 @@ public final class SettingsSidepane {
 				appSettings.setDefaultView(SammelView.byTranslation(viewSelectionCombo.getItem(viewSelectionCombo.getSelectionIndex())));
 				appSettings.setDateFormat(DATE_EXAMPLES_TO_FORMATS.get(dateFormatSelectionCombo.getItem(dateFormatSelectionCombo.getSelectionIndex())));
 				appSettings.setFullSynchronizationEnabled(fullSynchronizationCombo.getItem(fullSynchronizationCombo.getSelectionIndex()).equals(Translator.get(DictKeys.COMBOBOX_CONTENT_YES)));
+				
+				ThumbnailFormat previousThumbnailFormat = appSettings.getThumbnailFormat();
+				appSettings.setThumbnailFormat(ThumbnailFormat.valueOf(thumbnailFormatCombo.getItem(thumbnailFormatCombo.getSelectionIndex())));
+				appSettings.setThumbnailQuality(Integer.parseInt(thumbnailQualityCombo.getItem(thumbnailQualityCombo.getSelectionIndex())));
+				
+				boolean wasThumbnailPackEnabled = appSettings.isThumbnailPackEnabled();
+				appSettings.setThumbnailPackEnabled(thumbnailPackCombo.getItem(thumbnailPackCombo.getSelectionIndex()).equals(Translator.get(DictKeys.COMBOBOX_CONTENT_YES)));
 				SettingsManager.setApplicationSettings(appSettings);
 				
+				// A disabled pack is removed. If it is enabled again, the thumbnails are packed once they are displayed
+				if (wasThumbnailPackEnabled && !appSettings.isThumbnailPackEnabled()) {
+					ThumbnailPack.clear();
+				}
+				
+				// A changed quality only applies to new thumbnails, since re-encoding lossy thumbnails would degrade them further
+				if (!previousThumbnailFormat.equals(appSettings.getThumbnailFormat())) {
+					ThumbnailReencoder.reencodeThumbnailsInBackground();
+				}
+				
 				Translator.setLanguageManually(Language.byTranslation(languageCombo.getItem(languageCombo.getSelectionIndex())));
 				ComponentFactory.getMessageBox(Translator.get(DictKeys.DIALOG_TITLE_RESTART_NEEDED_FOR_SETTINGS), 
 						Translator.get(DictKeys.DIALOG_CONTENT_RESTART_NEEDED_FOR_SETTINGS), 
@@ -26,6 +26,8 @@ import org.sammelbox.album.CreateAlbumTests;
 import org.sammelbox.album.RemoveAlbumTests;
 import org.sammelbox.albumitems.AddAlbumItemTests;
 import org.sammelbox.albumitems.AlbumItemPictureTests;
+import org.sammelbox.albumitems.AlbumItemDecodingTests;
+import org.sammelbox.albumitems.AlbumItemStoreTests;
 import org.sammelbox.albumitems.RemoveAlbumItemTests;
 import org.sammelbox.albumitems.UpdateAlbumItemTests;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
@@ -58,6 +60,8 @@ import static org.junit.Assert.fail;
 	RemoveAlbumItemTests.class,
 	UpdateAlbumItemTests.class,
 	AlbumItemPictureTests.class,
+	AlbumItemStoreTests.class,
+	AlbumItemDecodingTests.class,
 	
 	SavedSearchesTests.class,
 	ModifySavedSearchesTests.class,
@@ -26,6 +26,7 @@ import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.model.album.*;
 import org.sammelbox.model.database.DatabaseStringUtilities;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.AlbumSchemaCache;
 import org.sammelbox.model.database.operations.DatabaseConstants;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.utilities.TestQueries;
@@ -284,6 +285,36 @@ public class AlterAlbumTests {
 		}
 	}
 	
+	@Test
+	public void testSortFieldIndexFollowsAlbumChanges() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			String sortIndexName = DatabaseStringUtilities.generateSortIndexName("Books");
+			
+			DatabaseOperations.updateSortIndex("Books", "Author");
+			assertTrue("The album should be indexed by its sort field", "Author".equals(TestQueries.getIndexedColumnName(sortIndexName)));
+			
+			DatabaseOperations.renameAlbumItemField("Books", new MetaItemField("Author", FieldType.TEXT, false), new MetaItemField("Writer", FieldType.TEXT, false));
+			assertTrue("The sort index should follow its renamed field", "Writer".equals(TestQueries.getIndexedColumnName(sortIndexName)));
+			
+			DatabaseOperations.updateSortIndex("Books", "Book Title");
+			assertTrue("The sort index should be replaced", "Book Title".equals(TestQueries.getIndexedColumnName(sortIndexName)));
+			
+			DatabaseOperations.removeAlbumItemField("Books", new MetaItemField("Writer", FieldType.TEXT, false));
+			assertTrue("The sort index should survive the removal of another field", "Book Title".equals(TestQueries.getIndexedColumnName(sortIndexName)));
+			
+			DatabaseOperations.renameAlbum("Books", "My Books");
+			assertTrue("The sort index of the old album name should be gone", !TestQueries.isDatabaseIndexPresent(sortIndexName));
+			sortIndexName = DatabaseStringUtilities.generateSortIndexName("My Books");
+			assertTrue("The sort index should follow the renamed album", "Book Title".equals(TestQueries.getIndexedColumnName(sortIndexName)));
+			
+			DatabaseOperations.updateSortIndex("My Books", Album.NO_SORTING);
+			assertTrue("The sort index should be dropped if the album is not sorted", !TestQueries.isDatabaseIndexPresent(sortIndexName));
+		} catch (DatabaseWrapperOperationException e) {
+			fail(e.getMessage());
+		}
+	}
+	
 	@Test
 	public void testReplaceSinglePictureWithTwoOtherPictures() {
 		try {
@@ -596,4 +627,45 @@ public class AlterAlbumTests {
 			fail("Alteration of album failed");
 		}		
 	}
+	
+	@Test
+	public void testSchemaCacheIsInvalidatedBySchemaChanges() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			
+			// the first lookup reads the schema, the second one is served from the cache
+			AlbumSchemaCache.resetStatistics();
+			List<MetaItemField> originalMetaItemFields = DatabaseOperations.getMetaItemFields("Books");
+			assertTrue("The first lookup should be a cache miss", AlbumSchemaCache.getMissCount() == 1);
+			assertTrue("The cached fields should match the original fields", 
+					originalMetaItemFields.equals(DatabaseOperations.getMetaItemFields("Books")));
+			assertTrue("The second lookup should be a cache hit", AlbumSchemaCache.getHitCount() == 1);
+			
+			// modifying the returned fields must not modify the cache
+			originalMetaItemFields.get(0).setName("Modified");
+			assertTrue("The cached fields should not be modifiable", 
+					!DatabaseOperations.getMetaItemFields("Books").get(0).getName().equals("Modified"));
+			
+			DatabaseOperations.appendNewAlbumField("Books", new MetaItemField("Publisher", FieldType.TEXT, false));
+			List<MetaItemField> metaItemFields = DatabaseOperations.getMetaItemFields("Books");
+			assertTrue("The new field should be visible after the schema change", 
+					metaItemFields.get(metaItemFields.size() - 1).getName().equals("Publisher"));
+			
+			DatabaseOperations.renameAlbumItemField("Books", metaItemFields.get(metaItemFields.size() - 1), 
+					new MetaItemField("Editor", FieldType.TEXT, false));
+			metaItemFields = DatabaseOperations.getMetaItemFields("Books");
+			assertTrue("The renamed field should be visible after the schema change", 
+					metaItemFields.get(metaItemFields.size() - 1).getName().equals("Editor"));
+			
+			DatabaseOperations.removeAlbumAndAlbumPictures("Books");
+			try {
+				DatabaseOperations.getMetaItemFields("Books");
+				fail("The fields of a removed album should not be served from the cache");
+			} catch (DatabaseWrapperOperationException e) {
+				// expected
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail(e.getMessage());
+		}
+	}
 }
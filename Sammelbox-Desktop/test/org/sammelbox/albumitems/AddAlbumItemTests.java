@@ -21,7 +21,10 @@ package org.sammelbox.albumitems;
 import junit.framework.Assert;
 import org.junit.*;
 import org.sammelbox.TestRunner;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.UnitOfWork;
 import org.sammelbox.model.album.*;
+import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 
@@ -230,6 +233,163 @@ public class AddAlbumItemTests {
 		}
 	}
 
+	@Test
+	public void testBulkAlbumItemAddition() {
+		final String albumName = "Books";
+		final int numberOfItems = 5;
+		
+		List<AlbumItem> items = new ArrayList<AlbumItem>();
+		for (int i=0; i<numberOfItems; i++) {
+			AlbumItem item = new AlbumItem(albumName);
+			List<ItemField> fields = new ArrayList<ItemField>();
+			fields.add( new ItemField("Book Title", FieldType.TEXT, "book title " + i));
+			fields.add( new ItemField("Author", FieldType.TEXT, "the author's name"));
+			fields.add( new ItemField("Price", FieldType.DECIMAL, 4.2d + i));
+			item.setFields(fields);
+			
+			List<AlbumItemPicture> pictures = new ArrayList<AlbumItemPicture>();
+			pictures.add(new AlbumItemPicture("thumbnail" + i + ".jpg", "original" + i + ".jpg", albumName, AlbumItem.ITEM_ID_UNDEFINED));
+			item.setPictures(pictures);
+			
+			items.add(item);
+		}
+		
+		try {
+			// a chunk size of two ensures that the items are written in several chunks
+			Assert.assertEquals("Not all items have been added", numberOfItems, DatabaseOperations.addAlbumItems(albumName, items, 2));
+			Assert.assertEquals("The number of items in the album is wrong", numberOfItems, DatabaseOperations.getNumberOfItemsInAlbum(albumName));
+			
+			Set<UUID> contentVersions = new HashSet<UUID>();
+			for (AlbumItem actualAlbumItem : DatabaseOperations.getAlbumItems(QueryBuilder.createSelectStarQuery(albumName))) {
+				Assert.assertNotNull("The content version has not been set", actualAlbumItem.getContentVersion());
+				contentVersions.add(actualAlbumItem.getContentVersion());
+				
+				String title = actualAlbumItem.getField("Book Title").getValue();
+				String index = title.substring(title.length() - 1);
+				Assert.assertEquals("The author has not been stored correctly", "the author's name", actualAlbumItem.getField("Author").getValue());
+				
+				List<AlbumItemPicture> pictures = DatabaseOperations.getAlbumItemPictures(albumName, actualAlbumItem.getItemId());
+				Assert.assertEquals("The picture has not been linked to its item", 1, pictures.size());
+				Assert.assertEquals("The wrong picture has been linked to the item", "original" + index + ".jpg", pictures.get(0).getOriginalPictureName());
+			}
+			Assert.assertEquals("Every item should have its own content version", numberOfItems, contentVersions.size());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Album Items could not be inserted into album");
+		}
+	}
+
+	@Test
+	public void testAlbumItemAdditionWithinUnitOfWork() {
+		final String albumName = "Books";
+		
+		try {
+			try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+				DatabaseOperations.addAlbumItem(createBookItem(albumName, "discarded title 1"), true);
+				DatabaseOperations.addAlbumItem(createBookItem(albumName, "discarded title 2"), true);
+				Assert.assertEquals("The unit of work should see its own changes", 2, DatabaseOperations.getNumberOfItemsInAlbum(albumName));
+			}
+			Assert.assertEquals("A unit of work which has not been committed should be discarded", 0, DatabaseOperations.getNumberOfItemsInAlbum(albumName));
+			
+			try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+				DatabaseOperations.addAlbumItem(createBookItem(albumName, "book title 1"), true);
+				
+				try (UnitOfWork innerUnitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+					Assert.assertTrue("An inner unit of work should join the outer one", innerUnitOfWork.isJoined());
+					DatabaseOperations.addAlbumItem(createBookItem(albumName, "book title 2"), true);
+					innerUnitOfWork.commit();
+				}
+				
+				unitOfWork.commit();
+			}
+			Assert.assertEquals("All items of the unit of work should have been added", 2, DatabaseOperations.getNumberOfItemsInAlbum(albumName));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Album Items could not be inserted into album");
+		}
+	}
+	
+	@Test
+	public void testFailedNestedOperationFailsTheOutermostSavepoint() {
+		final String albumName = "Books";
+		
+		try {
+			String savepointName = DatabaseIntegrityManager.createSavepoint();
+			try {
+				DatabaseOperations.addAlbumItem(createBookItem(albumName, "discarded title"), true);
+				
+				AlbumItem invalidItem = createBookItem(albumName, "invalid title");
+				invalidItem.getFields().add(new ItemField("Unknown Field", FieldType.TEXT, "unknown value"));
+				try {
+					DatabaseOperations.addAlbumItem(invalidItem, true);
+					fail("An item with a field which is not part of the album should not be added");
+				} catch (DatabaseWrapperOperationException e) {
+					// the failure is ignored on purpose, the outermost savepoint must still discard all changes
+				}
+			} finally {
+				try {
+					DatabaseIntegrityManager.releaseSavepoint(savepointName);
+					fail("Releasing a savepoint whose nested operation failed should fail");
+				} catch (DatabaseWrapperOperationException e) {
+					// expected, the changes have been discarded
+				}
+			}
+			
+			Assert.assertEquals("The changes of the savepoint should have been discarded", 0, DatabaseOperations.getNumberOfItemsInAlbum(albumName));
+			
+			DatabaseOperations.addAlbumItem(createBookItem(albumName, "book title"), true);
+			Assert.assertEquals("Later operations should not be affected", 1, DatabaseOperations.getNumberOfItemsInAlbum(albumName));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Album Items could not be inserted into album");
+		}
+	}
+	
+	@Test
+	public void testUnitOfWorkDelaysModificationsOfOtherThreads() {
+		final String albumName = "Books";
+		final List<Exception> backgroundExceptions = Collections.synchronizedList(new ArrayList<Exception>());
+		
+		Thread backgroundThread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					DatabaseOperations.addAlbumItem(createBookItem(albumName, "background title"), true);
+				} catch (DatabaseWrapperOperationException e) {
+					backgroundExceptions.add(e);
+				}
+			}
+		};
+		
+		try {
+			try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+				backgroundThread.start();
+				backgroundThread.join(200);
+				Assert.assertTrue("The background thread should wait for the unit of work", backgroundThread.isAlive());
+				
+				DatabaseOperations.addAlbumItem(createBookItem(albumName, "foreground title"), true);
+				Assert.assertEquals("Only the item of the unit of work should have been added", 1, DatabaseOperations.getNumberOfItemsInAlbum(albumName));
+				unitOfWork.commit();
+			}
+			
+			backgroundThread.join(10000);
+			Assert.assertFalse("The background thread should have finished", backgroundThread.isAlive());
+			Assert.assertTrue("The background thread should not fail", backgroundExceptions.isEmpty());
+			Assert.assertEquals("The items of both threads should have been added", 2, DatabaseOperations.getNumberOfItemsInAlbum(albumName));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Album Items could not be inserted into album");
+		} catch (InterruptedException e) {
+			fail("Interrupted while waiting for the background thread");
+		}
+	}
+
+	private static AlbumItem createBookItem(String albumName, String title) {
+		AlbumItem item = new AlbumItem(albumName);
+		List<ItemField> fields = new ArrayList<ItemField>();
+		fields.add( new ItemField("Book Title", FieldType.TEXT, title));
+		fields.add( new ItemField("Author", FieldType.TEXT, "the author"));
+		item.setFields(fields);
+		
+		return item;
+	}
+
 	private void createBooksAlbum() {
 		final String albumName = "Books";
 		MetaItemField titleField = new MetaItemField("Book Title", FieldType.TEXT, true);
@@ -0,0 +1,197 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.albumitems;
+
+import static org.junit.Assert.fail;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.sammelbox.TestRunner;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemResultSet;
+import org.sammelbox.model.album.AlbumItemStore;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.ItemField;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.album.OptionType;
+import org.sammelbox.model.album.StarRating;
+import org.sammelbox.model.database.QueryBuilder;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AlbumItemDecodingTests {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AlbumItemDecodingTests.class);
+	private static final String ALBUM_NAME = "Records";
+	private static final int NUMBER_OF_ITEMS = 2000;
+	/** The number of times the album is decoded by the benchmark, after decoding it once to warm up */
+	private static final int BENCHMARK_ROUNDS = 5;
+
+	@Before
+	public void setUp() throws Exception {
+		TestRunner.resetTestHome();
+		AlbumItemStore.setPagingEnabled(false);
+		createRecordsAlbumWithItems();
+	}
+
+	@Test
+	public void testFieldsOfAllTypesAreDecoded() {
+		try {
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)));
+			Assert.assertEquals("The store should contain all items", NUMBER_OF_ITEMS, AlbumItemStore.getAlbumItems().size());
+
+			int index = 0;
+			for (AlbumItem albumItem : AlbumItemStore.getAlbumItems()) {
+				Assert.assertEquals("The text should be decoded", "record " + index, albumItem.getField("Title").getValue());
+				Assert.assertEquals("The integer should be decoded", index, albumItem.getField("Tracks").getValue());
+				Assert.assertEquals("The decimal should be decoded", index / 4.0d, albumItem.getField("Price").getValue());
+				Assert.assertEquals("The option should be decoded", OptionType.values()[index % OptionType.values().length], 
+						albumItem.getField("Signed").getValue());
+				Assert.assertEquals("The star rating should be decoded", StarRating.values()[index % StarRating.values().length], 
+						albumItem.getField("Rating").getValue());
+				Assert.assertEquals("The url should be decoded", "http://www.example.com/" + index, albumItem.getField("Website").getValue());
+				Assert.assertTrue("The date should be decoded", albumItem.getField("Released").getValue() instanceof Date);
+				Assert.assertTrue("The time should be decoded", albumItem.getField("Added").getValue() instanceof Time);
+				Assert.assertNotNull("The content version should be decoded", albumItem.getField(FieldType.UUID).getValue());
+				index++;
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album items could not be decoded");
+		}
+	}
+
+	@Test
+	public void testEmptyFieldsRemainEmpty() {
+		try {
+			List<ItemField> fields = new ArrayList<ItemField>();
+			fields.add(new ItemField("Title", FieldType.TEXT, "record " + NUMBER_OF_ITEMS));
+			long albumItemId = DatabaseOperations.addAlbumItem(new AlbumItem(ALBUM_NAME, fields), true);
+
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)));
+			AlbumItem albumItem = AlbumItemStore.getAlbumItem(albumItemId);
+
+			Assert.assertEquals("The item should be found", "record " + NUMBER_OF_ITEMS, albumItem.getField("Title").getValue());
+			Assert.assertNull("The date should be empty", albumItem.getField("Released").getValue());
+			Assert.assertNull("The url should be empty", albumItem.getField("Website").getValue());
+			Assert.assertEquals("The items read before should keep their values", "http://www.example.com/0", 
+					AlbumItemStore.getAlbumItems().get(0).getField("Website").getValue());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album items could not be decoded");
+		}
+	}
+
+	/** A benchmark rather than a test, it only logs its timings. Remove the annotation to run it, e.g. with -Dtest=AlbumItemDecodingTests */
+	@Ignore("Benchmark")
+	@Test
+	public void testDecodeThroughput() {
+		try {
+			// The rows are read without decoding them first, such that the decoding time can be told apart from the query time 
+			readRows();
+			long readNanos = 0;
+			for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+				long start = System.nanoTime();
+				Assert.assertEquals("All rows should be read", NUMBER_OF_ITEMS, readRows());
+				readNanos += System.nanoTime() - start;
+			}
+
+			decodeAlbumItems();
+			long decodeNanos = 0;
+			for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+				long start = System.nanoTime();
+				Assert.assertEquals("All items should be decoded", NUMBER_OF_ITEMS, decodeAlbumItems());
+				decodeNanos += System.nanoTime() - start;
+			}
+
+			long decodedCells = (long) NUMBER_OF_ITEMS * BENCHMARK_ROUNDS * DatabaseOperations.getAlbumItemMetaMap(ALBUM_NAME).size();
+			LOGGER.info("Read {} rows per second, materialized {} album items per second, i.e. decoded {} cells per second", 
+					perSecond((long) NUMBER_OF_ITEMS * BENCHMARK_ROUNDS, readNanos), 
+					perSecond((long) NUMBER_OF_ITEMS * BENCHMARK_ROUNDS, decodeNanos), 
+					perSecond(decodedCells, Math.max(decodeNanos - readNanos, 1)));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album items could not be decoded");
+		}
+	}
+
+	/** Materializes the album items in the same way as the store does */
+	private static int decodeAlbumItems() throws DatabaseWrapperOperationException {
+		return AlbumItemStore.loadAlbumItems(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)), false).size();
+	}
+
+	/** Steps through the rows of the album without decoding any value */
+	private static int readRows() throws DatabaseWrapperOperationException {
+		AlbumItemResultSet albumItemResultSet = DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME));
+		int numberOfRows = 0;
+
+		try {
+			while (albumItemResultSet.moveToNext()) {
+				numberOfRows++;
+			}
+		} finally {
+			albumItemResultSet.close();
+		}
+
+		return numberOfRows;
+	}
+
+	private static long perSecond(long count, long nanos) {
+		return count * 1000000000L / Math.max(nanos, 1);
+	}
+
+	private static void createRecordsAlbumWithItems() {
+		List<MetaItemField> columns = new ArrayList<MetaItemField>();
+		columns.add(new MetaItemField("Title", FieldType.TEXT, true));
+		columns.add(new MetaItemField("Tracks", FieldType.INTEGER, false));
+		columns.add(new MetaItemField("Price", FieldType.DECIMAL, false));
+		columns.add(new MetaItemField("Released", FieldType.DATE, false));
+		columns.add(new MetaItemField("Added", FieldType.TIME, false));
+		columns.add(new MetaItemField("Signed", FieldType.OPTION, false));
+		columns.add(new MetaItemField("Rating", FieldType.STAR_RATING, false));
+		columns.add(new MetaItemField("Website", FieldType.URL, false));
+
+		List<AlbumItem> albumItems = new ArrayList<AlbumItem>();
+		for (int i=0; i<NUMBER_OF_ITEMS; i++) {
+			List<ItemField> fields = new ArrayList<ItemField>();
+			fields.add(new ItemField("Title", FieldType.TEXT, "record " + i));
+			fields.add(new ItemField("Tracks", FieldType.INTEGER, i));
+			fields.add(new ItemField("Price", FieldType.DECIMAL, i / 4.0d));
+			fields.add(new ItemField("Released", FieldType.DATE, new Date(System.currentTimeMillis())));
+			fields.add(new ItemField("Added", FieldType.TIME, new Time(System.currentTimeMillis())));
+			fields.add(new ItemField("Signed", FieldType.OPTION, OptionType.values()[i % OptionType.values().length]));
+			fields.add(new ItemField("Rating", FieldType.STAR_RATING, StarRating.values()[i % StarRating.values().length]));
+			fields.add(new ItemField("Website", FieldType.URL, "http://www.example.com/" + i));
+			albumItems.add(new AlbumItem(ALBUM_NAME, fields));
+		}
+
+		try {
+			DatabaseOperations.createNewAlbum(ALBUM_NAME, columns, false);
+			DatabaseOperations.addAlbumItems(ALBUM_NAME, albumItems);
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Creation of album " + ALBUM_NAME + " failed");
+		}
+	}
+}
@@ -3,16 +3,37 @@ package org.sammelbox.albumitems;
 import org.junit.*;
 import org.sammelbox.TestRunner;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.SettingsManager;
 import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.AlbumItemStore;
 import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.MetaItemField;
 import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.model.settings.ApplicationSettings;
+import org.sammelbox.model.settings.ThumbnailFormat;
+import org.sammelbox.view.UIConstants;
+import org.sammelbox.view.image.ImageIngestionService;
+import org.sammelbox.view.image.ImageIngestionService.ImageIngestionListener;
+import org.sammelbox.view.image.ImageManipulator;
+import org.sammelbox.view.image.ThumbnailCache;
+import org.sammelbox.view.image.ThumbnailPack;
+import org.sammelbox.view.image.ThumbnailReencoder;
+import org.sammelbox.view.image.ThumbnailTier;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -144,4 +165,233 @@ public class AlbumItemPictureTests {
 			fail(e.toString());
 		}
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void testBulkRetrievalOfAlbumItemPictures() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			
+			List<Long> albumItemIds = new ArrayList<>();
+			for (AlbumItem albumItem : DatabaseOperations.getAlbumItems(QueryBuilder.createSelectStarQuery("DVDs"))) {
+				albumItemIds.add(albumItem.getItemId());
+			}
+			// an unknown id should result in an empty list of pictures
+			albumItemIds.add(Long.MAX_VALUE);
+			
+			Map<Long, List<AlbumItemPicture>> picturesByAlbumItemId = DatabaseOperations.getAlbumItemPictures("DVDs", albumItemIds);
+			assertEquals("Every requested id should be part of the result", albumItemIds.size(), picturesByAlbumItemId.size());
+			assertTrue("The unknown id should not have any pictures", picturesByAlbumItemId.get(Long.MAX_VALUE).isEmpty());
+			
+			for (Long albumItemId : albumItemIds) {
+				List<AlbumItemPicture> expectedPictures = DatabaseOperations.getAlbumItemPictures("DVDs", albumItemId);
+				List<AlbumItemPicture> actualPictures = picturesByAlbumItemId.get(albumItemId);
+				
+				assertEquals("The number of pictures should not depend on the retrieval", expectedPictures.size(), actualPictures.size());
+				for (int i = 0; i < expectedPictures.size(); i++) {
+					assertEquals("The pictures should be retrieved in the same order", 
+							expectedPictures.get(i).getOriginalPictureName(), actualPictures.get(i).getOriginalPictureName());
+				}
+			}
+			
+			// the store attaches the same pictures when prefetching
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery("DVDs")), true);
+			for (AlbumItem albumItem : AlbumItemStore.getAlbumItems()) {
+				assertEquals("The prefetched pictures should belong to the album item", 
+						picturesByAlbumItemId.get(albumItem.getItemId()).size(), albumItem.getPictures().size());
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail(e.toString());
+		}
+	}
+	
+	@Test
+	public void testIngestedPicturesKeepSubmissionOrder() {
+		DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+
+		final List<File> pictureFiles = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			pictureFiles.add(new File(TestRunner.PATH_TO_TEST_PICTURE_1));
+			pictureFiles.add(new File(TestRunner.PATH_TO_TEST_PICTURE_2));
+			pictureFiles.add(new File(TestRunner.PATH_TO_TEST_PICTURE_3));
+		}
+		pictureFiles.add(5, new File("not-existing-picture.png"));
+
+		final List<Integer> reportedImageNumbers = new ArrayList<>();
+		List<AlbumItemPicture> pictures = ImageIngestionService.ingestImages(pictureFiles, "DVDs", new ImageIngestionListener() {
+			@Override
+			public void imageProcessed(int imageNumber, int numberOfImages, File pictureFile, AlbumItemPicture picture) {
+				assertEquals(pictureFiles.size(), numberOfImages);
+				assertEquals("The images should be reported in the submitted order", pictureFiles.get(imageNumber - 1), pictureFile);
+				reportedImageNumbers.add(imageNumber);
+			}
+		});
+
+		assertEquals(pictureFiles.size(), pictures.size());
+		assertEquals(pictureFiles.size(), reportedImageNumbers.size());
+		assertTrue("A missing image should not result in a picture", pictures.get(5) == null);
+
+		for (int i = 0; i < pictures.size(); i++) {
+			if (i != 5) {
+				assertTrue("The original should have been copied", new File(pictures.get(i).getOriginalPicturePath()).exists());
+				assertTrue("The thumbnail should have been created", new File(pictures.get(i).getThumbnailPicturePath()).exists());
+				assertTrue("The extension of the original should be kept", pictures.get(i).getOriginalPictureName().endsWith(
+						pictureFiles.get(i).getName().substring(pictureFiles.get(i).getName().lastIndexOf('.'))));
+			}
+		}
+	}
+	
+	@Test
+	public void testThumbnailOfLargeImage() throws IOException {
+		DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+		
+		File largeImageFile = File.createTempFile("large-image", ".jpg");
+		largeImageFile.deleteOnExit();
+		BufferedImage largeImage = new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB);
+		ImageIO.write(largeImage, "jpg", largeImageFile);
+		largeImage.flush();
+		
+		AlbumItemPicture picture = ImageManipulator.adaptAndStoreImageForCollector(largeImageFile, "DVDs");
+		BufferedImage thumbnail = ImageIO.read(new File(picture.getThumbnailPicturePath()));
+		
+		assertEquals("The longer side should be scaled to the thumbnail size", 200, thumbnail.getWidth());
+		assertEquals("The aspect ratio should be kept", 133, thumbnail.getHeight());
+		assertEquals("The original should be copied unchanged", largeImageFile.length(), new File(picture.getOriginalPicturePath()).length());
+	}
+	
+	@Test
+	public void testThumbnailTiersAreGeneratedOnDemand() throws IOException, InterruptedException, DatabaseWrapperOperationException {
+		DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+		AlbumItemPicture picture = DatabaseOperations.getAlbumItem("DVDs", 1).getFirstPicture();
+		
+		assertEquals(picture.getThumbnailPicturePath(), ThumbnailCache.getThumbnailPath(picture, ThumbnailTier.MEDIUM));
+		assertEquals(picture.getOriginalPicturePath(), ThumbnailCache.getThumbnailPath(picture, (ThumbnailTier) null));
+		assertEquals("The medium thumbnail should be used until the small one is available", 
+				picture.getThumbnailPicturePath(), ThumbnailCache.getThumbnailPath(picture, ThumbnailTier.SMALL));
+		assertEquals("The medium thumbnail should be used until the large one is available", 
+				picture.getThumbnailPicturePath(), ThumbnailCache.getThumbnailPath(picture, ThumbnailTier.LARGE));
+		
+		String smallThumbnailPath = ThumbnailCache.getThumbnailPath(picture, ThumbnailTier.SMALL);
+		for (int i = 0; i < 100 && smallThumbnailPath.equals(picture.getThumbnailPicturePath()); i++) {
+			Thread.sleep(100);
+			smallThumbnailPath = ThumbnailCache.getThumbnailPath(picture, ThumbnailTier.SMALL);
+		}
+		
+		BufferedImage smallThumbnail = ImageIO.read(new File(smallThumbnailPath));
+		assertTrue("The small thumbnail should have been generated", smallThumbnail != null);
+		assertEquals(ThumbnailTier.SMALL.getSizeInPixels(), Math.max(smallThumbnail.getWidth(), smallThumbnail.getHeight()));
+	}
+	
+	@Test
+	public void testThumbnailsAreReencodedInConfiguredFormat() throws IOException, DatabaseWrapperOperationException {
+		DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+		ApplicationSettings applicationSettings = SettingsManager.getSettings();
+		ThumbnailFormat previousThumbnailFormat = applicationSettings.getThumbnailFormat();
+		
+		try {
+			applicationSettings.setThumbnailFormat(ThumbnailFormat.PNG);
+			AlbumItemPicture pngPicture = ImageManipulator.adaptAndStoreImageForCollector(new File(TestRunner.PATH_TO_TEST_PICTURE_1), "DVDs");
+			assertTrue("New thumbnails should be stored in the configured format", pngPicture.getThumbnailPictureName().endsWith(".png"));
+			
+			List<AlbumItemPicture> picturesBeforeReencoding = DatabaseOperations.getAllAlbumItemPictures("DVDs");
+			assertTrue("The test album should contain pictures", !picturesBeforeReencoding.isEmpty());
+			
+			applicationSettings.setThumbnailFormat(ThumbnailFormat.JPEG);
+			assertTrue("The thumbnails should have been re-encoded", ThumbnailReencoder.reencodeThumbnails() >= picturesBeforeReencoding.size());
+			
+			List<AlbumItemPicture> picturesAfterReencoding = DatabaseOperations.getAllAlbumItemPictures("DVDs");
+			assertEquals(picturesBeforeReencoding.size(), picturesAfterReencoding.size());
+			for (int i = 0; i < picturesAfterReencoding.size(); i++) {
+				AlbumItemPicture picture = picturesAfterReencoding.get(i);
+				assertTrue("The stored name should refer to the re-encoded thumbnail", picture.getThumbnailPictureName().endsWith(".jpg"));
+				assertTrue("The re-encoded thumbnail should be readable", ImageIO.read(new File(picture.getThumbnailPicturePath())) != null);
+				assertTrue("The previous thumbnail should have been deleted", !new File(picturesBeforeReencoding.get(i).getThumbnailPicturePath()).exists());
+				assertEquals("The original should be kept", picturesBeforeReencoding.get(i).getOriginalPictureName(), picture.getOriginalPictureName());
+			}
+			
+			assertEquals("Thumbnails in the configured format should be kept", 0, ThumbnailReencoder.reencodeThumbnails());
+		} finally {
+			applicationSettings.setThumbnailFormat(previousThumbnailFormat);
+		}
+	}
+	
+	@Test
+	public void testThumbnailNamesAreOnlyReplacedForUnchangedPictures() throws DatabaseWrapperOperationException {
+		DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+		List<AlbumItemPicture> pictures = DatabaseOperations.getAllAlbumItemPictures("DVDs");
+		assertTrue("The test album should contain two pictures", pictures.size() >= 2);
+		
+		AlbumItemPicture unchangedPicture = pictures.get(0);
+		AlbumItemPicture changedPicture = pictures.get(1);
+		Map<String, AlbumItemPicture> picturesByPreviousThumbnailName = new HashMap<String, AlbumItemPicture>();
+		picturesByPreviousThumbnailName.put(unchangedPicture.getThumbnailPictureName(), unchangedPicture);
+		// e.g. the picture has been replaced by another one reusing its id since its thumbnail name was read
+		picturesByPreviousThumbnailName.put("replacedThumbnail.png", changedPicture);
+		String unchangedPictureThumbnailName = unchangedPicture.getThumbnailPictureName();
+		String changedPictureThumbnailName = changedPicture.getThumbnailPictureName();
+		unchangedPicture.setThumbnailPictureName("reencodedThumbnail.jpg");
+		changedPicture.setThumbnailPictureName("otherReencodedThumbnail.jpg");
+		
+		Set<String> updatedThumbnailNames = DatabaseOperations.updateThumbnailPictureNames("DVDs", picturesByPreviousThumbnailName);
+		
+		assertEquals("Only the unchanged picture should be updated", 1, updatedThumbnailNames.size());
+		assertTrue(updatedThumbnailNames.contains(unchangedPictureThumbnailName));
+		List<AlbumItemPicture> storedPictures = DatabaseOperations.getAllAlbumItemPictures("DVDs");
+		assertEquals("reencodedThumbnail.jpg", storedPictures.get(0).getThumbnailPictureName());
+		assertEquals("The changed picture should keep its thumbnail", changedPictureThumbnailName, storedPictures.get(1).getThumbnailPictureName());
+	}
+	
+	@Test
+	public void testPackedThumbnailsAreServedAndCompacted() throws IOException, InterruptedException, DatabaseWrapperOperationException {
+		DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+		SettingsManager.getSettings().setThumbnailPackEnabled(true);
+		
+		try {
+			AlbumItem removedAlbumItem = DatabaseOperations.getAlbumItem("DVDs", 1);
+			AlbumItemPicture removedPicture = removedAlbumItem.getFirstPicture();
+			AlbumItemPicture keptPicture = DatabaseOperations.getAlbumItem("DVDs", 2).getFirstPicture();
+			
+			assertEquals("The thumbnail file should be used until the thumbnail is packed", removedPicture.getThumbnailPicturePath(), 
+					ThumbnailCache.getThumbnailSource(removedPicture, UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS));
+			String removedThumbnailSource = waitForPackedThumbnail(removedPicture);
+			String keptThumbnailSource = waitForPackedThumbnail(keptPicture);
+			
+			assertTrue("The packed thumbnail should be embedded", removedThumbnailSource.startsWith("data:image/"));
+			long thumbnailLength = new File(removedPicture.getThumbnailPicturePath()).length();
+			assertEquals("The whole thumbnail should be embedded", (thumbnailLength + 2) / 3 * 4, 
+					removedThumbnailSource.length() - removedThumbnailSource.indexOf(',') - 1);
+			assertEquals("Tiers other than the medium one should not be packed", removedPicture.getOriginalPicturePath(), 
+					ThumbnailCache.getThumbnailSource(removedPicture, ThumbnailTier.LARGE_HIDPI.getSizeInPixels() * 2));
+			
+			ThumbnailCache.setEmbeddingAllowed(false);
+			try {
+				assertEquals("Packed thumbnails should only be embedded into pages which allow it", removedPicture.getThumbnailPicturePath(), 
+						ThumbnailCache.getThumbnailSource(removedPicture, UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS));
+			} finally {
+				ThumbnailCache.setEmbeddingAllowed(true);
+			}
+			
+			assertEquals("Thumbnails in use should be kept", 0, ThumbnailPack.compact());
+			DatabaseOperations.deleteAlbumItem(removedAlbumItem);
+			assertEquals("The thumbnail of the removed picture should be removed", 1, ThumbnailPack.compact());
+			
+			assertEquals("The kept thumbnail should be served from the compacted pack", keptThumbnailSource, 
+					ThumbnailCache.getThumbnailSource(keptPicture, UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS));
+			
+			ThumbnailPack.clear();
+			assertEquals("The cleared pack should not contain any thumbnails", keptPicture.getThumbnailPicturePath(), 
+					ThumbnailCache.getThumbnailSource(keptPicture, UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS));
+		} finally {
+			SettingsManager.getSettings().setThumbnailPackEnabled(false);
+		}
+	}
+	
+	private static String waitForPackedThumbnail(AlbumItemPicture picture) throws InterruptedException {
+		String thumbnailSource = ThumbnailCache.getThumbnailSource(picture, UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS);
+		for (int i = 0; i < 100 && thumbnailSource.equals(picture.getThumbnailPicturePath()); i++) {
+			Thread.sleep(100);
+			thumbnailSource = ThumbnailCache.getThumbnailSource(picture, UIConstants.GALLERY_PICTURE_SIZE_IN_PIXELS);
+		}
+		
+		return thumbnailSource;
+	}
+}
@@ -0,0 +1,530 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.albumitems;
+
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sammelbox.TestRunner;
+import org.sammelbox.controller.managers.PreparedStatementCache;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPage;
+import org.sammelbox.model.album.AlbumItemStore;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.ItemField;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.PageCursor;
+import org.sammelbox.model.database.QueryBuilder;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseConstants;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.utilities.TestQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AlbumItemStoreTests {
+	private static final String ALBUM_NAME = "Books";
+	private static final String TITLE_FIELD_NAME = "Book Title";
+	/** Spans several pages of the paged store */
+	private static final int NUMBER_OF_ITEMS = 1234;
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final Logger LOGGER = LoggerFactory.getLogger(AlbumItemStoreTests.class);
+
+	@Before
+	public void setUp() throws Exception {
+		TestRunner.resetTestHome();
+		createBooksAlbumWithItems();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		AlbumItemStore.setPagingEnabled(false);
+	}
+
+	@Test
+	public void testPagedStoreContainsAllItemsInOrder() {
+		AlbumItemStore.setPagingEnabled(true);
+		assertStoreContainsAllItemsInOrder();
+	}
+
+	@Test
+	public void testEagerStoreContainsAllItemsInOrder() {
+		AlbumItemStore.setPagingEnabled(false);
+		assertStoreContainsAllItemsInOrder();
+	}
+
+	@Test
+	public void testPagedStoreRetrievesItemsById() {
+		try {
+			AlbumItemStore.setPagingEnabled(true);
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)));
+
+			// access the items in reverse order such that the pages are evicted and fetched again
+			for (int i=NUMBER_OF_ITEMS - 1; i>=0; i--) {
+				long albumItemId = AlbumItemStore.getAlbumItems().get(i).getItemId();
+				AlbumItem albumItem = AlbumItemStore.getAlbumItem(albumItemId);
+
+				Assert.assertNotNull("The item with the id " + albumItemId + " should be part of the store", albumItem);
+				Assert.assertEquals("The wrong item has been retrieved", "title " + i, albumItem.getField(TITLE_FIELD_NAME).getValue());
+			}
+
+			Assert.assertNull("Unknown ids should not be found", AlbumItemStore.getAlbumItem(NUMBER_OF_ITEMS + 1));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album item store could not be initialized");
+		}
+	}
+
+	@Test
+	public void testPagesOfThePagedStoreShareTheirStatement() {
+		try {
+			AlbumItemStore.setPagingEnabled(true);
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)));
+			AlbumItemStore.getAlbumItems().get(0);
+
+			// the last page is not full, but is fetched using the statement of the other pages as well
+			PreparedStatementCache.resetStatistics();
+			for (int i=0; i<NUMBER_OF_ITEMS; i++) {
+				Assert.assertEquals("The items are not in the expected order", "title " + i, 
+						AlbumItemStore.getAlbumItems().get(i).getField(TITLE_FIELD_NAME).getValue());
+			}
+
+			Assert.assertEquals("Every page should reuse the statement of the first page", 0, PreparedStatementCache.getMissCount());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album item store could not be initialized");
+		}
+	}
+
+	@Test
+	public void testPagedStoreLookupsAfterModifications() {
+		AlbumItemStore.setPagingEnabled(true);
+		assertLookupsAfterModifications();
+	}
+
+	@Test
+	public void testEagerStoreLookupsAfterModifications() {
+		AlbumItemStore.setPagingEnabled(false);
+		assertLookupsAfterModifications();
+	}
+
+	@Test
+	public void testProjectedStoreFetchesOnlyRenderedFields() {
+		try {
+			AlbumItemStore.setPagingEnabled(true);
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)));
+			List<AlbumItem> projectedAlbumItems = AlbumItemStore.getAlbumItems(Arrays.asList("Pages"));
+
+			Assert.assertEquals("The projection should contain all items", NUMBER_OF_ITEMS, projectedAlbumItems.size());
+			for (int i=0; i<NUMBER_OF_ITEMS; i++) {
+				AlbumItem projectedAlbumItem = projectedAlbumItems.get(i);
+
+				Assert.assertEquals("The items are not in the expected order", i, projectedAlbumItem.getField("Pages").getValue());
+				Assert.assertEquals("Only the id and the rendered field should be fetched", 2, projectedAlbumItem.getFields().size());
+				Assert.assertNull("The title should not be fetched", projectedAlbumItem.getField(TITLE_FIELD_NAME));
+
+				// the remaining fields are retrieved when the item is opened
+				if (i % 100 == 0) {
+					AlbumItem completeAlbumItem = DatabaseOperations.getAlbumItem(ALBUM_NAME, projectedAlbumItem.getItemId());
+					Assert.assertEquals("The complete item should contain the title", "title " + i, completeAlbumItem.getField(TITLE_FIELD_NAME).getValue());
+				}
+			}
+
+			Assert.assertEquals("The store itself should still contain complete items", "title 0", 
+					AlbumItemStore.getAlbumItems().get(0).getField(TITLE_FIELD_NAME).getValue());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The projected album items could not be fetched");
+		}
+	}
+
+	@Test
+	public void testSelectQueryFetchesOnlyTheGivenFields() {
+		try {
+			AlbumItemStore.setPagingEnabled(false);
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(
+					QueryBuilder.createOrderedSelectQuery(ALBUM_NAME, Arrays.asList(TITLE_FIELD_NAME))));
+
+			Assert.assertEquals("The store should contain all items", NUMBER_OF_ITEMS, AlbumItemStore.getAlbumItems().size());
+			for (AlbumItem albumItem : AlbumItemStore.getAlbumItems()) {
+				Assert.assertEquals("Only the id and the title should be fetched", 2, albumItem.getFields().size());
+				Assert.assertEquals("The id should be typed correctly", FieldType.ID, albumItem.getField(DatabaseConstants.ID_COLUMN_NAME).getType());
+				Assert.assertEquals("The title should be typed correctly", FieldType.TEXT, albumItem.getField(TITLE_FIELD_NAME).getType());
+				Assert.assertNull("The pages should not be fetched", albumItem.getField("Pages"));
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The projection could not be queried");
+		}
+	}
+
+	@Test
+	public void testEagerStoreOfAShownAlbumOnlyContainsTheUserFields() {
+		try {
+			AlbumItemStore.setPagingEnabled(false);
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createOrderedSelectUserFieldsQuery(ALBUM_NAME)));
+
+			Assert.assertEquals("The store should contain all items", NUMBER_OF_ITEMS, AlbumItemStore.getAlbumItems().size());
+			for (AlbumItem albumItem : AlbumItemStore.getAlbumItems()) {
+				Assert.assertEquals("Only the id, the title and the pages should be fetched", 3, albumItem.getFields().size());
+				Assert.assertNotNull("The title should be fetched", albumItem.getField(TITLE_FIELD_NAME));
+				Assert.assertNotNull("The pages should be fetched", albumItem.getField("Pages"));
+			}
+			
+			Assert.assertSame("The views should render the album items of the store", 
+					AlbumItemStore.getAlbumItems(), AlbumItemStore.getAlbumItems(Arrays.asList(TITLE_FIELD_NAME)));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album could not be queried");
+		}
+	}
+
+	@Test
+	public void testAlbumCanBeWalkedPageByPage() {
+		try {
+			List<String> titles = new ArrayList<String>();
+			AlbumItemPage page = DatabaseOperations.getAlbumItemPage(ALBUM_NAME, "Pages", true, 100, null);
+			int numberOfPages = 1;
+			titles.addAll(getTitles(page));
+			
+			while (page.hasNextPage()) {
+				page = DatabaseOperations.getAlbumItemPage(ALBUM_NAME, "Pages", true, 100, page.getNextPageCursor());
+				numberOfPages++;
+				titles.addAll(getTitles(page));
+			}
+			
+			Assert.assertEquals("The album should be walked using the minimal number of pages", (NUMBER_OF_ITEMS + 99) / 100, numberOfPages);
+			Assert.assertEquals("All items should be found", NUMBER_OF_ITEMS, titles.size());
+			for (int i=0; i<NUMBER_OF_ITEMS; i++) {
+				Assert.assertEquals("The items are not in the expected order", "title " + i, titles.get(i));
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album could not be walked page by page");
+		}
+	}
+	
+	@Test
+	public void testPagesOfEqualAndEmptySortValues() {
+		try {
+			for (int i=0; i<5; i++) {
+				List<ItemField> fields = new ArrayList<ItemField>();
+				fields.add(new ItemField(TITLE_FIELD_NAME, FieldType.TEXT, "title " + i));
+				DatabaseOperations.addAlbumItem(new AlbumItem(ALBUM_NAME, fields), true);
+				
+				// an item without title
+				fields.clear();
+				fields.add(new ItemField("Pages", FieldType.INTEGER, i));
+				DatabaseOperations.addAlbumItem(new AlbumItem(ALBUM_NAME, fields), true);
+			}
+			
+			for (boolean sortAscending : new boolean[] { true, false }) {
+				List<AlbumItem> albumItems = new ArrayList<AlbumItem>();
+				AlbumItemPage page = null;
+				do {
+					page = DatabaseOperations.getAlbumItemPage(ALBUM_NAME, TITLE_FIELD_NAME, sortAscending, 7, page == null ? null : page.getNextPageCursor());
+					albumItems.addAll(page.getAlbumItems());
+				} while (page.hasNextPage());
+				
+				Set<Long> albumItemIds = new HashSet<Long>();
+				for (int i=0; i<albumItems.size(); i++) {
+					albumItemIds.add(albumItems.get(i).getItemId());
+					
+					if (i > 0) {
+						int comparison = compareTitles(albumItems.get(i - 1), albumItems.get(i));
+						comparison = sortAscending ? comparison : -comparison;
+						Assert.assertTrue("The items are not sorted by their titles", comparison <= 0);
+						
+						if (comparison == 0) {
+							long previousId = albumItems.get(i - 1).getItemId();
+							long id = albumItems.get(i).getItemId();
+							Assert.assertTrue("Items with equal titles are not sorted by their ids", sortAscending ? previousId < id : previousId > id);
+						}
+					}
+				}
+				
+				Assert.assertEquals("Each item should be found exactly once", NUMBER_OF_ITEMS + 10, albumItemIds.size());
+				Assert.assertEquals("No item should be found twice", NUMBER_OF_ITEMS + 10, albumItems.size());
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album could not be walked page by page");
+		}
+	}
+	
+	@Test
+	public void testPagesAreSoughtInTheSortIndex() {
+		try {
+			DatabaseOperations.updateSortIndex(ALBUM_NAME, TITLE_FIELD_NAME);
+			PageCursor afterCursor = new PageCursor("title 500", 501);
+			
+			for (boolean sortAscending : new boolean[] { true, false }) {
+				String queryPlan = TestQueries.getQueryPlan(
+						QueryBuilder.createKeysetPageQuery(ALBUM_NAME, TITLE_FIELD_NAME, sortAscending, 100, afterCursor));
+				
+				Assert.assertTrue("The page should be sought in the sort index: " + queryPlan, queryPlan.contains("SEARCH"));
+				Assert.assertFalse("The page should not scan the album: " + queryPlan, queryPlan.contains("SCAN"));
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The query plan of the page could not be retrieved");
+		}
+	}
+	
+	@Test
+	public void testPagedStoreSortsInMemory() {
+		AlbumItemStore.setPagingEnabled(true);
+		assertSortInMemory();
+	}
+
+	@Test
+	public void testEagerStoreSortsInMemory() {
+		AlbumItemStore.setPagingEnabled(false);
+		assertSortInMemory();
+	}
+
+	@Test
+	public void testTextsAreSortedInMemoryLikeByTheDatabase() {
+		try {
+			for (String title : Arrays.asList("b", "B", "a", "\u00c9t\u00e9", "ete", "Zebra", "\uD83D\uDCDA", "\uFB01n")) {
+				List<ItemField> fields = new ArrayList<ItemField>();
+				fields.add(new ItemField(TITLE_FIELD_NAME, FieldType.TEXT, title));
+				DatabaseOperations.addAlbumItem(new AlbumItem(ALBUM_NAME, fields), true);
+			}
+
+			List<Long> expectedAlbumItemIds = new ArrayList<Long>();
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(
+					QueryBuilder.createSelectStarQuery(ALBUM_NAME) + " ORDER BY [" + TITLE_FIELD_NAME + "], [id]"));
+			for (AlbumItem albumItem : AlbumItemStore.getAlbumItems()) {
+				expectedAlbumItemIds.add(albumItem.getItemId());
+			}
+
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)));
+			Assert.assertTrue("The items should be sorted in memory", AlbumItemStore.sortAlbumItems(ALBUM_NAME, TITLE_FIELD_NAME, true));
+
+			List<Long> albumItemIds = new ArrayList<Long>();
+			for (AlbumItem albumItem : AlbumItemStore.getAlbumItems()) {
+				albumItemIds.add(albumItem.getItemId());
+			}
+			Assert.assertEquals("The items should be sorted in the same order as by the database", expectedAlbumItemIds, albumItemIds);
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album items could not be sorted");
+		}
+	}
+
+	@Test
+	public void testLargeResultIsSortedInMemory() {
+		final int numberOfItems = 50000;
+		Random random = new Random(numberOfItems);
+
+		List<AlbumItem> albumItems = new ArrayList<AlbumItem>();
+		for (int i=0; i<numberOfItems; i++) {
+			List<ItemField> fields = new ArrayList<ItemField>();
+			fields.add(new ItemField(DatabaseConstants.ID_COLUMN_NAME, FieldType.ID, (long) i));
+			fields.add(new ItemField(TITLE_FIELD_NAME, FieldType.TEXT, "title " + random.nextInt(numberOfItems)));
+			fields.add(new ItemField("Price", FieldType.DECIMAL, random.nextDouble() * 100 - 50));
+			albumItems.add(new AlbumItem(ALBUM_NAME, fields));
+		}
+		AlbumItemStore.reinitializeStore(albumItems);
+
+		try {
+			long start = System.nanoTime();
+			Assert.assertTrue("The items should be sorted in memory", AlbumItemStore.sortAlbumItems(ALBUM_NAME, "Price", false));
+			long decimalSortNanos = System.nanoTime() - start;
+
+			for (int i=1; i<numberOfItems; i++) {
+				Assert.assertTrue("The items should be sorted by descending price", 
+						(Double) AlbumItemStore.getAlbumItems().get(i - 1).getField("Price").getValue() >= 
+						(Double) AlbumItemStore.getAlbumItems().get(i).getField("Price").getValue());
+			}
+
+			start = System.nanoTime();
+			Assert.assertTrue("The items should be sorted in memory", AlbumItemStore.sortAlbumItems(ALBUM_NAME, TITLE_FIELD_NAME, true));
+			long textSortNanos = System.nanoTime() - start;
+
+			for (int i=1; i<numberOfItems; i++) {
+				Assert.assertTrue("The items should be sorted by ascending title", 
+						compareTitles(AlbumItemStore.getAlbumItems().get(i - 1), AlbumItemStore.getAlbumItems().get(i)) <= 0);
+			}
+
+			// the sort keys of the titles are reused
+			start = System.nanoTime();
+			Assert.assertTrue("The items should be sorted in memory", AlbumItemStore.sortAlbumItems(ALBUM_NAME, TITLE_FIELD_NAME, false));
+			long textResortNanos = System.nanoTime() - start;
+
+			for (int i=1; i<numberOfItems; i++) {
+				Assert.assertTrue("The items should be sorted by descending title", 
+						compareTitles(AlbumItemStore.getAlbumItems().get(i - 1), AlbumItemStore.getAlbumItems().get(i)) >= 0);
+			}
+
+			long albumItemId = AlbumItemStore.getAlbumItems().get(numberOfItems / 2).getItemId();
+			Assert.assertEquals("The positions of the items should have been updated", 
+					AlbumItemStore.getAlbumItems().get(numberOfItems / 2), AlbumItemStore.getAlbumItem(albumItemId));
+
+			LOGGER.info("Sorted {} album items by decimals in {} ms, by texts in {} ms and by texts again in {} ms", numberOfItems, 
+					decimalSortNanos / NANOS_PER_MILLI, textSortNanos / NANOS_PER_MILLI, textResortNanos / NANOS_PER_MILLI);
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album items could not be sorted");
+		}
+	}
+
+	/** Compares the titles of the album items, where items without title come first */
+	private static int compareTitles(AlbumItem albumItem, AlbumItem otherAlbumItem) {
+		String title = (String) albumItem.getField(TITLE_FIELD_NAME).getValue();
+		String otherTitle = (String) otherAlbumItem.getField(TITLE_FIELD_NAME).getValue();
+		
+		if (title == null || otherTitle == null) {
+			return (title == null ? 0 : 1) - (otherTitle == null ? 0 : 1);
+		}
+		return title.compareTo(otherTitle);
+	}
+	
+	private static List<String> getTitles(AlbumItemPage page) {
+		List<String> titles = new ArrayList<String>();
+		for (AlbumItem albumItem : page.getAlbumItems()) {
+			titles.add((String) albumItem.getField(TITLE_FIELD_NAME).getValue());
+		}
+		return titles;
+	}
+
+	private void assertLookupsAfterModifications() {
+		try {
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)));
+
+			// remove every third item, starting with the first one
+			List<Long> removedIds = new ArrayList<Long>();
+			List<Long> remainingIds = new ArrayList<Long>();
+			for (int i=0; i<NUMBER_OF_ITEMS; i++) {
+				long albumItemId = AlbumItemStore.getAlbumItems().get(i).getItemId();
+				if (i % 3 == 0) {
+					removedIds.add(albumItemId);
+				} else {
+					remainingIds.add(albumItemId);
+				}
+			}
+
+			for (long removedId : removedIds) {
+				DatabaseOperations.deleteAlbumItem(AlbumItemStore.getAlbumItem(removedId));
+			}
+			// the first item is removed by itself, the others together
+			AlbumItemStore.removeAlbumItem(removedIds.get(0));
+			AlbumItemStore.removeAlbumItems(removedIds.subList(1, removedIds.size()));
+
+			Assert.assertEquals("The removed items should not be part of the store", remainingIds.size(), AlbumItemStore.getAlbumItems().size());
+			for (long removedId : removedIds) {
+				Assert.assertNull("The removed item should not be found", AlbumItemStore.getAlbumItem(removedId));
+			}
+			for (long remainingId : remainingIds) {
+				Assert.assertEquals("The remaining item should be found", remainingId, AlbumItemStore.getAlbumItem(remainingId).getItemId());
+			}
+
+			// update the last item and append a new one
+			long lastId = remainingIds.get(remainingIds.size() - 1);
+			AlbumItem updatedAlbumItem = DatabaseOperations.getAlbumItem(ALBUM_NAME, lastId);
+			updatedAlbumItem.getField(TITLE_FIELD_NAME).setValue("updated title");
+			DatabaseOperations.updateAlbumItem(updatedAlbumItem);
+			AlbumItemStore.updateAlbumItem(updatedAlbumItem);
+			Assert.assertEquals("The item should have been updated", "updated title", 
+					AlbumItemStore.getAlbumItem(lastId).getField(TITLE_FIELD_NAME).getValue());
+
+			List<ItemField> fields = new ArrayList<ItemField>();
+			fields.add(new ItemField(TITLE_FIELD_NAME, FieldType.TEXT, "new title"));
+			fields.add(new ItemField("Pages", FieldType.INTEGER, 42));
+			long newId = DatabaseOperations.addAlbumItem(new AlbumItem(ALBUM_NAME, fields), true);
+			AlbumItemStore.addAlbumItem(DatabaseOperations.getAlbumItem(ALBUM_NAME, newId));
+			Assert.assertEquals("The new item should be found", "new title", AlbumItemStore.getAlbumItem(newId).getField(TITLE_FIELD_NAME).getValue());
+			Assert.assertEquals("The new item should be the last one", newId, 
+					AlbumItemStore.getAlbumItems().get(AlbumItemStore.getAlbumItems().size() - 1).getItemId());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album item store could not be modified");
+		}
+	}
+
+	private void assertSortInMemory() {
+		try {
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)));
+
+			Assert.assertTrue("The items should be sorted in memory", AlbumItemStore.sortAlbumItems(ALBUM_NAME, "Pages", false));
+			for (int i=0; i<NUMBER_OF_ITEMS; i++) {
+				Assert.assertEquals("The items should be sorted by descending pages", 
+						"title " + (NUMBER_OF_ITEMS - 1 - i), AlbumItemStore.getAlbumItems().get(i).getField(TITLE_FIELD_NAME).getValue());
+			}
+
+			Assert.assertTrue("The items should be sorted in memory", AlbumItemStore.sortAlbumItems(ALBUM_NAME, TITLE_FIELD_NAME, true));
+			List<String> expectedTitles = new ArrayList<String>();
+			for (int i=0; i<NUMBER_OF_ITEMS; i++) {
+				expectedTitles.add("title " + i);
+			}
+			Collections.sort(expectedTitles);
+
+			for (int i=0; i<NUMBER_OF_ITEMS; i++) {
+				AlbumItem albumItem = AlbumItemStore.getAlbumItems().get(i);
+				Assert.assertEquals("The items should be sorted by ascending title", expectedTitles.get(i), albumItem.getField(TITLE_FIELD_NAME).getValue());
+				Assert.assertEquals("The positions of the items should have been updated", 
+						albumItem.getField(TITLE_FIELD_NAME).getValue(), AlbumItemStore.getAlbumItem(albumItem.getItemId()).getField(TITLE_FIELD_NAME).getValue());
+			}
+
+			Assert.assertFalse("Unknown fields cannot be sorted in memory", AlbumItemStore.sortAlbumItems(ALBUM_NAME, "Unknown Field", true));
+			Assert.assertFalse("Items of other albums cannot be sorted in memory", AlbumItemStore.sortAlbumItems("Other Album", "Pages", true));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album items could not be sorted");
+		}
+	}
+
+	private void assertStoreContainsAllItemsInOrder() {
+		try {
+			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(QueryBuilder.createSelectStarQuery(ALBUM_NAME)));
+
+			Assert.assertEquals("The store should contain all items", NUMBER_OF_ITEMS, AlbumItemStore.getAlbumItems().size());
+
+			int index = 0;
+			for (AlbumItem albumItem : AlbumItemStore.getAlbumItems()) {
+				Assert.assertEquals("The items are not in the expected order", "title " + index, albumItem.getField(TITLE_FIELD_NAME).getValue());
+				index++;
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The album item store could not be initialized");
+		}
+	}
+
+	private void createBooksAlbumWithItems() {
+		List<MetaItemField> columns = new ArrayList<MetaItemField>();
+		columns.add(new MetaItemField(TITLE_FIELD_NAME, FieldType.TEXT, true));
+		columns.add(new MetaItemField("Pages", FieldType.INTEGER, false));
+
+		List<AlbumItem> albumItems = new ArrayList<AlbumItem>();
+		for (int i=0; i<NUMBER_OF_ITEMS; i++) {
+			List<ItemField> fields = new ArrayList<ItemField>();
+			fields.add(new ItemField(TITLE_FIELD_NAME, FieldType.TEXT, "title " + i));
+			fields.add(new ItemField("Pages", FieldType.INTEGER, i));
+			albumItems.add(new AlbumItem(ALBUM_NAME, fields));
+		}
+
+		try {
+			DatabaseOperations.createNewAlbum(ALBUM_NAME, columns, false);
+			DatabaseOperations.addAlbumItems(ALBUM_NAME, albumItems);
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Creation of album " + ALBUM_NAME + " failed");
+		}
+	}
+}
@@ -21,10 +21,14 @@ package org.sammelbox.albumitems;
 import junit.framework.Assert;
 import org.junit.*;
 import org.sammelbox.TestRunner;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.UnitOfWork;
 import org.sammelbox.model.album.*;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.view.image.ImageManipulator;
 
+import java.io.File;
 import java.sql.Date;
 import java.util.*;
 
@@ -159,6 +163,158 @@ public class UpdateAlbumItemTests {
 		}
 	}
 
+	@Test
+	public void updateChangedFieldsOfSeveralAlbumItems() {
+		try {
+			DatabaseOperations.addAlbumItem(createSampleAlbumItem(albumName), true);
+			
+			AlbumItem albumItemWithPictures = DatabaseOperations.getAlbumItem(albumName, 1);
+			albumItemWithPictures.setPictures(Arrays.asList(
+					new AlbumItemPicture(TestRunner.PATH_TO_TEST_PICTURE_1, TestRunner.PATH_TO_TEST_PICTURE_1, albumName, 1)));
+			DatabaseOperations.updateAlbumItem(albumItemWithPictures);
+			AlbumItem firstOriginalAlbumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			
+			AlbumItem firstChangedAlbumItem = new AlbumItem(albumName);
+			firstChangedAlbumItem.setItemId(1L);
+			firstChangedAlbumItem.addField("Book Title", FieldType.TEXT, "changed book title");
+			firstChangedAlbumItem.addField("Price", FieldType.DECIMAL, 1.5d);
+			
+			AlbumItem secondChangedAlbumItem = new AlbumItem(albumName);
+			secondChangedAlbumItem.setItemId(2L);
+			secondChangedAlbumItem.addField("Price", FieldType.DECIMAL, 2.5d);
+			
+			DatabaseOperations.updateAlbumItemFields(albumName, Arrays.asList(firstChangedAlbumItem, secondChangedAlbumItem));
+			
+			AlbumItem firstUpdatedAlbumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			Assert.assertEquals("changed book title", firstUpdatedAlbumItem.getField("Book Title").getValue());
+			Assert.assertEquals(1.5d, firstUpdatedAlbumItem.getField("Price").getValue());
+			Assert.assertEquals("Unchanged fields should keep their value", "the author", firstUpdatedAlbumItem.getField("Author").getValue());
+			Assert.assertEquals("The pictures should not be touched", 1, firstUpdatedAlbumItem.getPictures().size());
+			Assert.assertFalse("The content version should have been updated", 
+					firstOriginalAlbumItem.getContentVersion().equals(firstUpdatedAlbumItem.getContentVersion()));
+			
+			AlbumItem secondUpdatedAlbumItem = DatabaseOperations.getAlbumItem(albumName, 2);
+			Assert.assertEquals(2.5d, secondUpdatedAlbumItem.getField("Price").getValue());
+			Assert.assertEquals("Unchanged fields should keep their value", "book title", secondUpdatedAlbumItem.getField("Book Title").getValue());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("update of the changed fields failed");
+		}
+	}
+
+	@Test
+	public void updateOnlyDirtyFieldsOfAlbumItem() {
+		try {
+			AlbumItem albumItemWithPictures = DatabaseOperations.getAlbumItem(albumName, 1);
+			albumItemWithPictures.setPictures(Arrays.asList(
+					new AlbumItemPicture(TestRunner.PATH_TO_TEST_PICTURE_1, TestRunner.PATH_TO_TEST_PICTURE_1, albumName, 1)));
+			DatabaseOperations.updateAlbumItem(albumItemWithPictures);
+
+			AlbumItem originalAlbumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			long pictureIdBeforeUpdate = originalAlbumItem.getFirstPicture().getPictureID();
+			Assert.assertTrue("A loaded album item should not have dirty fields", originalAlbumItem.getDirtyFields().isEmpty());
+			Assert.assertFalse("Loading the pictures should not change them", originalAlbumItem.hasChangedPictures());
+
+			originalAlbumItem.setFieldValue("Price", 3.5d);
+			originalAlbumItem.setFieldValue("Author", "the author");
+			Assert.assertEquals("Only the price has been changed", 1, originalAlbumItem.getDirtyFields().size());
+
+			DatabaseOperations.updateAlbumItem(originalAlbumItem);
+			Assert.assertTrue("An updated album item should be clean", originalAlbumItem.getDirtyFields().isEmpty());
+
+			AlbumItem updatedAlbumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			Assert.assertEquals(3.5d, updatedAlbumItem.getField("Price").getValue());
+			Assert.assertEquals("the author", updatedAlbumItem.getField("Author").getValue());
+			Assert.assertEquals("The picture record should not be rewritten", pictureIdBeforeUpdate, updatedAlbumItem.getFirstPicture().getPictureID());
+			Assert.assertFalse("The content version should have been updated", 
+					originalAlbumItem.getContentVersion().equals(updatedAlbumItem.getContentVersion()));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("update of the dirty fields failed");
+		}
+	}
+
+	@Test
+	public void keepDirtyFieldsOfDiscardedAlbumItemUpdate() {
+		try {
+			AlbumItem albumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			albumItem.setFieldValue("Price", 3.5d);
+
+			try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+				DatabaseOperations.updateAlbumItem(albumItem);
+				Assert.assertEquals("The album item should stay dirty until the unit of work is committed", 1, albumItem.getDirtyFields().size());
+			}
+			Assert.assertEquals("The album item should stay dirty if its update is discarded", 1, albumItem.getDirtyFields().size());
+
+			try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+				DatabaseOperations.updateAlbumItem(albumItem);
+				unitOfWork.commit();
+			}
+			Assert.assertTrue("A committed album item should be clean", albumItem.getDirtyFields().isEmpty());
+			Assert.assertEquals(3.5d, DatabaseOperations.getAlbumItem(albumName, 1).getField("Price").getValue());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("update of the album item within a unit of work failed");
+		}
+	}
+
+	@Test
+	public void updateOnlyChangedPicturesOfAlbumItem() {
+		try {
+			AlbumItem albumItemWithPictures = DatabaseOperations.getAlbumItem(albumName, 1);
+			albumItemWithPictures.setPictures(Arrays.asList(
+					new AlbumItemPicture(TestRunner.PATH_TO_TEST_PICTURE_1, TestRunner.PATH_TO_TEST_PICTURE_1, albumName, 1)));
+			DatabaseOperations.updateAlbumItem(albumItemWithPictures);
+
+			AlbumItem albumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			long firstPictureId = albumItem.getFirstPicture().getPictureID();
+			albumItem.getPictures().add(new AlbumItemPicture(TestRunner.PATH_TO_TEST_PICTURE_2, TestRunner.PATH_TO_TEST_PICTURE_2, albumName, 1));
+			Assert.assertTrue(albumItem.hasChangedPictures());
+			DatabaseOperations.updateAlbumItem(albumItem);
+
+			albumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			Assert.assertEquals(2, albumItem.getPictures().size());
+			Assert.assertEquals("The kept picture record should not be rewritten", firstPictureId, albumItem.getPictures().get(0).getPictureID());
+			Assert.assertEquals(TestRunner.PATH_TO_TEST_PICTURE_2, albumItem.getPictures().get(1).getOriginalPictureName());
+			long secondPictureId = albumItem.getPictures().get(1).getPictureID();
+
+			albumItem.getPictures().remove(0);
+			DatabaseOperations.updateAlbumItem(albumItem);
+
+			albumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			Assert.assertEquals(1, albumItem.getPictures().size());
+			Assert.assertEquals("The kept picture record should not be rewritten", secondPictureId, albumItem.getFirstPicture().getPictureID());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("update of the changed pictures failed");
+		}
+	}
+
+	@Test
+	public void keepFilesOfRemovedPicturesUntilTheUpdateIsCommitted() {
+		try {
+			AlbumItem albumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			AlbumItemPicture picture = ImageManipulator.adaptAndStoreImageForCollector(new File(TestRunner.PATH_TO_TEST_PICTURE_1), albumName);
+			albumItem.setPictures(new ArrayList<AlbumItemPicture>(Arrays.asList(picture)));
+			DatabaseOperations.updateAlbumItem(albumItem);
+
+			albumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			albumItem.getPictures().clear();
+			try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+				DatabaseOperations.updateAlbumItem(albumItem);
+			}
+			Assert.assertEquals("The discarded update should keep the picture", 1, DatabaseOperations.getAlbumItem(albumName, 1).getPictures().size());
+			Assert.assertTrue("The discarded update should keep the original", new File(picture.getOriginalPicturePath()).exists());
+			Assert.assertTrue("The discarded update should keep the thumbnail", new File(picture.getThumbnailPicturePath()).exists());
+
+			try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+				DatabaseOperations.updateAlbumItem(albumItem);
+				Assert.assertTrue("The original should be kept until the update is committed", new File(picture.getOriginalPicturePath()).exists());
+				unitOfWork.commit();
+			}
+			Assert.assertFalse("The original of the removed picture should be deleted", new File(picture.getOriginalPicturePath()).exists());
+			Assert.assertFalse("The thumbnail of the removed picture should be deleted", new File(picture.getThumbnailPicturePath()).exists());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("update of the changed pictures failed");
+		}
+	}
+
 	private void createBooksAlbum() {
 		MetaItemField titleField = new MetaItemField("Book Title", FieldType.TEXT, true);
 		MetaItemField authorField = new MetaItemField("Author", FieldType.TEXT, true);
@@ -25,6 +25,8 @@ import org.sammelbox.controller.filesystem.FileSystemLocations;
 import org.sammelbox.controller.filesystem.importing.CSVImporter;
 import org.sammelbox.controller.filesystem.importing.ImportException;
 import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.UnitOfWork;
 import org.sammelbox.model.database.DatabaseStringUtilities;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
@@ -151,6 +153,64 @@ public class CSVImportTests {
 		}
 	}
 	
+	@Test
+	public void testCSVImportWithMissingPicture() {
+		String tmpCSVFilePath = FileSystemLocations.TEMP_DIR + "/csvFileWithAbsolutImagePathPlaceholders.csv";
+		replaceImagePlaceholdersAndWriteToOutputFilePath(TEST_CSV_1, tmpCSVFilePath);
+		String csvWithMissingPicture = FileSystemAccessWrapper.readFileAsString(tmpCSVFilePath)
+				.replace(PICTURE_B, CSV_TEST_FOLDER + File.separatorChar + "missingPicture.png");
+		FileSystemAccessWrapper.writeToFile(csvWithMissingPicture, tmpCSVFilePath);
+		int numberOfThumbnails = new File(FileSystemLocations.getThumbnailsDir()).list().length;
+		
+		try {
+			CSVImporter.importCSV(IMPORT_ALBUM_NAME, tmpCSVFilePath, ";", "IMG", "!", false);
+			fail("The import should fail since a picture is missing");
+		} catch (ImportException e) {
+			// expected, since the picture cannot be found
+		}
+		
+		try {
+			assertTrue("The table should not have been created", 
+					!TestQueries.isDatabaseTablePresent(DatabaseStringUtilities.generateTableName(IMPORT_ALBUM_NAME)));
+			
+			File albumPicturesDirectory = new File(FileSystemAccessWrapper.getFilePathForAlbum(IMPORT_ALBUM_NAME));
+			assertTrue("The pictures which have already been copied should be removed", 
+					!albumPicturesDirectory.exists() || albumPicturesDirectory.list().length == 0);
+			assertTrue("The thumbnails which have already been created should be removed", 
+					new File(FileSystemLocations.getThumbnailsDir()).list().length == numberOfThumbnails);
+		} catch (DatabaseWrapperOperationException e) {
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testCSVImportWhoseChangesAreDiscarded() {
+		String tmpCSVFilePath = FileSystemLocations.TEMP_DIR + "/csvFileWithAbsolutImagePathPlaceholders.csv";
+		replaceImagePlaceholdersAndWriteToOutputFilePath(TEST_CSV_1, tmpCSVFilePath);
+		int numberOfThumbnails = new File(FileSystemLocations.getThumbnailsDir()).list().length;
+		
+		try {
+			// the import joins the outer unit of work, which fails after the pictures have been copied
+			try (UnitOfWork unitOfWork = DatabaseIntegrityManager.beginUnitOfWork()) {
+				CSVImporter.importCSV(IMPORT_ALBUM_NAME, tmpCSVFilePath, ";", "IMG", "!", false);
+				
+				File albumPicturesDirectory = new File(FileSystemAccessWrapper.getFilePathForAlbum(IMPORT_ALBUM_NAME));
+				assertTrue("The pictures should have been copied", albumPicturesDirectory.list().length > 0);
+			}
+			
+			assertTrue("The table should not have been created", 
+					!TestQueries.isDatabaseTablePresent(DatabaseStringUtilities.generateTableName(IMPORT_ALBUM_NAME)));
+			
+			File albumPicturesDirectory = new File(FileSystemAccessWrapper.getFilePathForAlbum(IMPORT_ALBUM_NAME));
+			assertTrue("The copied pictures should be removed", 
+					!albumPicturesDirectory.exists() || albumPicturesDirectory.list().length == 0);
+			assertTrue("The created thumbnails should be removed", 
+					new File(FileSystemLocations.getThumbnailsDir()).list().length == numberOfThumbnails);
+		} catch (ImportException | DatabaseWrapperOperationException e) {
+			fail(e.getMessage());
+		}
+	}
+	
 	@Test
 	public void testCSVImport4Faulty() {		
 		try {
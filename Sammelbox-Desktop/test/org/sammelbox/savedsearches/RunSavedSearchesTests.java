@@ -67,7 +67,7 @@ public class RunSavedSearchesTests {
 			
 			if (savedSearches.get(0).getName().equals("Programming Languages")) {
 				AlbumItemStore.reinitializeStore(new AlbumItemResultSet(
-						ConnectionManager.getConnection(), savedSearches.get(0).getSQLQueryString()));
+						ConnectionManager.getConnection(), savedSearches.get(0).getSQLQuery()));
 				
 				assertTrue("There should be two books about programming languages", AlbumItemStore.getAllAlbumItems().size() == 2);
 			} else {
@@ -93,12 +93,12 @@ public class RunSavedSearchesTests {
 			for (SavedSearch albumView : albumViews) {
 				if (albumView.getName().equals("Unwatched")) {
 					AlbumItemStore.reinitializeStore(new AlbumItemResultSet(
-							ConnectionManager.getConnection(), albumView.getSQLQueryString()));
+							ConnectionManager.getConnection(), albumView.getSQLQuery()));
 					
 					assertTrue("Both views should show three items", AlbumItemStore.getAllAlbumItems().size() == 3);
 				} else if (albumView.getName().equals("My favorite DVDs")) {
 					AlbumItemStore.reinitializeStore(new AlbumItemResultSet(
-							ConnectionManager.getConnection(), albumView.getSQLQueryString()));
+							ConnectionManager.getConnection(), albumView.getSQLQuery()));
 					
 					assertTrue("Both views should show three items", AlbumItemStore.getAllAlbumItems().size() == 3);
 				} else {
@@ -78,7 +78,7 @@ public class SavedSearchesTests {
 			
 			for (SavedSearch savedSearch : SavedSearchManager.getSavedSearches("DVDs")) {
 				if (savedSearch.getName().equals("Before 2000")) {
-					AlbumItemStore.reinitializeStore(new AlbumItemResultSet(ConnectionManager.getConnection(), savedSearch.getSQLQueryString()));
+					AlbumItemStore.reinitializeStore(new AlbumItemResultSet(ConnectionManager.getConnection(), savedSearch.getSQLQuery()));
 					
 					assertTrue("There should be 5 movies from before the year 2000 (or equal)", 
 							AlbumItemStore.getAllAlbumItems().size() == 5);
@@ -21,7 +21,9 @@ package org.sammelbox.searching;
 import org.junit.*;
 import org.sammelbox.TestRunner;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.PreparedStatementCache;
 import org.sammelbox.model.album.AlbumItemResultSet;
+import org.sammelbox.model.database.CompiledQuery;
 import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.QueryBuilderException;
 import org.sammelbox.model.database.QueryComponent;
@@ -321,4 +323,51 @@ public class AdvancedSearchTests {
 			fail("testSearchArtistInEmptyMusicAlbumUsingQueryBuilder failed");
 		}
 	}
+
+	@Test
+	public void testSearchesDifferingOnlyInValuesReuseTheirStatement() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			ArrayList<QueryComponent> queryComponents = new ArrayList<QueryComponent>();
+			queryComponents.add(QueryBuilder.getQueryComponent("Title", QueryOperator.EQUALS, "Short Circuit 2"));
+			CompiledQuery firstQuery = QueryBuilder.buildQuery(queryComponents, true, "DVDs");
+			
+			queryComponents.clear();
+			queryComponents.add(QueryBuilder.getQueryComponent("Title", QueryOperator.EQUALS, "The Simpsons Movie"));
+			CompiledQuery secondQuery = QueryBuilder.buildQuery(queryComponents, true, "DVDs");
+			
+			assertTrue("Both queries should share their SQL text", firstQuery.getSql().equals(secondQuery.getSql()));
+			assertTrue("The values should not be part of the SQL text", !firstQuery.getSql().contains("Short Circuit 2"));
+			
+			AlbumItemResultSet searchResults = DatabaseOperations.executeSQLQuery(firstQuery);
+			assertTrue("The first search should find Short Circuit 2", searchResults.moveToNext() && !searchResults.moveToNext());
+			searchResults.close();
+			
+			PreparedStatementCache.resetStatistics();
+			searchResults = DatabaseOperations.executeSQLQuery(secondQuery);
+			assertTrue("The second search should find The Simpsons Movie", searchResults.moveToNext() && !searchResults.moveToNext());
+			searchResults.close();
+			
+			assertTrue("The statement of the first search should have been reused", 
+					PreparedStatementCache.getHitCount() == 1 && PreparedStatementCache.getMissCount() == 0);
+		} catch (DatabaseWrapperOperationException | QueryBuilderException e) {
+			fail("testSearchesDifferingOnlyInValuesReuseTheirStatement failed");
+		}
+	}
+	
+	@Test
+	public void testSearchValuesAreNotInterpretedAsSQL() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			ArrayList<QueryComponent> queryComponents = new ArrayList<QueryComponent>();
+			queryComponents.add(QueryBuilder.getQueryComponent("Title", QueryOperator.CONTAINS, "' OR '1'='1"));
+			AlbumItemResultSet searchResults = DatabaseOperations.executeSQLQuery(
+					QueryBuilder.buildQuery(queryComponents, true, "DVDs"));
+			
+			assertTrue("No title contains the value", !searchResults.moveToNext());
+			searchResults.close();
+		} catch (DatabaseWrapperOperationException | QueryBuilderException e) {
+			fail("testSearchValuesAreNotInterpretedAsSQL failed");
+		}
+	}
 }
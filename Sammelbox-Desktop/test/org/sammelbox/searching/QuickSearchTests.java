@@ -21,13 +21,25 @@ package org.sammelbox.searching;
 import org.junit.*;
 import org.sammelbox.TestRunner;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.QuickSearchManager;
+import org.sammelbox.controller.managers.QuickSearchManager.QuickSearchResultHandler;
+import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.model.album.AlbumItemResultSet;
 import org.sammelbox.model.album.MetaItemField;
 import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseConstants;
 import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.utilities.TestQueries;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -162,4 +174,268 @@ public class QuickSearchTests {
 			fail("Failed due to internal database error");
 		}
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void testQuickSearchRanksBetterMatchesFirst() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("Smith");
+			quickSearchTerms.add("Wild");
+			
+			List<String> titles = getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms));
+			
+			assertTrue("Resultset should contain 2 items", titles.size() == 2);
+			assertTrue("Wild Wild West matches both terms and should be ranked first", titles.get(0).equals("Wild Wild West"));
+			assertTrue("Independence Day matches a single term and should be ranked second", titles.get(1).equals("Independence Day"));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	@Test
+	public void testQuickSearchMatchesWordPrefixes() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("Mary-Lou");
+			
+			List<String> titles = getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms));
+			
+			assertTrue("The only result should be RED", titles.size() == 1 && titles.get(0).equals("RED"));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	@Test
+	public void testQuickSearchFallsBackToInfixMatches() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("mith");
+			
+			List<String> titles = getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms));
+			
+			assertTrue("Resultset should contain 2 items", titles.size() == 2);
+			assertTrue("Wild Wild West should be found", titles.contains("Wild Wild West"));
+			assertTrue("Independence Day should be found", titles.contains("Independence Day"));
+			
+			quickSearchTerms.add("Limit");
+			titles = getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms));
+			
+			assertTrue("Resultset should contain 3 items", titles.size() == 3);
+			assertTrue("The word prefix match should be ranked first", titles.get(0).equals("Limitless"));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	@Test
+	public void testQuickSearchFindsInfixMatchesAlongWithPrefixMatches() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			for (AlbumItem albumItem : DatabaseOperations.getAlbumItems(QueryBuilder.createSelectStarQuery("DVDs"))) {
+				if (albumItem.getField("Title").getValue().equals("Wild Wild West")) {
+					albumItem.getField("Title").setValue("Unlimited");
+					DatabaseOperations.updateAlbumItem(albumItem);
+				}
+			}
+			
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("Limit");
+			List<String> titles = getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms));
+			
+			assertTrue("Resultset should contain 2 items", titles.size() == 2);
+			assertTrue("The word prefix match should be ranked first", titles.get(0).equals("Limitless"));
+			assertTrue("The infix match should be found as well", titles.get(1).equals("Unlimited"));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	@Test
+	public void testQuickSearchFollowsAlbumItemChanges() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("Smith");
+			assertTrue("Resultset should contain 2 items", getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms)).size() == 2);
+			
+			AlbumItem independenceDay = null;
+			AlbumItem limitless = null;
+			for (AlbumItem albumItem : DatabaseOperations.getAlbumItems(QueryBuilder.createSelectStarQuery("DVDs"))) {
+				if (albumItem.getField("Title").getValue().equals("Independence Day")) {
+					independenceDay = albumItem;
+				} else if (albumItem.getField("Title").getValue().equals("Limitless")) {
+					limitless = albumItem;
+				}
+			}
+			
+			DatabaseOperations.deleteAlbumItem(independenceDay);
+			List<String> titles = getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms));
+			assertTrue("The deleted item should not be found", titles.size() == 1 && titles.get(0).equals("Wild Wild West"));
+			
+			limitless.getField("Title").setValue("Limitless Director's Cut");
+			DatabaseOperations.updateAlbumItem(limitless);
+			quickSearchTerms.clear();
+			quickSearchTerms.add("director's");
+			titles = getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms));
+			assertTrue("The updated item should be found", titles.size() == 1 && titles.get(0).equals("Limitless Director's Cut"));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	@Test
+	public void testQuickSearchIgnoresFieldsThatAreNotQuickSearchable() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("Marley");
+			assertTrue("Resultset should contain 1 item", getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms)).size() == 1);
+			
+			for (MetaItemField metaItemField : DatabaseOperations.getAlbumItemMetaMap("DVDs").values()) {
+				if (metaItemField.getName().equals("Title")) {
+					metaItemField.setQuickSearchable(false);
+					DatabaseOperations.updateQuickSearchable("DVDs", metaItemField);
+				}
+			}
+			
+			assertTrue("The title should no longer be searched", getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms)).isEmpty());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	@Test
+	public void testQuickSearchableFieldsAreIndexedIndividually() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			assertTrue("The pictures should be indexed by their album item", 
+					TestQueries.isDatabaseIndexPresent(DatabaseStringUtilities.generatePictureTableName("DVDs") + DatabaseConstants.INDEX_NAME_SUFFIX));
+			
+			for (MetaItemField metaItemField : DatabaseOperations.getAlbumItemMetaMap("DVDs").values()) {
+				if (metaItemField.getName().equals("Title")) {
+					metaItemField.setQuickSearchable(false);
+					DatabaseOperations.updateQuickSearchable("DVDs", metaItemField);
+				}
+			}
+			
+			String indexName = DatabaseStringUtilities.generateIndexTableName("DVDs");
+			assertTrue("The composite index should have been replaced", !TestQueries.isDatabaseIndexPresent(indexName));
+			assertTrue("The actors should be indexed", TestQueries.isDatabaseIndexPresent(indexName + "_Actors"));
+			assertTrue("The title should not be indexed", !TestQueries.isDatabaseIndexPresent(indexName + "_Title"));
+			
+			for (MetaItemField metaItemField : DatabaseOperations.getAlbumItemMetaMap("DVDs").values()) {
+				if (metaItemField.getName().equals("Title")) {
+					assertTrue("The title should not be quicksearchable", !metaItemField.isQuickSearchable());
+					metaItemField.setQuickSearchable(true);
+					DatabaseOperations.updateQuickSearchable("DVDs", metaItemField);
+				}
+			}
+			
+			assertTrue("The title should be indexed", TestQueries.isDatabaseIndexPresent(indexName + "_Title"));
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("Marley");
+			assertTrue("The title should be searched again", getTitles(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms)).size() == 1);
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	@Test
+	public void testOnlyTheLatestAsynchronousQuickSearchIsDelivered() {
+		final List<List<AlbumItem>> deliveredResults = Collections.synchronizedList(new ArrayList<List<AlbumItem>>());
+		final CountDownLatch firstDelivery = new CountDownLatch(1);
+		QuickSearchManager quickSearchManager = new QuickSearchManager(new Executor() {
+			@Override
+			public void execute(Runnable runnable) {
+				runnable.run();
+			}
+		}, 50);
+		
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			QuickSearchResultHandler resultHandler = new QuickSearchResultHandler() {
+				@Override
+				public void handleQuickSearchResult(String albumName, List<AlbumItem> albumItems) {
+					deliveredResults.add(albumItems);
+					firstDelivery.countDown();
+				}
+			};
+			
+			quickSearchManager.scheduleQuickSearch("DVDs", Arrays.asList("Smith"), resultHandler);
+			quickSearchManager.scheduleQuickSearch("DVDs", Arrays.asList("Cooper"), resultHandler);
+			quickSearchManager.scheduleQuickSearch("DVDs", Arrays.asList("Marley"), resultHandler);
+			
+			assertTrue("The latest search should be delivered", firstDelivery.await(10, TimeUnit.SECONDS));
+			// give superseded searches the chance to (wrongly) deliver their results
+			Thread.sleep(200);
+			
+			assertTrue("Only the latest search should be delivered", deliveredResults.size() == 1);
+			assertTrue("Resultset should contain 1 item", deliveredResults.get(0).size() == 1);
+			assertTrue("Marley & Me should be found", 
+					deliveredResults.get(0).get(0).getField("Title").<String>getValue().equals("Marley & Me"));
+		} catch (InterruptedException e) {
+			fail("Interrupted while waiting for the search result");
+		} finally {
+			quickSearchManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void testClearedQuickSearchDeliversTheWholeAlbum() {
+		final List<List<AlbumItem>> deliveredResults = Collections.synchronizedList(new ArrayList<List<AlbumItem>>());
+		final CountDownLatch firstDelivery = new CountDownLatch(1);
+		QuickSearchManager quickSearchManager = new QuickSearchManager(new Executor() {
+			@Override
+			public void execute(Runnable runnable) {
+				runnable.run();
+			}
+		}, 50);
+		
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestRunner.PATH_TO_TEST_CBK);
+			QuickSearchResultHandler resultHandler = new QuickSearchResultHandler() {
+				@Override
+				public void handleQuickSearchResult(String albumName, List<AlbumItem> albumItems) {
+					deliveredResults.add(albumItems);
+					firstDelivery.countDown();
+				}
+			};
+			
+			quickSearchManager.scheduleQuickSearch("DVDs", Arrays.asList("Marley"), resultHandler);
+			quickSearchManager.scheduleQuickSearch("DVDs", null, resultHandler);
+			
+			assertTrue("The whole album should be delivered", firstDelivery.await(10, TimeUnit.SECONDS));
+			// give the superseded search the chance to (wrongly) deliver its result
+			Thread.sleep(200);
+			
+			assertTrue("Only the whole album should be delivered", deliveredResults.size() == 1);
+			assertTrue("All items of the album should be delivered", 
+					deliveredResults.get(0).size() == DatabaseOperations.getNumberOfItemsInAlbum("DVDs"));
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		} catch (InterruptedException e) {
+			fail("Interrupted while waiting for the search result");
+		} finally {
+			quickSearchManager.shutdown();
+		}
+	}
+	
+	private static List<String> getTitles(AlbumItemResultSet searchResults) throws DatabaseWrapperOperationException {
+		List<String> titles = new ArrayList<String>();
+		
+		while (searchResults.moveToNext()) {
+			for (int i=1; i<searchResults.getFieldCount(); i++) {
+				if (searchResults.getFieldName(i).equals("Title")) {
+					titles.add(searchResults.<String>getFieldValue(i));
+				}
+			}
+		}
+		searchResults.close();
+		
+		return titles;
+	}
+}
@@ -18,11 +18,13 @@
 
 package org.sammelbox.utilities;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.model.database.CompiledQuery;
 import org.sammelbox.model.database.DatabaseStringUtilities;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
@@ -44,6 +46,54 @@ public class TestQueries {
 		return false;
 	}
 	
+	public static boolean isDatabaseIndexPresent(String indexName) throws DatabaseWrapperOperationException {
+		String query = "SELECT name FROM sqlite_master WHERE type='index' AND name='" + indexName + "';";
+	
+		try (Statement statement = ConnectionManager.getConnection().createStatement();
+			 ResultSet resultSet = statement.executeQuery(query)) {
+			
+			return resultSet.next();
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
+	
+	public static String getIndexedColumnName(String indexName) throws DatabaseWrapperOperationException {
+		if (!isDatabaseIndexPresent(indexName)) {
+			return null;
+		}
+		
+		String query = "PRAGMA index_info('" + indexName + "');";
+	
+		try (Statement statement = ConnectionManager.getConnection().createStatement();
+			 ResultSet resultSet = statement.executeQuery(query)) {
+			
+			return resultSet.next() ? resultSet.getString("name") : null;
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
+	
+	/** Returns the details of the query plan chosen by SQLite for the given query, one line per step */
+	public static String getQueryPlan(CompiledQuery query) throws DatabaseWrapperOperationException {
+		try (PreparedStatement statement = ConnectionManager.getConnection().prepareStatement("EXPLAIN QUERY PLAN " + query.getSql())) {
+			for (int i=0; i<query.getParameters().size(); i++) {
+				statement.setObject(i + 1, query.getParameters().get(i));
+			}
+			
+			StringBuilder queryPlan = new StringBuilder();
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					queryPlan.append(resultSet.getString("detail")).append("\n");
+				}
+			}
+			
+			return queryPlan.toString();
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
+	
 	public static long getNumberOfRecordsInTable(String tableName) throws DatabaseWrapperOperationException {
 		String countQuery = " SELECT COUNT(*) AS 'numberOfItems' FROM " + DatabaseStringUtilities.encloseNameWithQuotes(tableName); 
 	